@@ -1,12 +1,16 @@
 package org.jctools.jmh.counters;
 
+import static org.jctools.counters.CountersFactory.createDynamicStripedCounter;
 import static org.jctools.counters.CountersFactory.createFixedSizeStripedCounterV6;
 import static org.jctools.counters.CountersFactory.createFixedSizeStripedCounterV8;
+import static org.jctools.counters.CountersFactory.createThreadLocalCounter;
 
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
+import org.jctools.counters.DynamicStripedLongCounter;
 import org.jctools.counters.FixedSizeStripedLongCounter;
+import org.jctools.counters.ThreadLocalLongCounter;
 import org.jctools.maps.ConcurrentAutoTable;
 
 /**
@@ -19,6 +23,8 @@ public class CountersFactory {
         LongAdder,
         FixedSizeStripedV6,
         FixedSizeStripedV8,
+        DynamicStriped,
+        ThreadLocal,
         CAT
     }
 
@@ -32,6 +38,10 @@ public class CountersFactory {
             return new FixedSizeStripedCounter(createFixedSizeStripedCounterV6(stripes));
         case FixedSizeStripedV8:
             return new FixedSizeStripedCounter(createFixedSizeStripedCounterV8(stripes));
+        case DynamicStriped:
+            return new DynamicStripedCounter(createDynamicStripedCounter(stripes));
+        case ThreadLocal:
+            return new ThreadLocalCounter(createThreadLocalCounter());
         case CAT:
             return new ConcurrentAutoTableCounter();
         default:
@@ -87,6 +97,42 @@ public class CountersFactory {
         }
     }
 
+    static class DynamicStripedCounter extends Counter {
+        private final DynamicStripedLongCounter counter;
+
+        public DynamicStripedCounter(DynamicStripedLongCounter impl) {
+            counter = impl;
+        }
+
+        @Override
+        public void inc() {
+            counter.inc();
+        }
+
+        @Override
+        public long get() {
+            return counter.get();
+        }
+    }
+
+    static class ThreadLocalCounter extends Counter {
+        private final ThreadLocalLongCounter counter;
+
+        public ThreadLocalCounter(ThreadLocalLongCounter impl) {
+            counter = impl;
+        }
+
+        @Override
+        public void inc() {
+            counter.inc();
+        }
+
+        @Override
+        public long get() {
+            return counter.get();
+        }
+    }
+
     static class ConcurrentAutoTableCounter extends Counter {
         private final ConcurrentAutoTable counter;
 
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.jmh.latency;
+
+import org.jctools.queues.IntrusiveLinkedQueueNode;
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MessagePassingQueueByTypeFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offer and poll latency distributions for MPSC queues, sampled by JMH ({@link Mode#SampleTime} reports the
+ * percentiles):
+ * <ul>
+ * <li>{@code offer}: the producer side. The linked queues offer with a single XCHG, so the tail should stay flat as
+ * producers are added, where the array queue CAS loop retries under contention.
+ * <li>{@code poll}: the consumer side, using the blocking {@code poll()}. On the linked queues a producer preempted
+ * between the XCHG and the link leaves a "bubble" the consumer spins on, which shows in the poll tail. Run with more
+ * producer threads than cores (e.g. {@code -tg 8,1} on 4 cores) to provoke it.
+ * </ul>
+ * Every offer allocates a message for all the queue types, so the comparison is between the message with an embedded
+ * link ({@code MpscIntrusiveLinkedQueue}), a message plus a node ({@code MpscLinkedQueue}) and a message in an array
+ * slot ({@code MpscArrayQueue}, {@code MpscUnboundedArrayQueue}). Producers outrunning the consumer grow the
+ * unbounded queues and fill the bounded one, use {@code -Ddelay.p} to pace them.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class MpscOfferPollLatency
+{
+    private static final long DELAY_PRODUCER = Long.getLong("delay.p", 0L);
+    private static final long DELAY_CONSUMER = Long.getLong("delay.c", 0L);
+
+    @Param({"MpscIntrusiveLinkedQueue", "MpscLinkedQueue", "MpscArrayQueue", "MpscUnboundedArrayQueue"})
+    String qType;
+    @Param(value = {"132000"})
+    String qCapacity;
+
+    MessagePassingQueue<Message> q;
+
+    public static final class Message extends IntrusiveLinkedQueueNode
+    {
+        long value;
+    }
+
+    @Setup(Level.Trial)
+    public void createQueue()
+    {
+        q = MessagePassingQueueByTypeFactory.buildQ(qType, qCapacity);
+    }
+
+    @Benchmark
+    @Group("latency")
+    @GroupThreads(3)
+    public boolean offer()
+    {
+        final Message m = new Message();
+        final boolean offered = q.offer(m);
+        if (DELAY_PRODUCER != 0)
+        {
+            Blackhole.consumeCPU(DELAY_PRODUCER);
+        }
+        return offered;
+    }
+
+    @Benchmark
+    @Group("latency")
+    @GroupThreads(1)
+    public Message poll()
+    {
+        final Message m = q.poll();
+        if (DELAY_CONSUMER != 0)
+        {
+            Blackhole.consumeCPU(DELAY_CONSUMER);
+        }
+        return m;
+    }
+
+    // iteration tear down is performed for each thread, only consumer should clear queue
+    @TearDown(Level.Iteration)
+    public void consumerClearQueue()
+    {
+        synchronized (q)
+        {
+            q.clear();
+        }
+    }
+}
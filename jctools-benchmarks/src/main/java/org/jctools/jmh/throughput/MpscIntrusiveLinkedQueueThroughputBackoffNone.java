@@ -13,9 +13,8 @@
  */
 package org.jctools.jmh.throughput;
 
-import org.jctools.queues.intrusive.MpscIntrusiveLinkedQueue;
-import org.jctools.queues.intrusive.Node;
-import org.jctools.queues.intrusive.NodeImpl;
+import org.jctools.queues.IntrusiveLinkedQueueNode;
+import org.jctools.queues.MpscIntrusiveLinkedQueue;
 import org.openjdk.jmh.annotations.AuxCounters;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -42,11 +41,14 @@ public class MpscIntrusiveLinkedQueueThroughputBackoffNone {
     private static final long DELAY_PRODUCER = Long.getLong("delay.p", 0L);
     private static final long DELAY_CONSUMER = Long.getLong("delay.c", 0L);
 
-    MpscIntrusiveLinkedQueue q;
+    MpscIntrusiveLinkedQueue<Message> q;
+
+    static final class Message extends IntrusiveLinkedQueueNode {
+    }
 
     @Setup()
     public void createQandPrimeCompilation() {
-        q = new MpscIntrusiveLinkedQueue();
+        q = new MpscIntrusiveLinkedQueue<Message>();
     }
 
     @AuxCounters
@@ -66,7 +68,7 @@ public class MpscIntrusiveLinkedQueueThroughputBackoffNone {
     @Benchmark
     @Group("tpt")
     public void offer(OfferCounters counters) {
-        if (!q.offer(new NodeImpl())) {
+        if (!q.offer(new Message())) {
             counters.offersFailed++;
             backoff();
         } else {
@@ -80,7 +82,7 @@ public class MpscIntrusiveLinkedQueueThroughputBackoffNone {
     @Benchmark
     @Group("tpt")
     public void poll(PollCounters counters) {
-        Node n = q.poll();
+        Message n = q.poll();
         if (n == null) {
             counters.pollsFailed++;
             backoff();
@@ -93,6 +93,24 @@ public class SpscChannelThroughputTest {
         }
     }
 
+    @Benchmark
+    @Group("busyBatch")
+    @GroupThreads(1)
+    public void writeBusyBatch(Control cnt) {
+        writeBusy(cnt);
+    }
+
+    @Benchmark
+    @Group("busyBatch")
+    @GroupThreads(1)
+    public int readBusyBatch(Control cnt) {
+        int read;
+        while ((read = consumer.read(capacity)) == 0 && !cnt.stopMeasurement) {
+
+        }
+        return read;
+    }
+
     @Benchmark
     @Group("backoffOneNano")
     @GroupThreads(1)
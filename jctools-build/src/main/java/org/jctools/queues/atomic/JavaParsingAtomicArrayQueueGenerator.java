@@ -80,6 +80,14 @@ public final class JavaParsingAtomicArrayQueueGenerator extends JavaParsingAtomi
             return "C_INDEX_UPDATER";
         case "producerLimit":
             return "P_LIMIT_UPDATER";
+        case "activeCycleId":
+            return "ACTIVE_CYCLE_ID_UPDATER";
+        case "consumerPosition":
+            return "C_POSITION_UPDATER";
+        case "producerFirstCycleClaim":
+            return "P_FIRST_CYCLE_CLAIM_UPDATER";
+        case "producerSecondCycleClaim":
+            return "P_SECOND_CYCLE_CLAIM_UPDATER";
         default:
             throw new IllegalArgumentException("Unhandled field: " + fieldName);
         }
@@ -28,7 +28,9 @@ import com.github.javaparser.ast.expr.ThisExpr;
 import com.github.javaparser.ast.nodeTypes.NodeWithType;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
 import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.Statement;
 import com.github.javaparser.ast.type.ArrayType;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.Type;
@@ -115,6 +117,22 @@ abstract class JavaParsingAtomicQueueGenerator extends VoidVisitorAdapter<Void>
         processSpecialNodeTypes(n);
     }
 
+    @Override
+    public void visit(BlockStmt n, Void arg) {
+        super.visit(n, arg);
+        // The field updaters work without Unsafe::getAndAddLong, so drop the checks for it
+        n.getStatements().removeIf(JavaParsingAtomicQueueGenerator::isGetAndAddLongSupportCheck);
+    }
+
+    private static boolean isGetAndAddLongSupportCheck(Statement statement) {
+        if (!statement.isIfStmt()) {
+            return false;
+        }
+        IfStmt ifStmt = statement.asIfStmt();
+        return !ifStmt.getElseStmt().isPresent() &&
+                "!UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG".equals(ifStmt.getCondition().toString());
+    }
+
     private void processSpecialNodeTypes(Parameter node) {
         processSpecialNodeTypes(node, node.getNameAsString());
     }
@@ -191,6 +209,12 @@ abstract class JavaParsingAtomicQueueGenerator extends VoidVisitorAdapter<Void>
             method.setBody(
                 fieldUpdaterCompareAndSet(fieldUpdaterFieldName, expectedValueName, newValueName));
         }
+        else if (methodName.startsWith("getAndAdd"))
+        {
+            usesFieldUpdater = true;
+            String fieldUpdaterFieldName = fieldUpdaterFieldName(variableName);
+            method.setBody(fieldUpdaterGetAndAdd(fieldUpdaterFieldName, "delta"));
+        }
         else if (methodName.startsWith("sv"))
         {
             method.setBody(fieldAssignment(variableName, newValueName));
@@ -302,6 +326,17 @@ abstract class JavaParsingAtomicQueueGenerator extends VoidVisitorAdapter<Void>
         return body;
     }
 
+    /**
+     * Generates something like
+     * <code>return P_INDEX_UPDATER.getAndAdd(this, delta)</code>
+     */
+    protected BlockStmt fieldUpdaterGetAndAdd(String fieldUpdaterFieldName, String deltaName) {
+        BlockStmt body = new BlockStmt();
+        body.addStatement(new ReturnStmt(methodCallExpr(fieldUpdaterFieldName, "getAndAdd", new ThisExpr(),
+                new NameExpr(deltaName))));
+        return body;
+    }
+
     protected MethodCallExpr methodCallExpr(String owner, String method, Expression... args) {
         MethodCallExpr methodCallExpr = new MethodCallExpr(new NameExpr(owner), method);
         for (Expression expr : args) {
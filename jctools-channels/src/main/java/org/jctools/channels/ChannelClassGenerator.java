@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jctools.channels.mapping.Mapper;
+import org.jctools.channels.mpsc.MpscChannelConsumer;
+import org.jctools.channels.mpsc.MpscChannelProducer;
+import org.jctools.channels.mpsc.MpscOffHeapFixedSizeRingBuffer;
+import org.jctools.channels.proxy.GeneratedClass;
+import org.jctools.channels.proxy.ProxyChannelFactory;
+import org.jctools.channels.spsc.SpscChannelConsumer;
+import org.jctools.channels.spsc.SpscChannelProducer;
+import org.jctools.channels.spsc.SpscOffHeapFixedSizeRingBuffer;
+
+/**
+ * Generates the classes channels would otherwise generate at runtime, the channel flyweights and the proxy channels,
+ * and writes them out as class files. Generated classes are looked up by name before being generated, so when the
+ * class files are on the class path nothing is generated or defined at runtime. This saves the generation cost on
+ * startup and allows channels to be used where classes cannot be defined at runtime, e.g. a GraalVM native image.
+ * <p>
+ * The arguments are the output directory, normally the project classes directory, followed by the classes to
+ * generate, each given as <code>kind:interface</code> where kind is one of:
+ * <ul>
+ * <li><code>spsc</code>: the flyweights of a {@link org.jctools.channels.spsc.SpscChannel} of the interface</li>
+ * <li><code>mpsc</code>: the flyweights of a {@link org.jctools.channels.mpsc.MpscChannel} of the interface</li>
+ * <li><code>spsc-proxy</code>: the proxy created by {@link ProxyChannelFactory#createSpscProxy}</li>
+ * <li><code>mpsc-proxy</code>: the proxy created by {@link ProxyChannelFactory#createMpscProxy}</li>
+ * </ul>
+ * The interfaces are loaded from the context class loader. A GraalVM reflection configuration for the generated
+ * classes and their interfaces is written to {@link #REFLECT_CONFIG}. With Maven this is run after compilation by the
+ * exec-maven-plugin:
+ * <pre>
+ * &lt;execution&gt;
+ *     &lt;id&gt;generate-channel-classes&lt;/id&gt;
+ *     &lt;phase&gt;process-classes&lt;/phase&gt;
+ *     &lt;goals&gt;&lt;goal&gt;java&lt;/goal&gt;&lt;/goals&gt;
+ *     &lt;configuration&gt;
+ *         &lt;mainClass&gt;org.jctools.channels.ChannelClassGenerator&lt;/mainClass&gt;
+ *         &lt;arguments&gt;
+ *             &lt;argument&gt;${project.build.outputDirectory}&lt;/argument&gt;
+ *             &lt;argument&gt;spsc:com.example.Trade&lt;/argument&gt;
+ *         &lt;/arguments&gt;
+ *     &lt;/configuration&gt;
+ * &lt;/execution&gt;
+ * </pre>
+ */
+public final class ChannelClassGenerator {
+
+    public static final String REFLECT_CONFIG = "META-INF/native-image/org.jctools/channels/reflect-config.json";
+
+    private ChannelClassGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException(
+                    "Usage: ChannelClassGenerator <output directory> <kind:interface>...");
+        }
+        final File outputDirectory = new File(args[0]);
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final List<GeneratedClass> generated = new ArrayList<GeneratedClass>();
+        for (int i = 1; i < args.length; i++) {
+            final String spec = args[i];
+            final int separator = spec.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected kind:interface but was: " + spec);
+            }
+            final Class<?> iFace = Class.forName(spec.substring(separator + 1), false, classLoader);
+            generated.addAll(generate(spec.substring(0, separator), iFace));
+        }
+        write(outputDirectory, generated);
+    }
+
+    /**
+     * @param kind one of <code>spsc, mpsc, spsc-proxy, mpsc-proxy</code>
+     * @param iFace the channel element, or proxy, interface
+     * @return the classes generated at runtime for the given kind of channel of the interface
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public static List<GeneratedClass> generate(String kind, Class<?> iFace) {
+        final List<GeneratedClass> generated = new ArrayList<GeneratedClass>();
+        if ("spsc".equals(kind)) {
+            final Mapper mapper = new Mapper(iFace, false);
+            generated.addAll(mapper.generateFlyweightClasses(SpscChannelProducer.class));
+            generated.addAll(mapper.generateFlyweightClasses(SpscChannelConsumer.class));
+        } else if ("mpsc".equals(kind)) {
+            final Mapper mapper = new Mapper(iFace, false);
+            generated.addAll(mapper.generateFlyweightClasses(MpscChannelProducer.class));
+            generated.addAll(mapper.generateFlyweightClasses(MpscChannelConsumer.class));
+        } else if ("spsc-proxy".equals(kind)) {
+            generated.add(ProxyChannelFactory.generateProxyClass(iFace, SpscOffHeapFixedSizeRingBuffer.class));
+        } else if ("mpsc-proxy".equals(kind)) {
+            generated.add(ProxyChannelFactory.generateProxyClass(iFace, MpscOffHeapFixedSizeRingBuffer.class));
+        } else {
+            throw new IllegalArgumentException("Unknown channel kind: " + kind);
+        }
+        return generated;
+    }
+
+    /**
+     * Write the class files, and the reflection configuration, of the generated classes to the output directory.
+     */
+    public static void write(File outputDirectory, List<GeneratedClass> generated) throws IOException {
+        final Set<String> generatedNames = new LinkedHashSet<String>();
+        final Set<String> interfaceNames = new LinkedHashSet<String>();
+        for (GeneratedClass generatedClass : generated) {
+            // nested flyweight views may be shared by several flyweights
+            if (generatedNames.add(generatedClass.name().replace('/', '.'))) {
+                write(new File(outputDirectory, generatedClass.name() + ".class"), generatedClass.byteCode());
+            }
+            interfaceNames.add(generatedClass.iFace().getName());
+        }
+
+        final StringBuilder config = new StringBuilder("[\n");
+        for (String name : generatedNames) {
+            config.append("  { \"name\": \"").append(name)
+                    .append("\", \"allDeclaredConstructors\": true, \"allPublicConstructors\": true },\n");
+        }
+        // the generated class names, and channel message layouts, are computed from the interfaces
+        for (String name : interfaceNames) {
+            config.append("  { \"name\": \"").append(name)
+                    .append("\", \"allDeclaredMethods\": true, \"allPublicMethods\": true },\n");
+        }
+        if (config.length() > 2) {
+            config.setLength(config.length() - 2);
+            config.append('\n');
+        }
+        config.append("]\n");
+        write(new File(outputDirectory, REFLECT_CONFIG), config.toString().getBytes("UTF-8"));
+    }
+
+    private static void write(File file, byte[] bytes) throws IOException {
+        final File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory: " + directory);
+        }
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+}
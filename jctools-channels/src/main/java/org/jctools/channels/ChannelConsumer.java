@@ -13,6 +13,8 @@
  */
 package org.jctools.channels;
 
+import org.jctools.queues.MessagePassingQueue.ExitCondition;
+
 /**
  * The consumer is the object which controls the reading of messages from a
  * channel. Each consumer should only be assigned to a single thread.
@@ -20,10 +22,33 @@ package org.jctools.channels;
 public interface ChannelConsumer {
 
     /**
-     * Read a message from the channel.
+     * Read a message from the channel. If the receiver throws the message is still consumed, see
+     * {@link #read(int)}.
      *
      * @return true if a message was read, false otherwise
      */
     boolean read();
 
+    /**
+     * Read up to limit messages from the channel. The messages are read as a contiguous run and the consumer
+     * progress is published once, at the end of the run.
+     * <p>
+     * A message is consumed once it is handed to the receiver. If the receiver throws, the message it was handed is
+     * released and counted as read, the progress of the run (including that message) is published and the exception
+     * is rethrown. The message is not delivered again. Messages after it are left in the channel for the next read.
+     *
+     * @param limit the maximum number of messages to read
+     * @return the number of messages read
+     */
+    int read(int limit);
+
+    /**
+     * Read messages from the channel in batches until the exit condition is met. When the channel is empty the
+     * wait strategy is called to idle.
+     *
+     * @param wait the idle strategy to use when the channel is empty
+     * @param exit checked between batches to determine whether the consumer should keep running
+     */
+    void drain(WaitStrategy wait, ExitCondition exit);
+
 }
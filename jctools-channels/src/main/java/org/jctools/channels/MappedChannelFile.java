@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels;
+
+import static org.jctools.util.PortableJvmInfo.CACHE_LINE_SIZE;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.UnsafeDirectByteBuffer;
+
+/**
+ * A memory mapped file backing a channel, allowing a producer and a consumer in different processes to share it.
+ * <p>
+ * File layout:
+ * <pre>
+ * magic(4b), version(4b), cacheLineSize(4b), requestedCapacity(4b), messageSize(4b), channelType(4b),
+ * layoutHash(8b), pad to a cache line multiple |
+ * channel buffer (as laid out by the channel ring buffer)
+ * </pre>
+ * The magic number is written last by the initializing side, after the channel buffer has been initialized. A
+ * side opening an existing file verifies the header against its own view of the channel.
+ */
+public final class MappedChannelFile {
+
+    public static final int MAGIC = 0x4A43436D; // "JCCm"
+    public static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CACHE_LINE_SIZE_OFFSET = 8;
+    private static final int REQUESTED_CAPACITY_OFFSET = 12;
+    private static final int MESSAGE_SIZE_OFFSET = 16;
+    private static final int CHANNEL_TYPE_OFFSET = 20;
+    private static final int LAYOUT_HASH_OFFSET = 24;
+    private static final int HEADER_LENGTH = 32;
+
+    /**
+     * The header is padded to a cache line multiple so that the channel buffer which follows it is cache line
+     * aligned (the mapping itself is page aligned).
+     */
+    public static final int FILE_HEADER_SIZE = (int) Pow2.align(HEADER_LENGTH, CACHE_LINE_SIZE);
+
+    private final File file;
+    private final long headerAddress;
+    private final ByteBuffer buffer;
+
+    private MappedChannelFile(File file, MappedByteBuffer mapped, int bufferSize) {
+        this.file = file;
+        this.headerAddress = UnsafeDirectByteBuffer.getAddress(mapped);
+        mapped.position(FILE_HEADER_SIZE);
+        mapped.limit(FILE_HEADER_SIZE + bufferSize);
+        this.buffer = mapped.slice();
+    }
+
+    /**
+     * Map a channel file. When initializing, the file is created (or resized) and the header is written, but the
+     * header is not valid until {@link #publish()} is called. When not initializing, the file must have been
+     * published by the initializing side and its header must match the given parameters.
+     *
+     * @param file the file to map
+     * @param bufferSize the buffer size required by the channel, excluding the file header
+     * @param channelType the channel implementation, both sides must use the same implementation
+     * @param requestedCapacity the channel requested capacity
+     * @param messageSize the channel message size in bytes
+     * @param layoutHash the message layout hash, see {@link org.jctools.channels.mapping.Mapper#getLayoutHash()}
+     * @param initialize true if this side creates and initializes the channel
+     * @return the mapped channel file
+     * @throws IOException if the file cannot be mapped
+     * @throws IllegalStateException if the file was not yet initialized by the other side
+     * @throws IllegalArgumentException if the file header does not match the given parameters
+     */
+    public static MappedChannelFile map(final File file,
+            final int bufferSize,
+            final Class<?> channelType,
+            final int requestedCapacity,
+            final int messageSize,
+            final long layoutHash,
+            final boolean initialize) throws IOException {
+        final long fileSize = FILE_HEADER_SIZE + (long) bufferSize;
+        if (!initialize && file.length() < fileSize) {
+            throw new IllegalStateException("Channel file is not initialized: " + file);
+        }
+        final MappedByteBuffer mapped;
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (initialize) {
+                raf.setLength(fileSize);
+            }
+            mapped = raf.getChannel().map(MapMode.READ_WRITE, 0, fileSize);
+        } finally {
+            raf.close();
+        }
+
+        final MappedChannelFile mappedFile = new MappedChannelFile(file, mapped, bufferSize);
+        if (initialize) {
+            mappedFile.writeHeader(channelType, requestedCapacity, messageSize, layoutHash);
+        } else {
+            mappedFile.checkHeader(channelType, requestedCapacity, messageSize, layoutHash);
+        }
+        return mappedFile;
+    }
+
+    /**
+     * @return the channel buffer, following the file header
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Mark the header as valid, to be called by the initializing side once the channel buffer is initialized.
+     */
+    public void publish() {
+        UNSAFE.putOrderedInt(null, headerAddress + MAGIC_OFFSET, MAGIC);
+    }
+
+    private void writeHeader(Class<?> channelType, int requestedCapacity, int messageSize, long layoutHash) {
+        // invalidate the header while we (re)initialize the file
+        UNSAFE.putIntVolatile(null, headerAddress + MAGIC_OFFSET, 0);
+        UNSAFE.putInt(headerAddress + VERSION_OFFSET, VERSION);
+        UNSAFE.putInt(headerAddress + CACHE_LINE_SIZE_OFFSET, CACHE_LINE_SIZE);
+        UNSAFE.putInt(headerAddress + REQUESTED_CAPACITY_OFFSET, requestedCapacity);
+        UNSAFE.putInt(headerAddress + MESSAGE_SIZE_OFFSET, messageSize);
+        UNSAFE.putInt(headerAddress + CHANNEL_TYPE_OFFSET, channelTypeId(channelType));
+        UNSAFE.putLong(headerAddress + LAYOUT_HASH_OFFSET, layoutHash);
+        // the file may be reused, clear any indices left over from a previous channel
+        UNSAFE.setMemory(UnsafeDirectByteBuffer.getAddress(buffer), buffer.capacity(), (byte) 0);
+    }
+
+    private void checkHeader(Class<?> channelType, int requestedCapacity, int messageSize, long layoutHash) {
+        if (UNSAFE.getIntVolatile(null, headerAddress + MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalStateException("Channel file is not initialized: " + file);
+        }
+        checkHeaderValue("version", VERSION, UNSAFE.getInt(headerAddress + VERSION_OFFSET));
+        checkHeaderValue("cache line size", CACHE_LINE_SIZE, UNSAFE.getInt(headerAddress + CACHE_LINE_SIZE_OFFSET));
+        checkHeaderValue("requested capacity", requestedCapacity,
+                UNSAFE.getInt(headerAddress + REQUESTED_CAPACITY_OFFSET));
+        checkHeaderValue("message size", messageSize, UNSAFE.getInt(headerAddress + MESSAGE_SIZE_OFFSET));
+        checkHeaderValue("channel type", channelTypeId(channelType),
+                UNSAFE.getInt(headerAddress + CHANNEL_TYPE_OFFSET));
+        checkHeaderValue("message layout", layoutHash, UNSAFE.getLong(headerAddress + LAYOUT_HASH_OFFSET));
+    }
+
+    private void checkHeaderValue(String name, long expected, long actual) {
+        if (expected != actual) {
+            throw new IllegalArgumentException("Channel file " + file + " has a mismatched " + name + ", expected: "
+                    + expected + " but was: " + actual);
+        }
+    }
+
+    private static int channelTypeId(Class<?> channelType) {
+        return channelType.getName().hashCode();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels.mapping;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+
+/**
+ * A zero-copy view of a fixed capacity ASCII character sequence stored in a flyweight. The sequence is stored as an
+ * int length followed by capacity bytes, one per character.
+ * <p>
+ * The view is owned by the flyweight which returned it and is only valid until the flyweight is moved to another
+ * message. Use {@link #toString()} to copy the value out.
+ */
+public final class AsciiSequence implements CharSequence {
+
+    public static final int LENGTH_SIZE = 4;
+
+    private final int capacity;
+    private long address;
+
+    public AsciiSequence(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param capacity the maximum number of characters
+     * @return the number of bytes required to store a sequence of the given capacity
+     */
+    public static int sizeInBytes(int capacity) {
+        return LENGTH_SIZE + capacity;
+    }
+
+    /**
+     * Point this view at the sequence stored at the given address.
+     *
+     * @param address the address of the stored sequence
+     * @return this view
+     */
+    public AsciiSequence wrap(long address) {
+        this.address = address;
+        return this;
+    }
+
+    /**
+     * Store a sequence at the given address.
+     *
+     * @param address the address of the stored sequence
+     * @param capacity the maximum number of characters
+     * @param value the characters to store, each must be ASCII
+     * @throws IllegalArgumentException if the value is longer than the capacity or is not ASCII
+     */
+    public static void write(long address, int capacity, CharSequence value) {
+        final int length = value.length();
+        if (length > capacity) {
+            throw new IllegalArgumentException("Value of length " + length + " exceeds capacity " + capacity);
+        }
+        final long dataAddress = address + LENGTH_SIZE;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c > 0x7F) {
+                throw new IllegalArgumentException("Value contains a non-ASCII character at index " + i);
+            }
+            UNSAFE.putByte(dataAddress + i, (byte) c);
+        }
+        UNSAFE.putInt(address, length);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int length() {
+        return UNSAFE.getInt(address);
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length());
+        }
+        return (char) UNSAFE.getByte(address + LENGTH_SIZE + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        final int length = length();
+        final char[] chars = new char[length];
+        final long dataAddress = address + LENGTH_SIZE;
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) UNSAFE.getByte(dataAddress + i);
+        }
+        return new String(chars);
+    }
+}
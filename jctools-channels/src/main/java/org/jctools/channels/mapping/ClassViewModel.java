@@ -13,64 +13,86 @@
  */
 package org.jctools.channels.mapping;
 
-import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.jctools.channels.spsc.SpscOffHeapFixedSizeRingBuffer;
+import org.objectweb.asm.Type;
 
+/**
+ * The view model of a generated flyweight class: a subclass of the implementation parent implementing the flyweight
+ * interface, see {@link FlyweightGenerator}.
+ */
 public class ClassViewModel {
 
     private final Class<?> implementationParent;
-    private final Class<?>[] constructorParams;
     private final Class<?> structInterface;
-    private final TypeInspector inspector;
-
-    public ClassViewModel(
-            Class<?> implementationParent, Class<?>[] constructorParams, Class<?> structInterface,
-            TypeInspector inspector) {
+    private final StructViewModel struct;
 
+    public ClassViewModel(Class<?> implementationParent, Class<?> structInterface, TypeInspector inspector) {
         this.implementationParent = implementationParent;
-        this.constructorParams = constructorParams;
         this.structInterface = structInterface;
-        this.inspector = inspector;
+        this.struct = rootStruct(inspector, structInterface);
+    }
+
+    private static StructViewModel rootStruct(TypeInspector inspector, Class<?> structInterface) {
+        return new StructViewModel(inspector, SpscOffHeapFixedSizeRingBuffer.MESSAGE_INDICATOR_SIZE, structInterface,
+                "View", 0);
     }
 
+    /**
+     * The generated class is named after the flyweight interface, the fully qualified implementation parent and the
+     * layout hash, and is defined in the package of the flyweight interface. A generated class is therefore shared by
+     * all the flyweights of the same implementation parent and layout, and only by them: parents of the same simple
+     * name in different packages get different classes.
+     *
+     * @return the internal name of the generated class
+     */
     public String className() {
-        return implementationParent.getSimpleName() + "_" + structInterface.getSimpleName();
+        return Type.getInternalName(structInterface) + "$JCTools$Flyweight$"
+                + implementationParent.getName().replace('.', '$') + "$" + Long.toHexString(struct.layoutHash());
     }
 
-    public String implementationParent() {
-        return cleanClassName(implementationParent);
+    public Class<?> implementationParent() {
+        return implementationParent;
     }
 
-    public String flyweightInterface() {
-        return cleanClassName(structInterface);
+    public Class<?> flyweightInterface() {
+        return structInterface;
     }
 
-    // Account for anonymous inner classes
-    private String cleanClassName(Class<?> cls) {
-        return cls.getName().replace('$', '.');
+    /**
+     * @return the primitive fields of the flyweight
+     */
+    public List<Variable> fields() {
+        return struct.fields();
     }
 
-    public List<Variable> constructorParams() {
-        List<Variable> variables = new ArrayList<Variable>(constructorParams.length);
-        for (int i = 0; i < constructorParams.length; i++) {
-            variables.add(new Variable(constructorParams[i].getName(), "arg" + i, 0, ""));
-        }
-        return variables;
+    public List<Variable> arrayFields() {
+        return struct.arrayFields();
     }
 
-    public List<Variable> fields() {
-        int fieldOffset = SpscOffHeapFixedSizeRingBuffer.MESSAGE_INDICATOR_SIZE;
-        List<Variable> fields = new ArrayList<Variable>();
-        for (Method method : inspector.getters) {
-            Primitive type = Primitive.of(method.getReturnType());
-            String name = method.getName().substring(3);
-            fields.add(new Variable(type.javaEquivalent.getName(), name, fieldOffset, type.unsafeMethodSuffix()));
-            fieldOffset += type.sizeInBytes;
-        }
-        return fields;
+    public List<Variable> charSequenceFields() {
+        return struct.charSequenceFields();
+    }
+
+    public List<StructViewModel> structFields() {
+        return struct.structFields();
+    }
+
+    StructViewModel struct() {
+        return struct;
+    }
+
+    /**
+     * A hash of the message layout (field names, types and offsets) generated for the inspected interface. Two
+     * flyweights with the same layout hash read and write the same bytes, which allows a producer and a consumer in
+     * different processes to verify they agree on the message format.
+     *
+     * @param inspector the inspected flyweight interface
+     * @return a 64 bit FNV-1a hash of the layout
+     */
+    public static long layoutHash(TypeInspector inspector) {
+        return rootStruct(inspector, Object.class).layoutHash();
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels.mapping;
+
+import org.jctools.util.InternalAPI;
+
+/**
+ * The base class of the generated views of nested flyweights, and the runtime support called by generated
+ * accessors. A nested view is owned by the flyweight which returned it and is moved along with it.
+ */
+@InternalAPI
+public abstract class Flyweight {
+
+    protected long pointer;
+
+    /**
+     * Point this view at the nested flyweight at the given address.
+     *
+     * @param pointer the address of the nested flyweight
+     */
+    public final void moveTo(final long pointer) {
+        this.pointer = pointer;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if the index is outside of an array of the given length
+     */
+    public static void checkIndex(final int index, final int length) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+        }
+    }
+}
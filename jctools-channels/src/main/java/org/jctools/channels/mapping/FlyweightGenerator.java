@@ -0,0 +1,410 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels.mapping;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jctools.channels.proxy.GeneratedClass;
+import org.jctools.util.UnsafeAccess;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.util.TraceClassVisitor;
+
+import sun.misc.Unsafe;
+
+/**
+ * Generates the bytecode of flyweight classes from their view model, the same way the
+ * {@link org.jctools.channels.proxy.ProxyChannelFactory} generates proxies. A flyweight class extends the
+ * implementation parent, which must declare a protected <code>long pointer</code> field, and implements the flyweight
+ * interface with accessors reading and writing at fixed offsets from the pointer. Each nested flyweight is generated
+ * as a {@link Flyweight} view class, moved to the nested flyweight offset when its getter is called.
+ * <p>
+ * Generated classes are defined in the package of the flyweight interface and named after its layout, so they are
+ * only generated once per implementation parent and layout. A class of the same name found on the class path, e.g.
+ * written at build time by {@link org.jctools.channels.ChannelClassGenerator}, is used instead of generating one.
+ */
+final class FlyweightGenerator {
+
+    /**
+     * The index of the 'this' object in instance methods
+     */
+    private static final int LOCALS_INDEX_THIS = 0;
+
+    private static final String POINTER_FIELD = "pointer";
+    private static final String SEQUENCE_FIELD_PREFIX = "sequence";
+    private static final String STRUCT_FIELD_PREFIX = "struct";
+
+    private FlyweightGenerator() {
+    }
+
+    /**
+     * @return the generated flyweight class for the given model, unless pregenerated it is generated and defined on
+     *         first use
+     */
+    static Class<?> flyweightClass(ClassViewModel model, boolean debugEnabled) {
+        Class<?> preExisting = GeneratedClass.findExisting(model.className(), model.flyweightInterface());
+        if (preExisting != null) {
+            return preExisting;
+        }
+        Class<?> flyweightClass = null;
+        for (GeneratedClass generated : generate(model)) {
+            printClassBytes(debugEnabled, generated.byteCode());
+            flyweightClass = generated.define();
+        }
+        return flyweightClass;
+    }
+
+    /**
+     * Generate, but do not define, the flyweight class for the given model and the view classes of its nested
+     * flyweights.
+     *
+     * @return the generated classes, in definition order: the flyweight class comes last
+     */
+    static List<GeneratedClass> generate(ClassViewModel model) {
+        final Class<?> implementationParent = model.implementationParent();
+        checkPointerField(implementationParent);
+        List<GeneratedClass> generated = new ArrayList<GeneratedClass>();
+        generate(model.flyweightInterface(), model.className(), implementationParent,
+                accessibleConstructors(implementationParent), model.struct(), generated);
+        return generated;
+    }
+
+    /**
+     * The view class of a nested flyweight only depends on the nested flyweight layout, its offsets being relative
+     * to the nested flyweight, so it is shared by all the flyweights nesting it.
+     */
+    private static String viewClassName(StructViewModel struct) {
+        return Type.getInternalName(struct.type) + "$JCTools$Flyweight$" + Long.toHexString(struct.layoutHash());
+    }
+
+    private static void generate(Class<?> iFace,
+            String generatedName,
+            Class<?> parent,
+            List<Constructor<?>> constructors,
+            StructViewModel struct,
+            List<GeneratedClass> generated) {
+        // the constructors instantiate the nested views, which must be defined first
+        for (StructViewModel structField : struct.structFields()) {
+            try {
+                generate(structField.type, viewClassName(structField), Flyweight.class,
+                        Collections.<Constructor<?>>singletonList(Flyweight.class.getDeclaredConstructor()),
+                        structField, generated);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classWriter.visit(Opcodes.V1_4,
+                Opcodes.ACC_SYNTHETIC | Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
+                generatedName,
+                null,
+                Type.getInternalName(parent),
+                new String[]{Type.getInternalName(iFace)});
+        implementInstanceFields(classWriter, struct);
+        for (Constructor<?> constructor : constructors) {
+            implementConstructor(classWriter, generatedName, parent, constructor, struct);
+        }
+        implementAccessors(classWriter, generatedName, struct);
+        classWriter.visitEnd();
+
+        generated.add(new GeneratedClass(iFace, generatedName, classWriter.toByteArray()));
+    }
+
+    private static void printClassBytes(boolean debugEnabled, byte[] byteCode) {
+        if (debugEnabled) {
+            TraceClassVisitor visitor = new TraceClassVisitor(new PrintWriter(System.err));
+            new ClassReader(byteCode).accept(visitor, 0);
+        }
+    }
+
+    private static void checkPointerField(Class<?> implementationParent) {
+        for (Class<?> cls = implementationParent; cls != null; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                if (POINTER_FIELD.equals(field.getName())) {
+                    int modifiers = field.getModifiers();
+                    if (field.getType() != long.class || Modifier.isStatic(modifiers)
+                            || !(Modifier.isProtected(modifiers) || Modifier.isPublic(modifiers))) {
+                        break;
+                    }
+                    return;
+                }
+            }
+        }
+        throw new IllegalArgumentException(
+                implementationParent.getName() + " must declare a protected long " + POINTER_FIELD + " field");
+    }
+
+    private static List<Constructor<?>> accessibleConstructors(Class<?> implementationParent) {
+        List<Constructor<?>> constructors = new ArrayList<Constructor<?>>();
+        for (Constructor<?> constructor : implementationParent.getDeclaredConstructors()) {
+            int modifiers = constructor.getModifiers();
+            if (Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)) {
+                constructors.add(constructor);
+            }
+        }
+        if (constructors.isEmpty()) {
+            throw new IllegalArgumentException(implementationParent.getName() + " has no accessible constructors");
+        }
+        return constructors;
+    }
+
+    private static void implementInstanceFields(ClassVisitor classVisitor, StructViewModel struct) {
+        for (Variable field : struct.charSequenceFields()) {
+            classVisitor.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL,
+                    SEQUENCE_FIELD_PREFIX + field.name,
+                    Type.getDescriptor(AsciiSequence.class),
+                    null,
+                    null);
+        }
+        for (StructViewModel field : struct.structFields()) {
+            classVisitor.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL,
+                    STRUCT_FIELD_PREFIX + field.name,
+                    Type.getDescriptor(Flyweight.class),
+                    null,
+                    null);
+        }
+    }
+
+    private static void implementConstructor(ClassVisitor classVisitor,
+            String generatedName,
+            Class<?> parent,
+            Constructor<?> constructor,
+            StructViewModel struct) {
+        String descriptor = Type.getConstructorDescriptor(constructor);
+        MethodVisitor methodVisitor = classVisitor.visitMethod(Opcodes.ACC_PUBLIC, "<init>", descriptor, null, null);
+        methodVisitor.visitCode();
+
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, LOCALS_INDEX_THIS);
+        int localIndex = LOCALS_INDEX_THIS + 1;
+        for (Type argumentType : Type.getArgumentTypes(descriptor)) {
+            methodVisitor.visitVarInsn(argumentType.getOpcode(Opcodes.ILOAD), localIndex);
+            localIndex += argumentType.getSize();
+        }
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, Type.getInternalName(parent), "<init>", descriptor,
+                false);
+
+        for (Variable field : struct.charSequenceFields()) {
+            methodVisitor.visitVarInsn(Opcodes.ALOAD, LOCALS_INDEX_THIS);
+            methodVisitor.visitTypeInsn(Opcodes.NEW, Type.getInternalName(AsciiSequence.class));
+            methodVisitor.visitInsn(Opcodes.DUP);
+            methodVisitor.visitLdcInsn(field.length);
+            methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, Type.getInternalName(AsciiSequence.class), "<init>",
+                    "(I)V", false);
+            methodVisitor.visitFieldInsn(Opcodes.PUTFIELD, generatedName, SEQUENCE_FIELD_PREFIX + field.name,
+                    Type.getDescriptor(AsciiSequence.class));
+        }
+        for (StructViewModel field : struct.structFields()) {
+            String viewClassName = viewClassName(field);
+            methodVisitor.visitVarInsn(Opcodes.ALOAD, LOCALS_INDEX_THIS);
+            methodVisitor.visitTypeInsn(Opcodes.NEW, viewClassName);
+            methodVisitor.visitInsn(Opcodes.DUP);
+            methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, viewClassName, "<init>", "()V", false);
+            methodVisitor.visitFieldInsn(Opcodes.PUTFIELD, generatedName, STRUCT_FIELD_PREFIX + field.name,
+                    Type.getDescriptor(Flyweight.class));
+        }
+
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(-1, -1);
+        methodVisitor.visitEnd();
+    }
+
+    private static void implementAccessors(ClassVisitor classVisitor, String generatedName, StructViewModel struct) {
+        for (Variable field : struct.fields()) {
+            implementGetter(classVisitor, generatedName, field);
+            implementSetter(classVisitor, generatedName, field);
+        }
+        for (Variable field : struct.arrayFields()) {
+            implementArrayGetter(classVisitor, generatedName, field);
+            implementArraySetter(classVisitor, generatedName, field);
+        }
+        for (Variable field : struct.charSequenceFields()) {
+            implementCharSequenceGetter(classVisitor, generatedName, field);
+            implementCharSequenceSetter(classVisitor, generatedName, field);
+        }
+        for (StructViewModel field : struct.structFields()) {
+            implementStructGetter(classVisitor, generatedName, field);
+        }
+    }
+
+    private static void implementGetter(ClassVisitor classVisitor, String generatedName, Variable field) {
+        Type type = typeOf(field);
+        MethodVisitor methodVisitor = classVisitor.visitMethod(Opcodes.ACC_PUBLIC,
+                "get" + field.name, "()" + type.getDescriptor(), null, null);
+        methodVisitor.visitCode();
+        loadUnsafe(methodVisitor, type);
+        loadAddress(methodVisitor, generatedName, field.fieldOffset);
+        getUnsafe(methodVisitor, type);
+        methodVisitor.visitInsn(type.getOpcode(Opcodes.IRETURN));
+        methodVisitor.visitMaxs(-1, -1);
+        methodVisitor.visitEnd();
+    }
+
+    private static void implementSetter(ClassVisitor classVisitor, String generatedName, Variable field) {
+        Type type = typeOf(field);
+        MethodVisitor methodVisitor = classVisitor.visitMethod(Opcodes.ACC_PUBLIC,
+                "set" + field.name, "(" + type.getDescriptor() + ")V", null, null);
+        methodVisitor.visitCode();
+        loadUnsafe(methodVisitor, type);
+        loadAddress(methodVisitor, generatedName, field.fieldOffset);
+        methodVisitor.visitVarInsn(type.getOpcode(Opcodes.ILOAD), 1);
+        putUnsafe(methodVisitor, type);
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(-1, -1);
+        methodVisitor.visitEnd();
+    }
+
+    private static void implementArrayGetter(ClassVisitor classVisitor, String generatedName, Variable field) {
+        Type type = typeOf(field);
+        MethodVisitor methodVisitor = classVisitor.visitMethod(Opcodes.ACC_PUBLIC,
+                "get" + field.name, "(I)" + type.getDescriptor(), null, null);
+        methodVisitor.visitCode();
+        checkIndex(methodVisitor, field);
+        loadUnsafe(methodVisitor, type);
+        loadElementAddress(methodVisitor, generatedName, field);
+        getUnsafe(methodVisitor, type);
+        methodVisitor.visitInsn(type.getOpcode(Opcodes.IRETURN));
+        methodVisitor.visitMaxs(-1, -1);
+        methodVisitor.visitEnd();
+    }
+
+    private static void implementArraySetter(ClassVisitor classVisitor, String generatedName, Variable field) {
+        Type type = typeOf(field);
+        MethodVisitor methodVisitor = classVisitor.visitMethod(Opcodes.ACC_PUBLIC,
+                "set" + field.name, "(I" + type.getDescriptor() + ")V", null, null);
+        methodVisitor.visitCode();
+        checkIndex(methodVisitor, field);
+        loadUnsafe(methodVisitor, type);
+        loadElementAddress(methodVisitor, generatedName, field);
+        methodVisitor.visitVarInsn(type.getOpcode(Opcodes.ILOAD), 2);
+        putUnsafe(methodVisitor, type);
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(-1, -1);
+        methodVisitor.visitEnd();
+    }
+
+    private static void implementCharSequenceGetter(ClassVisitor classVisitor, String generatedName,
+            Variable field) {
+        MethodVisitor methodVisitor = classVisitor.visitMethod(Opcodes.ACC_PUBLIC,
+                "get" + field.name, "()" + Type.getDescriptor(CharSequence.class), null, null);
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, LOCALS_INDEX_THIS);
+        methodVisitor.visitFieldInsn(Opcodes.GETFIELD, generatedName, SEQUENCE_FIELD_PREFIX + field.name,
+                Type.getDescriptor(AsciiSequence.class));
+        loadAddress(methodVisitor, generatedName, field.fieldOffset);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(AsciiSequence.class), "wrap",
+                "(J)" + Type.getDescriptor(AsciiSequence.class), false);
+        methodVisitor.visitInsn(Opcodes.ARETURN);
+        methodVisitor.visitMaxs(-1, -1);
+        methodVisitor.visitEnd();
+    }
+
+    private static void implementCharSequenceSetter(ClassVisitor classVisitor, String generatedName,
+            Variable field) {
+        MethodVisitor methodVisitor = classVisitor.visitMethod(Opcodes.ACC_PUBLIC,
+                "set" + field.name, "(" + Type.getDescriptor(CharSequence.class) + ")V", null, null);
+        methodVisitor.visitCode();
+        loadAddress(methodVisitor, generatedName, field.fieldOffset);
+        methodVisitor.visitLdcInsn(field.length);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 1);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(AsciiSequence.class), "write",
+                "(JI" + Type.getDescriptor(CharSequence.class) + ")V", false);
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(-1, -1);
+        methodVisitor.visitEnd();
+    }
+
+    private static void implementStructGetter(ClassVisitor classVisitor, String generatedName,
+            StructViewModel field) {
+        MethodVisitor methodVisitor = classVisitor.visitMethod(Opcodes.ACC_PUBLIC,
+                "get" + field.name, "()" + Type.getDescriptor(field.type), null, null);
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, LOCALS_INDEX_THIS);
+        methodVisitor.visitFieldInsn(Opcodes.GETFIELD, generatedName, STRUCT_FIELD_PREFIX + field.name,
+                Type.getDescriptor(Flyweight.class));
+        methodVisitor.visitInsn(Opcodes.DUP);
+        loadAddress(methodVisitor, generatedName, field.fieldOffset);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(Flyweight.class), "moveTo", "(J)V",
+                false);
+        methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(field.type));
+        methodVisitor.visitInsn(Opcodes.ARETURN);
+        methodVisitor.visitMaxs(-1, -1);
+        methodVisitor.visitEnd();
+    }
+
+    private static void checkIndex(MethodVisitor methodVisitor, Variable field) {
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, 1);
+        methodVisitor.visitLdcInsn(field.length);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(Flyweight.class), "checkIndex",
+                "(II)V", false);
+    }
+
+    private static Type typeOf(Variable field) {
+        return Type.getType(Primitive.valueOf(field.type.toUpperCase()).javaEquivalent);
+    }
+
+    private static void loadUnsafe(MethodVisitor methodVisitor, Type type) {
+        methodVisitor.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(UnsafeAccess.class), "UNSAFE",
+                Type.getDescriptor(Unsafe.class));
+        // there are no address based boolean accessors, use the object based ones with a null object
+        if (type.getSort() == Type.BOOLEAN) {
+            methodVisitor.visitInsn(Opcodes.ACONST_NULL);
+        }
+    }
+
+    private static void loadAddress(MethodVisitor methodVisitor, String generatedName, long offset) {
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, LOCALS_INDEX_THIS);
+        methodVisitor.visitFieldInsn(Opcodes.GETFIELD, generatedName, POINTER_FIELD, "J");
+        if (offset != 0) {
+            methodVisitor.visitLdcInsn(offset);
+            methodVisitor.visitInsn(Opcodes.LADD);
+        }
+    }
+
+    private static void loadElementAddress(MethodVisitor methodVisitor, String generatedName, Variable field) {
+        loadAddress(methodVisitor, generatedName, field.fieldOffset);
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, 1);
+        methodVisitor.visitInsn(Opcodes.I2L);
+        methodVisitor.visitLdcInsn((long) field.elementSize);
+        methodVisitor.visitInsn(Opcodes.LMUL);
+        methodVisitor.visitInsn(Opcodes.LADD);
+    }
+
+    private static void getUnsafe(MethodVisitor methodVisitor, Type type) {
+        String objectDescriptor = type.getSort() == Type.BOOLEAN ? "Ljava/lang/Object;" : "";
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(Unsafe.class),
+                "get" + unsafeMethodSuffix(type), "(" + objectDescriptor + "J)" + type.getDescriptor(), false);
+    }
+
+    private static void putUnsafe(MethodVisitor methodVisitor, Type type) {
+        String objectDescriptor = type.getSort() == Type.BOOLEAN ? "Ljava/lang/Object;" : "";
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(Unsafe.class),
+                "put" + unsafeMethodSuffix(type), "(" + objectDescriptor + "J" + type.getDescriptor() + ")V", false);
+    }
+
+    private static String unsafeMethodSuffix(Type type) {
+        String className = type.getClassName();
+        return Character.toUpperCase(className.charAt(0)) + className.substring(1);
+    }
+}
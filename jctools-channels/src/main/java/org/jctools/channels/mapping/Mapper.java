@@ -18,25 +18,22 @@ import static org.jctools.channels.mapping.Primitive.simplifyType;
 import java.lang.reflect.Constructor;
 import java.util.List;
 
-import javax.tools.Diagnostic;
-
-import org.jctools.util.CompilationResult;
-import org.jctools.util.SimpleCompiler;
-import org.jctools.util.StringWrappingJavaFile;
-import org.jctools.util.Template;
+import org.jctools.channels.proxy.GeneratedClass;
 
+/**
+ * Maps a flyweight interface onto fixed size messages. Flyweight implementations are generated as bytecode, see
+ * {@link FlyweightGenerator}.
+ */
 public class Mapper<S> {
 
     private final boolean debugEnabled;
     private final TypeInspector inspector;
     private final Class<S> structInterface;
-    private final SimpleCompiler compiler;
 
     public Mapper(Class<S> structInterface, boolean debugEnabled) {
         this.debugEnabled = debugEnabled;
         this.structInterface = structInterface;
         inspector = new TypeInspector(structInterface);
-        compiler = new SimpleCompiler();
     }
 
     /**
@@ -46,66 +43,53 @@ public class Mapper<S> {
         return Primitive.INT.sizeInBytes + inspector.getSizeInBytes();
     }
 
-    public <I> I newFlyweight(Class<I> implementationParent, String templateFileName, Object... args) {
-        Template template = Template.fromFile(implementationParent, templateFileName);
-        return newFlyweight(implementationParent, templateFileName, template, args);
+    /**
+     * @return a hash of the message layout, see {@link ClassViewModel#layoutHash(TypeInspector)}
+     */
+    public long getLayoutHash() {
+        return ClassViewModel.layoutHash(inspector);
     }
 
-    public <I> I newFlyweight(Class<I> implementationParent, String templateFileName, Template template, Object... args) {
+    /**
+     * Create a flyweight extending the implementation parent and implementing the flyweight interface. The
+     * implementation parent must declare a protected <code>long pointer</code> field, pointing at the current
+     * message, and a public or protected constructor matching the arguments.
+     *
+     * @param implementationParent the class extended by the flyweight
+     * @param args the constructor arguments
+     * @return a new flyweight
+     */
+    public <I> I newFlyweight(Class<I> implementationParent, Object... args) {
         Class<?>[] constructorParameterTypes = getTypes(args);
-        ClassViewModel model = new ClassViewModel(implementationParent, constructorParameterTypes, structInterface,
-                inspector);
-        String source = template.render(model);
-        debugLogSource(source);
-        CompilationResult result = compiler.compile(model.className(), source);
-        checkCompileFailures(templateFileName, result);
-        return instantiateImplementation(constructorParameterTypes, model.className(), result, args);
+        ClassViewModel model = new ClassViewModel(implementationParent, structInterface, inspector);
+        Class<?> implementation = FlyweightGenerator.flyweightClass(model, debugEnabled);
+        return instantiateImplementation(implementation, constructorParameterTypes, args);
     }
 
-    private void debugLogSource(String source) {
-        if (debugEnabled) {
-            System.err.println("---------------------------------------");
-            System.err.println("Source: ");
-            System.err.println(source);
-            System.err.println("---------------------------------------");
-        }
+    /**
+     * Generate, but do not define, the flyweight classes {@link #newFlyweight(Class, Object...)} would use for the
+     * implementation parent. This allows flyweights to be generated at build time, see
+     * {@link org.jctools.channels.ChannelClassGenerator}.
+     *
+     * @param implementationParent the class extended by the flyweight
+     * @return the flyweight class and the view classes of its nested flyweights
+     */
+    public List<GeneratedClass> generateFlyweightClasses(Class<?> implementationParent) {
+        return FlyweightGenerator.generate(new ClassViewModel(implementationParent, structInterface, inspector));
     }
 
     @SuppressWarnings("unchecked")
-    private <I> I instantiateImplementation(Class<?>[] constructorParameterTypes, String name,
-            CompilationResult result, Object[] args) {
+    private <I> I instantiateImplementation(Class<?> implementation, Class<?>[] constructorParameterTypes,
+            Object[] args) {
 
         try {
-            Class<I> implementation = (Class<I>) result.getClassLoader().loadClass(name);
-            Constructor<I> constructor = implementation.getConstructor(constructorParameterTypes);
+            Constructor<I> constructor = (Constructor<I>) implementation.getConstructor(constructorParameterTypes);
             return constructor.newInstance(args);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void checkCompileFailures(String templateFile, CompilationResult result) {
-        List<Diagnostic<StringWrappingJavaFile>> diagnostics = result.getDiagnostics();
-
-        if (debugEnabled) {
-            if (diagnostics.isEmpty()) {
-                System.err.println("No compile diagnostics for: " + templateFile);
-            } else {
-                System.err.println("---------------------------------------");
-                System.err.println("Compile diagnostics for: " + templateFile);
-                for (Diagnostic<StringWrappingJavaFile> diagnostic : diagnostics) {
-                    System.err.println(diagnostic);
-                    System.err.println();
-                }
-                System.err.println("---------------------------------------");
-            }
-        }
-
-        if (!result.isSuccessful()) {
-            throw new IllegalArgumentException("Unable to compile " + templateFile);
-        }
-    }
-
     private Class<?>[] getTypes(Object... args) {
         Class<?>[] types = new Class<?>[args.length];
         for (int i = 0; i < args.length; i++) {
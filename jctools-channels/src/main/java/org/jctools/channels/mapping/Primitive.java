@@ -26,7 +26,7 @@ enum Primitive implements Opcodes {
     LONG(8, Long.TYPE, Long.class, LLOAD, LRETURN),
 	FLOAT(4, Float.TYPE, Float.class, FLOAD, FRETURN),
     DOUBLE(8, Double.TYPE, Double.class, DLOAD, DRETURN),
-    BOOLEAN(1, Byte.TYPE, Byte.class, ILOAD, IRETURN),
+    BOOLEAN(1, Boolean.TYPE, Boolean.class, ILOAD, IRETURN),
     CHAR(2, Character.TYPE, Character.class, ILOAD, IRETURN);
 
     final int sizeInBytes;
@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels.mapping;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The view model of the accessors of a flyweight interface, from which the flyweight bytecode is generated. A nested
+ * flyweight is generated as a separate view class whose accessors use offsets relative to the nested flyweight, which
+ * is itself at {@link #fieldOffset} in the enclosing flyweight.
+ */
+public class StructViewModel {
+
+    private final TypeInspector inspector;
+    private final int baseOffset;
+
+    public final Class<?> type;
+    public final String name;
+    public final int fieldOffset;
+
+    StructViewModel(TypeInspector inspector, int baseOffset, Class<?> type, String name, int fieldOffset) {
+        this.inspector = inspector;
+        this.baseOffset = baseOffset;
+        this.type = type;
+        this.name = name;
+        this.fieldOffset = fieldOffset;
+    }
+
+    public List<Variable> fields() {
+        List<Variable> fields = new ArrayList<Variable>();
+        int fieldOffset = baseOffset;
+        for (Method method : inspector.getters) {
+            if (!TypeInspector.isArray(method) && !TypeInspector.isCharSequence(method)
+                    && !TypeInspector.isStruct(method)) {
+                Primitive type = Primitive.of(method.getReturnType());
+                fields.add(new Variable(type.javaEquivalent.getName(), name(method), fieldOffset,
+                        type.unsafeMethodSuffix()));
+            }
+            fieldOffset += inspector.getSizeInBytes(method);
+        }
+        return fields;
+    }
+
+    public List<Variable> arrayFields() {
+        List<Variable> fields = new ArrayList<Variable>();
+        int fieldOffset = baseOffset;
+        for (Method method : inspector.getters) {
+            if (TypeInspector.isArray(method)) {
+                Primitive type = Primitive.of(method.getReturnType());
+                fields.add(new Variable(type.javaEquivalent.getName(), name(method), fieldOffset,
+                        type.unsafeMethodSuffix(), TypeInspector.lengthOf(method), type.sizeInBytes));
+            }
+            fieldOffset += inspector.getSizeInBytes(method);
+        }
+        return fields;
+    }
+
+    public List<Variable> charSequenceFields() {
+        List<Variable> fields = new ArrayList<Variable>();
+        int fieldOffset = baseOffset;
+        for (Method method : inspector.getters) {
+            if (TypeInspector.isCharSequence(method)) {
+                fields.add(new Variable(CharSequence.class.getName(), name(method), fieldOffset, "",
+                        TypeInspector.lengthOf(method), 1));
+            }
+            fieldOffset += inspector.getSizeInBytes(method);
+        }
+        return fields;
+    }
+
+    public List<StructViewModel> structFields() {
+        List<StructViewModel> fields = new ArrayList<StructViewModel>();
+        int fieldOffset = baseOffset;
+        for (Method method : inspector.getters) {
+            if (TypeInspector.isStruct(method)) {
+                fields.add(new StructViewModel(inspector.structs.get(method), 0, method.getReturnType(),
+                        name(method), fieldOffset));
+            }
+            fieldOffset += inspector.getSizeInBytes(method);
+        }
+        return fields;
+    }
+
+    /**
+     * Appends a description of the layout of all the fields, including nested flyweights, to the given builder.
+     */
+    void describeLayout(StringBuilder layout) {
+        for (Variable field : fields()) {
+            layout.append(field.name).append(':').append(field.type).append('@').append(field.fieldOffset).append(';');
+        }
+        for (Variable field : arrayFields()) {
+            layout.append(field.name).append(':').append(field.type).append('[').append(field.length).append("]@")
+                    .append(field.fieldOffset).append(';');
+        }
+        for (Variable field : charSequenceFields()) {
+            layout.append(field.name).append(":ascii[").append(field.length).append("]@").append(field.fieldOffset)
+                    .append(';');
+        }
+        for (StructViewModel field : structFields()) {
+            layout.append(field.name).append(":{");
+            field.describeLayout(layout);
+            layout.append("}@").append(field.fieldOffset).append(';');
+        }
+    }
+
+    /**
+     * A hash of the layout (field names, types and offsets) of this flyweight, see {@link #describeLayout}.
+     *
+     * @return a 64 bit FNV-1a hash of the layout
+     */
+    long layoutHash() {
+        StringBuilder layout = new StringBuilder();
+        describeLayout(layout);
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < layout.length(); i++) {
+            hash ^= layout.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static String name(Method getter) {
+        return getter.getName().substring(3);
+    }
+}
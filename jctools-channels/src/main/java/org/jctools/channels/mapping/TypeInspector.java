@@ -15,9 +15,12 @@ package org.jctools.channels.mapping;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static java.lang.reflect.Modifier.isAbstract;
 import static java.util.Arrays.asList;
@@ -28,13 +31,21 @@ public class TypeInspector {
     
     final List<Method> getters;
     final Map<String, Method> setters;
+    final Map<Method, TypeInspector> structs;
     
     public TypeInspector(Class<?> flyweightClass) {
+        this(flyweightClass, Collections.<Class<?>>emptySet());
+    }
+
+    private TypeInspector(Class<?> flyweightClass, Set<Class<?>> enclosingClasses) {
         this.flyweightClass = flyweightClass;
         if(!flyweightClass.isInterface())
         	throw new InvalidInterfaceException("Your flyweight class must be an interface");
+        if (enclosingClasses.contains(flyweightClass))
+            throw new InvalidInterfaceException(flyweightClass.getName() + " contains itself as a nested flyweight");
         
-        getters = findGetters();
+        structs = new HashMap<Method, TypeInspector>();
+        getters = findGetters(enclosingClasses);
         setters = findSetters();
         checkRemainingMethods(flyweightClass);
     }
@@ -48,7 +59,7 @@ public class TypeInspector {
 				throw new InvalidInterfaceException(klass.getName() + " has abstract methods that are neither getters nor setters");
 	}
 
-	private List<Method> findGetters() {
+	private List<Method> findGetters(Set<Class<?>> enclosingClasses) {
         List<Method> methods = new ArrayList<Method>();
         for (Method method : flyweightClass.getDeclaredMethods()) {
             String name = method.getName();
@@ -56,12 +67,59 @@ public class TypeInspector {
                 continue;
 
 			ensureAbstract(method);
-            returnsPrimitive(method);
-            hasNoParameters(method);
+            if (isArray(method)) {
+                returnsPrimitive(method);
+                hasLength(method);
+            } else if (isCharSequence(method)) {
+                hasNoParameters(method);
+                hasLength(method);
+            } else if (isStruct(method)) {
+                hasNoParameters(method);
+                Set<Class<?>> enclosing = new HashSet<Class<?>>(enclosingClasses);
+                enclosing.add(flyweightClass);
+                structs.put(method, new TypeInspector(method.getReturnType(), enclosing));
+            } else {
+                returnsPrimitive(method);
+                hasNoParameters(method);
+            }
             methods.add(method);
         }
         return methods;
     }
+
+    /**
+     * @return true if the getter reads an element of a fixed length primitive array, e.g. <code>byte getId(int index)</code>
+     */
+    static boolean isArray(Method getter) {
+        Class<?>[] parameters = getter.getParameterTypes();
+        return parameters.length == 1 && parameters[0] == Integer.TYPE;
+    }
+
+    /**
+     * @return true if the getter returns a fixed capacity ASCII sequence, e.g. <code>CharSequence getName()</code>
+     */
+    static boolean isCharSequence(Method getter) {
+        return getter.getReturnType() == CharSequence.class;
+    }
+
+    /**
+     * @return true if the getter returns a nested flyweight, e.g. <code>Price getPrice()</code>
+     */
+    static boolean isStruct(Method getter) {
+        return getter.getReturnType().isInterface() && !isCharSequence(getter);
+    }
+
+    static int lengthOf(Method getter) {
+        return getter.getAnnotation(Length.class).value();
+    }
+
+    private void hasLength(Method method) {
+        Length length = method.getAnnotation(Length.class);
+        if (length == null)
+            throw new InvalidInterfaceException(method.getName() + " must declare its @Length");
+        if (length.value() <= 0)
+            throw new InvalidInterfaceException(method.getName() + " must have a positive @Length");
+    }
 	
     private void ensureAbstract(Method method) {
 		if (!isAbstract(method.getModifiers()))
@@ -90,18 +148,22 @@ public class TypeInspector {
 
             ensureAbstract(method);
             returnsVoid(method);
-            hasOnePrimitiveParameter(method);
+            hasValueParameter(method);
             methods.put(method.getName(), method);
         }
         return methods;
 	}
 
-    private void hasOnePrimitiveParameter(Method method) {
+    private void hasValueParameter(Method method) {
 		Class<?>[] parameters = method.getParameterTypes();
+		if (parameters.length == 2 && parameters[0] == Integer.TYPE) {
+		    // array element setter, e.g. setId(int index, byte value)
+		    parameters = new Class<?>[] { parameters[1] };
+		}
 		if (parameters.length != 1)
 			throw new InvalidInterfaceException(method.getName() + " is a setter with more than one parameter");
 		
-		if (!parameters[0].isPrimitive())
+		if (!parameters[0].isPrimitive() && parameters[0] != CharSequence.class)
 			throw new InvalidInterfaceException(method.getName() + " is a setter with a non-primitive parameter");
 	}
 
@@ -113,11 +175,22 @@ public class TypeInspector {
 	public int getSizeInBytes() {
         int total = 0;
         for (Method getter : getters) {
-            total += getReturn(getter).sizeInBytes;
+            total += getSizeInBytes(getter);
         }
         return total;
     }
 
+    int getSizeInBytes(Method getter) {
+        if (isArray(getter)) {
+            return getReturn(getter).sizeInBytes * lengthOf(getter);
+        } else if (isCharSequence(getter)) {
+            return AsciiSequence.sizeInBytes(lengthOf(getter));
+        } else if (isStruct(getter)) {
+            return structs.get(getter).getSizeInBytes();
+        }
+        return getReturn(getter).sizeInBytes;
+    }
+
 	public Method setterFor(Method getter) {
 		String name = getter.getName().replaceFirst("get", "set");
 		Method method = setters.get(name);
@@ -6,12 +6,23 @@ public final class Variable {
     public final String name;
     public final int fieldOffset;
     public final String unsafeMethodSuffix;
+    /**
+     * The number of elements for an array, or the capacity for a char sequence, 0 otherwise.
+     */
+    public final int length;
+    public final int elementSize;
 
     public Variable(String type, String name, int fieldOffset, String unsafeMethodSuffix) {
+        this(type, name, fieldOffset, unsafeMethodSuffix, 0, 0);
+    }
+
+    public Variable(String type, String name, int fieldOffset, String unsafeMethodSuffix, int length, int elementSize) {
         this.type = type;
         this.name = name;
         this.fieldOffset = fieldOffset;
         this.unsafeMethodSuffix = unsafeMethodSuffix;
+        this.length = length;
+        this.elementSize = elementSize;
     }
 
 }
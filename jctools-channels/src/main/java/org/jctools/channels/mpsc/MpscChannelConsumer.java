@@ -17,6 +17,8 @@ import java.nio.ByteBuffer;
 
 import org.jctools.channels.ChannelConsumer;
 import org.jctools.channels.ChannelReceiver;
+import org.jctools.channels.WaitStrategy;
+import org.jctools.queues.MessagePassingQueue.ExitCondition;
 
 /**
  * Package Scoped: not part of public API.
@@ -39,4 +41,64 @@ public abstract class MpscChannelConsumer<E> extends MpscOffHeapFixedSizeRingBuf
         this.pointer = EOF;
     }
 
+    @SuppressWarnings("unchecked")
+    public final boolean read() {
+        final long pointer = readAcquire();
+        if (pointer == EOF) {
+            return false;
+        }
+        this.pointer = pointer;
+        try {
+            // the generated subclass implements E
+            receiver.accept((E) this);
+        } finally {
+            readRelease(pointer);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public final int read(final int limit) {
+        final long consumerIndex = lpConsumerIndex();
+        int i = 0;
+        try {
+            while (i < limit) {
+                final long pointer = readAcquire(consumerIndex + i);
+                if (pointer == EOF) {
+                    break;
+                }
+                // the message is counted as consumed before the receiver is called, the receiver may throw
+                i++;
+                this.pointer = pointer;
+                try {
+                    receiver.accept((E) this);
+                } finally {
+                    readRelease(pointer);
+                }
+            }
+        } finally {
+            if (i != 0) {
+                soConsumerIndex(consumerIndex + i); // StoreStore
+            }
+        }
+        return i;
+    }
+
+    public final void drain(final WaitStrategy wait, final ExitCondition exit) {
+        if (null == wait)
+            throw new IllegalArgumentException("wait is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
+
+        final int limit = capacity();
+        int idleCounter = 0;
+        while (exit.keepRunning()) {
+            if (read(limit) == 0) {
+                idleCounter = wait.idle(idleCounter);
+                continue;
+            }
+            idleCounter = 0;
+        }
+    }
+
 }
@@ -31,7 +31,16 @@ public abstract class MpscChannelProducer<E> extends MpscOffHeapFixedSizeRingBuf
         final int capacity,
         final int messageSize) {
 
-        super(buffer, capacity, true, false, true, messageSize, null, 0);
+        this(buffer, capacity, messageSize, true);
+    }
+
+    public MpscChannelProducer(
+        final ByteBuffer buffer,
+        final int capacity,
+        final int messageSize,
+        final boolean initialize) {
+
+        super(buffer, capacity, true, false, initialize, messageSize, null, 0);
         pointer = EOF;
     }
 
@@ -48,4 +57,10 @@ public abstract class MpscChannelProducer<E> extends MpscOffHeapFixedSizeRingBuf
         return true;
     }
 
+    @SuppressWarnings("unchecked")
+    public final E currentElement() {
+        // the generated subclass implements E
+        return (E) this;
+    }
+
 }
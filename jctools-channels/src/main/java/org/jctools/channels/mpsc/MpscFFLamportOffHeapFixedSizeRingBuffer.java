@@ -116,7 +116,15 @@ public final class MpscFFLamportOffHeapFixedSizeRingBuffer extends OffHeapFixedM
 
    @Override
    protected final long readAcquire() {
-      final long consumerIndex = lpConsumerIndex();
+      return readAcquire(lpConsumerIndex());
+   }
+
+   /**
+    * NOTE: producers rely on the consumer index for flow control, so {@link #readRelease(long)} still publishes it
+    * per message.
+    */
+   @Override
+   protected final long readAcquire(long consumerIndex) {
       final long offset = offsetForIndex(consumerIndex);
       // If we can't see the next available element we can't poll
       if (isReadReleased(offset)) { // LoadLoad
@@ -103,6 +103,15 @@ public class MpscOffHeapFixedSizeRingBuffer extends OffHeapFixedMessageSizeRingB
         return offset;
     }
 
+    @Override
+    protected final long readAcquire(long consumerIndex) {
+        final long offset = offsetForIndex(consumerIndex);
+        if (isReadReleased(offset)) {
+            return EOF;
+        }
+        return offset;
+    }
+
     @Override
     protected final void readRelease(long offset) {
         readReleaseState(offset);
@@ -4,11 +4,17 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.ProtectionDomain;
 
+import org.jctools.util.InternalAPI;
 import org.jctools.util.UnsafeAccess;
 
 import sun.misc.Unsafe;
 
-final class DefineClassHelper {
+/**
+ * Defines generated classes in the class loader, and package, of the interface they implement. Shared by the proxy
+ * channels and the flyweights generated by {@link org.jctools.channels.mapping.Mapper}.
+ */
+@InternalAPI
+public final class DefineClassHelper {
     private static abstract class DefineClassStrategy {
         abstract Class<?> defineClass(
                 Class<?> iFace,
@@ -121,7 +127,13 @@ final class DefineClassHelper {
         return new UsingMethodHandles(lookupMethod, privateLookupInMethod, defineClassMethod);
     }
 
-    static Class<?> defineClass(Class<?> iFace, String name, byte[] bytes) {
+    /**
+     * @param iFace the interface implemented by the generated class, the class is defined in its package
+     * @param name the internal name of the generated class
+     * @param bytes the class bytes
+     * @return the defined class
+     */
+    public static Class<?> defineClass(Class<?> iFace, String name, byte[] bytes) {
         return DEFINE_CLASS_STRATEGY.defineClass(iFace, name, bytes);
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels.proxy;
+
+import org.jctools.util.InternalAPI;
+
+/**
+ * The bytecode of a class generated for an interface, either a proxy channel or a flyweight. A generated class is
+ * either defined at runtime, or written out at build time so that it is found by name and never defined at runtime,
+ * see {@link org.jctools.channels.ChannelClassGenerator}.
+ */
+@InternalAPI
+public final class GeneratedClass {
+
+    private final Class<?> iFace;
+    private final String name;
+    private final byte[] byteCode;
+
+    public GeneratedClass(Class<?> iFace, String name, byte[] byteCode) {
+        this.iFace = iFace;
+        this.name = name;
+        this.byteCode = byteCode;
+    }
+
+    /**
+     * @return the interface implemented by the generated class, the class is defined in its package
+     */
+    public Class<?> iFace() {
+        return iFace;
+    }
+
+    /**
+     * @return the internal name of the generated class
+     */
+    public String name() {
+        return name;
+    }
+
+    public byte[] byteCode() {
+        return byteCode;
+    }
+
+    /**
+     * @return the class of the given name if it was already defined, or pregenerated, in the class loader of the
+     *         interface, null otherwise
+     */
+    public static Class<?> findExisting(String generatedName, Class<?> iFace) {
+        try {
+            String className = generatedName.replace("/", ".");
+            return Class.forName(className, true, iFace.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Define this class in the class loader of its interface, unless a class of the same name already exists there.
+     *
+     * @return the defined, or existing, class
+     */
+    public Class<?> define() {
+        synchronized (GeneratedClass.class) {
+            Class<?> preExisting = findExisting(name, iFace);
+            if (preExisting != null) {
+                return preExisting;
+            }
+            // Caveat: The interface and JCTools must be on the same class loader.
+            return DefineClassHelper.defineClass(iFace, name, byteCode);
+        }
+    }
+}
@@ -37,6 +37,10 @@ public interface ProxyChannel<E> {
     E proxy();
 
     /**
+     * A call is consumed once it is read from the channel, before it is made on {@code impl}. If a call throws, it
+     * is counted as processed and not made again, the progress is published and the exception is rethrown. This is
+     * the same contract as {@link org.jctools.channels.ChannelConsumer#read(int)}.
+     *
      * @param impl into which the calls are made where they are not for a proxy instance
      * @param limit maximum number of calls to process through
      * @return the number of calls processed
@@ -118,12 +118,41 @@ public class ProxyChannelFactory {
         
         
 
-        String generatedName = Type.getInternalName(iFace) + "$JCTools$ProxyChannel$" + backendType.getSimpleName();
-        Class<?> preExisting = findExisting(generatedName, iFace);
+        String generatedName = proxyClassName(iFace, backendType);
+        Class<?> preExisting = GeneratedClass.findExisting(generatedName, iFace);
         if (preExisting != null) {
             return instantiate(preExisting, capacity, waitStrategy);
         }
 
+        GeneratedClass generated = generateProxyClass(iFace, backendType);
+        printClassBytes(generated.byteCode());
+        return instantiate(generated.define(), capacity, waitStrategy);
+    }
+
+    /**
+     * @return the internal name of the proxy class generated for the interface and back end type
+     */
+    public static String proxyClassName(Class<?> iFace, Class<? extends ProxyChannelRingBuffer> backendType) {
+        return Type.getInternalName(iFace) + "$JCTools$ProxyChannel$" + backendType.getSimpleName();
+    }
+
+    /**
+     * Generate, but do not define, the proxy class for the interface and back end type. This allows the proxy to
+     * be generated at build time, see {@link org.jctools.channels.ChannelClassGenerator}.
+     *
+     * @param iFace
+     *            Interface the proxy must implement
+     * @param backendType
+     *            The back end type, the proxy will inherit from this channel type
+     * @return the generated proxy class
+     */
+    public static GeneratedClass generateProxyClass(Class<?> iFace,
+            Class<? extends ProxyChannelRingBuffer> backendType) {
+        if (!iFace.isInterface()) {
+            throw new IllegalArgumentException("Not an interface: " + iFace);
+        }
+        String generatedName = proxyClassName(iFace, backendType);
+
         List<Method> relevantMethods = findRelevantMethods(iFace);
         if (relevantMethods.isEmpty()) {
             throw new IllegalArgumentException("Does not declare any abstract methods: " + iFace);
@@ -169,17 +198,7 @@ public class ProxyChannelFactory {
 
         classWriter.visitEnd();
 
-        synchronized (ProxyChannelFactory.class) {
-            preExisting = findExisting(generatedName, iFace);
-            if (preExisting != null) {
-                return instantiate(preExisting, capacity, waitStrategy);
-            }
-            byte[] byteCode = classWriter.toByteArray();
-            printClassBytes(byteCode);
-            // Caveat: The interface and JCTools must be on the same class loader. Maybe class loader should be an argument? Overload?
-            Class<?> definedClass = DefineClassHelper.defineClass(iFace, generatedName, byteCode);
-            return instantiate(definedClass, capacity, waitStrategy);
-        }
+        return new GeneratedClass(iFace, generatedName, classWriter.toByteArray());
     }
 
     private static void implementUserMethods(ClassWriter classWriter, List<Method> relevantMethods, String generatedName, Class<?extends ProxyChannelRingBuffer> backendType) {
@@ -200,15 +219,6 @@ public class ProxyChannelFactory {
         return relevantMethods;
     }
 
-    private static Class<?> findExisting(String generatedName, Class<?> iFace) {
-        try {
-            String className = generatedName.replace("/", ".");
-            return Class.forName(className, true, iFace.getClassLoader());
-        } catch (ClassNotFoundException e) {
-            return null;
-        }
-    }
-
     @SuppressWarnings("unchecked")
     private static <E> ProxyChannel<E> instantiate(Class<?> proxy, int capacity, WaitStrategy waitStrategy) {
         try {
@@ -237,15 +247,25 @@ public class ProxyChannelFactory {
         int localIndexOfLoopIndex = locals.newLocal(int.class);
         int localIndexOfROffset = locals.newLocal(long.class);
         int localIndexOfTypeId = locals.newLocal(int.class);
+        int localIndexOfConsumerIndex = locals.newLocal(long.class);
+        int localIndexOfThrowable = locals.newLocal(Throwable.class);
         
         // Label the start of scope for all locals
         Label localScopeStart = new Label();
         methodVisitor.visitLabel(localScopeStart);
         
+        // long consumerIndex = this.lpConsumerIndex();
+        lpConsumerIndex(methodVisitor, backendType);
+        methodVisitor.visitVarInsn(Opcodes.LSTORE, localIndexOfConsumerIndex);
+
         //int i = 0;
         methodVisitor.visitInsn(Opcodes.ICONST_0);
         methodVisitor.visitVarInsn(Opcodes.ISTORE, localIndexOfLoopIndex);
 
+        // try {
+        Label tryStart = new Label(), tryEnd = new Label(), catchHandler = new Label();
+        methodVisitor.visitTryCatchBlock(tryStart, tryEnd, catchHandler, null);
+        methodVisitor.visitLabel(tryStart);
 
         // label <loopStart>;
         Label loopStart = new Label(), loopEnd = new Label();
@@ -265,8 +285,8 @@ public class ProxyChannelFactory {
             cases[index] = new Label();
         }
 
-        // long rOffset = this.readAcquire();
-        readAcquire(methodVisitor, backendType);
+        // long rOffset = this.readAcquire(consumerIndex + i);
+        readAcquire(methodVisitor, localIndexOfConsumerIndex, localIndexOfLoopIndex, backendType);
         methodVisitor.visitVarInsn(Opcodes.LSTORE, localIndexOfROffset);
 
 
@@ -276,6 +296,9 @@ public class ProxyChannelFactory {
         methodVisitor.visitInsn(Opcodes.LCMP);
         methodVisitor.visitJumpInsn(Opcodes.IFEQ, loopEnd);
 
+        // i++; // the message is counted as consumed before the call is made, the call may throw (see ProxyChannel.process)
+        methodVisitor.visitIincInsn(localIndexOfLoopIndex, 1);
+
         // switch(UnsafeAccess.UNSAFE.getInt(rOffset)) // start with case 1, increment by 1; represents "type"
         getUnsafe(methodVisitor, int.class, localIndexOfROffset, 0);
         methodVisitor.visitVarInsn(Opcodes.ISTORE, localIndexOfTypeId);
@@ -345,16 +368,29 @@ public class ProxyChannelFactory {
         // label <endOfSwitch>;
         methodVisitor.visitLabel(endOfSwitch);
 
-        // i++;
-        methodVisitor.visitIincInsn(3, 1);
-
         // goto <loopStart>;
         methodVisitor.visitJumpInsn(Opcodes.GOTO, loopStart);
         methodVisitor.visitLabel(loopEnd);
+        // }
+        methodVisitor.visitLabel(tryEnd);
+
+        // if (i != 0) this.soConsumerIndex(consumerIndex + i);
+        Label skipPublish = new Label();
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, localIndexOfLoopIndex);
+        methodVisitor.visitJumpInsn(Opcodes.IFEQ, skipPublish);
+        soConsumerIndex(methodVisitor, localIndexOfConsumerIndex, localIndexOfLoopIndex, backendType);
+        methodVisitor.visitLabel(skipPublish);
 
         // return i;
         methodVisitor.visitVarInsn(Opcodes.ILOAD, localIndexOfLoopIndex);
         methodVisitor.visitInsn(Opcodes.IRETURN);
+
+        // catch (Throwable t) { this.soConsumerIndex(consumerIndex + i); throw t; }
+        methodVisitor.visitLabel(catchHandler);
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, localIndexOfThrowable);
+        soConsumerIndex(methodVisitor, localIndexOfConsumerIndex, localIndexOfLoopIndex, backendType);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, localIndexOfThrowable);
+        methodVisitor.visitInsn(Opcodes.ATHROW);
         
 
         // Label the end of scope for all locals
@@ -368,6 +404,7 @@ public class ProxyChannelFactory {
         methodVisitor.visitLocalVariable("loopIndex", Type.getType(int.class).getDescriptor(), null, localScopeStart, localScopeEnd, localIndexOfLoopIndex);
         methodVisitor.visitLocalVariable("rOffset", Type.getType(long.class).getDescriptor(), null, localScopeStart, localScopeEnd, localIndexOfROffset);
         methodVisitor.visitLocalVariable("typeId", Type.getType(int.class).getDescriptor(), null, localScopeStart, localScopeEnd, localIndexOfTypeId);
+        methodVisitor.visitLocalVariable("consumerIndex", Type.getType(long.class).getDescriptor(), null, localScopeStart, localScopeEnd, localIndexOfConsumerIndex);
         
         // size requirement is computed by ASM; complete method.
         methodVisitor.visitMaxs(-1, -1);
@@ -631,9 +668,28 @@ public class ProxyChannelFactory {
         methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(backendType), "writeRelease", "(JI)V", false);
     }
 
-    private static void readAcquire(MethodVisitor methodVisitor, Class<? extends ProxyChannelRingBuffer> backendType) {
+    private static void readAcquire(MethodVisitor methodVisitor, int localIndexOfConsumerIndex, int localIndexOfLoopIndex, Class<? extends ProxyChannelRingBuffer> backendType) {
         methodVisitor.visitVarInsn(Opcodes.ALOAD, LOCALS_INDEX_THIS);
-        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(backendType), "readAcquire", "()J", false);
+        loadConsumerIndexPlusLoopIndex(methodVisitor, localIndexOfConsumerIndex, localIndexOfLoopIndex);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(backendType), "readAcquire", "(J)J", false);
+    }
+
+    private static void lpConsumerIndex(MethodVisitor methodVisitor, Class<? extends ProxyChannelRingBuffer> backendType) {
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, LOCALS_INDEX_THIS);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(backendType), "lpConsumerIndex", "()J", false);
+    }
+
+    private static void soConsumerIndex(MethodVisitor methodVisitor, int localIndexOfConsumerIndex, int localIndexOfLoopIndex, Class<? extends ProxyChannelRingBuffer> backendType) {
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, LOCALS_INDEX_THIS);
+        loadConsumerIndexPlusLoopIndex(methodVisitor, localIndexOfConsumerIndex, localIndexOfLoopIndex);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(backendType), "soConsumerIndex", "(J)V", false);
+    }
+
+    private static void loadConsumerIndexPlusLoopIndex(MethodVisitor methodVisitor, int localIndexOfConsumerIndex, int localIndexOfLoopIndex) {
+        methodVisitor.visitVarInsn(Opcodes.LLOAD, localIndexOfConsumerIndex);
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, localIndexOfLoopIndex);
+        methodVisitor.visitInsn(Opcodes.I2L);
+        methodVisitor.visitInsn(Opcodes.LADD);
     }
 
     private static void readRelease(MethodVisitor methodVisitor, int wOffset, Class<? extends ProxyChannelRingBuffer> backendType) {
@@ -31,6 +31,31 @@ public abstract class ProxyChannelRingBuffer {
      */
     protected abstract long readAcquire();
 
+    /**
+     * Acquire the offset to read from at the given consumer index, without
+     * publishing the consumer index. This allows a consumer to read a run of
+     * messages and publish its progress once via {@link #soConsumerIndex(long)}.
+     *
+     * @param consumerIndex
+     *            the consumer index to acquire, at or after the last published
+     *            consumer index
+     * @return the offset that was acquired for reading or {@link #EOF}
+     */
+    protected abstract long readAcquire(long consumerIndex);
+
+    /**
+     * @return the consumer index, as last published by the consumer
+     */
+    protected abstract long lpConsumerIndex();
+
+    /**
+     * Ordered store of the consumer index, publishing consumer progress.
+     *
+     * @param value
+     *            the new consumer index
+     */
+    protected abstract void soConsumerIndex(long value);
+
     /**
      * Release the offset from reading
      * 
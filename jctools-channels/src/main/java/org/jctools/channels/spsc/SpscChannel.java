@@ -17,10 +17,12 @@ import org.jctools.channels.Channel;
 import org.jctools.channels.ChannelConsumer;
 import org.jctools.channels.ChannelProducer;
 import org.jctools.channels.ChannelReceiver;
+import org.jctools.channels.MappedChannelFile;
 import org.jctools.channels.mapping.Mapper;
 import org.jctools.util.Pow2;
-import org.jctools.util.Template;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 
 import static org.jctools.channels.spsc.SpscOffHeapFixedSizeRingBuffer.getLookaheadStep;
@@ -38,14 +40,19 @@ public final class SpscChannel<E> implements Channel<E> {
     private final int requestedCapacity;
     private final SpscChannelProducer<E> producer;
 
+    public SpscChannel(final ByteBuffer buffer, final int requestedCapacity, final Class<E> type) {
+        this(buffer, requestedCapacity, type, true);
+    }
+
     /**
      * This is to be used for an IPC queue with the direct buffer used being a memory mapped file.
      *
      * @param buffer
      * @param requestedCapacity
+     * @param initialize true if the buffer should be initialized, false if it was initialized by another channel
      */
-    // TODO: take an initialize parameter
-    public SpscChannel(final ByteBuffer buffer, final int requestedCapacity, final Class<E> type) {
+    public SpscChannel(final ByteBuffer buffer, final int requestedCapacity, final Class<E> type,
+            final boolean initialize) {
         this.requestedCapacity = requestedCapacity;
         this.maximumCapacity = getMaximumCapacity(requestedCapacity);
         this.buffer = buffer;
@@ -55,7 +62,42 @@ public final class SpscChannel<E> implements Channel<E> {
         checkSufficientCapacity();
         checkByteBuffer();
 
-        producer = newProducer(type, buffer, maximumCapacity, elementSize);
+        producer = newProducer(type, buffer, maximumCapacity, elementSize, initialize);
+    }
+
+    /**
+     * A channel backed by a memory mapped file, to be shared with a channel in another process. One side (normally
+     * the producer) initializes the file, the other side maps it after it was initialized and verifies the file
+     * header matches its capacity and message layout. See {@link MappedChannelFile}.
+     *
+     * @param file the channel file
+     * @param requestedCapacity
+     * @param initialize true if this side creates and initializes the file
+     * @throws IOException if the file cannot be mapped
+     */
+    public SpscChannel(final File file, final int requestedCapacity, final Class<E> type,
+            final boolean initialize) throws IOException {
+        this.requestedCapacity = requestedCapacity;
+        this.maximumCapacity = getMaximumCapacity(requestedCapacity);
+        mapper = new Mapper<E>(type, debugEnabled);
+        elementSize = mapper.getSizeInBytes();
+
+        final MappedChannelFile mappedFile = MappedChannelFile.map(file,
+                getRequiredBufferSize(maximumCapacity, elementSize),
+                SpscChannel.class,
+                requestedCapacity,
+                elementSize,
+                mapper.getLayoutHash(),
+                initialize);
+        this.buffer = mappedFile.buffer();
+
+        checkSufficientCapacity();
+        checkByteBuffer();
+
+        producer = newProducer(type, buffer, maximumCapacity, elementSize, initialize);
+        if (initialize) {
+            mappedFile.publish();
+        }
     }
 
     private int getMaximumCapacity(int requestedCapacity) {
@@ -103,14 +145,12 @@ public final class SpscChannel<E> implements Channel<E> {
 
     @SuppressWarnings("unchecked")
     private SpscChannelProducer<E> newProducer(final Class<E> type, final Object... args) {
-        return mapper.newFlyweight(SpscChannelProducer.class, "ChannelProducerTemplate.java",
-                Template.fromFile(Channel.class, "ChannelProducerTemplate.java"), args);
+        return mapper.newFlyweight(SpscChannelProducer.class, args);
     }
 
     @SuppressWarnings("unchecked")
     private SpscChannelConsumer<E> newConsumer(Object... args) {
-        return mapper.newFlyweight(SpscChannelConsumer.class, "ChannelConsumerTemplate.java",
-                Template.fromFile(Channel.class, "ChannelConsumerTemplate.java"),  args);
+        return mapper.newFlyweight(SpscChannelConsumer.class, args);
     }
 
 }
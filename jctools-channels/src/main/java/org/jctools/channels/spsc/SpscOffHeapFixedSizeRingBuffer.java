@@ -138,6 +138,15 @@ public class SpscOffHeapFixedSizeRingBuffer extends OffHeapFixedMessageSizeRingB
         return consumerOffset;
     }
 
+    @Override
+    protected final long readAcquire(long consumerIndex) {
+        final long consumerOffset = offsetForIndex(consumerIndex);
+        if (isReadReleased(consumerOffset)) {
+            return EOF;
+        }
+        return consumerOffset;
+    }
+
     @Override
     protected final void readRelease(long offset) {
         readReleaseState(offset);
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Scanner;
+
+import org.jctools.channels.mapping.Length;
+import org.jctools.channels.proxy.DemoIFace;
+import org.jctools.channels.proxy.GeneratedClass;
+import org.jctools.channels.proxy.ProxyChannel;
+import org.jctools.channels.proxy.ProxyChannelFactory;
+import org.jctools.channels.spsc.SpscChannelConsumer;
+import org.jctools.channels.spsc.SpscChannelProducer;
+import org.jctools.channels.spsc.SpscOffHeapFixedSizeRingBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ChannelClassGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldWriteLoadableFlyweightClasses() throws Exception {
+        File output = folder.newFolder();
+        ChannelClassGenerator.main(new String[] { output.getPath(), "spsc:" + Quote.class.getName() });
+
+        List<GeneratedClass> generated = ChannelClassGenerator.generate("spsc", Quote.class);
+        // producer, consumer and the nested view of each
+        assertEquals(4, generated.size());
+
+        URLClassLoader loader = new URLClassLoader(new URL[] { output.toURI().toURL() }, getClass().getClassLoader());
+        try {
+            for (GeneratedClass generatedClass : generated) {
+                assertTrue(new File(output, generatedClass.name() + ".class").isFile());
+                Class<?> loaded = Class.forName(generatedClass.name().replace('/', '.'), true, loader);
+                assertTrue(generatedClass.iFace().isAssignableFrom(loaded));
+            }
+            assertTrue(SpscChannelProducer.class.isAssignableFrom(
+                    loader.loadClass(generated.get(1).name().replace('/', '.'))));
+            assertTrue(SpscChannelConsumer.class.isAssignableFrom(
+                    loader.loadClass(generated.get(3).name().replace('/', '.'))));
+        } finally {
+            loader.close();
+        }
+
+        String config = read(new File(output, ChannelClassGenerator.REFLECT_CONFIG));
+        for (GeneratedClass generatedClass : generated) {
+            assertTrue(config.contains(generatedClass.name().replace('/', '.')));
+        }
+        assertTrue(config.contains("\"" + Quote.class.getName() + "\""));
+        assertTrue(config.contains("\"" + Price.class.getName() + "\""));
+    }
+
+    @Test
+    public void shouldWriteLoadableProxyClass() throws Exception {
+        File output = folder.newFolder();
+        ChannelClassGenerator.main(new String[] { output.getPath(), "spsc-proxy:" + DemoIFace.class.getName() });
+
+        String name = ProxyChannelFactory.proxyClassName(DemoIFace.class, SpscOffHeapFixedSizeRingBuffer.class);
+        URLClassLoader loader = new URLClassLoader(new URL[] { output.toURI().toURL() }, getClass().getClassLoader());
+        try {
+            Class<?> loaded = Class.forName(name.replace('/', '.'), true, loader);
+            assertTrue(DemoIFace.class.isAssignableFrom(loaded));
+            assertTrue(ProxyChannel.class.isAssignableFrom(loaded));
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownKind() {
+        ChannelClassGenerator.generate("spmc", Quote.class);
+    }
+
+    private static String read(File file) throws IOException {
+        Scanner scanner = new Scanner(file, "UTF-8");
+        try {
+            return scanner.useDelimiter("\\A").next();
+        } finally {
+            scanner.close();
+        }
+    }
+
+    public interface Quote {
+
+        @Length(4)
+        CharSequence getSymbol();
+
+        void setSymbol(CharSequence value);
+
+        Price getBid();
+
+    }
+
+    public interface Price {
+
+        long getMantissa();
+
+        void setMantissa(long value);
+
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jctools.channels.mpsc.MpscChannel;
+import org.jctools.channels.spsc.SpscChannel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedChannelFileTest {
+
+    private static final int REQUESTED_CAPACITY = 8;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldPassMessagesBetweenSpscChannelsMappingTheSameFile() throws IOException {
+        File file = folder.newFile();
+        Channel<Example> producerSide = new SpscChannel<Example>(file, REQUESTED_CAPACITY, Example.class, true);
+        Channel<Example> consumerSide = new SpscChannel<Example>(file, REQUESTED_CAPACITY, Example.class, false);
+        shouldPassMessages(producerSide, consumerSide);
+    }
+
+    @Test
+    public void shouldPassMessagesBetweenMpscChannelsMappingTheSameFile() throws IOException {
+        File file = folder.newFile();
+        Channel<Example> producerSide = new MpscChannel<Example>(file, REQUESTED_CAPACITY, Example.class, true);
+        Channel<Example> consumerSide = new MpscChannel<Example>(file, REQUESTED_CAPACITY, Example.class, false);
+        shouldPassMessages(producerSide, consumerSide);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotOpenUninitializedFile() throws IOException {
+        new SpscChannel<Example>(folder.newFile(), REQUESTED_CAPACITY, Example.class, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldDetectMismatchedLayout() throws IOException {
+        File file = folder.newFile();
+        new SpscChannel<Example>(file, REQUESTED_CAPACITY, Example.class, true);
+        new SpscChannel<OtherExample>(file, REQUESTED_CAPACITY, OtherExample.class, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldDetectMismatchedChannelType() throws IOException {
+        File file = folder.newFile();
+        new SpscChannel<Example>(file, REQUESTED_CAPACITY, Example.class, true);
+        new MpscChannel<Example>(file, REQUESTED_CAPACITY, Example.class, false);
+    }
+
+    @Test
+    public void shouldReinitializeAReusedFile() throws IOException {
+        File file = folder.newFile();
+        Channel<Example> first = new SpscChannel<Example>(file, REQUESTED_CAPACITY, Example.class, true);
+        ChannelProducer<Example> producer = first.producer();
+        assertTrue(producer.claim());
+        assertTrue(producer.commit());
+        assertEquals(1, first.size());
+
+        Channel<Example> second = new SpscChannel<Example>(file, REQUESTED_CAPACITY, Example.class, true);
+        assertTrue(second.isEmpty());
+    }
+
+    private void shouldPassMessages(Channel<Example> producerSide, Channel<Example> consumerSide) {
+        final long[] sum = new long[1];
+        ChannelConsumer consumer = consumerSide.consumer(new ChannelReceiver<Example>() {
+            public void accept(Example element) {
+                sum[0] += element.getFoo() + element.getBar();
+            }
+        });
+        assertFalse(consumer.read());
+
+        ChannelProducer<Example> producer = producerSide.producer();
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(producer.claim());
+            Example element = producer.currentElement();
+            element.setFoo(i);
+            element.setBar(10L * i);
+            assertTrue(producer.commit());
+        }
+        assertEquals(3, consumerSide.size());
+
+        assertEquals(3, consumer.read(REQUESTED_CAPACITY));
+        assertEquals(66L, sum[0]);
+        assertTrue(producerSide.isEmpty());
+    }
+
+    public interface Example {
+
+        int getFoo();
+
+        void setFoo(int value);
+
+        long getBar();
+
+        void setBar(long value);
+
+    }
+
+    public interface OtherExample {
+
+        long getFoo();
+
+        void setFoo(long value);
+
+        int getBar();
+
+        void setBar(int value);
+
+    }
+}
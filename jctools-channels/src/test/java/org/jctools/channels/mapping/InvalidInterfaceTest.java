@@ -27,7 +27,8 @@ public class InvalidInterfaceTest {
 	@Parameters
 	public static Collection<Object[]> data() {
 		return Arrays.asList(new Object[][] { { NoGettersOrSetters.class }, { InvalidReturnGetter.class }, { ParameterGetter.class },
-				{ InvalidReturnSetter.class }, { NoParameterSetter.class }, });
+				{ InvalidReturnSetter.class }, { NoParameterSetter.class }, { ArrayGetterWithoutLength.class },
+				{ CharSequenceGetterWithoutLength.class }, { RecursiveNestedGetter.class }, });
 	}
 
 	private Class<?> representingKlass;
@@ -63,4 +64,16 @@ public class InvalidInterfaceTest {
 		void setFoo();
 	}
 
+	public interface ArrayGetterWithoutLength {
+		byte getFoo(int index);
+	}
+
+	public interface CharSequenceGetterWithoutLength {
+		CharSequence getFoo();
+	}
+
+	public interface RecursiveNestedGetter {
+		RecursiveNestedGetter getFoo();
+	}
+
 }
@@ -76,8 +76,113 @@ public class MapperTest {
         assertEquals(6L, reader.getBar());
     }
 
+    @Test
+    public void shouldReadAndWriteArraysCharSequencesAndNestedFlyweights() {
+        Mapper<Order> orderMapper = new Mapper<Order>(Order.class, false);
+        // indicator(4) + id(8) + uuid(16) + symbol(4 + 8) + price(mantissa(8) + exponent(4) + currency(4 + 3))
+        assertEquals(59, orderMapper.getSizeInBytes());
+
+        long address = UnsafeAccess.UNSAFE.allocateMemory(orderMapper.getSizeInBytes());
+        try {
+            Order writer = (Order) orderMapper.newFlyweight(StubFlyweight.class, address);
+            Order reader = (Order) orderMapper.newFlyweight(StubFlyweight.class, address);
+
+            writer.setId(7L);
+            for (int i = 0; i < 16; i++) {
+                writer.setUuid(i, (byte) i);
+            }
+            writer.setSymbol("JCTOOLS");
+            writer.getPrice().setMantissa(12345L);
+            writer.getPrice().setExponent(-2);
+            writer.getPrice().setCurrency("GBP");
+
+            assertEquals(7L, reader.getId());
+            for (int i = 0; i < 16; i++) {
+                assertEquals((byte) i, reader.getUuid(i));
+            }
+            assertEquals("JCTOOLS", reader.getSymbol().toString());
+            assertEquals(7, reader.getSymbol().length());
+            assertEquals('J', reader.getSymbol().charAt(0));
+            assertEquals(12345L, reader.getPrice().getMantissa());
+            assertEquals(-2, reader.getPrice().getExponent());
+            assertEquals("GBP", reader.getPrice().getCurrency().toString());
+        } finally {
+            UnsafeAccess.UNSAFE.freeMemory(address);
+        }
+    }
+
+    @Test
+    public void shouldRejectOutOfBoundsAccess() {
+        Mapper<Order> orderMapper = new Mapper<Order>(Order.class, false);
+        long address = UnsafeAccess.UNSAFE.allocateMemory(orderMapper.getSizeInBytes());
+        try {
+            Order writer = (Order) orderMapper.newFlyweight(StubFlyweight.class, address);
+            try {
+                writer.setUuid(16, (byte) 1);
+                fail();
+            } catch (IndexOutOfBoundsException expected) {
+            }
+            try {
+                writer.setSymbol("TOO LONG!");
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+        } finally {
+            UnsafeAccess.UNSAFE.freeMemory(address);
+        }
+    }
+
+    @Test
+    public void shouldHashLayout() {
+        assertEquals(mapper.getLayoutHash(), new Mapper<Example>(Example.class, false).getLayoutHash());
+        assertNotEquals(mapper.getLayoutHash(), new Mapper<Order>(Order.class, false).getLayoutHash());
+    }
+
+    @Test
+    public void shouldGenerateClassOncePerLayout() {
+        assertSame(newFlyweight().getClass(), newFlyweight().getClass());
+        assertSame(newFlyweight().getClass(),
+                new Mapper<Example>(Example.class, false).newFlyweight(StubFlyweight.class, startAddress).getClass());
+    }
+
+    @Test
+    public void shouldNameGeneratedClassesAfterTheQualifiedImplementationParent() {
+        // same simple name, same struct interface and layout
+        TypeInspector inspector = new TypeInspector(Example.class);
+        String utilList = new ClassViewModel(java.util.List.class, Example.class, inspector).className();
+        String awtList = new ClassViewModel(java.awt.List.class, Example.class, inspector).className();
+        assertNotEquals(utilList, awtList);
+    }
+
+    @Test
+    public void shouldReadAndWriteAllPrimitiveTypes() {
+        Mapper<Primitives> primitivesMapper = new Mapper<Primitives>(Primitives.class, false);
+        long address = UnsafeAccess.UNSAFE.allocateMemory(primitivesMapper.getSizeInBytes());
+        try {
+            Primitives writer = (Primitives) primitivesMapper.newFlyweight(StubFlyweight.class, address);
+            Primitives reader = (Primitives) primitivesMapper.newFlyweight(StubFlyweight.class, address);
+
+            writer.setFlag(true);
+            writer.setLetter('x');
+            writer.setSmall((short) -3);
+            writer.setRatio(0.5f);
+            writer.setValue(1.25d);
+
+            assertTrue(reader.getFlag());
+            assertEquals('x', reader.getLetter());
+            assertEquals((short) -3, reader.getSmall());
+            assertEquals(0.5f, reader.getRatio(), 0.0f);
+            assertEquals(1.25d, reader.getValue(), 0.0d);
+
+            writer.setFlag(false);
+            assertFalse(reader.getFlag());
+        } finally {
+            UnsafeAccess.UNSAFE.freeMemory(address);
+        }
+    }
+
     private StubFlyweight newFlyweight() {
-        return mapper.newFlyweight(StubFlyweight.class, "StubTemplate.java", startAddress);
+        return mapper.newFlyweight(StubFlyweight.class, startAddress);
     }
 
     // ---------------------------------------------------
@@ -94,4 +199,65 @@ public class MapperTest {
 
     }
 
+    public interface Primitives {
+
+        boolean getFlag();
+
+        void setFlag(boolean value);
+
+        char getLetter();
+
+        void setLetter(char value);
+
+        short getSmall();
+
+        void setSmall(short value);
+
+        float getRatio();
+
+        void setRatio(float value);
+
+        double getValue();
+
+        void setValue(double value);
+
+    }
+
+    public interface Order {
+
+        long getId();
+
+        void setId(long value);
+
+        @Length(16)
+        byte getUuid(int index);
+
+        void setUuid(int index, byte value);
+
+        @Length(8)
+        CharSequence getSymbol();
+
+        void setSymbol(CharSequence value);
+
+        Price getPrice();
+
+    }
+
+    public interface Price {
+
+        long getMantissa();
+
+        void setMantissa(long value);
+
+        int getExponent();
+
+        void setExponent(int value);
+
+        @Length(3)
+        CharSequence getCurrency();
+
+        void setCurrency(CharSequence value);
+
+    }
+
 }
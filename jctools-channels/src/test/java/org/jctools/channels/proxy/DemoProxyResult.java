@@ -30,64 +30,70 @@ public class DemoProxyResult extends SpscOffHeapFixedSizeRingBuffer implements P
 
     @Override
     public int process(DemoIFace impl, int limit) {
+        final long consumerIndex = this.lpConsumerIndex();
         int i = 0;
-        for (; i < limit; i++) {
-            long rOffset = this.readAcquire();
-            if (rOffset == EOF)
-                break;
-            // Depending on the number of methods this could change for performance (needs testing)
-            // Start off with a switch and see how we do. The compiler *should* be able to convert a large switch
-            // to a lookup table and *should* be better equipped to make the call.
-            switch (UnsafeAccess.UNSAFE.getInt(rOffset)) {
-                case 1: {
-                    int x = UnsafeAccess.UNSAFE.getInt(rOffset + 4);
-                    int y = UnsafeAccess.UNSAFE.getInt(rOffset + 8);
-                    this.readRelease(rOffset);
-                    impl.call1(x, y);
-                    break;
-                }
-                case 2: {
-                    float x = UnsafeAccess.UNSAFE.getFloat(rOffset + 4);
-                    double y = UnsafeAccess.UNSAFE.getDouble(rOffset + 8);
-                    boolean z = UnsafeAccess.UNSAFE.getBoolean(null, rOffset + 16);
-                    this.readRelease(rOffset);
-                    impl.call2(x, y, z);
-                    break;
-                }
-                case 3: {
-                    this.readRelease(rOffset);
-                    impl.call3();
-                    break;
-                }
-                case 4: {
-                    long referenceArrayIndex = this.consumerReferenceArrayIndex(rOffset);
-                    Object x = this.readReference(referenceArrayIndex);
-                    Object y = this.readReference(referenceArrayIndex + 1);
-                    this.readRelease(rOffset);
-                    impl.call4(x, (CustomType) y);
-                    break;
-                }
-                case 5: {
-                    long referenceArrayIndex = this.consumerReferenceArrayIndex(rOffset);
-                    Object x = this.readReference(referenceArrayIndex);
-                    int y = UnsafeAccess.UNSAFE.getInt(rOffset + 4);
-                    Object z = this.readReference(referenceArrayIndex + 1);
-                    this.readRelease(rOffset);
-                    impl.call5((CustomType) x, y, (CustomType) z);
-                    break;
-                }
-                case 6: {
-                    long referenceArrayIndex = this.consumerReferenceArrayIndex(rOffset);
-                    int x = UnsafeAccess.UNSAFE.getInt(rOffset + 4);
-                    Object y = this.readReference(referenceArrayIndex);
-                    Object z = this.readReference(referenceArrayIndex + 1);
-                    this.readRelease(rOffset);
-                    impl.call6(x, (CustomType[]) y, (CustomType[]) z);
+        try {
+            while (i < limit) {
+                long rOffset = this.readAcquire(consumerIndex + i);
+                if (rOffset == EOF)
                     break;
+                i++;
+                // Depending on the number of methods this could change for performance (needs testing)
+                // Start off with a switch and see how we do. The compiler *should* be able to convert a large switch
+                // to a lookup table and *should* be better equipped to make the call.
+                switch (UnsafeAccess.UNSAFE.getInt(rOffset)) {
+                    case 1: {
+                        int x = UnsafeAccess.UNSAFE.getInt(rOffset + 4);
+                        int y = UnsafeAccess.UNSAFE.getInt(rOffset + 8);
+                        this.readRelease(rOffset);
+                        impl.call1(x, y);
+                        break;
+                    }
+                    case 2: {
+                        float x = UnsafeAccess.UNSAFE.getFloat(rOffset + 4);
+                        double y = UnsafeAccess.UNSAFE.getDouble(rOffset + 8);
+                        boolean z = UnsafeAccess.UNSAFE.getBoolean(null, rOffset + 16);
+                        this.readRelease(rOffset);
+                        impl.call2(x, y, z);
+                        break;
+                    }
+                    case 3: {
+                        this.readRelease(rOffset);
+                        impl.call3();
+                        break;
+                    }
+                    case 4: {
+                        long referenceArrayIndex = this.consumerReferenceArrayIndex(rOffset);
+                        Object x = this.readReference(referenceArrayIndex);
+                        Object y = this.readReference(referenceArrayIndex + 1);
+                        this.readRelease(rOffset);
+                        impl.call4(x, (CustomType) y);
+                        break;
+                    }
+                    case 5: {
+                        long referenceArrayIndex = this.consumerReferenceArrayIndex(rOffset);
+                        Object x = this.readReference(referenceArrayIndex);
+                        int y = UnsafeAccess.UNSAFE.getInt(rOffset + 4);
+                        Object z = this.readReference(referenceArrayIndex + 1);
+                        this.readRelease(rOffset);
+                        impl.call5((CustomType) x, y, (CustomType) z);
+                        break;
+                    }
+                    case 6: {
+                        long referenceArrayIndex = this.consumerReferenceArrayIndex(rOffset);
+                        int x = UnsafeAccess.UNSAFE.getInt(rOffset + 4);
+                        Object y = this.readReference(referenceArrayIndex);
+                        Object z = this.readReference(referenceArrayIndex + 1);
+                        this.readRelease(rOffset);
+                        impl.call6(x, (CustomType[]) y, (CustomType[]) z);
+                        break;
+                    }
                 }
             }
+        } finally {
+            if (i != 0)
+                this.soConsumerIndex(consumerIndex + i);
         }
-
         return i;
     }
 
@@ -117,6 +117,60 @@ public class ProxyCreationTest {
         proxyChannel.process(implAssertions, 1);
     }
 
+    @Test
+    public void givenGeneratedProxy_whenProcessBatch_expectConsumerProgressPublishedEvenIfCallThrows() throws Exception {
+        ProxyChannel<DemoIFace> proxyChannel =
+                ProxyChannelFactory.createSpscProxy(10, DemoIFace.class, (idleCounter) -> 0);
+        DemoIFace proxy = proxyChannel.proxy();
+        proxy.call1(1, 2);
+        proxy.call3();
+        proxy.call1(1, 2);
+        proxy.call1(1, 2);
+        Assert.assertEquals(4, proxyChannel.size());
+
+        int[] calls = new int[1];
+        DemoIFace impl = new DemoIFace() {
+            @Override
+            public void call1(int x, int y) {
+                calls[0]++;
+            }
+
+            @Override
+            public void call2(float x, double y, boolean z) {
+            }
+
+            @Override
+            public void call3() {
+                throw new RuntimeException();
+            }
+
+            @Override
+            public void call4(Object x, CustomType y) {
+            }
+
+            @Override
+            public void call5(CustomType x, int y, CustomType z) {
+            }
+
+            @Override
+            public void call6(int x, CustomType[] y, CustomType... z) {
+            }
+        };
+        try {
+            proxyChannel.process(impl, 10);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            // Happy
+        }
+        Assert.assertEquals(1, calls[0]);
+        Assert.assertEquals(2, proxyChannel.size());
+
+        Assert.assertEquals(2, proxyChannel.process(impl, 10));
+        Assert.assertEquals(3, calls[0]);
+        Assert.assertTrue(proxyChannel.isEmpty());
+        Assert.assertEquals(0, proxyChannel.process(impl, 10));
+    }
+
     @Test
     public void givenGeneratedProxy_andQueueIsFull_whenCallAgain_expectRuntimeException() throws Exception {
         ProxyChannel<DemoIFace> proxyChannel =
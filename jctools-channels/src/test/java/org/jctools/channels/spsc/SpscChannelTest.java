@@ -16,6 +16,8 @@ package org.jctools.channels.spsc;
 import org.jctools.channels.ChannelConsumer;
 import org.jctools.channels.ChannelProducer;
 import org.jctools.channels.ChannelReceiver;
+import org.jctools.channels.WaitStrategy;
+import org.jctools.queues.MessagePassingQueue.ExitCondition;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
@@ -64,6 +66,83 @@ public class SpscChannelTest {
         assertEmpty();
     }
 
+    @Test
+    public void shouldReadABatchOfObjects() {
+        ChannelConsumer consumer = newConsumer();
+
+        writeAnObject();
+        writeAnObject();
+        writeAnObject();
+
+        assertEquals(2, consumer.read(2));
+        assertSize(1);
+        assertEquals(1, consumer.read(REQUESTED_CAPACITY));
+        assertEmpty();
+        assertEquals(0, consumer.read(REQUESTED_CAPACITY));
+    }
+
+    @Test
+    public void shouldConsumeAMessageWhoseReceiverThrows() {
+        final int[] received = new int[1];
+        ChannelConsumer consumer = channel.consumer(new ChannelReceiver<Example>() {
+            public void accept(Example element) {
+                if (++received[0] == 2) {
+                    throw new IllegalStateException();
+                }
+            }
+        });
+
+        writeAnObject();
+        writeAnObject();
+        writeAnObject();
+
+        try {
+            consumer.read(REQUESTED_CAPACITY);
+            fail();
+        } catch (IllegalStateException expected) {
+            // the message handed to the throwing receiver is consumed, the one after it is not
+        }
+        assertEquals(2, received[0]);
+        assertSize(1);
+
+        assertEquals(1, consumer.read(REQUESTED_CAPACITY));
+        assertEquals(3, received[0]);
+        assertEmpty();
+
+        // every slot was released, including the one read by the throwing receiver
+        for (int i = 0; i < MAXIMUM_CAPACITY; i++) {
+            writeAnObject();
+        }
+        assertEquals(MAXIMUM_CAPACITY, consumer.read(MAXIMUM_CAPACITY));
+        assertEmpty();
+    }
+
+    @Test
+    public void shouldDrainUntilExitConditionIsMet() {
+        final int[] received = new int[1];
+        ChannelConsumer consumer = channel.consumer(new ChannelReceiver<Example>() {
+            public void accept(Example element) {
+                received[0]++;
+            }
+        });
+
+        writeAnObject();
+        writeAnObject();
+
+        consumer.drain(new WaitStrategy() {
+            public int idle(int idleCounter) {
+                return idleCounter + 1;
+            }
+        }, new ExitCondition() {
+            public boolean keepRunning() {
+                return received[0] < 2;
+            }
+        });
+
+        assertEquals(2, received[0]);
+        assertEmpty();
+    }
+
     @Test
     public void shouldNotReadFromEmptyChannel() {
         ChannelConsumer consumer = newConsumer();
@@ -102,6 +181,15 @@ public class SpscChannelTest {
         assertTrue(channel.size() <= MAXIMUM_CAPACITY);
     }
 
+    private void writeAnObject() {
+        assertTrue(producer.claim());
+
+        Example writer = producer.currentElement();
+        writer.setFoo(5);
+        writer.setBar(10L);
+        assertTrue(producer.commit());
+    }
+
     private void assertSize(int expectedSize) {
         assertEquals(expectedSize, channel.size());
     }
@@ -0,0 +1,48 @@
+package org.jctools.queues;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+@JCStressTest
+@Outcome(id = "0, 2", expect = ACCEPTABLE, desc = "Consumer ran before both producers.")
+@Outcome(id = "1, 1", expect = ACCEPTABLE, desc = "Consumer polled the first producer element.")
+@Outcome(id = "2, 1", expect = ACCEPTABLE, desc = "Consumer polled the second producer element.")
+@Outcome(expect = FORBIDDEN)
+@State
+public class MpscRelaxedArrayQueueProducersConsumerTest {
+    // cycle length is 2, the 2 offers below straddle a cycle rotation
+    private final MpscRelaxedArrayQueue<Integer> queue = new MpscRelaxedArrayQueue<>(2);
+
+    public MpscRelaxedArrayQueueProducersConsumerTest() {
+        queue.offer(0);
+        queue.poll();
+    }
+
+    @Actor
+    public void producer1() {
+        queue.offer(1);
+    }
+
+    @Actor
+    public void producer2() {
+        queue.offer(2);
+    }
+
+    @Actor
+    public void consumer(II_Result r) {
+        final Integer e = queue.poll();
+        r.r1 = e == null ? 0 : e;
+    }
+
+    @Arbiter
+    public void arbiter(II_Result r) {
+        r.r2 = queue.size();
+    }
+}
@@ -1,5 +1,7 @@
 package org.jctools.counters;
 
+import java.util.concurrent.TimeUnit;
+
 import org.jctools.util.UnsafeAccess;
 
 /**
@@ -25,4 +27,46 @@ public final class CountersFactory {
     public static FixedSizeStripedLongCounter createFixedSizeStripedCounterV8(int stripesCount) {
         return new FixedSizeStripedLongCounterV8(stripesCount);
     }
+
+    public static DynamicStripedLongCounter createDynamicStripedCounter() {
+        return new DynamicStripedLongCounter();
+    }
+
+    public static DynamicStripedLongCounter createDynamicStripedCounter(int maxStripes) {
+        return new DynamicStripedLongCounter(maxStripes);
+    }
+
+    public static SingleWriterLongCounter createSingleWriterCounter() {
+        return new SingleWriterLongCounter();
+    }
+
+    public static ThreadLocalLongCounter createThreadLocalCounter() {
+        return new ThreadLocalLongCounter();
+    }
+
+    public static FixedSizeStripedLongMax createFixedSizeStripedMax(int stripesCount) {
+        return new FixedSizeStripedLongMax(stripesCount);
+    }
+
+    public static FixedSizeStripedLongMin createFixedSizeStripedMin(int stripesCount) {
+        return new FixedSizeStripedLongMin(stripesCount);
+    }
+
+    public static FixedSizeStripedLongHistogram createFixedSizeStripedHistogram(int stripesCount,
+                                                                                long highestTrackableValue,
+                                                                                int subBucketBits) {
+        return new FixedSizeStripedLongHistogram(stripesCount, highestTrackableValue, subBucketBits);
+    }
+
+    public static FixedSizeStripedLongRateMeter createFixedSizeStripedRateMeter(int stripesCount,
+                                                                                int bucketCount,
+                                                                                long bucketDuration,
+                                                                                TimeUnit unit) {
+        return new FixedSizeStripedLongRateMeter(stripesCount, bucketCount, bucketDuration, unit);
+    }
+
+    public static FixedSizeStripedLongCounterGroup createFixedSizeStripedCounterGroup(int counterCount,
+                                                                                      int stripesCount) {
+        return new FixedSizeStripedLongCounterGroup(counterCount, stripesCount);
+    }
 }
@@ -0,0 +1,170 @@
+package org.jctools.counters;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+import org.jctools.util.PortableJvmInfo;
+import org.jctools.util.Pow2;
+
+/**
+ * A striped long counter which starts out as a single long and only adds stripes when threads contend on it, in the
+ * manner of {@link java.util.concurrent.atomic.LongAdder}:
+ * <ol>
+ * <li>Increments CAS a base value until a CAS fails.
+ * <li>The first failure inflates the counter to 2 padded stripes, picked by the thread probe.
+ * <li>A thread failing on its stripe moves to another stripe, and failing again doubles the stripes, up to
+ * {@code maxStripes}.
+ * </ol>
+ * Unlike {@link FixedSizeStripedLongCounter} the counter object itself is not padded, so an uncontended counter costs
+ * a few tens of bytes rather than a cache line per stripe. This suits processes keeping many counters of which few are
+ * contended.
+ */
+public class DynamicStripedLongCounter implements Counter {
+    private static final long BASE_OFFSET = fieldOffset(DynamicStripedLongCounter.class, "base");
+    private static final long CELLS_BUSY_OFFSET = fieldOffset(DynamicStripedLongCounter.class, "cellsBusy");
+
+    private final int maxStripes;
+    private volatile long base;
+    // spin lock guarding the creation and growth of cells
+    private volatile int cellsBusy;
+    private volatile PaddedLongCell[] cells;
+
+    /**
+     * A counter which grows up to a stripe per CPU.
+     */
+    public DynamicStripedLongCounter() {
+        this(PortableJvmInfo.CPUs);
+    }
+
+    /**
+     * @param maxStripes the maximum number of stripes, rounded up to a power of 2. A counter with a single stripe
+     *                   never inflates.
+     */
+    public DynamicStripedLongCounter(int maxStripes) {
+        if (maxStripes <= 0) {
+            throw new IllegalArgumentException("Expecting a maxStripes that is larger than 0");
+        }
+        this.maxStripes = Pow2.roundToPowerOfTwo(maxStripes);
+    }
+
+    @Override
+    public void inc() {
+        inc(1L);
+    }
+
+    @Override
+    public void inc(long delta) {
+        final PaddedLongCell[] cells = this.cells;
+        if (cells == null) {
+            final long b = base;
+            if (casBase(b, b + delta)) {
+                return;
+            }
+        } else {
+            final PaddedLongCell cell = cells[ThreadProbe.probe() & (cells.length - 1)];
+            final long v = cell.lvValue();
+            if (cell.casValue(v, v + delta)) {
+                return;
+            }
+        }
+        incContended(delta);
+    }
+
+    private void incContended(long delta) {
+        int probe = ThreadProbe.probe();
+        // a failed CAS on the stripe we moved to after a previous failure
+        boolean collided = false;
+        while (true) {
+            final PaddedLongCell[] cells = this.cells;
+            if (cells == null) {
+                if (maxStripes > 1 && cellsBusy == 0 && casCellsBusy()) {
+                    try {
+                        if (this.cells == null) {
+                            final PaddedLongCell[] newCells = new PaddedLongCell[2];
+                            final int index = probe & 1;
+                            newCells[index] = new PaddedLongCell(delta);
+                            newCells[index ^ 1] = new PaddedLongCell(0L);
+                            this.cells = newCells;
+                            return;
+                        }
+                    } finally {
+                        cellsBusy = 0;
+                    }
+                    continue;
+                }
+                final long b = base;
+                if (casBase(b, b + delta)) {
+                    return;
+                }
+                continue;
+            }
+            final int length = cells.length;
+            final PaddedLongCell cell = cells[probe & (length - 1)];
+            final long v = cell.lvValue();
+            if (cell.casValue(v, v + delta)) {
+                return;
+            }
+            if (collided && length < maxStripes && this.cells == cells && cellsBusy == 0 && casCellsBusy()) {
+                try {
+                    if (this.cells == cells) {
+                        final PaddedLongCell[] newCells = new PaddedLongCell[length << 1];
+                        System.arraycopy(cells, 0, newCells, 0, length);
+                        for (int i = length; i < newCells.length; i++) {
+                            newCells[i] = new PaddedLongCell(0L);
+                        }
+                        this.cells = newCells;
+                    }
+                } finally {
+                    cellsBusy = 0;
+                }
+                collided = false;
+                continue;
+            }
+            collided = true;
+            probe = ThreadProbe.advanceProbe(probe);
+        }
+    }
+
+    @Override
+    public long get() {
+        long result = base;
+        final PaddedLongCell[] cells = this.cells;
+        if (cells != null) {
+            for (PaddedLongCell cell : cells) {
+                result += cell.lvValue();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long getAndReset() {
+        long result;
+        do {
+            result = base;
+        } while (!casBase(result, 0L));
+        final PaddedLongCell[] cells = this.cells;
+        if (cells != null) {
+            for (PaddedLongCell cell : cells) {
+                result += cell.getAndReset();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the current number of stripes, 0 if the counter has not inflated
+     */
+    public int stripes() {
+        final PaddedLongCell[] cells = this.cells;
+        return cells == null ? 0 : cells.length;
+    }
+
+    private boolean casBase(long expect, long newValue) {
+        return UNSAFE.compareAndSwapLong(this, BASE_OFFSET, expect, newValue);
+    }
+
+    private boolean casCellsBusy() {
+        return UNSAFE.compareAndSwapInt(this, CELLS_BUSY_OFFSET, 0, 1);
+    }
+}
@@ -2,8 +2,6 @@ package org.jctools.counters;
 
 import static org.jctools.util.UnsafeAccess.UNSAFE;
 
-import java.util.concurrent.ThreadLocalRandom;
-
 import org.jctools.util.PortableJvmInfo;
 import org.jctools.util.Pow2;
 
@@ -49,6 +47,10 @@ abstract class FixedSizeStripedLongCounterFields extends FixedSizeStripedLongCou
         cells = new long[CACHE_LINE_IN_LONGS * size];
         mask = (size - 1);
     }
+
+    protected static long counterOffset(long i) {
+        return COUNTER_ARRAY_BASE + (i << ELEMENT_SHIFT);
+    }
 }
 
 public abstract class FixedSizeStripedLongCounter extends FixedSizeStripedLongCounterFields implements Counter {
@@ -69,17 +71,6 @@ public abstract class FixedSizeStripedLongCounter extends FixedSizeStripedLongCo
     byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
     //byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
 
-    private static final long PROBE = getProbeOffset();
-
-    private static long getProbeOffset() {
-        try {
-            return UNSAFE.objectFieldOffset(Thread.class.getDeclaredField("threadLocalRandomProbe"));
-
-        } catch (NoSuchFieldException e) {
-            return -1L;
-        }
-    }
-
     public FixedSizeStripedLongCounter(int stripesCount) {
         super(stripesCount);
     }
@@ -105,10 +96,6 @@ public abstract class FixedSizeStripedLongCounter extends FixedSizeStripedLongCo
         return result;
     }
 
-    private long counterOffset(long i) {
-        return COUNTER_ARRAY_BASE + (i << ELEMENT_SHIFT);
-    }
-
     @Override
     public long getAndReset() {
         long result = 0L;
@@ -125,39 +112,6 @@ public abstract class FixedSizeStripedLongCounter extends FixedSizeStripedLongCo
     protected abstract long getAndReset(long[] cells, long offset);
 
     private int index() {
-        return probe() & mask;
-    }
-
-
-    /**
-     * Returns the probe value for the current thread.
-     * If target JDK version is 7 or higher, than ThreadLocalRandom-specific
-     * value will be used, xorshift with thread id otherwise.
-     */
-    private int probe() {
-        // Fast path for reliable well-distributed probe, available from JDK 7+.
-        // As long as PROBE is final static this branch will be constant folded
-        // (i.e removed).
-        if (PROBE != -1) {
-            int probe;
-            if ((probe = UNSAFE.getInt(Thread.currentThread(), PROBE)) == 0) {
-                ThreadLocalRandom.current(); // force initialization
-                probe = UNSAFE.getInt(Thread.currentThread(), PROBE);
-            }
-            return probe;
-        }
-
-        /*
-         * Else use much worse (for values distribution) method:
-         * Mix thread id with golden ratio and then xorshift it
-         * to spread consecutive ids (see Knuth multiplicative method as reference).
-         */
-        int probe = (int) ((Thread.currentThread().getId() * 0x9e3779b9) & Integer.MAX_VALUE);
-        // xorshift
-        probe ^= probe << 13;
-        probe ^= probe >>> 17;
-        probe ^= probe << 5;
-        return probe;
+        return ThreadProbe.probe() & mask;
     }
 }
-
@@ -0,0 +1,251 @@
+package org.jctools.counters;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+
+import java.util.Arrays;
+
+import org.jctools.util.PortableJvmInfo;
+import org.jctools.util.Pow2;
+import org.jctools.util.UnsafeAccess;
+
+abstract class FixedSizeStripedLongCounterGroupPrePad {
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    // byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class FixedSizeStripedLongCounterGroupFields extends FixedSizeStripedLongCounterGroupPrePad {
+    protected static final int CACHE_LINE_IN_LONGS = PortableJvmInfo.CACHE_LINE_SIZE / 8;
+    // leave a cache line of padding between the array header and the first stripe
+    protected static final long COUNTS_ARRAY_BASE = UNSAFE.arrayBaseOffset(long[].class) + PortableJvmInfo.CACHE_LINE_SIZE;
+
+    protected final int counterCount;
+    // each stripe is a row of counterCount counts, followed by a cache line of padding
+    protected final int stripeLength;
+    protected final long[] counts;
+    protected final int mask;
+
+    protected FixedSizeStripedLongCounterGroupFields(int counterCount, int stripesCount) {
+        if (counterCount <= 0) {
+            throw new IllegalArgumentException("Expecting a counterCount that is larger than 0");
+        }
+        if (stripesCount <= 0) {
+            throw new IllegalArgumentException("Expecting a stripesCount that is larger than 0");
+        }
+        this.counterCount = counterCount;
+        final long stripeLength = Pow2.align(counterCount, CACHE_LINE_IN_LONGS) + CACHE_LINE_IN_LONGS;
+        final int size = Pow2.roundToPowerOfTwo(stripesCount);
+        final long length = CACHE_LINE_IN_LONGS + size * stripeLength;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Expecting counterCount * stripesCount to fit in a long[], " +
+                counterCount + " counters in " + size + " stripes need " + length + " longs");
+        }
+        this.stripeLength = (int) stripeLength;
+        counts = new long[(int) length];
+        mask = (size - 1);
+    }
+}
+
+/**
+ * A group of striped long counters sharing their stripes. Where each {@link FixedSizeStripedLongCounter} pads every
+ * stripe to a cache line, here a stripe is a row holding all the counters of the group (stripe-major layout), padded
+ * from the next row by a cache line:
+ * <ul>
+ * <li>A thread increments counters in the row picked by its probe, so increments to related counters hit the same few
+ * cache lines, owned by the threads sharing the stripe.
+ * <li>{@link #get(long[])} and {@link #getAndReset(long[])} sum all the counters in a single sequential pass over the
+ * rows.
+ * </ul>
+ * The footprint is about {@code stripes * counterCount * 8} bytes, against {@code stripes * counterCount * 64} bytes
+ * (or more) for separate counters.
+ */
+public class FixedSizeStripedLongCounterGroup extends FixedSizeStripedLongCounterGroupFields {
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    //byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    /**
+     * @param counterCount the number of counters in the group
+     * @param stripesCount the number of stripes, rounded up to a power of 2
+     */
+    public FixedSizeStripedLongCounterGroup(int counterCount, int stripesCount) {
+        super(counterCount, stripesCount);
+    }
+
+    public int counterCount() {
+        return counterCount;
+    }
+
+    public void inc(int counter) {
+        inc(counter, 1L);
+    }
+
+    public void inc(int counter, long delta) {
+        checkCounter(counter);
+        final long offset = countOffset(ThreadProbe.probe() & mask, counter);
+        if (UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG) {
+            UNSAFE.getAndAddLong(counts, offset, delta);
+        } else {
+            long v;
+            do {
+                v = UNSAFE.getLongVolatile(counts, offset);
+            } while (!UNSAFE.compareAndSwapLong(counts, offset, v, v + delta));
+        }
+    }
+
+    public long get(int counter) {
+        checkCounter(counter);
+        long result = 0L;
+        final long[] counts = this.counts;
+        final int stripes = mask + 1;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            result += UNSAFE.getLongVolatile(counts, countOffset(stripe, counter));
+        }
+        return result;
+    }
+
+    public long getAndReset(int counter) {
+        checkCounter(counter);
+        long result = 0L;
+        final long[] counts = this.counts;
+        final int stripes = mask + 1;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            result += getAndReset(counts, countOffset(stripe, counter));
+        }
+        return result;
+    }
+
+    /**
+     * @return the values of all the counters, indexed by counter
+     */
+    public long[] get() {
+        return get(new long[counterCount]);
+    }
+
+    /**
+     * Sums the values of all the counters into {@code values}, which is zeroed first, so an export can reuse it.
+     *
+     * @return values
+     */
+    public long[] get(long[] values) {
+        checkValues(values);
+        Arrays.fill(values, 0, counterCount, 0L);
+        final long[] counts = this.counts;
+        final int stripes = mask + 1;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            for (int i = 0; i < counterCount; i++) {
+                values[i] += UNSAFE.getLongVolatile(counts, countOffset(stripe, i));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return the values of all the counters since the last reset, indexed by counter
+     */
+    public long[] getAndReset() {
+        return getAndReset(new long[counterCount]);
+    }
+
+    /**
+     * Sums the values of all the counters since the last reset into {@code values}, which is zeroed first, and resets
+     * the counters. Each count is reset atomically, but not all counts together: an increment made concurrently is
+     * either in the result or in the next interval.
+     *
+     * @return values
+     */
+    public long[] getAndReset(long[] values) {
+        checkValues(values);
+        Arrays.fill(values, 0, counterCount, 0L);
+        final long[] counts = this.counts;
+        final int stripes = mask + 1;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            for (int i = 0; i < counterCount; i++) {
+                values[i] += getAndReset(counts, countOffset(stripe, i));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return a {@link Counter} view of one counter of the group
+     */
+    public Counter counter(final int counter) {
+        checkCounter(counter);
+        return new Counter() {
+            @Override
+            public void inc() {
+                FixedSizeStripedLongCounterGroup.this.inc(counter, 1L);
+            }
+
+            @Override
+            public void inc(long delta) {
+                FixedSizeStripedLongCounterGroup.this.inc(counter, delta);
+            }
+
+            @Override
+            public long get() {
+                return FixedSizeStripedLongCounterGroup.this.get(counter);
+            }
+
+            @Override
+            public long getAndReset() {
+                return FixedSizeStripedLongCounterGroup.this.getAndReset(counter);
+            }
+        };
+    }
+
+    private long countOffset(int stripe, int counter) {
+        return COUNTS_ARRAY_BASE + (((long) stripe * stripeLength + counter) << 3);
+    }
+
+    private void checkCounter(int counter) {
+        // the offsets are unchecked, an out of range counter would corrupt other stripes or the heap
+        if (counter < 0 || counter >= counterCount) {
+            throw new IndexOutOfBoundsException("counter " + counter + " is not in [0, " + counterCount + ")");
+        }
+    }
+
+    private void checkValues(long[] values) {
+        if (values.length < counterCount) {
+            throw new IllegalArgumentException("Expecting values of length " + counterCount + " or more");
+        }
+    }
+
+    private static long getAndReset(long[] counts, long offset) {
+        if (UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG) {
+            return UNSAFE.getAndSetLong(counts, offset, 0L);
+        }
+        long v;
+        do {
+            v = UNSAFE.getLongVolatile(counts, offset);
+        } while (!UNSAFE.compareAndSwapLong(counts, offset, v, 0L));
+        return v;
+    }
+}
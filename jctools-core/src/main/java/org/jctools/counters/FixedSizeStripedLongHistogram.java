@@ -0,0 +1,157 @@
+package org.jctools.counters;
+
+/**
+ * A striped histogram of long values, using a log-linear bucket layout in the manner of HdrHistogram:
+ * <ul>
+ * <li>Values below {@code 2^subBucketBits} have a bucket each.
+ * <li>Above that, each power of 2 range is split into {@code 2^(subBucketBits - 1)} buckets of equal width, so a
+ * bucket covers its values within a relative error of {@code 2^-(subBucketBits - 1)}.
+ * </ul>
+ * Values above {@code highestTrackableValue} are counted in the highest bucket, negative values are rejected.
+ * <p>
+ * The bucket counts are a {@link FixedSizeStripedLongCounterGroup}: each stripe holds a full row of bucket counts and
+ * threads record into the row picked by their probe. Recording is a single atomic add, reads sum the rows. The
+ * footprint is about {@code stripes * bucketCount * 8} bytes, e.g. 64 stripes of 1217 buckets (up to 2^42 nanoseconds,
+ * over an hour, at {@code subBucketBits} of 6) take about 630KB.
+ */
+public class FixedSizeStripedLongHistogram {
+    private final int subBucketBits;
+    private final long highestTrackableValue;
+    private final FixedSizeStripedLongCounterGroup counts;
+
+    /**
+     * @param stripesCount the number of stripes, rounded up to a power of 2
+     * @param highestTrackableValue values above this are counted in the highest bucket
+     * @param subBucketBits the precision, between 1 and 20. Buckets are within {@code 2^-(subBucketBits - 1)} of the
+     *                      values they count.
+     */
+    public FixedSizeStripedLongHistogram(int stripesCount, long highestTrackableValue, int subBucketBits) {
+        if (highestTrackableValue <= 0) {
+            throw new IllegalArgumentException("Expecting a highestTrackableValue that is larger than 0");
+        }
+        if (subBucketBits < 1 || subBucketBits > 20) {
+            throw new IllegalArgumentException("Expecting a subBucketBits between 1 and 20");
+        }
+        this.subBucketBits = subBucketBits;
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new FixedSizeStripedLongCounterGroup(bucketIndex(highestTrackableValue, subBucketBits) + 1,
+            stripesCount);
+    }
+
+    public void record(long value) {
+        record(value, 1L);
+    }
+
+    public void record(long value, long count) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Expecting a value that is not negative: " + value);
+        }
+        counts.inc(bucketIndex(Math.min(value, highestTrackableValue), subBucketBits), count);
+    }
+
+    /**
+     * @return the counts recorded so far
+     */
+    public Snapshot get() {
+        return new Snapshot(counts.get(), subBucketBits);
+    }
+
+    /**
+     * Returns the counts recorded since the last reset and resets them, bucket by bucket as
+     * {@link FixedSizeStripedLongCounterGroup#getAndReset(long[])} does.
+     */
+    public Snapshot getAndReset() {
+        return new Snapshot(counts.getAndReset(), subBucketBits);
+    }
+
+    public int bucketCount() {
+        return counts.counterCount();
+    }
+
+    static int bucketIndex(long value, int subBucketBits) {
+        final long subBucketMask = (1L << subBucketBits) - 1;
+        // the power of 2 range of the value, relative to the linear range below 2^subBucketBits
+        final int shift = 63 - Long.numberOfLeadingZeros(value | subBucketMask) - (subBucketBits - 1);
+        return (shift << (subBucketBits - 1)) + (int) (value >>> shift);
+    }
+
+    static long lowestEquivalentValue(int index, int subBucketBits) {
+        if (index < (1 << subBucketBits)) {
+            return index;
+        }
+        final int shift = (index >>> (subBucketBits - 1)) - 1;
+        return (long) (index - (shift << (subBucketBits - 1))) << shift;
+    }
+
+    static long highestEquivalentValue(int index, int subBucketBits) {
+        if (index < (1 << subBucketBits)) {
+            return index;
+        }
+        final int shift = (index >>> (subBucketBits - 1)) - 1;
+        return lowestEquivalentValue(index, subBucketBits) + (1L << shift) - 1;
+    }
+
+    /**
+     * The bucket counts of a histogram at one point in time, or over an interval.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final int subBucketBits;
+        private final long totalCount;
+
+        Snapshot(long[] counts, int subBucketBits) {
+            this.counts = counts;
+            this.subBucketBits = subBucketBits;
+            long totalCount = 0;
+            for (long count : counts) {
+                totalCount += count;
+            }
+            this.totalCount = totalCount;
+        }
+
+        public int bucketCount() {
+            return counts.length;
+        }
+
+        public long count(int index) {
+            return counts[index];
+        }
+
+        public long totalCount() {
+            return totalCount;
+        }
+
+        /**
+         * @return the lowest value counted in the bucket at this index
+         */
+        public long lowestValue(int index) {
+            return lowestEquivalentValue(index, subBucketBits);
+        }
+
+        /**
+         * @return the highest value counted in the bucket at this index
+         */
+        public long highestValue(int index) {
+            return highestEquivalentValue(index, subBucketBits);
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the highest value of the bucket reaching the percentile, 0 if nothing was recorded
+         */
+        public long valueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Expecting a percentile between 0 and 100: " + percentile);
+            }
+            final long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+            long cumulativeCount = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulativeCount += counts[i];
+                if (cumulativeCount >= countAtPercentile) {
+                    return highestValue(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
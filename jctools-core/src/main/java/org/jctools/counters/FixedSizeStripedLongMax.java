@@ -0,0 +1,17 @@
+package org.jctools.counters;
+
+/**
+ * A striped accumulator of the maximum of the values accumulated. {@link #get()} returns {@link Long#MIN_VALUE} when
+ * no value was accumulated.
+ */
+public class FixedSizeStripedLongMax extends FixedSizeStripedLongAccumulator {
+
+    public FixedSizeStripedLongMax(int stripesCount) {
+        super(stripesCount, Long.MIN_VALUE);
+    }
+
+    @Override
+    protected final long combine(long current, long value) {
+        return Math.max(current, value);
+    }
+}
@@ -0,0 +1,17 @@
+package org.jctools.counters;
+
+/**
+ * A striped accumulator of the minimum of the values accumulated. {@link #get()} returns {@link Long#MAX_VALUE} when
+ * no value was accumulated.
+ */
+public class FixedSizeStripedLongMin extends FixedSizeStripedLongAccumulator {
+
+    public FixedSizeStripedLongMin(int stripesCount) {
+        super(stripesCount, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected final long combine(long current, long value) {
+        return Math.min(current, value);
+    }
+}
@@ -0,0 +1,145 @@
+package org.jctools.counters;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.jctools.util.Pow2;
+
+/**
+ * A sliding window meter: counts increments over the last {@code bucketCount} time buckets and reports their rate,
+ * without a background thread or a scheduled reset.
+ * <p>
+ * The buckets are a ring of counters in a {@link FixedSizeStripedLongCounterGroup}, tagged with the epoch (elapsed
+ * time divided by the bucket duration) they count. Writers rotate lazily: a writer finding its bucket tagged with an
+ * older epoch CASes in the new epoch, and the winner resets the bucket count. Reads only sum the buckets tagged with
+ * an epoch in the window, so buckets nobody wrote to lately are ignored.
+ * <p>
+ * The counts are approximate around rotations: an increment racing with a bucket reset may be dropped, and a writer
+ * delayed past the end of its bucket adds to the bucket which replaced it.
+ */
+public class FixedSizeStripedLongRateMeter {
+    private static final long EPOCHS_ARRAY_BASE = UNSAFE.arrayBaseOffset(long[].class);
+    private static final LongSupplier SYSTEM_NANO_TIME = new LongSupplier() {
+        @Override
+        public long getAsLong() {
+            return System.nanoTime();
+        }
+    };
+
+    private final LongSupplier nanoClock;
+
+    private final long bucketNanos;
+    private final int mask;
+    private final long startNanos;
+    private final long[] epochs;
+    private final FixedSizeStripedLongCounterGroup counts;
+
+    /**
+     * @param stripesCount the number of stripes, rounded up to a power of 2
+     * @param bucketCount the number of buckets in the window, rounded up to a power of 2
+     * @param bucketDuration the time span of a bucket, the window is {@code bucketCount * bucketDuration}
+     */
+    public FixedSizeStripedLongRateMeter(int stripesCount, int bucketCount, long bucketDuration, TimeUnit unit) {
+        this(stripesCount, bucketCount, bucketDuration, unit, SYSTEM_NANO_TIME);
+    }
+
+    FixedSizeStripedLongRateMeter(
+        int stripesCount,
+        int bucketCount,
+        long bucketDuration,
+        TimeUnit unit,
+        LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("Expecting a bucketCount that is larger than 0");
+        }
+        bucketNanos = unit.toNanos(bucketDuration);
+        if (bucketNanos <= 0) {
+            throw new IllegalArgumentException("Expecting a bucketDuration that is larger than 0");
+        }
+        final int size = Pow2.roundToPowerOfTwo(bucketCount);
+        mask = size - 1;
+        epochs = new long[size];
+        // no bucket holds a count yet, tag them with an epoch before the window
+        for (int i = 0; i < size; i++) {
+            epochs[i] = -1L;
+        }
+        counts = new FixedSizeStripedLongCounterGroup(size, stripesCount);
+        startNanos = nanoTime();
+    }
+
+    public void inc() {
+        inc(1L);
+    }
+
+    public void inc(long delta) {
+        final long epoch = (nanoTime() - startNanos) / bucketNanos;
+        final int bucket = (int) (epoch & mask);
+        final long bucketEpoch = lvEpoch(bucket);
+        if (bucketEpoch < epoch && casEpoch(bucket, bucketEpoch, epoch)) {
+            // drop the counts of the epoch this bucket held before
+            counts.getAndReset(bucket);
+        }
+        counts.inc(bucket, delta);
+    }
+
+    /**
+     * @return the count of increments in the window, including the current (partial) bucket
+     */
+    public long sum() {
+        return sum((nanoTime() - startNanos) / bucketNanos);
+    }
+
+    /**
+     * @return the count of increments per {@code unit} over the window, or over the time elapsed since this meter was
+     * created if shorter
+     */
+    public double rate(TimeUnit unit) {
+        final long elapsedNanos = nanoTime() - startNanos;
+        final long epoch = elapsedNanos / bucketNanos;
+        // the full buckets of the window and the elapsed part of the current one
+        final long windowNanos = Math.min(elapsedNanos, mask * bucketNanos + elapsedNanos - epoch * bucketNanos);
+        if (windowNanos <= 0) {
+            return 0d;
+        }
+        return (double) sum(epoch) * unit.toNanos(1) / windowNanos;
+    }
+
+    public int bucketCount() {
+        return mask + 1;
+    }
+
+    public long bucketDuration(TimeUnit unit) {
+        return unit.convert(bucketNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private long nanoTime() {
+        return nanoClock.getAsLong();
+    }
+
+    private long sum(long epoch) {
+        final long oldestEpoch = epoch - mask;
+        long result = 0L;
+        for (int bucket = 0; bucket <= mask; bucket++) {
+            final long bucketEpoch = lvEpoch(bucket);
+            if (bucketEpoch >= oldestEpoch && bucketEpoch <= epoch) {
+                result += counts.get(bucket);
+            }
+        }
+        return result;
+    }
+
+    private long lvEpoch(int bucket) {
+        return UNSAFE.getLongVolatile(epochs, epochOffset(bucket));
+    }
+
+    private boolean casEpoch(int bucket, long expect, long newValue) {
+        return UNSAFE.compareAndSwapLong(epochs, epochOffset(bucket), expect, newValue);
+    }
+
+    private static long epochOffset(int bucket) {
+        return EPOCHS_ARRAY_BASE + ((long) bucket << 3);
+    }
+}
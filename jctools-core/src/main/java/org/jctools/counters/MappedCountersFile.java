@@ -0,0 +1,311 @@
+package org.jctools.counters;
+
+import static org.jctools.util.PortableJvmInfo.CACHE_LINE_SIZE;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.UnsafeAccess;
+
+/**
+ * Counters living in a memory mapped file, so another process can map the file and read their live values, in the
+ * spirit of the Aeron counters file.
+ * <p>
+ * File layout:
+ * <pre>
+ * magic(4b), version(4b), cacheLineSize(4b), counterCapacity(4b), stripesCount(4b), pad to a cache line multiple |
+ * directory: counterCapacity records of state(4b), labelLength(4b), label(UTF-8, up to MAX_LABEL_LENGTH bytes) |
+ * values: counterCapacity * stripesCount cells, each on its own cache line
+ * </pre>
+ * The counters are striped as {@link FixedSizeStripedLongCounter}, the value of a counter is the sum of its cells. A
+ * directory record is marked allocated after its label is written, and the file magic is written last when the file is
+ * created. Readers check both before reading.
+ * <p>
+ * The creating process allocates counters with {@link #newCounter(String)}, any process may read them with
+ * {@link #label(int)} and {@link #value(int)}. The mapping is released when this object (and all its counters) are
+ * collected.
+ */
+public final class MappedCountersFile {
+
+    public static final int MAGIC = 0x4A434374; // "JCCt"
+    public static final int VERSION = 1;
+    public static final int MAX_LABEL_LENGTH = 120;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CACHE_LINE_SIZE_OFFSET = 8;
+    private static final int COUNTER_CAPACITY_OFFSET = 12;
+    private static final int STRIPES_COUNT_OFFSET = 16;
+    private static final int HEADER_LENGTH = 20;
+    private static final int FILE_HEADER_SIZE = (int) Pow2.align(HEADER_LENGTH, CACHE_LINE_SIZE);
+
+    private static final int RECORD_STATE_OFFSET = 0;
+    private static final int RECORD_LABEL_LENGTH_OFFSET = 4;
+    private static final int RECORD_LABEL_OFFSET = 8;
+    private static final int RECORD_SIZE = RECORD_LABEL_OFFSET + MAX_LABEL_LENGTH;
+
+    private static final int RECORD_UNUSED = 0;
+    private static final int RECORD_ALLOCATED = 1;
+
+    private static final long ADDRESS_OFFSET = UnsafeAccess.fieldOffset(Buffer.class, "address");
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+    // keeps the mapping alive, the counters only use addresses into it
+    private final MappedByteBuffer mapped;
+    private final long headerAddress;
+    private final long directoryAddress;
+    private final long valuesAddress;
+    private final int counterCapacity;
+    private final int stripesCount;
+    // only a file returned by create is mapped read-write and owns the directory
+    private final boolean writable;
+    private int nextCounterId;
+
+    private MappedCountersFile(File file, MappedByteBuffer mapped, int counterCapacity, int stripesCount,
+            boolean writable) {
+        this.file = file;
+        this.mapped = mapped;
+        this.headerAddress = UNSAFE.getLong(mapped, ADDRESS_OFFSET);
+        this.directoryAddress = headerAddress + FILE_HEADER_SIZE;
+        this.valuesAddress = directoryAddress + directorySize(counterCapacity);
+        this.counterCapacity = counterCapacity;
+        this.stripesCount = stripesCount;
+        this.writable = writable;
+    }
+
+    /**
+     * Create (or reset) a counters file and map it, counters can then be allocated with {@link #newCounter(String)}.
+     *
+     * @param file the file to create, an existing file is overwritten
+     * @param counterCapacity the number of counters the file can hold
+     * @param stripesCount the number of stripes per counter, rounded up to a power of 2
+     * @throws IOException if the file cannot be mapped
+     */
+    public static MappedCountersFile create(File file, int counterCapacity, int stripesCount) throws IOException {
+        if (counterCapacity <= 0) {
+            throw new IllegalArgumentException("Expecting a counterCapacity that is larger than 0");
+        }
+        if (stripesCount <= 0) {
+            throw new IllegalArgumentException("Expecting a stripesCount that is larger than 0");
+        }
+        stripesCount = Pow2.roundToPowerOfTwo(stripesCount);
+        final MappedByteBuffer mapped = map(file, fileSize(counterCapacity, stripesCount), true);
+        final MappedCountersFile countersFile = new MappedCountersFile(file, mapped, counterCapacity, stripesCount, true);
+        countersFile.writeHeader();
+        return countersFile;
+    }
+
+    /**
+     * Map an existing counters file to read its counters.
+     *
+     * @throws IOException if the file cannot be mapped
+     * @throws IllegalStateException if the file was not created by {@link #create(File, int, int)}
+     * @throws IllegalArgumentException if the file was created with a different version or cache line size
+     */
+    public static MappedCountersFile open(File file) throws IOException {
+        if (file.length() < FILE_HEADER_SIZE) {
+            throw new IllegalStateException("Counters file is not initialized: " + file);
+        }
+        final MappedByteBuffer header = map(file, FILE_HEADER_SIZE, false);
+        final long headerAddress = UNSAFE.getLong(header, ADDRESS_OFFSET);
+        if (UNSAFE.getIntVolatile(null, headerAddress + MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalStateException("Counters file is not initialized: " + file);
+        }
+        checkHeaderValue(file, "version", VERSION, UNSAFE.getInt(headerAddress + VERSION_OFFSET));
+        checkHeaderValue(file, "cache line size", CACHE_LINE_SIZE, UNSAFE.getInt(headerAddress + CACHE_LINE_SIZE_OFFSET));
+        final int counterCapacity = UNSAFE.getInt(headerAddress + COUNTER_CAPACITY_OFFSET);
+        final int stripesCount = UNSAFE.getInt(headerAddress + STRIPES_COUNT_OFFSET);
+        final MappedByteBuffer mapped = map(file, fileSize(counterCapacity, stripesCount), false);
+        return new MappedCountersFile(file, mapped, counterCapacity, stripesCount, false);
+    }
+
+    public int counterCapacity() {
+        return counterCapacity;
+    }
+
+    public int stripesCount() {
+        return stripesCount;
+    }
+
+    /**
+     * Allocate the next counter of the file. Only the process which created the file may allocate counters.
+     *
+     * @param label the counter label, up to {@link #MAX_LABEL_LENGTH} bytes in UTF-8
+     * @throws IllegalStateException if this file was not returned by {@link #create}, or all the counters are
+     *                               allocated
+     */
+    public synchronized Counter newCounter(String label) {
+        if (!writable) {
+            throw new IllegalStateException("Counters file " + file + " is opened read-only, only the creator may "
+                    + "allocate counters");
+        }
+        final byte[] labelBytes = label.getBytes(UTF_8);
+        if (labelBytes.length > MAX_LABEL_LENGTH) {
+            throw new IllegalArgumentException("Expecting a label of up to " + MAX_LABEL_LENGTH + " bytes: " + label);
+        }
+        if (nextCounterId == counterCapacity) {
+            throw new IllegalStateException("All " + counterCapacity + " counters are allocated in " + file);
+        }
+        final int counterId = nextCounterId++;
+        final long recordAddress = recordAddress(counterId);
+        for (int i = 0; i < labelBytes.length; i++) {
+            UNSAFE.putByte(recordAddress + RECORD_LABEL_OFFSET + i, labelBytes[i]);
+        }
+        UNSAFE.putInt(recordAddress + RECORD_LABEL_LENGTH_OFFSET, labelBytes.length);
+        // publish the label
+        UNSAFE.putOrderedInt(null, recordAddress + RECORD_STATE_OFFSET, RECORD_ALLOCATED);
+        return new MappedCounter(this, cellAddress(counterId, 0), stripesCount - 1);
+    }
+
+    public boolean isAllocated(int counterId) {
+        return UNSAFE.getIntVolatile(null, recordAddress(checkCounterId(counterId)) + RECORD_STATE_OFFSET)
+            == RECORD_ALLOCATED;
+    }
+
+    /**
+     * @return the counter label, or null if the counter is not allocated
+     */
+    public String label(int counterId) {
+        if (!isAllocated(counterId)) {
+            return null;
+        }
+        final long recordAddress = recordAddress(counterId);
+        final byte[] labelBytes = new byte[UNSAFE.getInt(recordAddress + RECORD_LABEL_LENGTH_OFFSET)];
+        for (int i = 0; i < labelBytes.length; i++) {
+            labelBytes[i] = UNSAFE.getByte(recordAddress + RECORD_LABEL_OFFSET + i);
+        }
+        return new String(labelBytes, UTF_8);
+    }
+
+    /**
+     * @return the current counter value, 0 if the counter is not allocated
+     */
+    public long value(int counterId) {
+        checkCounterId(counterId);
+        long result = 0L;
+        for (int stripe = 0; stripe < stripesCount; stripe++) {
+            result += UNSAFE.getLongVolatile(null, cellAddress(counterId, stripe));
+        }
+        return result;
+    }
+
+    private long recordAddress(int counterId) {
+        return directoryAddress + (long) counterId * RECORD_SIZE;
+    }
+
+    private long cellAddress(int counterId, int stripe) {
+        return valuesAddress + ((long) counterId * stripesCount + stripe) * CACHE_LINE_SIZE;
+    }
+
+    private int checkCounterId(int counterId) {
+        if (counterId < 0 || counterId >= counterCapacity) {
+            throw new IndexOutOfBoundsException("counterId " + counterId + " is not in [0, " + counterCapacity + ")");
+        }
+        return counterId;
+    }
+
+    private void writeHeader() {
+        // invalidate the header while we (re)initialize the file
+        UNSAFE.putIntVolatile(null, headerAddress + MAGIC_OFFSET, 0);
+        UNSAFE.putInt(headerAddress + VERSION_OFFSET, VERSION);
+        UNSAFE.putInt(headerAddress + CACHE_LINE_SIZE_OFFSET, CACHE_LINE_SIZE);
+        UNSAFE.putInt(headerAddress + COUNTER_CAPACITY_OFFSET, counterCapacity);
+        UNSAFE.putInt(headerAddress + STRIPES_COUNT_OFFSET, stripesCount);
+        // the file may be reused, clear any counters left over
+        UNSAFE.setMemory(directoryAddress, fileSize(counterCapacity, stripesCount) - FILE_HEADER_SIZE, (byte) 0);
+        UNSAFE.putOrderedInt(null, headerAddress + MAGIC_OFFSET, MAGIC);
+    }
+
+    private static void checkHeaderValue(File file, String name, long expected, long actual) {
+        if (expected != actual) {
+            throw new IllegalArgumentException("Counters file " + file + " has a mismatched " + name + ", expected: "
+                    + expected + " but was: " + actual);
+        }
+    }
+
+    private static long directorySize(int counterCapacity) {
+        return Pow2.align((long) counterCapacity * RECORD_SIZE, CACHE_LINE_SIZE);
+    }
+
+    private static long fileSize(int counterCapacity, int stripesCount) {
+        return FILE_HEADER_SIZE + directorySize(counterCapacity) + (long) counterCapacity * stripesCount * CACHE_LINE_SIZE;
+    }
+
+    private static MappedByteBuffer map(File file, long size, boolean create) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, create ? "rw" : "r");
+        try {
+            if (create) {
+                raf.setLength(size);
+            }
+            return raf.getChannel().map(create ? MapMode.READ_WRITE : MapMode.READ_ONLY, 0, size);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static final class MappedCounter implements Counter {
+        // keeps the mapping alive while the counter is in use
+        private final MappedCountersFile file;
+        private final long address;
+        private final int mask;
+
+        MappedCounter(MappedCountersFile file, long address, int mask) {
+            this.file = file;
+            this.address = address;
+            this.mask = mask;
+        }
+
+        @Override
+        public void inc() {
+            inc(1L);
+        }
+
+        @Override
+        public void inc(long delta) {
+            final long cellAddress = address + (long) (ThreadProbe.probe() & mask) * CACHE_LINE_SIZE;
+            if (UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG) {
+                UNSAFE.getAndAddLong(null, cellAddress, delta);
+            } else {
+                long v;
+                do {
+                    v = UNSAFE.getLongVolatile(null, cellAddress);
+                } while (!UNSAFE.compareAndSwapLong(null, cellAddress, v, v + delta));
+            }
+        }
+
+        @Override
+        public long get() {
+            long result = 0L;
+            for (int stripe = 0; stripe <= mask; stripe++) {
+                result += UNSAFE.getLongVolatile(null, address + (long) stripe * CACHE_LINE_SIZE);
+            }
+            return result;
+        }
+
+        @Override
+        public long getAndReset() {
+            long result = 0L;
+            for (int stripe = 0; stripe <= mask; stripe++) {
+                final long cellAddress = address + (long) stripe * CACHE_LINE_SIZE;
+                if (UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG) {
+                    result += UNSAFE.getAndSetLong(null, cellAddress, 0L);
+                } else {
+                    long v;
+                    do {
+                        v = UNSAFE.getLongVolatile(null, cellAddress);
+                    } while (!UNSAFE.compareAndSwapLong(null, cellAddress, v, 0L));
+                    result += v;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.jctools.counters;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+import java.lang.ref.WeakReference;
+
+import org.jctools.util.UnsafeAccess;
+
+/**
+ * A counter sharded by thread: each thread increments its own {@link SingleWriterLongCounter} cell with a plain load
+ * and an ordered store, reads aggregate all the cells.
+ * <p>
+ * Cells are registered on a thread's first increment. A cell is dropped once its owner thread has died, its count
+ * folded into a base value, so no counts are lost. Dead cells are collected when a new thread registers, so under
+ * thread churn the aggregate reads walk the live threads plus the threads which died since the last registration.
+ * A dead cell is folded into the base before the cells array dropping it is published, so a {@link #get()} which loads
+ * the new array sees its count once, in the base. A {@link #get()} racing the fold on the old array may transiently
+ * count it twice, reading the cell before the fold and the base after it, or miss it, the other way round.
+ */
+public final class ThreadLocalLongCounter implements Counter {
+    private static final long BASE_OFFSET = fieldOffset(ThreadLocalLongCounter.class, "base");
+
+    private static final SingleWriterLongCounter[] EMPTY = new SingleWriterLongCounter[0];
+    @SuppressWarnings("unchecked")
+    private static final WeakReference<Thread>[] NO_OWNERS = new WeakReference[0];
+
+    private final ThreadLocal<SingleWriterLongCounter> localCell = new ThreadLocal<SingleWriterLongCounter>() {
+        @Override
+        protected SingleWriterLongCounter initialValue() {
+            return register();
+        }
+    };
+    // the counts of dead threads
+    private volatile long base;
+    // copy on write, threads registration is rare
+    private volatile SingleWriterLongCounter[] cells = EMPTY;
+    // owners[i] is the thread owning cells[i], guarded by this
+    private WeakReference<Thread>[] owners = NO_OWNERS;
+
+    @Override
+    public void inc() {
+        localCell.get().inc(1L);
+    }
+
+    @Override
+    public void inc(long delta) {
+        localCell.get().inc(delta);
+    }
+
+    @Override
+    public long get() {
+        long result = 0L;
+        for (SingleWriterLongCounter cell : cells) {
+            result += cell.get();
+        }
+        return result + base;
+    }
+
+    @Override
+    public long getAndReset() {
+        long result = 0L;
+        for (SingleWriterLongCounter cell : cells) {
+            result += cell.getAndReset();
+        }
+        return result + getAndResetBase();
+    }
+
+    /**
+     * @return the number of threads holding a cell, including threads which died since the last registration
+     */
+    public int cellsCount() {
+        return cells.length;
+    }
+
+    private synchronized SingleWriterLongCounter register() {
+        final SingleWriterLongCounter[] oldCells = cells;
+        final WeakReference<Thread>[] oldOwners = owners;
+        final boolean[] dead = new boolean[oldCells.length];
+        int live = 0;
+        for (int i = 0; i < oldCells.length; i++) {
+            dead[i] = !isAlive(oldOwners[i]);
+            if (!dead[i]) {
+                live++;
+            }
+        }
+        final SingleWriterLongCounter[] newCells = new SingleWriterLongCounter[live + 1];
+        @SuppressWarnings("unchecked")
+        final WeakReference<Thread>[] newOwners = new WeakReference[live + 1];
+        int j = 0;
+        for (int i = 0; i < oldCells.length; i++) {
+            if (!dead[i]) {
+                newCells[j] = oldCells[i];
+                newOwners[j] = oldOwners[i];
+                j++;
+            }
+        }
+        final SingleWriterLongCounter cell = new SingleWriterLongCounter();
+        newCells[j] = cell;
+        newOwners[j] = new WeakReference<Thread>(Thread.currentThread());
+        // dead owners no longer write their cells, and getAndReset is safe against readers resetting the same cell.
+        // Fold before publishing, so readers of the new cells find the dead counts in the base.
+        for (int i = 0; i < oldCells.length; i++) {
+            if (dead[i]) {
+                addToBase(oldCells[i].getAndReset());
+            }
+        }
+        cells = newCells;
+        owners = newOwners;
+        return cell;
+    }
+
+    private void addToBase(long delta) {
+        if (UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG) {
+            UNSAFE.getAndAddLong(this, BASE_OFFSET, delta);
+        } else {
+            long v;
+            do {
+                v = base;
+            } while (!UNSAFE.compareAndSwapLong(this, BASE_OFFSET, v, v + delta));
+        }
+    }
+
+    private long getAndResetBase() {
+        if (UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG) {
+            return UNSAFE.getAndSetLong(this, BASE_OFFSET, 0L);
+        }
+        long v;
+        do {
+            v = base;
+        } while (!UNSAFE.compareAndSwapLong(this, BASE_OFFSET, v, 0L));
+        return v;
+    }
+
+    private static boolean isAlive(WeakReference<Thread> owner) {
+        final Thread thread = owner.get();
+        return thread != null && thread.isAlive();
+    }
+}
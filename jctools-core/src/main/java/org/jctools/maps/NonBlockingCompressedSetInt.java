@@ -0,0 +1,362 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.maps;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.jctools.util.RangeUtil;
+
+/**
+ * A multi-threaded compressed set of non-negative {@code ints}, in the manner
+ * of Roaring bitmaps.  All operations are non-blocking and multi-threaded
+ * safe.
+ *
+ * <p>The ints are split on their high 16 bits into containers of 64K
+ * elements, indexed by a {@link NonBlockingHashMapLong}.  A container starts
+ * as a sorted array of the low 16 bits, which is copied on write and
+ * CAS-replaced in the index.  Past {@value #ARRAY_MAX} elements (where the
+ * array takes as much space as a bitmap) it is promoted, again with a CAS in
+ * the index, to a 64K-bit bitmap updated in place with a CAS per word.
+ * Bitmaps are never demoted, so a container stays a bitmap once it got
+ * dense.  Arrays left empty are removed from the index.
+ *
+ * <p>Space: about 2 bytes per element in sparse containers and 8KB per dense
+ * container, rather than the (largest_element/8) bytes of {@link
+ * NonBlockingSetInt}.  Lookups pay for an index probe and a binary search
+ * in sparse containers.
+ *
+ * <p>The size is not counted on update: {@link #size} walks the containers.
+ */
+public class NonBlockingCompressedSetInt extends AbstractSet<Integer> {
+
+  // Elements per array container before it is promoted to a bitmap: the
+  // size of a bitmap, 64K bits, in 2-byte elements
+  static final int ARRAY_MAX = 4096;
+
+  // Container index, keyed by the high 16 bits of the elements.  Values are
+  // ArrayContainers or BitmapContainers.
+  private final NonBlockingHashMapLong<Object> _index = new NonBlockingHashMapLong<Object>();
+
+  /** Create a new empty set */
+  public NonBlockingCompressedSetInt( ) { }
+
+  /**
+   * Add {@code i} to the set.  Uppercase {@link Integer} version of add,
+   * requires auto-unboxing.  When possible use the {@code int} version of
+   * {@link #add(int)} for efficiency.
+   * @throws IllegalArgumentException if i is negative.
+   * @return <tt>true</tt> if i was added to the set.
+   */
+  public boolean add( final Integer i ) {
+    return add(i.intValue());
+  }
+  /**
+   * Test if {@code o} is in the set.  Uppercase {@link Integer} version of
+   * contains, requires a type-check and auto-unboxing.
+   * @return <tt>true</tt> if o was in the set.
+   */
+  public boolean contains( final Object o ) {
+    return o instanceof Integer && contains(((Integer) o).intValue());
+  }
+  /**
+   * Remove {@code o} from the set.  Uppercase {@link Integer} version of
+   * remove, requires a type-check and auto-unboxing.
+   * @return <tt>true</tt> if o was removed from the set.
+   */
+  public boolean remove( final Object o ) {
+    return o instanceof Integer && remove(((Integer) o).intValue());
+  }
+
+  /**
+   * Add {@code i} to the set, no autoboxing.
+   * @throws IllegalArgumentException if i is negative.
+   * @return <tt>true</tt> if i was added to the set.
+   */
+  public boolean add( final int i ) {
+    RangeUtil.checkPositiveOrZero(i, "i");
+    final long key = i>>>16;
+    final char low = (char)i;
+    while( true ) {
+      final Object c = _index.get(key);
+      if( c == null ) {         // No container yet?
+        if( _index.putIfAbsent(key, new ArrayContainer(new char[]{low})) == null )
+          return true;
+        continue;               // Lost the race to create it, retry
+      }
+      if( c instanceof BitmapContainer )
+        return ((BitmapContainer)c).add(low);
+      final ArrayContainer a = (ArrayContainer)c;
+      final int idx = Arrays.binarySearch(a._vals, low);
+      if( idx >= 0 ) return false; // Already in the set
+      final Object nnn = a._vals.length < ARRAY_MAX
+        ? a.insert(-idx-1, low)    // Copy on write
+        : new BitmapContainer(a, low); // Promote
+      if( _index.replace(key, a, nnn) ) return true;
+      // Container changed under us, retry on the new one
+    }
+  }
+
+  /**
+   * Test if {@code i} is in the set, no autoboxing.
+   * @return <tt>true</tt> if i was in the set.
+   */
+  public boolean contains( final int i ) {
+    if( i < 0 ) return false;
+    final Object c = _index.get(i>>>16);
+    if( c == null ) return false;
+    if( c instanceof BitmapContainer )
+      return ((BitmapContainer)c).contains((char)i);
+    return Arrays.binarySearch(((ArrayContainer)c)._vals, (char)i) >= 0;
+  }
+
+  /**
+   * Remove {@code i} from the set, no autoboxing.
+   * @return <tt>true</tt> if i was removed from the set.
+   */
+  public boolean remove( final int i ) {
+    if( i < 0 ) return false;
+    final long key = i>>>16;
+    final char low = (char)i;
+    while( true ) {
+      final Object c = _index.get(key);
+      if( c == null ) return false;
+      if( c instanceof BitmapContainer )
+        return ((BitmapContainer)c).remove(low);
+      final ArrayContainer a = (ArrayContainer)c;
+      final int idx = Arrays.binarySearch(a._vals, low);
+      if( idx < 0 ) return false; // Not in the set
+      if( a._vals.length == 1
+          ? _index.remove(key, a)  // Drop the emptied container
+          : _index.replace(key, a, a.delete(idx)) )
+        return true;
+      // Container changed under us, retry on the new one
+    }
+  }
+
+  /**
+   * Count of elements in the set, counted with a walk over the containers.
+   * The count is exact when the set is not concurrently updated.
+   * @return count of elements.
+   */
+  public int size( ) {
+    int size = 0;
+    for( Object c : _index.values() )
+      size += cardinality(c);
+    return size;
+  }
+
+  /** @return <tt>true</tt> if the set has no elements. */
+  public boolean isEmpty( ) {
+    for( Object c : _index.values() )
+      if( cardinality(c) != 0 ) return false;
+    return true;
+  }
+
+  /** Count of containers in the set, for sizing purposes. */
+  public int containers( ) { return _index.size(); }
+
+  /** Empty the set. */
+  public void clear( ) { _index.clear(); }
+
+  /**
+   * Visit the elements of the set in ascending order without autoboxing.
+   * The containers are listed when the walk starts, so one created later is
+   * not visited.  An array container is visited as the copy read, a bitmap
+   * container a word at a time as {@link NonBlockingSetInt#forEach} does.
+   */
+  public void forEach( final NonBlockingSetInt.IntConsumer c ) {
+    for( long key : sorted_keys() ) {
+      final Object cont = _index.get(key);
+      if( cont == null ) continue; // Removed since
+      final int high = (int)key<<16;
+      if( cont instanceof BitmapContainer ) {
+        final long[] bits = ((BitmapContainer)cont)._bits;
+        for( int w=0; w<bits.length; w++ ) {
+          long word = BitmapContainer.word(bits, w);
+          while( word != 0 ) {
+            c.accept(high + (w<<6) + Long.numberOfTrailingZeros(word));
+            word &= word-1;     // Clear the lowest set bit
+          }
+        }
+      } else {
+        for( char low : ((ArrayContainer)cont)._vals )
+          c.accept(high + low);
+      }
+    }
+  }
+
+  /**
+   * Standard Java {@link Iterator} over the elements in ascending order.
+   * Not very efficient because it auto-boxes the returned values, prefer
+   * {@link #forEach(NonBlockingSetInt.IntConsumer)}.
+   */
+  public Iterator<Integer> iterator( ) { return new iter(); }
+
+  private class iter implements Iterator<Integer> {
+    final long[] _keys = sorted_keys();
+    int _key_idx = -1;          // Index of the container being iterated
+    int _high;                  // High 16 bits of its elements
+    char[] _vals;               // Array container being iterated, or
+    long[] _bits;               // bitmap container being iterated
+    int _next = -1;             // Next low 16 bits to return, -1 to advance
+    int _pos;                   // Position in the container
+    int _prev = -1;             // Last element returned
+    iter() { advance(); }
+
+    public boolean hasNext() { return _next != -1; }
+
+    private void advance() {
+      while( true ) {
+        if( _vals != null && _pos < _vals.length ) { _next = _vals[_pos++]; return; }
+        if( _bits != null ) {
+          // Find the next set bit from _pos, a word at a time
+          int w = _pos>>6;
+          if( w < _bits.length ) {
+            long word = BitmapContainer.word(_bits, w) & (-1L<<(_pos&63));
+            while( word == 0 && ++w < _bits.length )
+              word = BitmapContainer.word(_bits, w);
+            if( word != 0 ) {
+              _next = (w<<6) + Long.numberOfTrailingZeros(word);
+              _pos = _next+1;
+              return;
+            }
+          }
+        }
+        // Move on to the next container
+        _vals = null;
+        _bits = null;
+        _pos = 0;
+        if( ++_key_idx >= _keys.length ) { _next = -1; return; }
+        final Object cont = _index.get(_keys[_key_idx]);
+        _high = (int)_keys[_key_idx]<<16;
+        if( cont instanceof BitmapContainer ) _bits = ((BitmapContainer)cont)._bits;
+        else if( cont != null ) _vals = ((ArrayContainer)cont)._vals;
+      }
+    }
+
+    public Integer next() {
+      if( _next == -1 ) throw new NoSuchElementException();
+      _prev = _high + _next;
+      advance();
+      return _prev;
+    }
+
+    public void remove() {
+      if( _prev == -1 ) throw new IllegalStateException();
+      NonBlockingCompressedSetInt.this.remove(_prev);
+      _prev = -1;
+    }
+  }
+
+  // The container keys in ascending order
+  private long[] sorted_keys() {
+    long[] keys = new long[16];
+    int n = 0;
+    for( NonBlockingHashMapLong<Object>.IteratorLong it = (NonBlockingHashMapLong<Object>.IteratorLong)_index.keys(); it.hasNext(); ) {
+      if( n == keys.length ) keys = Arrays.copyOf(keys, n<<1);
+      keys[n++] = it.nextLong();
+    }
+    keys = Arrays.copyOf(keys, n);
+    Arrays.sort(keys);
+    return keys;
+  }
+
+  private static int cardinality( final Object c ) {
+    if( c instanceof BitmapContainer ) {
+      final long[] bits = ((BitmapContainer)c)._bits;
+      int count = 0;
+      for( int w=0; w<bits.length; w++ )
+        count += Long.bitCount(BitmapContainer.word(bits, w));
+      return count;
+    }
+    return ((ArrayContainer)c)._vals.length;
+  }
+
+  // --- ArrayContainer ------------------------------------------------------
+  // A sorted array of the low 16 bits of the elements.  Immutable: updates
+  // CAS a modified copy into the index.
+  private static final class ArrayContainer {
+    final char[] _vals;
+    ArrayContainer( char[] vals ) { _vals = vals; }
+
+    ArrayContainer insert( int idx, char low ) {
+      final char[] vals = new char[_vals.length+1];
+      System.arraycopy(_vals, 0, vals, 0, idx);
+      vals[idx] = low;
+      System.arraycopy(_vals, idx, vals, idx+1, _vals.length-idx);
+      return new ArrayContainer(vals);
+    }
+
+    ArrayContainer delete( int idx ) {
+      final char[] vals = new char[_vals.length-1];
+      System.arraycopy(_vals, 0, vals, 0, idx);
+      System.arraycopy(_vals, idx+1, vals, idx, vals.length-idx);
+      return new ArrayContainer(vals);
+    }
+  }
+
+  // --- BitmapContainer -----------------------------------------------------
+  // A bitmap of the low 16 bits of the elements, updated in place with a CAS
+  // per word.
+  private static final class BitmapContainer {
+    private static final int _Lbase  = UNSAFE.arrayBaseOffset(long[].class);
+    private static final int _Lscale = UNSAFE.arrayIndexScale(long[].class);
+    private static long rawIndex( final int idx ) {
+      return _Lbase + (idx * (long)_Lscale);
+    }
+
+    final long[] _bits = new long[(1<<16)>>6];
+
+    // Promote an array container, adding 'low'.  Not shared yet, plain
+    // stores will be published by the CAS in the index.
+    BitmapContainer( ArrayContainer a, char low ) {
+      for( char v : a._vals )
+        _bits[v>>6] |= 1L<<v;
+      _bits[low>>6] |= 1L<<low;
+    }
+
+    static long word( final long[] bits, final int w ) {
+      return UNSAFE.getLongVolatile(bits, rawIndex(w));
+    }
+
+    boolean contains( final char low ) {
+      return (word(_bits, low>>6) & (1L<<low)) != 0;
+    }
+
+    boolean add( final char low ) {
+      final long mask = 1L<<low;
+      final long offset = rawIndex(low>>6);
+      long old;
+      do {
+        old = UNSAFE.getLongVolatile(_bits, offset);
+        if( (old & mask) != 0 ) return false; // Bit is already set?
+      } while( !UNSAFE.compareAndSwapLong(_bits, offset, old, old | mask) );
+      return true;
+    }
+
+    boolean remove( final char low ) {
+      final long mask = 1L<<low;
+      final long offset = rawIndex(low>>6);
+      long old;
+      do {
+        old = UNSAFE.getLongVolatile(_bits, offset);
+        if( (old & mask) == 0 ) return false; // Bit is already clear?
+      } while( !UNSAFE.compareAndSwapLong(_bits, offset, old, old & ~mask) );
+      return true;
+    }
+  }
+}
@@ -142,6 +142,10 @@ public class NonBlockingHashMapLong<TypeV>
   // Optimize for space: use a 1/2-sized table and allow more re-probes
   private final boolean _opt_for_space;
 
+  // How the count of K,V pairs is kept.  Not final: streams written before
+  // it was added deserialize a null, read as EXACT.
+  private SizeTracking _size_tracking;
+
   // --- Minimum table size ----------------
   // Pick size 16 K/V pairs, which turns into (16*2)*4+12 = 140 bytes on a
   // standard 32-bit HotSpot, and (16*2)*8+12 = 268 bytes on 64-bit Azul.
@@ -239,23 +243,47 @@ public class NonBlockingHashMapLong<TypeV>
    *  the default.  {@code false} optimizes for speed and doubles space costs
    *  for roughly a 10% speed improvement.  */
   public NonBlockingHashMapLong( final int initial_sz, final boolean opt_for_space ) {
+    this(initial_sz,opt_for_space,SizeTracking.EXACT);
+  }
+
+  /** Create a new NonBlockingHashMapLong, setting the initial size, the
+   *  space-for-speed tradeoff and the way of tracking its size.  Maps which
+   *  never call {@link #size} can skip counting their K,V pairs.
+   *  @see SizeTracking */
+  public NonBlockingHashMapLong( final int initial_sz, final boolean opt_for_space, final SizeTracking size_tracking ) {
+    if( size_tracking == null ) throw new NullPointerException();
     _opt_for_space = opt_for_space;
+    _size_tracking = size_tracking;
     initialize(initial_sz);
   }
   private void initialize( final int initial_sz ) {
     RangeUtil.checkPositiveOrZero(initial_sz, "initial_sz");
+    if( _size_tracking == null ) _size_tracking = SizeTracking.EXACT;
     int i;                      // Convert to next largest power-of-2
     for( i=MIN_SIZE_LOG; (1<<i) < initial_sz; i++ ) {/*empty*/}
-    _chm = new CHM(this,new ConcurrentAutoTable(),i);
+    _chm = new CHM(this,_size_tracking.new_counter(),i);
     _val_1 = TOMBSTONE;         // Always as-if deleted
     _last_resize_milli = System.currentTimeMillis();
   }
 
   // --- wrappers ------------------------------------------------------------
 
-  /** Returns the number of key-value mappings in this map.
+  /** Returns the number of key-value mappings in this map.  An estimate for
+   *  {@link SizeTracking#SAMPLED} maps, and a table walk for {@link
+   *  SizeTracking#DISABLED} maps.
    *  @return the number of key-value mappings in this map */
-  public int     size       ( )                     { return (_val_1==TOMBSTONE?0:1) + _chm.size(); }
+  public int     size       ( )                     {
+    final CHM chm = _chm;
+    return chm._size == null ? count() : (_val_1==TOMBSTONE?0:1) + chm.size();
+  }
+  /** Returns <tt>true</tt> if this map contains no key-value mappings.
+   *  Unless the size is tracked {@link SizeTracking#EXACT}ly, this walks the
+   *  table up to the first live K,V pair rather than trusting the count.
+   *  @return <tt>true</tt> if this map contains no key-value mappings */
+  @Override
+  public boolean isEmpty    ( )                     {
+    return _size_tracking == SizeTracking.EXACT ? size() == 0 : !new SnapshotV().hasNext();
+  }
   /** Tests if the key in the table.
    * @return <tt>true</tt> if the key is in the table */
   public boolean containsKey( long key )            { return get(key) != null; }
@@ -333,7 +361,7 @@ public class NonBlockingHashMapLong<TypeV>
 
   /** Removes all of the mappings from this map. */
   public void clear() {         // Smack a new empty table down
-    CHM newchm = new CHM(this,new ConcurrentAutoTable(),MIN_SIZE_LOG);
+    CHM newchm = new CHM(this,_size_tracking.new_counter(),MIN_SIZE_LOG);
     while( !CAS(_chm_offset,_chm,newchm) ) { /*Spin until the clear works*/}
     CAS(_val_1_offset,_val_1,TOMBSTONE);
   }
@@ -416,7 +444,7 @@ public class NonBlockingHashMapLong<TypeV>
   // Helper function to spread lousy hashCodes Throws NPE for null Key, on
   // purpose - as the first place to conveniently toss the required NPE for a
   // null Key.
-  private static final int hash(long h) {
+  static final int hash(long h) {
     h ^= (h>>>20) ^ (h>>>12);
     h ^= (h>>> 7) ^ (h>>> 4);
     h += h<<7; // smear low bits up high, for hashcodes that only differ by 1
@@ -430,9 +458,26 @@ public class NonBlockingHashMapLong<TypeV>
     // Back-pointer to top-level structure
     final NonBlockingHashMapLong _nbhml;
 
-    // Size in active K,V pairs
+    // Size in active K,V pairs, null when the size is not tracked
     private ConcurrentAutoTable _size;
+    // Only valid when the size is tracked
     public int size () { return (int)_size.get(); }
+    // Unless the size is exact, count the live K,V pairs of this table for the
+    // resizing heuristics.  The used slots count the dead keys too, and would
+    // grow the table on every resize caused by key churn, and a sampled size
+    // is too noisy for small tables.  The walk is no more than the copy which
+    // follows.
+    private int live() {
+      int live = 0;
+      for( int i=0; i<_vals.length; i++ ) {
+        final Object V = _vals[i];
+        if( V != null && V != TOMBSTONE && V != TOMBPRIME ) live++;
+      }
+      return live;
+    }
+    private void add_size( long delta, long key ) {
+      if( _size != null ) _nbhml._size_tracking.add(_size,delta,hash(key));
+    }
 
     // ---
     // These next 2 fields are used in the resizing heuristics, to judge when
@@ -499,7 +544,7 @@ public class NonBlockingHashMapLong<TypeV>
     }
     // Non-atomic clear
     void clear() {
-      _size = new ConcurrentAutoTable();
+      _size = _nbhml._size_tracking.new_counter();
       _slots= new ConcurrentAutoTable();
       Arrays.fill(_keys,0);
       Arrays.fill(_vals,null);
@@ -708,8 +753,8 @@ public class NonBlockingHashMapLong<TypeV>
       // does not (effectively) increase the number of live k/v pairs.
       if( expVal != null ) {
         // Adjust sizes - a striped counter
-        if(  (V == null || V == TOMBSTONE) && putval != TOMBSTONE ) _size.add( 1);
-        if( !(V == null || V == TOMBSTONE) && putval == TOMBSTONE ) _size.add(-1);
+        if(  (V == null || V == TOMBSTONE) && putval != TOMBSTONE ) add_size( 1,key);
+        if( !(V == null || V == TOMBSTONE) && putval == TOMBSTONE ) add_size(-1,key);
       }
 
       // We won; we know the update happened as expected.
@@ -748,7 +793,7 @@ public class NonBlockingHashMapLong<TypeV>
 
       // No copy in-progress, so start one.  First up: compute new table size.
       int oldlen = _keys.length; // Old count of K,V pairs allowed
-      int sz = size();          // Get current table count of active K,V pairs
+      int sz = _nbhml._size_tracking == SizeTracking.EXACT ? size() : live(); // Get current table count of active K,V pairs
       int newsz = sz;           // First size estimate
 
       // Heuristic to determine new size.  We expect plenty of dead-slots-with-keys
@@ -1103,6 +1148,13 @@ public class NonBlockingHashMapLong<TypeV>
    *  @see #values()  */
   public Enumeration<TypeV> elements() { return new SnapshotV(); }
 
+  // Count the live K,V pairs with a walk over the table
+  private int count() {
+    int count = 0;
+    for( SnapshotV it = new SnapshotV(); it.hasNext(); it.next() ) count++;
+    return count;
+  }
+
   // --- values --------------------------------------------------------------
   /** Returns a {@link Collection} view of the values contained in this map.
    *  The collection is backed by the map, so changes to the map are reflected
@@ -1121,6 +1173,7 @@ public class NonBlockingHashMapLong<TypeV>
     return new AbstractCollection<TypeV>() {
       public void    clear   (          ) {        NonBlockingHashMapLong.this.clear   ( ); }
       public int     size    (          ) { return NonBlockingHashMapLong.this.size    ( ); }
+      public boolean isEmpty (          ) { return NonBlockingHashMapLong.this.isEmpty    ( ); }
       public boolean contains( Object v ) { return NonBlockingHashMapLong.this.containsValue(v); }
       public Iterator<TypeV> iterator()   { return new SnapshotV(); }
     };
@@ -1171,21 +1224,33 @@ public class NonBlockingHashMapLong<TypeV>
     return new AbstractSet<Long> () {
       public void    clear   (          ) {        NonBlockingHashMapLong.this.clear   ( ); }
       public int     size    (          ) { return NonBlockingHashMapLong.this.size    ( ); }
+      public boolean isEmpty (          ) { return NonBlockingHashMapLong.this.isEmpty    ( ); }
       public boolean contains( Object k ) { return NonBlockingHashMapLong.this.containsKey(k); }
       public boolean remove  ( Object k ) { return NonBlockingHashMapLong.this.remove  (k) != null; }
       public IteratorLong iterator()    { return new IteratorLong(); }
     };
   }
 
-  /** Keys as a long array.  Array may be zero-padded if keys are concurrently deleted. */
+  /** Keys as a long array.  Array may be zero-padded if keys are concurrently
+   *  deleted from a map tracking its size {@link SizeTracking#EXACT}ly. */
   @SuppressWarnings("unchecked")
   public long[] keySetLong() {
-    long[] dom = new long[size()];
     IteratorLong i=(IteratorLong)keySet().iterator();
     int j=0;
-    while( j < dom.length && i.hasNext() )
+    if( _size_tracking == SizeTracking.EXACT ) {
+      long[] dom = new long[size()];
+      while( j < dom.length && i.hasNext() )
+        dom[j++] = i.nextLong();
+      return dom;
+    }
+    // The size is an estimate or a walk of its own: grow the array as the
+    // walk goes instead
+    long[] dom = new long[MIN_SIZE];
+    while( i.hasNext() ) {
+      if( j == dom.length ) dom = Arrays.copyOf(dom,j<<1);
       dom[j++] = i.nextLong();
-    return dom;
+    }
+    return Arrays.copyOf(dom,j);
   }
 
   // --- entrySet ------------------------------------------------------------
@@ -1238,6 +1303,7 @@ public class NonBlockingHashMapLong<TypeV>
     return new AbstractSet<Map.Entry<Long,TypeV>>() {
       public void    clear   (          ) {        NonBlockingHashMapLong.this.clear( ); }
       public int     size    (          ) { return NonBlockingHashMapLong.this.size ( ); }
+      public boolean isEmpty (          ) { return NonBlockingHashMapLong.this.isEmpty ( ); }
       public boolean remove( final Object o ) {
         if (!(o instanceof Map.Entry)) return false;
         final Map.Entry<?,?> e = (Map.Entry<?,?>)o;
@@ -1301,8 +1367,12 @@ public class NonBlockingHashMapLong<TypeV>
       // Wipe out the cloned array (it was shallow anyways).
       t.clear();
       // Now copy sanely
-      for( long K : keySetLong() )
-        t.put(K,get(K));
+      for( IteratorLong i = new IteratorLong(); i.hasNext(); ) {
+        final long K = i.nextLong();
+        final TypeV V = get(K);  // Do an official 'get'
+        if( V != null )         // Unless removed since
+          t.put(K,V);
+      }
       return t;
     } catch (CloneNotSupportedException e) {
       // this shouldn't happen, since we are Cloneable
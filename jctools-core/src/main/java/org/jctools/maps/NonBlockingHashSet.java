@@ -32,6 +32,13 @@ public class NonBlockingHashSet<E> extends AbstractSet<E> implements Serializabl
   /** Make a new empty {@link NonBlockingHashSet}.  */
   public NonBlockingHashSet() { super(); _map = new NonBlockingHashMap<E,Object>(); }
 
+  /** Make a new empty {@link NonBlockingHashSet}, tracking its size as
+   *  given.  @see SizeTracking */
+  public NonBlockingHashSet( final SizeTracking size_tracking ) {
+    super();
+    _map = new NonBlockingHashMap<E,Object>(0,size_tracking);
+  }
+
   /** Add {@code o} to the set.  
    *  @return <tt>true</tt> if {@code o} was added to the set, <tt>false</tt>
    *  if {@code o} was already in the set.  */
@@ -53,6 +60,9 @@ public class NonBlockingHashSet<E> extends AbstractSet<E> implements Serializabl
    *  immediately visible to calling thread.
    *  @return count of elements.   */
   public int size( ) { return _map.size(); }
+  /** @return <tt>true</tt> if the set has no elements, see {@link
+   *  SizeTracking} for its cost. */
+  public boolean isEmpty( ) { return _map.isEmpty(); }
   /** Empty the set. */
   public void clear( ) { _map.clear(); }
 
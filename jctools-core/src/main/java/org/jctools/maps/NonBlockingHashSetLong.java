@@ -0,0 +1,729 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.maps;
+
+import org.jctools.util.RangeUtil;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import static org.jctools.maps.NonBlockingHashMap.DUMMY_VOLATILE;
+import static org.jctools.maps.NonBlockingHashMapLong.hash;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+/**
+ * A lock-free hash {@link Set} of <strong>primitive longs</strong>, with
+ * <strong>non-auto-boxing</strong> versions of the element operations and of
+ * the iteration.  All operations are Non-Blocking and multi-thread safe.
+ *
+ * <p>The table is laid out as in {@link NonBlockingHashMapLong}, with the
+ * keys in a primitive {@code long[]} claimed by CAS, and resized by the same
+ * cooperative copy into a larger table.  Where the map keeps a value per key,
+ * this set keeps a 4-bit slot state (never set, present, deleted, or one of
+ * these frozen by a copy), packed 8 to an {@code int}.  A slot costs 8.5
+ * bytes, against 12 or 16 for a key and a value reference in the map.
+ *
+ * <p>The key {@code 0} marks a free key slot, so it has a state of its own
+ * past the last slot of the table, and is copied with the table on a resize.
+ */
+public class NonBlockingHashSetLong extends AbstractSet<Long> implements Serializable {
+
+  private static final long serialVersionUID = 1234123412341234125L;
+
+  private static final int REPROBE_LIMIT=10; // Too many reprobes then force a table-resize
+
+  // --- Bits to allow Unsafe access to arrays
+  private static final int _Ibase  = UNSAFE.arrayBaseOffset(int[].class);
+  private static final int _Iscale = UNSAFE.arrayIndexScale(int[].class);
+  private static long rawIndex(final int[] ary, final int idx) {
+    assert idx >= 0 && idx < ary.length;
+    return _Ibase + ((long)idx * _Iscale);
+  }
+  private static final int _Lbase  = UNSAFE.arrayBaseOffset(long[].class);
+  private static final int _Lscale = UNSAFE.arrayIndexScale(long[].class);
+  private static long rawIndex(final long[] ary, final int idx) {
+    assert idx >= 0 && idx < ary.length;
+    return _Lbase + ((long)idx * _Lscale);
+  }
+
+  // --- Bits to allow Unsafe CAS'ing of the CHM field
+  private static final long _chm_offset = fieldOffset(NonBlockingHashSetLong.class, "_chm");
+
+  private final boolean CAS( final long offset, final Object old, final Object nnn ) {
+    return UNSAFE.compareAndSwapObject(this, offset, old, nnn );
+  }
+
+  // --- Slot states -----------------------
+  // The state of a key slot stands in for the value of a NonBlockingHashMapLong
+  // key slot, and moves the same way: from NULL to LIVE or DEAD and between
+  // those two, then to frozen by a table copy.  NULL must be zero, the initial
+  // value set by Java before it hands me the array.
+  private static final int NULL = 0;    // Never been in this table
+  private static final int LIVE = 1;    // In the set
+  private static final int DEAD = 2;    // Removed, the key slot is forever claimed
+  // The 'prime' bit: no more updates in this table, the slot is (being) copied
+  private static final int PRIME = 4;
+  // LIVE, and a table copy started: the key must still be copied to the new table
+  private static final int LIVEPRIME = LIVE|PRIME;
+  // Deleted or never set then frozen, or copied already: nothing left here
+  private static final int TOMBPRIME = DEAD|PRIME;
+
+  private static final int STATE_BITS_LOG = 2; // 4 bits per slot
+  private static final int STATES_PER_INT_LOG = 5-STATE_BITS_LOG;
+  private static final int STATE_MASK = (1<<(1<<STATE_BITS_LOG))-1;
+
+  // --- The Hash Table --------------------
+  private transient CHM _chm;
+
+  // Time since last resize
+  private transient long _last_resize_milli;
+
+  // How the count of keys is kept
+  private final SizeTracking _size_tracking;
+
+  // --- Minimum table size ----------------
+  private static final int MIN_SIZE_LOG=4;             //
+  private static final int MIN_SIZE=(1<<MIN_SIZE_LOG); // Must be power of 2
+
+  // The NO_KEY value must be zero, the initial value set by Java before it
+  // hands me the array.  Key 0 itself has no key slot, only the state past
+  // the last key slot (index _keys.length).
+  private static final long NO_KEY = 0L;
+
+  // --- reprobe_limit -----------------------------------------------------
+  // Heuristic to decide if we have reprobed toooo many times.  Shared by
+  // 'contains' and 'add', as in NonBlockingHashMapLong.
+  private static int reprobe_limit( int len ) {
+    return REPROBE_LIMIT + (len>>4);
+  }
+
+  /** Make a new empty {@link NonBlockingHashSetLong}.  */
+  public NonBlockingHashSetLong() { this(MIN_SIZE,SizeTracking.EXACT); }
+
+  /** Make a new empty {@link NonBlockingHashSetLong}, with the initial size
+   *  and the way of tracking its size as given.  @see SizeTracking */
+  public NonBlockingHashSetLong( final int initial_sz, final SizeTracking size_tracking ) {
+    super();
+    if( size_tracking == null ) throw new NullPointerException();
+    _size_tracking = size_tracking;
+    initialize(initial_sz);
+  }
+  private void initialize( final int initial_sz ) {
+    RangeUtil.checkPositiveOrZero(initial_sz, "initial_sz");
+    int i;                      // Convert to next largest power-of-2
+    for( i=MIN_SIZE_LOG; (1<<i) < initial_sz; i++ ) {/*empty*/}
+    _chm = new CHM(this,_size_tracking.new_counter(),i);
+    _last_resize_milli = System.currentTimeMillis();
+  }
+
+  /** Add {@code o} to the set.  Uppercase {@link Long} version of add,
+   *  requires auto-unboxing.  When possible use the {@code long} version of
+   *  {@link #add(long)} for efficiency.
+   *  @return <tt>true</tt> if {@code o} was added to the set, <tt>false</tt>
+   *  if {@code o} was already in the set.  */
+  public boolean add( final Long o ) { return add(o.longValue()); }
+
+  /** Add {@code i} to the set, no autoboxing.
+   *  @return <tt>true</tt> if {@code i} was added to the set, <tt>false</tt>
+   *  if {@code i} was already in the set.  */
+  public boolean add( final long i ) { return _chm.putIfMatch(i,LIVE,DEAD) != LIVE; }
+
+  /**  @return <tt>true</tt> if {@code o} is in the set.  */
+  public boolean contains( final Object o ) {
+    return (o instanceof Long) && contains(((Long)o).longValue());
+  }
+
+  /**  @return <tt>true</tt> if {@code i} is in the set, no autoboxing.  */
+  public boolean contains( final long i ) { return _chm.contains_impl(i); }
+
+  /** Remove {@code o} from the set.
+   * @return <tt>true</tt> if {@code o} was removed to the set, <tt>false</tt>
+   * if {@code o} was not in the set.
+   */
+  public boolean remove( final Object o ) {
+    return (o instanceof Long) && remove(((Long)o).longValue());
+  }
+
+  /** Remove {@code i} from the set, no autoboxing.
+   * @return <tt>true</tt> if {@code i} was removed to the set, <tt>false</tt>
+   * if {@code i} was not in the set.
+   */
+  public boolean remove( final long i ) { return _chm.putIfMatch(i,DEAD,LIVE) == LIVE; }
+
+  /** Current count of elements in the set.  Due to concurrent racing updates,
+   *  the size is only ever approximate.  Updates due to the calling thread are
+   *  immediately visible to calling thread.  An estimate for {@link
+   *  SizeTracking#SAMPLED} sets, and a table walk for {@link
+   *  SizeTracking#DISABLED} sets.
+   *  @return count of elements.   */
+  public int size( ) {
+    final CHM chm = _chm;
+    return chm._size == null ? count() : chm.size();
+  }
+  /** @return <tt>true</tt> if the set has no elements, see {@link
+   *  SizeTracking} for its cost. */
+  public boolean isEmpty( ) {
+    return _size_tracking == SizeTracking.EXACT ? size() == 0 : !new Snapshot().hasNext();
+  }
+  /** Empty the set. */
+  public void clear( ) {        // Smack a new empty table down
+    CHM newchm = new CHM(this,_size_tracking.new_counter(),MIN_SIZE_LOG);
+    while( !CAS(_chm_offset,_chm,newchm) ) { /*Spin until the clear works*/}
+  }
+
+  /** A "weakly consistent" iterator over the elements, which can be walked
+   *  <strong>without auto-boxing</strong> with {@link IteratorLong#nextLong}.
+   *  It never throws {@link java.util.ConcurrentModificationException}.  It
+   *  first helps any resize in progress to finish, then walks that table:
+   *  an element is visited if it is in the set when its slot is reached.
+   *  Elements added to a table which replaced it in a later resize, in slots
+   *  of their own, are not visited.  */
+  public IteratorLong iterator( ) { return new IteratorLong(); }
+
+  /** Elements as a long array, as seen by a walk of the set.  */
+  public long[] toLongArray( ) {
+    // The size may be an estimate, grow the array as the walk goes
+    long[] dom = new long[MIN_SIZE];
+    final Snapshot it = new Snapshot();
+    int j=0;
+    while( it.hasNext() ) {
+      if( j == dom.length ) dom = Arrays.copyOf(dom,j<<1);
+      dom[j++] = it.next();
+    }
+    return Arrays.copyOf(dom,j);
+  }
+
+  /** Visit the elements of the set without autoboxing, in the order and
+   *  with the consistency of {@link #iterator}.  */
+  public void forEach( final LongConsumer c ) {
+    final Snapshot it = new Snapshot();
+    while( it.hasNext() )
+      c.accept(it.next());
+  }
+
+  /** An element visitor, no autoboxing. */
+  public interface LongConsumer {
+    void accept( long i );
+  }
+
+  // --- help_copy -----------------------------------------------------------
+  // Help along an existing resize operation, as NonBlockingHashMapLong does.
+  private void help_copy( ) {
+    CHM topchm = _chm;
+    if( topchm._newchm == null ) return; // No copy in-progress
+    topchm.help_copy_impl(false);
+  }
+
+  // --- CHM -----------------------------------------------------------------
+  // The control structure for the NonBlockingHashSetLong.  The put, copy and
+  // promotion protocol is the one of NonBlockingHashMapLong.CHM, with the
+  // slot state in the place of the value: see there for the reasoning.
+  private static final class CHM {
+    // Back-pointer to top-level structure
+    final NonBlockingHashSetLong _nbhsl;
+
+    // Size in live keys, null when the size is not tracked
+    private final ConcurrentAutoTable _size;
+    // Only valid when the size is tracked
+    public int size () { return (int)_size.get(); }
+    // Unless the size is exact, count the live keys of this table for the
+    // resizing heuristics.  The walk is no more than the copy which follows.
+    private int live() {
+      int live = 0;
+      for( int i=0; i<=_keys.length; i++ ) // Key 0 included
+        if( (state(i) & ~PRIME) == LIVE ) live++;
+      return live;
+    }
+    private void add_size( long delta, long key ) {
+      if( _size != null ) _nbhsl._size_tracking.add(_size,delta,hash(key));
+    }
+
+    // Count of used slots, to tell when table is full of dead unusable slots
+    private final ConcurrentAutoTable _slots;
+
+    // ---
+    // The 'next' CHM - created during a resize operation.  It monotonically
+    // transits from null to set (once).
+    volatile CHM _newchm;
+    private static final AtomicReferenceFieldUpdater<CHM,CHM> _newchmUpdater =
+      AtomicReferenceFieldUpdater.newUpdater(CHM.class,CHM.class, "_newchm");
+    // Set the _newchm field if we can.  AtomicUpdaters do not fail spuriously.
+    boolean CAS_newchm( CHM newchm ) {
+      return _newchmUpdater.compareAndSet(this,null,newchm);
+    }
+    // Count of threads attempting an initial resize, to throttle the
+    // allocation of junk large tables by the losers of the race.
+    volatile long _resizers;
+    private static final AtomicLongFieldUpdater<CHM> _resizerUpdater =
+      AtomicLongFieldUpdater.newUpdater(CHM.class, "_resizers");
+
+    // --- key,state -----------------------------------------------------------
+    final long[] _keys;
+    // The slot states, 8 to an int: slot i is nibble (i&7) of int i>>3.  One
+    // more int holds the state of key 0, at index _keys.length.
+    final int [] _states;
+
+    private boolean CAS_key( int idx, long old, long key ) {
+      return UNSAFE.compareAndSwapLong( _keys, rawIndex(_keys, idx), old, key );
+    }
+    private int state( int idx ) {
+      return (_states[idx>>STATES_PER_INT_LOG]>>>shift(idx)) & STATE_MASK;
+    }
+    private static int shift( int idx ) {
+      return (idx&((1<<STATES_PER_INT_LOG)-1))<<STATE_BITS_LOG;
+    }
+    // CAS the state of one slot.  The slots sharing the int may change under
+    // us, so retry until our own slot is seen to differ from 'old'.
+    private boolean CAS_state( int idx, int old, int nnn ) {
+      final long offset = rawIndex(_states, idx>>STATES_PER_INT_LOG);
+      final int shift = shift(idx);
+      while( true ) {
+        final int word = UNSAFE.getIntVolatile(_states, offset);
+        if( ((word>>>shift) & STATE_MASK) != old ) return false;
+        final int nword = (word & ~(STATE_MASK<<shift)) | (nnn<<shift);
+        if( UNSAFE.compareAndSwapInt(_states, offset, word, nword) ) return true;
+      }
+    }
+
+    // Simple constructor
+    CHM( final NonBlockingHashSetLong nbhsl, ConcurrentAutoTable size, final int logsize ) {
+      _nbhsl = nbhsl;
+      _size = size;
+      _slots= new ConcurrentAutoTable();
+      _keys = new long[1<<logsize];
+      _states = new int[((1<<logsize)>>STATES_PER_INT_LOG)+1];
+    }
+
+    // --- contains_impl -----------------------------------------------------
+    private boolean contains_impl( final long key ) {
+      final int len = _keys.length;
+      if( key == NO_KEY ) {     // Key 0, in the state past the key slots
+        final int S = state(len);
+        if( (S & PRIME) == 0 ) return S == LIVE;
+        return copy_slot_and_check(len,true).contains_impl(key);
+      }
+      final int hash = hash(key);
+      int idx = (hash & (len-1)); // First key hash
+
+      // Main spin/reprobe loop, looking for a Key hit
+      int reprobe_cnt=0;
+      while( true ) {
+        final long K = _keys[idx]; // Get key before the state, could be NO_KEY
+        final int  S = state(idx);
+        if( K == NO_KEY ) return false; // A clear miss
+
+        if( key == K ) {
+          // Key hit!  Check for no table-copy-in-progress
+          if( (S & PRIME) == 0 ) return S == LIVE;
+          // Key hit - but slot is (possibly partially) copied to the new table.
+          // Finish the copy & retry in the new table.
+          return copy_slot_and_check(idx,true).contains_impl(key);
+        }
+        // contains and putIfMatch must have the same key lookup logic!
+        if( ++reprobe_cnt >= reprobe_limit(len) ) // too many probes
+          return _newchm != null && // Table copy in progress?
+            copy_slot_and_check(idx,true).contains_impl(key); // Retry in the new table
+
+        idx = (idx+1)&(len-1);    // Reprobe by 1!
+      }
+    }
+
+    // --- putIfMatch ---------------------------------------------------------
+    // Add (LIVE expecting DEAD, which also matches NULL), remove (DEAD
+    // expecting LIVE) and copy (LIVE expecting exactly NULL, from copy_slot
+    // only).  Returns the state found, the update happened if it matched.
+    private int putIfMatch( final long key, final int putval, final int expVal ) {
+      final int hash = hash(key);
+      final int len = _keys.length;
+      int idx = (hash & (len-1)); // The first key
+
+      // ---
+      // Key-Claim stanza: spin till we can claim a Key (or force a resizing).
+      // Key 0 has its state past the key slots, and nothing to claim.
+      int reprobe_cnt=0;
+      long K;
+      int  S = NULL;
+      if( key == NO_KEY ) {
+        idx = len;
+        S = state(idx);
+      }
+      else while( true ) {      // Spin till we get a Key slot
+        S = state(idx);         // Get old state
+        K = _keys[idx];         // Get current key
+        if( K == NO_KEY ) {     // Slot is free?
+          // Not-now & never-been in this table, nothing to remove
+          if( putval == DEAD ) return NULL;
+          // Claim the zero key-slot
+          if( CAS_key(idx, NO_KEY, key) ) { // Claim slot for Key
+            _slots.add(1);      // Raise key-slots-used count
+            break;              // Got it!
+          }
+          K = _keys[idx];       // CAS failed, get updated value
+          assert K != NO_KEY ;  // If keys[idx] is NO_KEY, CAS shoulda worked
+        }
+        if( K == key )
+          break;                // Got it!
+
+        if( ++reprobe_cnt >= reprobe_limit(len) ) {
+          // We simply must have a new table to do a 'put'.
+          final CHM newchm = resize();
+          if( expVal != NULL ) _nbhsl.help_copy(); // help along an existing copy
+          return newchm.putIfMatch(key,putval,expVal);
+        }
+
+        idx = (idx+1)&(len-1); // Reprobe!
+      } // End of spinning till we get a Key slot
+
+      while ( true ) {              // Spin till we update the state
+        if( (S == NULL && tableFull(reprobe_cnt,len)) ||
+            // Or we found a Prime: resize is already in progress.
+            (S & PRIME) != 0 ) {
+          resize();               // Force the new table copy to start
+          return copy_slot_and_check(idx,expVal != NULL).putIfMatch(key,putval,expVal);
+        }
+
+        // Must match old, and we do not?  Then bail out now.
+        if( S != expVal && !(S == NULL && expVal == DEAD) )
+          return S;             // Do not update!
+
+        // Actually change the state of the key slot
+        if( CAS_state(idx, S, putval) ) break;
+
+        // CAS failed, re-read and retry, jumping to the new table on a Prime
+        S = state(idx);
+        // NOTE: need the fence, since otherwise the '_states' load could be
+        // hoisted out of loop.
+        int dummy = DUMMY_VOLATILE;
+      }
+
+      // CAS succeeded - we did the update!  A table-copy does not change the
+      // number of live keys.
+      if( expVal != NULL ) add_size(putval == LIVE ? 1 : -1, key);
+      return S;
+    }
+
+    // --- tableFull ---------------------------------------------------------
+    // Heuristic to decide if this table is too full, and we should start a
+    // new table.  Same invariant as NonBlockingHashMapLong:
+    //   slots.estimate_sum >= max_reprobe_cnt >= reprobe_limit(len)
+    private boolean tableFull( int reprobe_cnt, int len ) {
+      return
+        reprobe_cnt >= REPROBE_LIMIT &&
+        (reprobe_cnt >= reprobe_limit(len) ||
+         _slots.estimate_get() >= (len>>1));
+    }
+
+    // --- resize ------------------------------------------------------------
+    // Resizing after too many probes, with the space optimized heuristics of
+    // NonBlockingHashMapLong.  Callers MUST 'help_copy' any in-progress copy.
+    private CHM resize() {
+      CHM newchm = _newchm;     // VOLATILE READ
+      if( newchm != null )      // See if resize is already in progress
+        return newchm;          // Use the new table already
+
+      // No copy in-progress, so start one.  First up: compute new table size.
+      int oldlen = _keys.length; // Old count of keys allowed
+      int sz = _nbhsl._size_tracking == SizeTracking.EXACT ? size() : live();
+      int newsz = sz;           // First size estimate
+      if( sz >= (oldlen>>1) )   // If we are >50% full of keys then...
+        newsz = oldlen<<1;      // Double size
+
+      // Last (re)size operation was very recent?  Then double again despite
+      // having few live keys, but do not forever grow the table.
+      long tm = System.currentTimeMillis();
+      if( newsz <= oldlen &&    // New table would shrink or hold steady?
+          tm <= _nbhsl._last_resize_milli+10000)  // Recent resize (less than 10 sec ago)
+        newsz = oldlen<<1;      // Double the existing size
+
+      // Do not shrink, ever.  Doubling a 2^30 table overflows, and holds
+      // steady instead: 2^30 keys is the largest table.
+      if( newsz < oldlen ) newsz = oldlen;
+
+      // Convert to power-of-2
+      int log2;
+      for( log2=MIN_SIZE_LOG; (1<<log2) < newsz; log2++ ) ; // Compute log2 of size
+
+      // Now limit the number of threads actually allocating memory to a
+      // handful - lest we have 750 threads all trying to allocate a giant
+      // resized array.
+      long r = _resizers;
+      while( !_resizerUpdater.compareAndSet(this,r,r+1) )
+        r = _resizers;
+      // Size calculation: a long key and half a byte of state per slot
+      long megs = (((1L<<log2)<<3) + ((1L<<log2)>>1))>>20/*megs*/;
+      if( r >= 2 && megs > 0 ) { // Already 2 guys trying; wait and see
+        newchm = _newchm;        // Between dorking around, another thread did it
+        if( newchm != null )     // See if resize is already in progress
+          return newchm;         // Use the new table already
+        try { Thread.sleep(megs); } catch( Exception e ) { /*empty*/}
+      }
+      // Last check, since the 'new' below is expensive
+      newchm = _newchm;
+      if( newchm != null )      // See if resize is already in progress
+        return newchm;          // Use the new table already
+
+      // New CHM - actually allocate the big arrays
+      newchm = new CHM(_nbhsl,_size,log2);
+
+      // Another check after the slow allocation
+      if( _newchm != null )     // See if resize is already in progress
+        return _newchm;         // Use the new table already
+
+      // The new table must be CAS'd in so only 1 winner amongst duplicate
+      // racing resizing threads.  Extra CHM's will be GC'd.
+      if( !CAS_newchm( newchm ) ) // NOW a resize-is-in-progress!
+        newchm = _newchm;       // CAS failed? Reread new table
+      return newchm;
+    }
+
+    // The next part of the table to copy, claimed in chunks by CAS'ing it up.
+    volatile long _copyIdx = 0;
+    static private final AtomicLongFieldUpdater<CHM> _copyIdxUpdater =
+      AtomicLongFieldUpdater.newUpdater(CHM.class, "_copyIdx");
+
+    // Work-done reporting, from 0 to _keys.length+1 slots copied, key 0 included.
+    volatile long _copyDone= 0;
+    static private final AtomicLongFieldUpdater<CHM> _copyDoneUpdater =
+      AtomicLongFieldUpdater.newUpdater(CHM.class, "_copyDone");
+
+    // --- help_copy_impl ----------------------------------------------------
+    // Help along an existing resize operation.
+    private void help_copy_impl( final boolean copy_all ) {
+      final CHM newchm = _newchm;
+      assert newchm != null;    // Already checked by caller
+      int oldlen = _keys.length; // Total amount to copy
+      final int MIN_COPY_WORK = Math.min(oldlen,1024); // Limit per-thread work
+
+      int panic_start = -1;
+      int copyidx=-9999;            // Fool javac to think it's initialized
+      while( _copyDone < oldlen+1 ) { // Still needing to copy?  Key 0 too
+        // Carve out a chunk of work, or "panic" and copy every slot ourselves
+        // if we have tried TWICE to copy every slot and it still has not
+        // happened.
+        if( panic_start == -1 ) { // No panic?
+          copyidx = (int)_copyIdx;
+          while( copyidx < (oldlen<<1) && // 'panic' check
+                 !_copyIdxUpdater.compareAndSet(this,copyidx,copyidx+MIN_COPY_WORK) )
+            copyidx = (int)_copyIdx;     // Re-read
+          if( !(copyidx < (oldlen<<1)) ) // Panic!
+            panic_start = copyidx;       // Record where we started to panic-copy
+        }
+
+        // We now know what to copy.  Try to copy.
+        int workdone = 0;
+        for( int i=0; i<MIN_COPY_WORK; i++ ) {
+          final int idx = (copyidx+i)&(oldlen-1);
+          if( copy_slot(idx) )  // Made an oldtable slot go dead?
+            workdone++;         // Yes!
+          if( idx == 0 && copy_slot(oldlen) ) // Key 0 goes with slot 0
+            workdone++;
+        }
+        if( workdone > 0 )      // Report work-done occasionally
+          copy_check_and_promote( workdone );// See if we can promote
+
+        copyidx += MIN_COPY_WORK;
+        if( !copy_all && panic_start == -1 ) // No panic?
+          return;               // Then done copying after doing MIN_COPY_WORK
+      }
+      // Extra promotion check, in case another thread finished all copying
+      // then got stalled before promoting.
+      copy_check_and_promote( 0 ); // See if we can promote
+    }
+
+    // --- copy_slot_and_check -----------------------------------------------
+    // Copy slot 'idx' from the old table to the new table.  If this thread
+    // confirmed the copy, update the counters and check for promotion.
+    // Returns the new table, for the caller to retry in.
+    private CHM copy_slot_and_check( int idx, boolean should_help ) {
+      assert _newchm != null;
+      if( copy_slot(idx) )      // Copy the desired slot
+        copy_check_and_promote(1); // Record the slot copied
+      // Generically help along any copy (except if called recursively from a helper)
+      if( should_help ) _nbhsl.help_copy();
+      return _newchm;
+    }
+
+    // --- copy_check_and_promote --------------------------------------------
+    private void copy_check_and_promote( int workdone ) {
+      int oldlen = _keys.length+1; // Key 0 included
+      long copyDone = _copyDone;
+      long nowDone = copyDone+workdone;
+      assert nowDone <= oldlen;
+      if( workdone > 0 ) {
+        while( !_copyDoneUpdater.compareAndSet(this,copyDone,nowDone) ) {
+          copyDone = _copyDone;   // Reload, retry
+          nowDone = copyDone+workdone;
+          assert nowDone <= oldlen;
+        }
+      }
+
+      // Check for copy being ALL done, and promote top-level copies only.
+      if( nowDone == oldlen &&    // Ready to promote this table?
+          _nbhsl._chm == this &&  // Looking at the top-level table?
+          _nbhsl.CAS(_chm_offset,this,_newchm) ) {
+        _nbhsl._last_resize_milli = System.currentTimeMillis();  // Record resize time for next check
+      }
+    }
+
+    // --- copy_slot ---------------------------------------------------------
+    // Copy one key from _keys[idx] to the new table.  Returns true if we can
+    // confirm that we set an old-table slot to TOMBPRIME, and only returns
+    // after updating the new table.
+    private boolean copy_slot( int idx ) {
+      // Blindly set the key slot from NO_KEY to some non-zero key, to eagerly
+      // stop fresh adds in the old table.  Correctness stems from freezing
+      // the state.
+      long key = NO_KEY;        // Key 0 at index _keys.length
+      if( idx < _keys.length )
+        while( (key=_keys[idx]) == NO_KEY )
+          CAS_key(idx, NO_KEY, (idx+_keys.length)/*a non-zero key*/);
+
+      // ---
+      // Prevent new states from appearing in the old table.
+      int oldstate = state(idx);
+      while( (oldstate & PRIME) == 0 ) {
+        final int box = oldstate == LIVE ? LIVEPRIME : TOMBPRIME;
+        if( CAS_state(idx,oldstate,box) ) {
+          // A TOMBPRIME both stops further updates here and is vacuously
+          // available in the new table.
+          if( box == TOMBPRIME )
+            return true;
+          // Otherwise the key still needs to be copied into the new table.
+          oldstate = box;
+          break;
+        }
+        oldstate = state(idx);  // Else try, try again
+      }
+      if( oldstate == TOMBPRIME ) return false; // Copy already complete here!
+
+      // ---
+      // Copy the key into the new table, but only over a never set slot: any
+      // other state was written there after the key was frozen here.
+      boolean copied_into_new = (_newchm.putIfMatch(key, LIVE, NULL) == NULL);
+
+      // ---
+      // Forever hide the old-table key, so other threads stop uselessly
+      // attempting to copy this slot.
+      while( oldstate != TOMBPRIME && !CAS_state(idx,oldstate,TOMBPRIME) )
+        oldstate = state(idx);
+
+      return copied_into_new;
+    }
+  } // End of CHM
+
+  // --- Snapshot ------------------------------------------------------------
+  // Iterates over a table with no copy in progress, as the NonBlockingHashMapLong
+  // snapshot does.
+  private class Snapshot {
+    final CHM _sschm;
+    private int _idx;           // -1 for NO_KEY, then 0-keys.length
+    private long _nextK, _prevK; // Last 2 keys found
+    private boolean _hasNext, _hasPrev;
+    Snapshot() {
+      CHM topchm;
+      while( true ) {           // Verify no table-copy-in-progress
+        topchm = _chm;
+        if( topchm._newchm == null ) // No table-copy-in-progress
+          break;
+        // Table copy in-progress - so we cannot get a clean iteration.  We
+        // must help finish the table copy before we can start iterating.
+        topchm.help_copy_impl(true);
+      }
+      // The "linearization point" for the iteration.
+      _sschm = topchm;
+      _idx = -1;
+      advance();
+    }
+    boolean hasNext() { return _hasNext; }
+    long next() {
+      if( !_hasNext ) throw new NoSuchElementException();
+      _prevK = _nextK;
+      _hasPrev = true;
+      advance();
+      return _prevK;
+    }
+    private void advance() {
+      if( _idx == -1 ) {        // Check for NO_KEY
+        _idx = 0;
+        _nextK = NO_KEY;
+        if( _hasNext = contains(NO_KEY) ) return;
+      }
+      final long[] keys = _sschm._keys;
+      while( _idx<keys.length ) { // Scan array
+        _nextK = keys[_idx++];
+        if( _nextK != NO_KEY && contains(_nextK) ) {
+          _hasNext = true;
+          return;
+        }
+      }
+      _hasNext = false;
+    }
+    void removeKey() {
+      if( !_hasPrev ) throw new IllegalStateException();
+      NonBlockingHashSetLong.this.remove(_prevK);
+      _hasPrev = false;
+    }
+  }
+
+  /** An {@link Iterator} over the elements, supporting a
+   *  <strong>non-auto-boxing</strong> {@link #nextLong}.  */
+  public class IteratorLong implements Iterator<Long> {
+    private final Snapshot _ss;
+    /** A new IteratorLong */
+    public IteratorLong() { _ss = new Snapshot(); }
+    /** Remove last element returned by {@link #next} or {@link #nextLong}. */
+    public void remove() { _ss.removeKey(); }
+    /** <strong>Auto-box</strong> and return the next element. */
+    public Long next    () { return _ss.next(); }
+    /** Return the next element as a primitive {@code long}. */
+    public long nextLong() { return _ss.next(); }
+    /** True if there are more elements to iterate over. */
+    public boolean hasNext() { return _ss.hasNext(); }
+  }
+
+  // Count the elements with a walk over the table
+  private int count() {
+    int count = 0;
+    for( Snapshot it = new Snapshot(); it.hasNext(); it.next() ) count++;
+    return count;
+  }
+
+  // --- writeObject -------------------------------------------------------
+  // Write a NBHSL to a stream: every element preceded by true, then false
+  private void writeObject(java.io.ObjectOutputStream s) throws IOException  {
+    s.defaultWriteObject();     // Write the size tracking
+    for( Snapshot it = new Snapshot(); it.hasNext(); ) {
+      s.writeBoolean(true);
+      s.writeLong(it.next());
+    }
+    s.writeBoolean(false);      // Sentinel to indicate end-of-data
+  }
+
+  // --- readObject --------------------------------------------------------
+  // Read a NBHSL from a stream
+  private void readObject(java.io.ObjectInputStream s) throws IOException, ClassNotFoundException  {
+    s.defaultReadObject();      // Read the size tracking
+    initialize(MIN_SIZE);
+    while( s.readBoolean() )
+      add(s.readLong());        // Insert with an offical add
+  }
+}
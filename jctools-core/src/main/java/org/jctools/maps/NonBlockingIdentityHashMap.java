@@ -145,6 +145,10 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
   // Time since last resize
   private transient long _last_resize_milli;
 
+  // How the count of K,V pairs is kept.  Not final: streams written before
+  // it was added deserialize a null, read as EXACT.
+  private SizeTracking _size_tracking;
+
   // --- Minimum table size ----------------
   // Pick size 8 K/V pairs, which turns into (8*2+2)*4+12 = 84 bytes on a
   // standard 32-bit HotSpot, and (8*2+2)*8+12 = 156 bytes on 64-bit Azul.
@@ -260,15 +264,26 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
    *  appropriate size.  Large numbers here when used with a small count of
    *  elements will sacrifice space for a small amount of time gained.  The
    *  initial size will be rounded up internally to the next larger power of 2. */
-  public NonBlockingIdentityHashMap( final int initial_sz ) { initialize(initial_sz); }
+  public NonBlockingIdentityHashMap( final int initial_sz ) { this(initial_sz, SizeTracking.EXACT); }
+
+  /** Create a new NonBlockingIdentityHashMap with initial room for the given number of
+   *  elements, and the given way of tracking its size.  Maps which never
+   *  call {@link #size} can skip counting their K,V pairs.
+   *  @see SizeTracking */
+  public NonBlockingIdentityHashMap( final int initial_sz, final SizeTracking size_tracking ) {
+    if( size_tracking == null ) throw new NullPointerException();
+    _size_tracking = size_tracking;
+    initialize(initial_sz);
+  }
   private final void initialize( int initial_sz ) {
     RangeUtil.checkPositiveOrZero(initial_sz, "initial_sz");
+    if( _size_tracking == null ) _size_tracking = SizeTracking.EXACT;
     int i;                      // Convert to next largest power-of-2
     if( initial_sz > 1024*1024 ) initial_sz = 1024*1024;
     for( i=MIN_SIZE_LOG; (1<<i) < (initial_sz<<2); i++ ) ;
     // Double size for K,V pairs, add 1 for CHM and 1 for hashes
     _kvs = new Object[((1<<i)<<1)+2];
-    _kvs[0] = new CHM(new ConcurrentAutoTable()); // CHM in slot 0
+    _kvs[0] = new CHM(_size_tracking.new_counter(),_size_tracking); // CHM in slot 0
     _kvs[1] = new int[1<<i];          // Matching hash entries
     _last_resize_milli = System.currentTimeMillis();
   }
@@ -277,14 +292,23 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
 
   // --- wrappers ------------------------------------------------------------
 
-  /** Returns the number of key-value mappings in this map.
+  /** Returns the number of key-value mappings in this map.  An estimate for
+   *  {@link SizeTracking#SAMPLED} maps, and a table walk for {@link
+   *  SizeTracking#DISABLED} maps.
    *  @return the number of key-value mappings in this map */
   @Override
-  public int     size       ( )                       { return chm(_kvs).size(); }
-  /** Returns <tt>size() == 0</tt>.
-   *  @return <tt>size() == 0</tt> */
+  public int     size       ( )                       {
+    final CHM chm = chm(_kvs);
+    return chm._size == null ? count() : chm.size();
+  }
+  /** Returns <tt>true</tt> if this map contains no key-value mappings.
+   *  Unless the size is tracked {@link SizeTracking#EXACT}ly, this walks the
+   *  table up to the first live K,V pair rather than trusting the count.
+   *  @return <tt>true</tt> if this map contains no key-value mappings */
   @Override
-  public boolean isEmpty    ( )                       { return size() == 0;      }
+  public boolean isEmpty    ( )                       {
+    return _size_tracking == SizeTracking.EXACT ? size() == 0 : !new SnapshotV().hasNext();
+  }
 
   /** Tests if the key in the table using the <tt>equals</tt> method.
    * @return <tt>true</tt> if the key is in the table using the <tt>equals</tt> method
@@ -376,7 +400,7 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
   /** Removes all of the mappings from this map. */
   @Override
   public void clear() {         // Smack a new empty table down
-    Object[] newkvs = new NonBlockingIdentityHashMap(MIN_SIZE)._kvs;
+    Object[] newkvs = new NonBlockingIdentityHashMap(MIN_SIZE,_size_tracking)._kvs;
     while( !CAS_kvs(_kvs,newkvs) ) // Spin until the clear works
       ;
   }
@@ -688,8 +712,8 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
     // does not (effectively) increase the number of live k/v pairs.
     if( expVal != null ) {
       // Adjust sizes - a striped counter
-      if(  (V == null || V == TOMBSTONE) && putval != TOMBSTONE ) chm._size.add( 1);
-      if( !(V == null || V == TOMBSTONE) && putval == TOMBSTONE ) chm._size.add(-1);
+      if(  (V == null || V == TOMBSTONE) && putval != TOMBSTONE ) chm.add_size( 1,fullhash);
+      if( !(V == null || V == TOMBSTONE) && putval == TOMBSTONE ) chm.add_size(-1,fullhash);
     }
 
     // We won; we know the update happened as expected.
@@ -716,9 +740,27 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
   // --- CHM -----------------------------------------------------------------
   // The control structure for the NonBlockingIdentityHashMap
   private static final class CHM<TypeK,TypeV> {
-    // Size in active K,V pairs
+    // Size in active K,V pairs, null when the size is not tracked
     private final ConcurrentAutoTable _size;
+    private final SizeTracking _size_tracking;
+    // Only valid when the size is tracked
     public int size () { return (int)_size.get(); }
+    // Unless the size is exact, count the live K,V pairs of this table for the
+    // resizing heuristics.  The used slots count the dead keys too, and would
+    // grow the table on every resize caused by key churn, and a sampled size
+    // is too noisy for small tables.  The walk is no more than the copy which
+    // follows.
+    private int live( Object[] kvs ) {
+      int live = 0;
+      for( int i=0; i<len(kvs); i++ ) {
+        final Object V = val(kvs,i);
+        if( V != null && V != TOMBSTONE && V != TOMBPRIME ) live++;
+      }
+      return live;
+    }
+    private void add_size( long delta, int fullhash ) {
+      if( _size != null ) _size_tracking.add(_size,delta,fullhash);
+    }
 
     // ---
     // These next 2 fields are used in the resizing heuristics, to judge when
@@ -769,8 +811,9 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
 
     // ---
     // Simple constructor
-    CHM( ConcurrentAutoTable size ) {
+    CHM( ConcurrentAutoTable size, SizeTracking size_tracking ) {
       _size = size;
+      _size_tracking = size_tracking;
       _slots= new ConcurrentAutoTable();
     }
 
@@ -807,7 +850,7 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
 
       // No copy in-progress, so start one.  First up: compute new table size.
       int oldlen = len(kvs);    // Old count of K,V pairs allowed
-      int sz = size();          // Get current table count of active K,V pairs
+      int sz = _size_tracking == SizeTracking.EXACT ? size() : live(kvs); // Get current table count of active K,V pairs
       int newsz = sz;           // First size estimate
 
       // Heuristic to determine new size.  We expect plenty of dead-slots-with-keys
@@ -867,7 +910,7 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
 
       // Double size for K,V pairs, add 1 for CHM
       newkvs = new Object[((1<<log2)<<1)+2]; // This can get expensive for big arrays
-      newkvs[0] = new CHM(_size); // CHM in slot 0
+      newkvs[0] = new CHM(_size,_size_tracking); // CHM in slot 0
       newkvs[1] = new int[1<<log2]; // hashes in slot 1
 
       // Another check after the slow allocation
@@ -1149,6 +1192,13 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
    *  @see #values()  */
   public Enumeration<TypeV> elements() { return new SnapshotV(); }
 
+  // Count the live K,V pairs with a walk over the table
+  private int count() {
+    int count = 0;
+    for( SnapshotV it = new SnapshotV(); it.hasNext(); it.next() ) count++;
+    return count;
+  }
+
   // --- values --------------------------------------------------------------
   /** Returns a {@link Collection} view of the values contained in this map.
    *  The collection is backed by the map, so changes to the map are reflected
@@ -1168,6 +1218,7 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
     return new AbstractCollection<TypeV>() {
       @Override public void    clear   (          ) {        NonBlockingIdentityHashMap.this.clear        ( ); }
       @Override public int     size    (          ) { return NonBlockingIdentityHashMap.this.size         ( ); }
+      @Override public boolean isEmpty (          ) { return NonBlockingIdentityHashMap.this.isEmpty      ( ); }
       @Override public boolean contains( Object v ) { return NonBlockingIdentityHashMap.this.containsValue(v); }
       @Override public Iterator<TypeV> iterator()   { return new SnapshotV(); }
     };
@@ -1207,6 +1258,7 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
     return new AbstractSet<TypeK> () {
       @Override public void    clear   (          ) {        NonBlockingIdentityHashMap.this.clear   ( ); }
       @Override public int     size    (          ) { return NonBlockingIdentityHashMap.this.size    ( ); }
+      @Override public boolean isEmpty (          ) { return NonBlockingIdentityHashMap.this.isEmpty    ( ); }
       @Override public boolean contains( Object k ) { return NonBlockingIdentityHashMap.this.containsKey(k); }
       @Override public boolean remove  ( Object k ) { return NonBlockingIdentityHashMap.this.remove  (k) != null; }
       @Override public Iterator<TypeK> iterator()   { return new SnapshotK(); }
@@ -1263,6 +1315,7 @@ public class NonBlockingIdentityHashMap<TypeK, TypeV>
     return new AbstractSet<Map.Entry<TypeK,TypeV>>() {
       @Override public void    clear   (          ) {        NonBlockingIdentityHashMap.this.clear( ); }
       @Override public int     size    (          ) { return NonBlockingIdentityHashMap.this.size ( ); }
+      @Override public boolean isEmpty (          ) { return NonBlockingIdentityHashMap.this.isEmpty ( ); }
       @Override public boolean remove( final Object o ) {
         if( !(o instanceof Map.Entry)) return false;
         final Map.Entry<?,?> e = (Map.Entry<?,?>)o;
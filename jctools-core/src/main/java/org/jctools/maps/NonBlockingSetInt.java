@@ -138,43 +138,157 @@ public class NonBlockingSetInt extends AbstractSet<Integer> implements Serializa
       ;
   }
 
+  /**
+   * Add all of {@code values} to the set.  Runs of values falling in the
+   * same 64-bit word (e.g. sorted, dense ids) are added with a single CAS.
+   * @throws IllegalArgumentException if a value is negative, the values
+   * before it have been added.
+   * @return <tt>true</tt> if any value was added to the set.
+   */
+  public boolean addAll( final int[] values ) {
+    boolean changed = false;
+    int i = 0;
+    while( i < values.length ) {
+      final int w = RangeUtil.checkPositiveOrZero(values[i], "value")>>6;
+      long mask = 0;
+      // Gather the run of values in word w
+      do {
+        final int v = RangeUtil.checkPositiveOrZero(values[i], "value");
+        if( (v>>6) != w ) break;
+        mask |= 1L<<(v&63);
+      } while( ++i < values.length );
+      if( _nbsi.add_word(w, mask) ) changed = true;
+    }
+    return changed;
+  }
+
+  /**
+   * Test if all of {@code values} are in the set.  Each 64-bit word of the
+   * bit-vector is read once for a run of values falling in it.
+   * @return <tt>true</tt> if all of the values are in the set.
+   */
+  public boolean containsAll( final int[] values ) {
+    final NBSI nbsi = _nbsi;
+    int w = -1;
+    long bits = 0;
+    for( int v : values ) {
+      if( v < 0 ) return false;
+      if( (v>>6) != w ) bits = nbsi.word(w = v>>6);
+      if( (bits & (1L<<(v&63))) == 0 ) return false;
+    }
+    return true;
+  }
+
+  /**
+   * The smallest element of the set which is at least {@code from}, found a
+   * 64-bit word at a time.
+   * @return the next element, or -1 if there is none.
+   */
+  public int nextSetBit( final int from ) {
+    RangeUtil.checkPositiveOrZero(from, "from");
+    final NBSI nbsi = _nbsi;
+    final int words = nbsi.words();
+    int w = from>>6;
+    if( w >= words ) return -1;
+    long bits = nbsi.word(w) & (-1L<<(from&63));
+    while( bits == 0 ) {
+      if( ++w >= words ) return -1;
+      bits = nbsi.word(w);
+    }
+    return (w<<6) + Long.numberOfTrailingZeros(bits);
+  }
+
+  /**
+   * Count of elements in the set, counted with a walk over the bit-vector
+   * rather than read from the {@link #size} counter.  The count is exact
+   * when the set is not concurrently updated.
+   * @return count of elements.
+   */
+  public int cardinality() {
+    final NBSI nbsi = _nbsi;
+    final int words = nbsi.words();
+    int count = 0;
+    for( int w=0; w<words; w++ )
+      count += Long.bitCount(nbsi.word(w));
+    return count;
+  }
+
+  /** An element visitor, no autoboxing. */
+  public interface IntConsumer {
+    void accept( int i );
+  }
+
+  /**
+   * Visit the elements of the set in ascending order, a 64-bit word at a
+   * time, without autoboxing.  Each word of the bit-vector, as sized when
+   * the walk starts, is read once: a concurrent add or remove is seen if it
+   * landed before its word was read.
+   */
+  public void forEach( final IntConsumer c ) {
+    final NBSI nbsi = _nbsi;
+    final int words = nbsi.words();
+    for( int w=0; w<words; w++ ) {
+      long bits = nbsi.word(w);
+      while( bits != 0 ) {
+        c.accept((w<<6) + Long.numberOfTrailingZeros(bits));
+        bits &= bits-1;         // Clear the lowest set bit
+      }
+    }
+  }
+
+  /**
+   * A snapshot of the union of this set and {@code other}, as a bitmap of
+   * 64 elements per word: element {@code i} is bit {@code i&63} of word
+   * {@code i>>6}, as in {@link java.util.BitSet#toLongArray}.
+   */
+  public long[] union( final NonBlockingSetInt other ) {
+    final NBSI a = _nbsi, b = other._nbsi;
+    final long[] words = new long[Math.max(a.words(), b.words())];
+    for( int w=0; w<words.length; w++ )
+      words[w] = a.word(w) | b.word(w);
+    return words;
+  }
+
+  /**
+   * A snapshot of the intersection of this set and {@code other}, as a
+   * bitmap of 64 elements per word laid out as in {@link #union}.
+   */
+  public long[] intersect( final NonBlockingSetInt other ) {
+    final NBSI a = _nbsi, b = other._nbsi;
+    final long[] words = new long[Math.min(a.words(), b.words())];
+    for( int w=0; w<words.length; w++ )
+      words[w] = a.word(w) & b.word(w);
+    return words;
+  }
+
   /** Verbose printout of internal structure for debugging. */
   public void print() { _nbsi.print(0); }
 
   /**
    * Standard Java {@link Iterator}.  Not very efficient because it
-   * auto-boxes the returned values.
+   * auto-boxes the returned values, prefer {@link #forEach(IntConsumer)}.
    */
   public Iterator<Integer> iterator( ) { return new iter(); }
 
   private class iter implements Iterator<Integer> {
-    NBSI _nbsi2;
     int _idx  = -1;
     int _prev = -1;
-    iter() { _nbsi2 = _nbsi; advance(); }
+    iter() { advance(); }
     public boolean hasNext() { return _idx != -2; }
     private void advance() {
-      while( true ) {
-        _idx++;                 // Next index
-        while( (_idx>>6) >= _nbsi2._bits.length ) { // Index out of range?
-          if( _nbsi2._new == null ) { // New table?
-            _idx = -2;          // No, so must be all done
-            return;             //
-          }
-          _nbsi2 = _nbsi2._new; // Carry on, in the new table
-        }
-        if( _nbsi2.contains(_idx) ) return;
-      }
+      // Skip over the clear bits a word at a time
+      final int next = _idx == Integer.MAX_VALUE ? -1 : nextSetBit(_idx+1);
+      _idx = next == -1 ? -2 : next;
     }
     public Integer next() {
-      if( _idx == -1 ) throw new NoSuchElementException();
+      if( _idx == -2 ) throw new NoSuchElementException();
       _prev = _idx;
       advance();
       return _prev;
     }
     public void remove() {
       if( _prev == -1 ) throw new IllegalStateException();
-      _nbsi2.remove(_prev);
+      NonBlockingSetInt.this.remove(_prev);
       _prev = -1;
     }
   }
@@ -339,6 +453,50 @@ public class NonBlockingSetInt extends AbstractSet<Integer> implements Serializa
 
     public int size() { return (int)_size.get(); }
 
+    // Add the elements of word w set in mask (bit k for element (w<<6)+k).
+    // One CAS for the bits held in this array, the 64th element is added to
+    // the nested array on its own.  'w' is known positive.
+    public boolean add_word( final int w, final long mask ) {
+      if( w >= _bits.length )
+        return install_larger_new_bits((w<<6)|63). // Install larger pile-o-bits
+          help_copy().add_word(w,mask);            // Finally, add to the new table
+
+      boolean added = false;
+      if( (mask & mask(63)) != 0 && add((w<<6)|63) ) added = true;
+      final long bits = mask & ~mask(63);
+      if( bits == 0 ) return added;
+      long old;
+      do {
+        old = _bits[w];         // Read old bits
+        if( old < 0 )           // Not mutable?
+          // Not mutable: finish copy of word, and retry on copied word
+          return help_copy_impl(w<<6).help_copy().add_word(w,bits) | added;
+        if( (old | bits) == old ) return added; // All bits already set?
+      } while( !CAS( w, old, old | bits ) );
+      _size.add(Long.bitCount(bits & ~old));
+      return true;
+    }
+
+    // The elements (w<<6) to (w<<6)+63 as the bits of a word, the 64th one
+    // read from the nested array.  'w' is known positive.
+    public long word( final int w ) {
+      if( w >= _bits.length )   // Out of bounds?  Not in this array!
+        return _new == null ? 0 : help_copy().word(w);
+      final long bits = _bits[w]; // Read old bits
+      if( bits < 0 )            // Not mutable?
+        // Not mutable: finish copy of word, and retry on copied word
+        return help_copy_impl(w<<6).help_copy().word(w);
+      return contains((w<<6)|63) ? bits | mask(63) : bits;
+    }
+
+    // Count of words in the newest table; elements past them are not in the
+    // set (yet).
+    public int words() {
+      NBSI nbsi = this;
+      while( nbsi._new != null ) nbsi = nbsi._new;
+      return nbsi._bits.length;
+    }
+
     // Must grow the current array to hold an element of size i
     private NBSI install_larger_new_bits( final int i ) {
       if( _new == null ) {
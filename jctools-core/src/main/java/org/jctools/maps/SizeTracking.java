@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.maps;
+
+/**
+ * How a non-blocking map keeps track of its size.  Counting the live K,V
+ * pairs costs a striped counter update on every insert and remove, which
+ * maps that never (or rarely) call {@code size()} can skip.
+ * <p>
+ * The count of used key slots, which drives the resizing heuristics, is
+ * always kept.
+ */
+public enum SizeTracking {
+  /** Count every insert and remove in a {@link ConcurrentAutoTable}.  The
+   *  default, {@code size()} is as exact as the racing updates allow. */
+  EXACT(0),
+  /** Only count the keys whose hash falls in a 1/16 sample, each for 16
+   *  keys.  A key is either always or never sampled, so the count does not
+   *  drift, but {@code size()} is an estimate: precise enough for large
+   *  maps, useless for small ones.  {@code isEmpty()} walks the table up to
+   *  the first live key instead. */
+  SAMPLED(4),
+  /** Do not count.  {@code size()} walks the table, at a cost proportional
+   *  to its capacity, {@code isEmpty()} stops at the first live key. */
+  DISABLED(-1);
+
+  // log2 of the sampling rate, 0 when every key is counted
+  private final int _sample_bits;
+
+  SizeTracking( int sample_bits ) { _sample_bits = sample_bits; }
+
+  // A counter for a new map, or null when the size is not tracked
+  final ConcurrentAutoTable new_counter() {
+    return _sample_bits < 0 ? null : new ConcurrentAutoTable();
+  }
+
+  // Count an insert (+1) or a remove (-1) of a key with the given hash
+  final void add( final ConcurrentAutoTable size, final long delta, final int hash ) {
+    final int bits = _sample_bits;
+    if( bits == 0 ) {
+      size.add(delta);
+    } else if( bits > 0 &&
+               // Sample on the high bits of a Fibonacci hash, so keys with
+               // poorly spread hashes (e.g. small Integers) are still sampled
+               ((hash*0x9E3779B9)>>>(32-bits)) == 0 ) {
+      size.add(delta<<bits);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+/**
+ * Base class for the elements of an {@link MpscIntrusiveLinkedQueue}. The element carries the link to the next element
+ * in the queue, so offering it does not allocate a node.
+ * <p>
+ * An element can only be in one intrusive queue at a time, and can only be offered again after it was polled (or
+ * drained) out of the queue it is in. The link is managed by the queue and is not visible to subclasses.
+ */
+public abstract class IntrusiveLinkedQueueNode
+{
+    private final static long NEXT_OFFSET = fieldOffset(IntrusiveLinkedQueueNode.class, "next");
+
+    private volatile IntrusiveLinkedQueueNode next;
+
+    final void soNext(IntrusiveLinkedQueueNode n)
+    {
+        UNSAFE.putOrderedObject(this, NEXT_OFFSET, n);
+    }
+
+    final void spNext(IntrusiveLinkedQueueNode n)
+    {
+        UNSAFE.putObject(this, NEXT_OFFSET, n);
+    }
+
+    final IntrusiveLinkedQueueNode lvNext()
+    {
+        return next;
+    }
+}
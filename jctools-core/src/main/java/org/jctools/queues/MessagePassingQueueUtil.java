@@ -78,6 +78,27 @@ public final class MessagePassingQueueUtil
         }
     }
 
+    public static <E> void drainInBatches(MessagePassingQueue<E> q, Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (null == wait)
+            throw new IllegalArgumentException("wait is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
+
+        int idleCounter = 0;
+        while (exit.keepRunning())
+        {
+            if (q.drain(c, PortableJvmInfo.RECOMENDED_POLL_BATCH) == 0)
+            {
+                idleCounter = wait.idle(idleCounter);
+                continue;
+            }
+            idleCounter = 0;
+        }
+    }
+
     public static <E> void fill(MessagePassingQueue<E> q, Supplier<E> s, WaitStrategy wait, ExitCondition exit)
     {
         if (null == wait)
@@ -221,12 +221,14 @@ abstract class MpUnboundedXaddArrayQueue<R extends MpUnboundedXaddChunk<R,E>, E>
     final int chunkShift;
     final int maxPooledChunks;
     final SpscArrayQueue<R> freeChunksPool;
+    final SharedChunkPool sharedChunkPool;
 
     /**
      * @param chunkSize The buffer size to be used in each chunk of this queue
      * @param maxPooledChunks The maximum number of reused chunks kept around to avoid allocation, chunks are pre-allocated
+     * @param sharedChunkPool The pool to borrow chunk buffers from when no reused chunk is available, may be null
      */
-    MpUnboundedXaddArrayQueue(int chunkSize, int maxPooledChunks)
+    MpUnboundedXaddArrayQueue(int chunkSize, int maxPooledChunks, SharedChunkPool sharedChunkPool)
     {
         if (!UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG)
         {
@@ -241,8 +243,9 @@ abstract class MpUnboundedXaddArrayQueue<R extends MpUnboundedXaddChunk<R,E>, E>
         this.chunkMask = chunkSize - 1;
         this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
         freeChunksPool = new SpscArrayQueue<R>(maxPooledChunks);
+        this.sharedChunkPool = sharedChunkPool;
 
-        final R first = newChunk(0, null, chunkSize, maxPooledChunks > 0);
+        final R first = maxPooledChunks > 0 ? newChunk(0, null, chunkSize, true) : newUnpooledChunk(0, null);
         soProducerChunk(first);
         soProducerChunkIndex(0);
         soConsumerChunk(first);
@@ -263,8 +266,15 @@ abstract class MpUnboundedXaddArrayQueue<R extends MpUnboundedXaddChunk<R,E>, E>
         return maxPooledChunks;
     }
 
+    public final SharedChunkPool sharedChunkPool()
+    {
+        return sharedChunkPool;
+    }
+
     abstract R newChunk(long index, R prev, int chunkSize, boolean pooled);
 
+    abstract R newChunk(long index, R prev, E[] buffer);
+
     @Override
     public long currentProducerIndex()
     {
@@ -373,11 +383,26 @@ abstract class MpUnboundedXaddArrayQueue<R extends MpUnboundedXaddChunk<R,E>, E>
         }
         else
         {
-            newChunk = newChunk(nextChunkIndex, prevChunk, chunkMask + 1, false);
+            newChunk = newUnpooledChunk(nextChunkIndex, prevChunk);
         }
         return newChunk;
     }
 
+    @SuppressWarnings("unchecked")
+    private R newUnpooledChunk(long index, R prev)
+    {
+        final SharedChunkPool sharedChunkPool = this.sharedChunkPool;
+        if (sharedChunkPool != null)
+        {
+            final Object[] buffer = sharedChunkPool.acquire(chunkMask + 1);
+            if (buffer != null)
+            {
+                return newChunk(index, prev, (E[]) buffer);
+            }
+        }
+        return newChunk(index, prev, chunkMask + 1, false);
+    }
+
 
     /**
      * Does not null out the first element of `next`, callers must do that
@@ -394,6 +419,11 @@ abstract class MpUnboundedXaddArrayQueue<R extends MpUnboundedXaddChunk<R,E>, E>
             assert pooled;
         }
         this.soConsumerChunk(next);
+        if (!cChunk.isPooled() && sharedChunkPool != null)
+        {
+            // late consumers may still clear slots of cChunk, the pool rejects the buffer if they have not yet
+            sharedChunkPool.release(cChunk.buffer());
+        }
         // MC case:
         // from now on the code is not single-threaded anymore and
         // other consumers can move forward consumerIndex
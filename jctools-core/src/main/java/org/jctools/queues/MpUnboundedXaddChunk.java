@@ -1,6 +1,7 @@
 package org.jctools.queues;
 
 import org.jctools.util.InternalAPI;
+import org.jctools.util.UnsafeRefArrayAccess;
 
 import static org.jctools.util.UnsafeAccess.UNSAFE;
 import static org.jctools.util.UnsafeAccess.fieldOffset;
@@ -23,13 +24,31 @@ public class MpUnboundedXaddChunk<R,E>
     private volatile R next;
     protected MpUnboundedXaddChunk(long index, R prev, int size, boolean pooled)
     {
-        buffer = allocateRefArray(size);
+        this(index, prev, UnsafeRefArrayAccess.<E>allocateRefArray(size), pooled);
+    }
+
+    /**
+     * An unpooled chunk over a buffer borrowed from a {@link SharedChunkPool}, all the buffer slots must be null.
+     */
+    protected MpUnboundedXaddChunk(long index, R prev, E[] buffer)
+    {
+        this(index, prev, buffer, false);
+    }
+
+    private MpUnboundedXaddChunk(long index, R prev, E[] buffer, boolean pooled)
+    {
+        this.buffer = buffer;
         // next is null
         soPrev(prev);
         spIndex(index);
         this.pooled = pooled;
     }
 
+    final E[] buffer()
+    {
+        return buffer;
+    }
+
     public final boolean isPooled()
     {
         return pooled;
@@ -406,6 +406,12 @@ public class MpmcArrayQueue<E> extends MpmcArrayQueueL3Pad<E>
         while (true);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Consumer slots are claimed in batches: the sequence array is scanned for a run of ready slots, up to the look
+     * ahead step, and the whole run is claimed with a single consumer index CAS.
+     */
     @Override
     public int drain(Consumer<E> c, int limit)
     {
@@ -427,77 +433,53 @@ public class MpmcArrayQueue<E> extends MpmcArrayQueueL3Pad<E>
             final int remaining = limit - consumed;
             final int lookAheadStep = Math.min(remaining, maxLookAheadStep);
             final long cIndex = lvConsumerIndex();
-            final long lookAheadIndex = cIndex + lookAheadStep - 1;
-            final long lookAheadSeqOffset = calcCircularLongElementOffset(lookAheadIndex, mask);
-            final long lookAheadSeq = lvLongElement(sBuffer, lookAheadSeqOffset);
-            final long expectedLookAheadSeq = lookAheadIndex + 1;
-            if (lookAheadSeq == expectedLookAheadSeq && casConsumerIndex(cIndex, expectedLookAheadSeq))
+            final int batch = readySlots(cIndex, lookAheadStep, mask, sBuffer);
+            if (batch == 0)
             {
-                for (int i = 0; i < lookAheadStep; i++)
+                if (notAvailable(cIndex, mask, sBuffer, cIndex + 1))
                 {
-                    final long index = cIndex + i;
-                    final long seqOffset = calcCircularLongElementOffset(index, mask);
-                    final long offset = calcCircularRefElementOffset(index, mask);
-                    final long expectedSeq = index + 1;
-                    while (lvLongElement(sBuffer, seqOffset) != expectedSeq)
-                    {
-
-                    }
-                    final E e = lpRefElement(buffer, offset);
-                    spRefElement(buffer, offset, null);
-                    soLongElement(sBuffer, seqOffset, index + mask + 1);
-                    c.accept(e);
+                    // empty, or the next producer has not published yet
+                    return consumed;
                 }
-                consumed += lookAheadStep;
+                // another consumer beat us to it
+                continue;
             }
-            else
+            if (!casConsumerIndex(cIndex, cIndex + batch))
             {
-                if (lookAheadSeq < expectedLookAheadSeq)
-                {
-                    if (notAvailable(cIndex, mask, sBuffer, cIndex + 1))
-                    {
-                        return consumed;
-                    }
-                }
-                return consumed + drainOneByOne(c, remaining);
+                continue;
             }
+            // the claimed slots were all seen ready, no need to wait on the producers
+            for (int i = 0; i < batch; i++)
+            {
+                final long index = cIndex + i;
+                final long offset = calcCircularRefElementOffset(index, mask);
+                final E e = lpRefElement(buffer, offset);
+                spRefElement(buffer, offset, null);
+                soLongElement(sBuffer, calcCircularLongElementOffset(index, mask), index + mask + 1);
+                c.accept(e);
+            }
+            consumed += batch;
         }
         return limit;
     }
 
-    private int drainOneByOne(Consumer<E> c, int limit)
+    /**
+     * @return the number of consecutive slots from cIndex, up to max, which producers have published
+     */
+    private static int readySlots(long cIndex, int max, long mask, long[] sBuffer)
     {
-        final long[] sBuffer = sequenceBuffer;
-        final long mask = this.mask;
-        final E[] buffer = this.buffer;
-
-        long cIndex;
-        long seqOffset;
-        long seq;
-        long expectedSeq;
-        for (int i = 0; i < limit; i++)
+        // producers may publish out of order, so each slot is checked rather than just the last one
+        int ready = 0;
+        while (ready < max)
         {
-            do
+            final long index = cIndex + ready;
+            if (lvLongElement(sBuffer, calcCircularLongElementOffset(index, mask)) != index + 1)
             {
-                cIndex = lvConsumerIndex();
-                seqOffset = calcCircularLongElementOffset(cIndex, mask);
-                seq = lvLongElement(sBuffer, seqOffset);
-                expectedSeq = cIndex + 1;
-                if (seq < expectedSeq)
-                {
-                    return i;
-                }
+                break;
             }
-            while (seq > expectedSeq || // another consumer beat us to it
-                !casConsumerIndex(cIndex, cIndex + 1)); // failed the CAS
-
-            final long offset = calcCircularRefElementOffset(cIndex, mask);
-            final E e = lpRefElement(buffer, offset);
-            spRefElement(buffer, offset, null);
-            soLongElement(sBuffer, seqOffset, cIndex + mask + 1);
-            c.accept(e);
+            ready++;
         }
-        return limit;
+        return ready;
     }
 
     @Override
@@ -601,7 +583,7 @@ public class MpmcArrayQueue<E> extends MpmcArrayQueueL3Pad<E>
     @Override
     public int drain(Consumer<E> c)
     {
-        return MessagePassingQueueUtil.drain(this, c);
+        return drain(c, capacity());
     }
 
     @Override
@@ -613,7 +595,7 @@ public class MpmcArrayQueue<E> extends MpmcArrayQueueL3Pad<E>
     @Override
     public void drain(Consumer<E> c, WaitStrategy w, ExitCondition exit)
     {
-        MessagePassingQueueUtil.drain(this, c, w, exit);
+        MessagePassingQueueUtil.drainInBatches(this, c, w, exit);
     }
 
     @Override
@@ -0,0 +1,403 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.RangeUtil;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.jctools.util.PortableJvmInfo.CPUs;
+import static org.jctools.util.Pow2.roundToPowerOfTwo;
+
+abstract class MpmcMultiQueueL0Pad<E> extends AbstractQueue<E> implements MessagePassingQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MpmcMultiQueueColdFields<E> extends MpmcMultiQueueL0Pad<E>
+{
+    // must be power of 2
+    protected final int ringsMask;
+    protected final MpmcArrayQueue<E>[] rings;
+    protected final int stickiness;
+
+    @SuppressWarnings("unchecked")
+    MpmcMultiQueueColdFields(int capacity, int ringCount, int stickiness)
+    {
+        RangeUtil.checkPositive(ringCount, "ringCount");
+        RangeUtil.checkPositive(stickiness, "stickiness");
+        final int fullCapacity = roundToPowerOfTwo(capacity);
+        RangeUtil.checkGreaterThanOrEqual(fullCapacity, 2, "fullCapacity");
+        // each ring needs a capacity of 2 or more
+        final int ringCountPow2 = Math.min(roundToPowerOfTwo(ringCount), fullCapacity / 2);
+        ringsMask = ringCountPow2 - 1;
+        rings = new MpmcArrayQueue[ringCountPow2];
+        for (int i = 0; i < ringCountPow2; i++)
+        {
+            rings[i] = new MpmcArrayQueue<E>(fullCapacity / ringCountPow2);
+        }
+        this.stickiness = stickiness;
+    }
+}
+
+/**
+ * A relaxed MPMC queue in the style of the MultiQueue put forward by H. Rihani, P. Sanders and R. Dementiev (See <a
+ * href="https://arxiv.org/abs/1411.1209">here</a>), made of a set of {@link MpmcArrayQueue} rings:
+ * <ol>
+ * <li>Producers offer to a random ring.
+ * <li>Consumers pick 2 random rings and poll the one with the longer backlog. With the producers spread evenly, the
+ * longer ring holds the older elements, and choosing the longer of 2 keeps the rings balanced.
+ * <li>Each thread sticks to its chosen ring for {@code stickiness} operations before choosing again, which keeps the
+ * ring indexes in its cache.
+ * </ol>
+ * There is no single head or tail, so contention is spread across the rings, and the queue is not FIFO: the order is
+ * relaxed by the number of rings and the stickiness. Elements are FIFO per ring, so a thread peeking and then polling
+ * gets the same element as long as no other consumer polls in between.
+ * <p>
+ * An offer tries all rings before failing, so it only fails when all rings are full. A poll tries all rings before
+ * returning null.
+ * <p>
+ * The queue does not support iteration.
+ */
+public class MpmcMultiQueue<E> extends MpmcMultiQueueColdFields<E>
+{
+    public static final int DEFAULT_STICKINESS = 8;
+
+    private static final AtomicInteger PROBE_SEED = new AtomicInteger();
+
+    /**
+     * Per thread ring choices, in a thread local per queue so that choices made on one queue are not used on
+     * another.
+     */
+    static final class ThreadState
+    {
+        int probe;
+        int offerRing;
+        int offersLeft;
+        int pollRing;
+        int pollsLeft;
+
+        ThreadState()
+        {
+            // spread the initial probes, a probe of 0 would stick as xorshift of 0 is 0
+            probe = (PROBE_SEED.incrementAndGet() * 0x9E3779B9) | 1;
+        }
+
+        int nextRandom()
+        {
+            int probe = this.probe;
+            probe ^= probe << 13;
+            probe ^= probe >>> 17;
+            probe ^= probe << 5;
+            return this.probe = probe;
+        }
+    }
+
+    private final ThreadLocal<ThreadState> threadState = new ThreadLocal<ThreadState>()
+    {
+        @Override
+        protected ThreadState initialValue()
+        {
+            return new ThreadState();
+        }
+    };
+
+    /**
+     * A queue with 2 rings per CPU.
+     */
+    public MpmcMultiQueue(int capacity)
+    {
+        this(capacity, 2 * CPUs, DEFAULT_STICKINESS);
+    }
+
+    /**
+     * @param capacity the total capacity, rounded up to a power of 2 and split evenly between the rings
+     * @param ringCount the number of rings, rounded up to a power of 2 and capped so each ring holds 2 or more
+     *                  elements. More rings mean less contention and more relaxed ordering.
+     * @param stickiness the number of operations a thread performs on its chosen ring before choosing again
+     */
+    public MpmcMultiQueue(int capacity, int ringCount, int stickiness)
+    {
+        super(capacity, ringCount, stickiness);
+    }
+
+    public int ringCount()
+    {
+        return rings.length;
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        final ThreadState state = threadState.get();
+        final int ring = offerRing(state);
+        final MpmcArrayQueue<E>[] rings = this.rings;
+        if (rings[ring].offer(e))
+        {
+            return true;
+        }
+        // the ring is full, try the others and stay on the first one with room
+        for (int i = 1; i <= ringsMask; i++)
+        {
+            final int next = (ring + i) & ringsMask;
+            if (rings[next].offer(e))
+            {
+                state.offerRing = next;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int offerRing(ThreadState state)
+    {
+        if (--state.offersLeft < 0)
+        {
+            state.offerRing = state.nextRandom() & ringsMask;
+            state.offersLeft = stickiness - 1;
+        }
+        return state.offerRing;
+    }
+
+    /**
+     * Choose the ring with the longer backlog out of 2 random rings.
+     */
+    private int pollRing(ThreadState state)
+    {
+        if (--state.pollsLeft < 0)
+        {
+            final int random = state.nextRandom();
+            final int first = random & ringsMask;
+            final int second = (random >>> 16) & ringsMask;
+            state.pollRing = backlog(rings[first]) >= backlog(rings[second]) ? first : second;
+            state.pollsLeft = stickiness - 1;
+        }
+        return state.pollRing;
+    }
+
+    private static long backlog(MpmcArrayQueue<?> ring)
+    {
+        return ring.lvProducerIndex() - ring.lvConsumerIndex();
+    }
+
+    @Override
+    public E poll()
+    {
+        final ThreadState state = threadState.get();
+        final int ring = pollRing(state);
+        final MpmcArrayQueue<E>[] rings = this.rings;
+        E e = rings[ring].poll();
+        if (e != null)
+        {
+            return e;
+        }
+        // the chosen ring is empty, try the others and stay on the first one with elements
+        for (int i = 1; i <= ringsMask; i++)
+        {
+            final int next = (ring + i) & ringsMask;
+            e = rings[next].poll();
+            if (e != null)
+            {
+                state.pollRing = next;
+                state.pollsLeft = stickiness - 1;
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E peek()
+    {
+        final ThreadState state = threadState.get();
+        final int ring = pollRing(state);
+        // peek does not use up the stickiness, the following poll should go to the same ring
+        state.pollsLeft++;
+        final MpmcArrayQueue<E>[] rings = this.rings;
+        E e = rings[ring].peek();
+        if (e != null)
+        {
+            return e;
+        }
+        for (int i = 1; i <= ringsMask; i++)
+        {
+            final int next = (ring + i) & ringsMask;
+            e = rings[next].peek();
+            if (e != null)
+            {
+                state.pollRing = next;
+                state.pollsLeft = stickiness;
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        return offer(e);
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        return poll();
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        return peek();
+    }
+
+    @Override
+    public int size()
+    {
+        long size = 0;
+        for (MpmcArrayQueue<E> ring : rings)
+        {
+            size += ring.size();
+        }
+        return IndexedQueueSizeUtil.sanitizedSize(capacity(), size);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (MpmcArrayQueue<E> ring : rings)
+        {
+            if (!ring.isEmpty())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int capacity()
+    {
+        return rings.length * rings[0].capacity();
+    }
+
+    @Override
+    public void clear()
+    {
+        for (MpmcArrayQueue<E> ring : rings)
+        {
+            ring.clear();
+        }
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
+        final ThreadState state = threadState.get();
+        final int ring = pollRing(state);
+        final MpmcArrayQueue<E>[] rings = this.rings;
+        // a batch from a ring counts as one choice, the ring batch drain claims elements in bulk
+        int drained = rings[ring].drain(c, limit);
+        for (int i = 1; i <= ringsMask && drained < limit; i++)
+        {
+            drained += rings[(ring + i) & ringsMask].drain(c, limit - drained);
+        }
+        return drained;
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
+        final ThreadState state = threadState.get();
+        final int ring = offerRing(state);
+        final MpmcArrayQueue<E>[] rings = this.rings;
+        int filled = rings[ring].fill(s, limit);
+        for (int i = 1; i <= ringsMask && filled < limit; i++)
+        {
+            filled += rings[(ring + i) & ringsMask].fill(s, limit - filled);
+        }
+        return filled;
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drainInBatches(this, c, wait, exit);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+}
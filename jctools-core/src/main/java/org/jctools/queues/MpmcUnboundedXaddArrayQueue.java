@@ -34,7 +34,18 @@ public class MpmcUnboundedXaddArrayQueue<E> extends MpUnboundedXaddArrayQueue<Mp
      */
     public MpmcUnboundedXaddArrayQueue(int chunkSize, int maxPooledChunks)
     {
-        super(chunkSize, maxPooledChunks);
+        this(chunkSize, maxPooledChunks, null);
+    }
+
+    /**
+     * @param chunkSize The buffer size to be used in each chunk of this queue
+     * @param maxPooledChunks The maximum number of reused chunks kept around to avoid allocation, chunks are pre-allocated
+     * @param sharedChunkPool The pool, shared with other queues, to borrow chunk buffers from when no reused chunk is
+     * available and to return them to, may be null
+     */
+    public MpmcUnboundedXaddArrayQueue(int chunkSize, int maxPooledChunks, SharedChunkPool sharedChunkPool)
+    {
+        super(chunkSize, maxPooledChunks, sharedChunkPool);
     }
 
     public MpmcUnboundedXaddArrayQueue(int chunkSize)
@@ -48,6 +59,12 @@ public class MpmcUnboundedXaddArrayQueue<E> extends MpUnboundedXaddArrayQueue<Mp
         return new MpmcUnboundedXaddChunk(index, prev, chunkSize, pooled);
     }
 
+    @Override
+    final MpmcUnboundedXaddChunk<E> newChunk(long index, MpmcUnboundedXaddChunk<E> prev, E[] buffer)
+    {
+        return new MpmcUnboundedXaddChunk<E>(index, prev, buffer);
+    }
+
     @Override
     public boolean offer(E e)
     {
@@ -38,6 +38,12 @@ public final class MpmcUnboundedXaddChunk<E> extends MpUnboundedXaddChunk<MpmcUn
         }
     }
 
+    public MpmcUnboundedXaddChunk(long index, MpmcUnboundedXaddChunk<E> prev, E[] buffer)
+    {
+        super(index, prev, buffer);
+        sequence = null;
+    }
+
     public void soSequence(int index, long e)
     {
         assert isPooled();
@@ -0,0 +1,293 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+import org.jctools.util.UnsafeAccess;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+
+import static org.jctools.queues.XaddIndexRing.EMPTY;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+/**
+ * A bounded Multi-Producer-Multi-Consumer queue where both producers and consumers claim their position with an XADD
+ * (fetch-and-add) instead of a CAS loop, so contended threads do not retry on each other's index updates.<br>
+ * The algorithm is the SCQ queue put forward by R. Nikolaev (See <a href="https://arxiv.org/abs/1908.04511">here</a>).
+ * The elements live in a buffer of capacity slots and 2 {@link XaddIndexRing}s keep track of the slots: producers
+ * take a slot from the free ring, write the element and publish the slot to the allocated ring, consumers take a slot
+ * from the allocated ring, read and null the element and return the slot to the free ring. The queue is full when the
+ * free ring is empty and empty when the allocated ring is empty.
+ * <p>
+ * Tradeoffs to keep in mind:
+ * <ol>
+ * <li>Memory: each ring has 2 entries (longs) per element, so 4 longs per element on top of the elements buffer.
+ * <li>2 XADDs per operation: one on each ring, against a single CAS on the uncontended {@link MpmcArrayQueue}. This
+ * queue pays off when many producers and consumers contend, as on {@link MpmcArrayQueue} they fail and retry their
+ * CAS.
+ * <li>Power of 2 capacity: the capacity is the closest power of 2 larger or equal to the requested capacity.
+ * <li>Element order: elements are returned in the order their offers published them to the allocated ring, so
+ * concurrent offers may complete in a different order than they started.
+ * <li>{@link #isEmpty()}, {@link #size()} and {@link #peek()} are not plain reads of the indexes as on the other
+ * bounded queues. The ring positions between the head and the tail include positions claimed by offers which have not
+ * published their element yet, or gave up on the position. So these methods look for the first published element
+ * from the head, and that walk costs up to capacity entry reads when the queue holds only unfilled positions. In
+ * exchange a non empty queue always has an element for the next poll. {@link #peek()} also closes the unfilled
+ * positions it walks past, the offers racing for them move on to later positions, so {@link #peek()} is not a
+ * read-only operation.
+ * </ol>
+ */
+public class MpmcXaddArrayQueue<E> extends AbstractQueue<E> implements MessagePassingQueue<E>, QueueProgressIndicators
+{
+    private final E[] buffer;
+    private final XaddIndexRing freeSlots;
+    private final XaddIndexRing allocatedSlots;
+
+    public MpmcXaddArrayQueue(int capacity)
+    {
+        if (!UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG)
+        {
+            throw new IllegalStateException("Unsafe::getAndAddLong support (JDK 8+) is required for this queue to work");
+        }
+        RangeUtil.checkGreaterThanOrEqual(capacity, 2, "capacity");
+        final int actualCapacity = Pow2.roundToPowerOfTwo(capacity);
+        buffer = allocateRefArray(actualCapacity);
+        freeSlots = new XaddIndexRing(actualCapacity);
+        allocatedSlots = new XaddIndexRing(actualCapacity);
+        for (int i = 0; i < actualCapacity; i++)
+        {
+            freeSlots.offer(i);
+        }
+    }
+
+    @Override
+    public boolean offer(E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        final int slot = freeSlots.poll();
+        if (slot == EMPTY)
+        {
+            return false;
+        }
+        // the allocated ring XADD/CAS publishes the element
+        spRefElement(buffer, calcRefElementOffset(slot), e);
+        allocatedSlots.offer(slot);
+        return true;
+    }
+
+    @Override
+    public E poll()
+    {
+        final int slot = allocatedSlots.poll();
+        if (slot == EMPTY)
+        {
+            return null;
+        }
+        final E[] buffer = this.buffer;
+        final long offset = calcRefElementOffset(slot);
+        final E e = lpRefElement(buffer, offset);
+        // the free ring XADD/CAS publishes the null before the slot can be reused
+        spRefElement(buffer, offset, null);
+        freeSlots.offer(slot);
+        return e;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Positions before the first element which a concurrent offer has claimed, but not yet filled, are closed so the
+     * offer moves to a later position. This keeps a single consumer polling the element it peeked, at the cost of
+     * writing to the ring and of walking those positions, up to capacity of them.
+     */
+    @Override
+    public E peek()
+    {
+        final XaddIndexRing allocatedSlots = this.allocatedSlots;
+        while (true)
+        {
+            final long position = allocatedSlots.peekPosition();
+            if (position < 0)
+            {
+                return null;
+            }
+            final int slot = allocatedSlots.lvIndex(position);
+            if (slot != EMPTY)
+            {
+                final E e = lvRefElement(buffer, calcRefElementOffset(slot));
+                // the slot is only released after the head moves past the position, so e was not consumed
+                if (e != null && allocatedSlots.lvHead() <= position)
+                {
+                    return e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        return offer(e);
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        return poll();
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        return peek();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * An estimate from the head and tail of the allocated ring, which also count the positions offers claimed but did
+     * not fill. Only telling an empty queue from a non empty one may walk the ring, see {@link #isEmpty()}.
+     */
+    @Override
+    public int size()
+    {
+        if (allocatedSlots.isEmpty())
+        {
+            return 0;
+        }
+        // positions skipped by offers are counted until a poll moves past them
+        long after = allocatedSlots.lvHead();
+        long size;
+        while (true)
+        {
+            final long before = after;
+            final long tail = allocatedSlots.lvTail();
+            after = allocatedSlots.lvHead();
+            if (before == after)
+            {
+                size = tail - after;
+                break;
+            }
+        }
+        return Math.max(1, IndexedQueueSizeUtil.sanitizedSize(capacity(), size));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A single read of the head and tail when the queue is empty or its first position holds an element. Otherwise
+     * the positions claimed by offers which did not fill them are walked, up to capacity of them, to look for an
+     * element.
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return allocatedSlots.isEmpty();
+    }
+
+    @Override
+    public int capacity()
+    {
+        return buffer.length;
+    }
+
+    @Override
+    public long currentProducerIndex()
+    {
+        return allocatedSlots.lvTail();
+    }
+
+    @Override
+    public long currentConsumerIndex()
+    {
+        return allocatedSlots.lvHead();
+    }
+
+    @Override
+    public void clear()
+    {
+        while (poll() != null)
+        {
+            // if you stare into the void
+        }
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, c, limit);
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+        for (int i = 0; i < limit; i++)
+        {
+            final int slot = freeSlots.poll();
+            if (slot == EMPTY)
+            {
+                return i;
+            }
+            spRefElement(buffer, calcRefElementOffset(slot), s.get());
+            allocatedSlots.offer(slot);
+        }
+        return limit;
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+}
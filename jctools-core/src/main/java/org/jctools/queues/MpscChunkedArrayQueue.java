@@ -94,6 +94,13 @@ public class MpscChunkedArrayQueue<E> extends MpscChunkedArrayQueueColdProducerF
         return length(buffer);
     }
 
+    @Override
+    protected int getShrinkBufferSize(E[] buffer)
+    {
+        // fixed size chunks, never shrinks
+        return length(buffer);
+    }
+
     @Override
     protected long getCurrentBufferCapacity(long mask)
     {
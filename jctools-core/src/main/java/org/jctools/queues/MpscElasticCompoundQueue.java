@@ -0,0 +1,689 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.PortableJvmInfo;
+import org.jctools.util.RangeUtil;
+import org.jctools.util.UnsafeAccess;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.jctools.util.PortableJvmInfo.CPUs;
+import static org.jctools.util.Pow2.roundToPowerOfTwo;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+abstract class MpscElasticCompoundQueueL0Pad<E> extends AbstractQueue<E> implements MessagePassingQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MpscElasticCompoundQueueColdFields<E> extends MpscElasticCompoundQueueL0Pad<E>
+{
+    protected final MpscArrayQueue<E>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    MpscElasticCompoundQueueColdFields(int capacity, int maxStripes)
+    {
+        RangeUtil.checkPositive(maxStripes, "maxStripes");
+        final int stripeCount = roundToPowerOfTwo(maxStripes);
+        final int fullCapacity = roundToPowerOfTwo(capacity);
+        RangeUtil.checkGreaterThanOrEqual(fullCapacity, stripeCount * 2, "fullCapacity");
+        stripes = new MpscArrayQueue[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+        {
+            stripes[i] = new MpscArrayQueue<E>(fullCapacity / stripeCount);
+        }
+    }
+}
+
+abstract class MpscElasticCompoundQueueMidPad<E> extends MpscElasticCompoundQueueColdFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscElasticCompoundQueueMidPad(int capacity, int maxStripes)
+    {
+        super(capacity, maxStripes);
+    }
+}
+
+abstract class MpscElasticCompoundQueueStripesFields<E> extends MpscElasticCompoundQueueMidPad<E>
+{
+    private final static long ACTIVE_STRIPES_OFFSET =
+        fieldOffset(MpscElasticCompoundQueueStripesFields.class, "activeStripes");
+    private final static long USED_STRIPES_OFFSET =
+        fieldOffset(MpscElasticCompoundQueueStripesFields.class, "usedStripes");
+
+    // read on every offer, written on resize only
+    // the number of stripes producers are mapped to, a power of 2
+    private volatile int activeStripes = 1;
+    // the number of stripes which may hold elements, at least activeStripes
+    private volatile int usedStripes = 1;
+
+    MpscElasticCompoundQueueStripesFields(int capacity, int maxStripes)
+    {
+        super(capacity, maxStripes);
+    }
+
+    final int lvActiveStripes()
+    {
+        return activeStripes;
+    }
+
+    final boolean casActiveStripes(int expect, int newValue)
+    {
+        return UNSAFE.compareAndSwapInt(this, ACTIVE_STRIPES_OFFSET, expect, newValue);
+    }
+
+    final int lvUsedStripes()
+    {
+        return usedStripes;
+    }
+
+    final boolean casUsedStripes(int expect, int newValue)
+    {
+        return UNSAFE.compareAndSwapInt(this, USED_STRIPES_OFFSET, expect, newValue);
+    }
+}
+
+abstract class MpscElasticCompoundQueueL2Pad<E> extends MpscElasticCompoundQueueStripesFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscElasticCompoundQueueL2Pad(int capacity, int maxStripes)
+    {
+        super(capacity, maxStripes);
+    }
+}
+
+abstract class MpscElasticCompoundQueueContentionField<E> extends MpscElasticCompoundQueueL2Pad<E>
+{
+    private final static int CACHE_LINE_IN_LONGS = PortableJvmInfo.CACHE_LINE_SIZE / 8;
+    // the first count is a cache line past the array header
+    private final static long CONTENTION_ARRAY_BASE =
+        UNSAFE.arrayBaseOffset(long[].class) + PortableJvmInfo.CACHE_LINE_SIZE;
+    private final static int CONTENTION_ELEMENT_SHIFT =
+        Integer.numberOfTrailingZeros(PortableJvmInfo.CACHE_LINE_SIZE);
+
+    // failed CAS counts, one per stripe a cache line apart, written by the producers contending on that stripe only
+    private final long[] contention;
+
+    MpscElasticCompoundQueueContentionField(int capacity, int maxStripes)
+    {
+        super(capacity, maxStripes);
+        // padded on both ends
+        contention = new long[CACHE_LINE_IN_LONGS * (stripes.length + 2)];
+    }
+
+    private static long contentionOffset(int stripe)
+    {
+        return CONTENTION_ARRAY_BASE + ((long) stripe << CONTENTION_ELEMENT_SHIFT);
+    }
+
+    final long sumContention()
+    {
+        long sum = 0;
+        for (int i = 0; i < stripes.length; i++)
+        {
+            sum += UNSAFE.getLongVolatile(contention, contentionOffset(i));
+        }
+        return sum;
+    }
+
+    final void incrementContention(int stripe)
+    {
+        final long offset = contentionOffset(stripe);
+        if (UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG)
+        {
+            UNSAFE.getAndAddLong(contention, offset, 1);
+        }
+        else
+        {
+            long v;
+            do
+            {
+                v = UNSAFE.getLongVolatile(contention, offset);
+            }
+            while (!UNSAFE.compareAndSwapLong(contention, offset, v, v + 1));
+        }
+    }
+}
+
+abstract class MpscElasticCompoundQueueL3Pad<E> extends MpscElasticCompoundQueueContentionField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscElasticCompoundQueueL3Pad(int capacity, int maxStripes)
+    {
+        super(capacity, maxStripes);
+    }
+}
+
+abstract class MpscElasticCompoundQueueConsumerFields<E> extends MpscElasticCompoundQueueL3Pad<E>
+{
+    int consumerStripe;
+    int consumerOps;
+    long consumerLastContention;
+
+    MpscElasticCompoundQueueConsumerFields(int capacity, int maxStripes)
+    {
+        super(capacity, maxStripes);
+    }
+}
+
+/**
+ * An {@link MpscCompoundQueue} variant which adapts the number of stripes producers are spread over to the
+ * contention observed, much like {@link java.util.concurrent.atomic.LongAdder} adds cells:
+ * <ol>
+ * <li>The queue starts with a single active stripe, so an uncontended queue costs the consumer a single
+ * {@link MpscArrayQueue}.
+ * <li>A producer failing to claim a slot {@value #CAS_FAILURES_TO_GROW} times in a row within an offer doubles the
+ * active stripes (up to {@code maxStripes}) and moves to another stripe.
+ * <li>The consumer halves the active stripes when fewer than {@value #SHRINK_CONTENTION_THRESHOLD} failed claims
+ * were observed over its last {@value #ADAPT_WINDOW} operations. Retired stripes are still consumed until they are
+ * empty.
+ * </ol>
+ * The capacity is split evenly between {@code maxStripes} stripes. A producer which finds its stripe full offers to
+ * the others, so an offer only fails when all stripes are full, but a queue that fills up beyond its active stripes
+ * will have the consumer visit more stripes until they empty out.
+ * <p>
+ * Elements are FIFO per stripe, but not across stripes. The queue does not support iteration.
+ */
+public class MpscElasticCompoundQueue<E> extends MpscElasticCompoundQueueConsumerFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    static final int CAS_FAILURES_TO_GROW = 2;
+    static final int ADAPT_WINDOW = 4096;
+    static final int SHRINK_CONTENTION_THRESHOLD = 16;
+
+    private static final AtomicInteger PROBE_SEED = new AtomicInteger();
+    private static final ThreadLocal<int[]> PROBE = new ThreadLocal<int[]>()
+    {
+        @Override
+        protected int[] initialValue()
+        {
+            // spread the initial probes, a probe of 0 would stick as xorshift of 0 is 0
+            return new int[]{(PROBE_SEED.incrementAndGet() * 0x9E3779B9) | 1};
+        }
+    };
+
+    public MpscElasticCompoundQueue(int capacity)
+    {
+        this(capacity, CPUs);
+    }
+
+    /**
+     * @param capacity the total capacity, rounded up to a power of 2 and split evenly between the stripes
+     * @param maxStripes the maximum number of active stripes, rounded up to a power of 2
+     */
+    public MpscElasticCompoundQueue(int capacity, int maxStripes)
+    {
+        super(capacity, maxStripes);
+    }
+
+    /**
+     * @return the number of stripes producers are currently mapped to
+     */
+    public int activeStripes()
+    {
+        return lvActiveStripes();
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        final int[] probe = PROBE.get();
+        int failures = 0;
+        while (true)
+        {
+            final int activeStripes = lvActiveStripes();
+            final int stripe = probe[0] & (activeStripes - 1);
+            final int status = stripes[stripe].failFastOffer(e);
+            if (status == 0)
+            {
+                checkUsedStripes(stripe);
+                return true;
+            }
+            else if (status < 0)
+            {
+                // lost the CAS to another producer
+                incrementContention(stripe);
+                if (++failures == CAS_FAILURES_TO_GROW)
+                {
+                    failures = 0;
+                    grow(activeStripes);
+                    probe[0] = advanceProbe(probe[0]);
+                }
+            }
+            else
+            {
+                return slowOffer(stripes, stripe + 1, e);
+            }
+        }
+    }
+
+    private boolean slowOffer(MpscArrayQueue<E>[] stripes, int start, E e)
+    {
+        final int stripeCount = stripes.length;
+        final int stripesMask = stripeCount - 1;
+        final int end = start + stripeCount;
+        while (true)
+        {
+            int status = 0;
+            for (int i = start; i < end; i++)
+            {
+                final int stripe = i & stripesMask;
+                final int s = stripes[stripe].failFastOffer(e);
+                if (s == 0)
+                {
+                    checkUsedStripes(stripe);
+                    return true;
+                }
+                status += s;
+            }
+            if (status == stripeCount)
+            {
+                return false;
+            }
+        }
+    }
+
+    private void grow(int activeStripes)
+    {
+        final int newActiveStripes = activeStripes << 1;
+        if (newActiveStripes > stripes.length)
+        {
+            return;
+        }
+        // the consumer must visit the new stripes before any producer is mapped to them
+        raiseUsedStripes(newActiveStripes);
+        casActiveStripes(activeStripes, newActiveStripes);
+    }
+
+    /**
+     * Called after an element is added to a stripe. The consumer may concurrently retire the stripe, it checks the
+     * retired stripes are empty after lowering the used stripes, so either it finds the element or we find the stripe
+     * is retired and restore it.
+     */
+    private void checkUsedStripes(int stripe)
+    {
+        if (stripe >= lvUsedStripes())
+        {
+            raiseUsedStripes(stripe + 1);
+        }
+    }
+
+    private void raiseUsedStripes(int newUsedStripes)
+    {
+        int usedStripes;
+        while ((usedStripes = lvUsedStripes()) < newUsedStripes)
+        {
+            if (casUsedStripes(usedStripes, newUsedStripes))
+            {
+                return;
+            }
+        }
+    }
+
+    private static int advanceProbe(int probe)
+    {
+        probe ^= probe << 13;
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        return probe;
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        return offer(e);
+    }
+
+    @Override
+    public E poll()
+    {
+        return poll(false);
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        return poll(true);
+    }
+
+    private E poll(boolean relaxed)
+    {
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        final int usedStripes = lvUsedStripes();
+        int stripe = consumerStripe;
+        E e = null;
+        for (int i = 0; i < usedStripes; i++)
+        {
+            if (stripe >= usedStripes)
+            {
+                stripe = 0;
+            }
+            final MpscArrayQueue<E> q = stripes[stripe];
+            e = relaxed ? q.relaxedPoll() : q.poll();
+            if (e != null)
+            {
+                break;
+            }
+            stripe++;
+        }
+        consumerStripe = stripe;
+        onConsumerOps(1);
+        return e;
+    }
+
+    @Override
+    public E peek()
+    {
+        return peek(false);
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        return peek(true);
+    }
+
+    private E peek(boolean relaxed)
+    {
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        final int usedStripes = lvUsedStripes();
+        int stripe = consumerStripe;
+        E e = null;
+        for (int i = 0; i < usedStripes; i++)
+        {
+            if (stripe >= usedStripes)
+            {
+                stripe = 0;
+            }
+            final MpscArrayQueue<E> q = stripes[stripe];
+            e = relaxed ? q.relaxedPeek() : q.peek();
+            if (e != null)
+            {
+                break;
+            }
+            stripe++;
+        }
+        consumerStripe = stripe;
+        return e;
+    }
+
+    private void onConsumerOps(int ops)
+    {
+        consumerOps += ops;
+        if (consumerOps >= ADAPT_WINDOW)
+        {
+            consumerOps = 0;
+            adapt();
+        }
+    }
+
+    /**
+     * Consumer thread only. Shrink the active stripes if contention subsided and retire unused stripes once empty.
+     */
+    private void adapt()
+    {
+        final long contention = sumContention();
+        final long windowContention = contention - consumerLastContention;
+        consumerLastContention = contention;
+        final int activeStripes = lvActiveStripes();
+        if (windowContention < SHRINK_CONTENTION_THRESHOLD && activeStripes > 1)
+        {
+            // may fail if a producer is growing, in which case we don't want to shrink anyway
+            casActiveStripes(activeStripes, activeStripes >> 1);
+        }
+        retireStripes();
+    }
+
+    private void retireStripes()
+    {
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        final int usedStripes = lvUsedStripes();
+        final int activeStripes = lvActiveStripes();
+        int newUsedStripes = usedStripes;
+        while (newUsedStripes > activeStripes && stripes[newUsedStripes - 1].isEmpty())
+        {
+            newUsedStripes--;
+        }
+        if (newUsedStripes == usedStripes || !casUsedStripes(usedStripes, newUsedStripes))
+        {
+            return;
+        }
+        // a producer may have added to a retired stripe before noticing it is retired, see checkUsedStripes
+        for (int i = newUsedStripes; i < usedStripes; i++)
+        {
+            if (!stripes[i].isEmpty())
+            {
+                raiseUsedStripes(i + 1);
+            }
+        }
+        // a producer may have grown the active stripes after we read them
+        raiseUsedStripes(lvActiveStripes());
+    }
+
+    @Override
+    public int size()
+    {
+        int size = 0;
+        for (MpscArrayQueue<E> stripe : stripes)
+        {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (MpscArrayQueue<E> stripe : stripes)
+        {
+            if (!stripe.isEmpty())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int capacity()
+    {
+        return stripes.length * stripes[0].capacity();
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        final int usedStripes = lvUsedStripes();
+        int stripe = consumerStripe;
+        int drained = 0;
+        for (int i = 0; i < usedStripes && drained < limit; i++)
+        {
+            if (stripe >= usedStripes)
+            {
+                stripe = 0;
+            }
+            drained += stripes[stripe].drain(c, limit - drained);
+            if (drained < limit)
+            {
+                stripe++;
+            }
+        }
+        consumerStripe = stripe;
+        onConsumerOps(Math.max(drained, 1));
+        return drained;
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        final int stripesMask = stripes.length - 1;
+        final int start = PROBE.get()[0] & (lvActiveStripes() - 1);
+        int filled = 0;
+        for (int i = start; i <= start + stripesMask; i++)
+        {
+            final int stripe = i & stripesMask;
+            final int stripeFilled = stripes[stripe].fill(s, limit - filled);
+            if (stripeFilled != 0)
+            {
+                checkUsedStripes(stripe);
+                filled += stripeFilled;
+                if (filled == limit)
+                {
+                    return limit;
+                }
+            }
+        }
+        return filled;
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+}
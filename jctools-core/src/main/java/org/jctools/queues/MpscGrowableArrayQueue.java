@@ -27,10 +27,19 @@ import static org.jctools.queues.LinkedArrayQueueUtil.length;
  */
 public class MpscGrowableArrayQueue<E> extends MpscChunkedArrayQueue<E>
 {
+    private final long initialMask;
+    // half the initial capacity, * 2 like the indexes
+    private final long shrinkWatermark;
+    private final long shrinkAfter;
+    // where the queue size last went over the watermark: written by racing producers on the slow path, so the
+    // shrink decision is a heuristic, volatile only so the long can not tear
+    private volatile long lowSinceIndex;
+    // the buffer mask lowSinceIndex was last restarted on, a resize or shrink starts the period over
+    private volatile long lowSinceMask;
 
     public MpscGrowableArrayQueue(int maxCapacity)
     {
-        super(Math.max(2, Pow2.roundToPowerOfTwo(maxCapacity / 8)), maxCapacity);
+        this(Math.max(2, Pow2.roundToPowerOfTwo(maxCapacity / 8)), maxCapacity);
     }
 
     /**
@@ -41,8 +50,31 @@ public class MpscGrowableArrayQueue<E> extends MpscChunkedArrayQueue<E>
      *                        power of 2 than initialCapacity.
      */
     public MpscGrowableArrayQueue(int initialCapacity, int maxCapacity)
+    {
+        this(initialCapacity, maxCapacity, 0);
+    }
+
+    /**
+     * A queue which moves back to a buffer of the initial capacity once its size has stayed below half the initial
+     * capacity for <i>shrinkAfter</i> offers. The size is sampled on the producer slow path, roughly once per lap of
+     * the current buffer, and the consumer follows the producers to the smaller buffer as it does on resize.
+     *
+     * @param initialCapacity the queue initial capacity, also the capacity the queue shrinks back to.
+     *                        Must be 2 or more.
+     * @param maxCapacity     the maximum capacity will be rounded up to the closest power of 2 and will be the
+     *                        upper limit of number of elements in this queue. Must be 4 or more and round up to a larger
+     *                        power of 2 than initialCapacity.
+     * @param shrinkAfter     the number of offers the queue size must stay below the watermark before shrinking,
+     *                        0 to never shrink
+     */
+    public MpscGrowableArrayQueue(int initialCapacity, int maxCapacity, int shrinkAfter)
     {
         super(initialCapacity, maxCapacity);
+        RangeUtil.checkPositiveOrZero(shrinkAfter, "shrinkAfter");
+        int p2capacity = Pow2.roundToPowerOfTwo(initialCapacity);
+        initialMask = (p2capacity - 1) << 1;
+        shrinkWatermark = p2capacity;
+        this.shrinkAfter = ((long) shrinkAfter) << 1;
     }
 
 
@@ -55,6 +87,34 @@ public class MpscGrowableArrayQueue<E> extends MpscChunkedArrayQueue<E>
         return newSize + 1;
     }
 
+    @Override
+    protected boolean shouldShrink(long mask, long pIndex, long cIndex)
+    {
+        if (shrinkAfter == 0 || mask <= initialMask)
+        {
+            return false;
+        }
+        // a new buffer means the queue was full (grown) or low (shrunk), either way the period starts over
+        if (mask != lowSinceMask)
+        {
+            lowSinceMask = mask;
+            lowSinceIndex = pIndex;
+            return false;
+        }
+        if (pIndex - cIndex >= shrinkWatermark)
+        {
+            lowSinceIndex = pIndex;
+            return false;
+        }
+        return pIndex - lowSinceIndex >= shrinkAfter;
+    }
+
+    @Override
+    protected int getShrinkBufferSize(E[] buffer)
+    {
+        return (int) (initialMask >> 1) + 2;
+    }
+
     @Override
     protected long getCurrentBufferCapacity(long mask)
     {
@@ -0,0 +1,511 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.UnsafeAccess;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+abstract class MpscIntrusiveLinkedQueuePad0<E> extends AbstractQueue<E> implements MessagePassingQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    // byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+    //    * drop 8b as object header acts as padding and is >= 8b *
+}
+
+abstract class MpscIntrusiveLinkedQueueProducerNodeRef<E> extends MpscIntrusiveLinkedQueuePad0<E>
+{
+    private final static long P_NODE_OFFSET = fieldOffset(MpscIntrusiveLinkedQueueProducerNodeRef.class, "producerNode");
+
+    private volatile IntrusiveLinkedQueueNode producerNode;
+
+    final IntrusiveLinkedQueueNode lvProducerNode()
+    {
+        return producerNode;
+    }
+
+    final IntrusiveLinkedQueueNode xchgProducerNode(IntrusiveLinkedQueueNode newValue)
+    {
+        if (UnsafeAccess.SUPPORTS_GET_AND_SET_REF)
+        {
+            return (IntrusiveLinkedQueueNode) UNSAFE.getAndSetObject(this, P_NODE_OFFSET, newValue);
+        }
+        else
+        {
+            IntrusiveLinkedQueueNode oldValue;
+            do
+            {
+                oldValue = lvProducerNode();
+            }
+            while (!UNSAFE.compareAndSwapObject(this, P_NODE_OFFSET, oldValue, newValue));
+            return oldValue;
+        }
+    }
+}
+
+abstract class MpscIntrusiveLinkedQueuePad1<E> extends MpscIntrusiveLinkedQueueProducerNodeRef<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MpscIntrusiveLinkedQueueConsumerNodeRef<E> extends MpscIntrusiveLinkedQueuePad1<E>
+{
+    private final static long C_NODE_OFFSET = fieldOffset(MpscIntrusiveLinkedQueueConsumerNodeRef.class, "consumerNode");
+
+    private IntrusiveLinkedQueueNode consumerNode;
+
+    final void spConsumerNode(IntrusiveLinkedQueueNode newValue)
+    {
+        consumerNode = newValue;
+    }
+
+    final IntrusiveLinkedQueueNode lvConsumerNode()
+    {
+        return (IntrusiveLinkedQueueNode) UNSAFE.getObjectVolatile(this, C_NODE_OFFSET);
+    }
+
+    final IntrusiveLinkedQueueNode lpConsumerNode()
+    {
+        return consumerNode;
+    }
+}
+
+abstract class MpscIntrusiveLinkedQueuePad2<E> extends MpscIntrusiveLinkedQueueConsumerNodeRef<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+/**
+ * An unbounded MPSC linked queue where the elements are the nodes, as presented on
+ * <a href="http://www.1024cores.net/home/lock-free-algorithms/queues/intrusive-mpsc-node-based-queue">1024 Cores</a>
+ * by D. Vyukov. Elements extend {@link IntrusiveLinkedQueueNode}, which holds the link to the next element, so unlike
+ * {@link MpscLinkedQueue} an offer does not allocate.
+ * <p>
+ * As the consumer cannot hold on to an element it handed out, the queue keeps a stub node which it offers after the
+ * last element when polling it. The original has been adapted to Java in the same way as {@link MpscLinkedQueue}:
+ * <ol>
+ * <li>Use inheritance to ensure no false sharing occurs between producer/consumer node reference fields.
+ * <li>Conform to {@link java.util.Queue} contract on poll/peek. The original semantics are available via
+ * relaxedPoll/relaxedPeek.
+ * </ol>
+ * An element can only be in one intrusive queue at a time, and can only be offered again once it was polled out of
+ * the queue. Offering an element which is already queued breaks the queue.
+ * <p>
+ * A single producer can use this queue too: the consumer offers the stub, so the producer side needs an atomic swap
+ * either way.
+ */
+public class MpscIntrusiveLinkedQueue<E extends IntrusiveLinkedQueueNode> extends MpscIntrusiveLinkedQueuePad2<E>
+{
+    private final IntrusiveLinkedQueueNode stub = new Stub();
+
+    private static final class Stub extends IntrusiveLinkedQueueNode
+    {
+    }
+
+    public MpscIntrusiveLinkedQueue()
+    {
+        spConsumerNode(stub);
+        xchgProducerNode(stub);
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Offer is allowed from multiple threads.<br>
+     * Offer swaps the element atomically with the current producer node and then links it from the swapped node, as
+     * in {@link MpscLinkedQueue#offer(Object)}.
+     *
+     * @see MessagePassingQueue#offer(Object)
+     * @see java.util.Queue#offer(java.lang.Object)
+     */
+    @Override
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        offerNode(e);
+        return true;
+    }
+
+    private void offerNode(IntrusiveLinkedQueueNode node)
+    {
+        // spNext: xchgProducerNode ensures correct construction
+        node.spNext(null);
+        final IntrusiveLinkedQueueNode prevProducerNode = xchgProducerNode(node);
+        // Should a producer thread get interrupted here the chain WILL be broken until that thread is resumed
+        // and completes the store in prev.next. This is a "bubble".
+        prevProducerNode.soNext(node);
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Poll is allowed from a SINGLE thread.<br>
+     * Poll is potentially blocking here as the {@link java.util.Queue#poll()} does not allow returning {@code null}
+     * if the queue is not empty. See {@link #relaxedPoll()} for the original semantics.
+     *
+     * @see MessagePassingQueue#poll()
+     * @see java.util.Queue#poll()
+     */
+    @Override
+    public E poll()
+    {
+        return poll(false);
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        return poll(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E poll(boolean relaxed)
+    {
+        final IntrusiveLinkedQueueNode stub = this.stub;
+        IntrusiveLinkedQueueNode currConsumerNode = lpConsumerNode();
+        IntrusiveLinkedQueueNode nextNode = currConsumerNode.lvNext();
+        if (currConsumerNode == stub)
+        {
+            if (nextNode == null)
+            {
+                if (relaxed || lvProducerNode() == stub)
+                {
+                    return null;
+                }
+                nextNode = spinWaitForNextNode(stub);
+            }
+            // step over the stub, it is offered again when the last element is polled
+            stub.spNext(null);
+            spConsumerNode(nextNode);
+            currConsumerNode = nextNode;
+            nextNode = currConsumerNode.lvNext();
+        }
+        if (nextNode == null)
+        {
+            if (currConsumerNode == lvProducerNode())
+            {
+                // the last element can only be taken out once another node follows it
+                offerNode(stub);
+                nextNode = currConsumerNode.lvNext();
+            }
+            // a producer swapped in a node after the current one, but has not linked it yet
+            if (nextNode == null)
+            {
+                if (relaxed)
+                {
+                    return null;
+                }
+                nextNode = spinWaitForNextNode(currConsumerNode);
+            }
+        }
+        spConsumerNode(nextNode);
+        // prevent GC nepotism, the element no longer belongs to this queue
+        currConsumerNode.spNext(null);
+        return (E) currConsumerNode;
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Peek is allowed from a SINGLE thread.<br>
+     * Peek is potentially blocking here as the {@link java.util.Queue#peek()} does not allow returning {@code null}
+     * if the queue is not empty. See {@link #relaxedPeek()} for the original semantics.
+     *
+     * @see MessagePassingQueue#peek()
+     * @see java.util.Queue#peek()
+     */
+    @Override
+    public E peek()
+    {
+        return peek(false);
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        return peek(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E peek(boolean relaxed)
+    {
+        final IntrusiveLinkedQueueNode stub = this.stub;
+        IntrusiveLinkedQueueNode currConsumerNode = lpConsumerNode();
+        if (currConsumerNode == stub)
+        {
+            currConsumerNode = stub.lvNext();
+            if (currConsumerNode == null && !relaxed && lvProducerNode() != stub)
+            {
+                currConsumerNode = spinWaitForNextNode(stub);
+            }
+        }
+        return (E) currConsumerNode;
+    }
+
+    private static IntrusiveLinkedQueueNode spinWaitForNextNode(IntrusiveLinkedQueueNode currNode)
+    {
+        IntrusiveLinkedQueueNode nextNode;
+        while ((nextNode = currNode.lvNext()) == null)
+        {
+            // spin, we are no longer wait free
+        }
+        return nextNode;
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        return offer(e);
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * This is an O(n) operation as we run through all the nodes and count them.<br>
+     * The accuracy of the value returned by this method is subject to races with producer/consumer threads. In
+     * particular when racing with the consumer thread this method may under estimate the size.<br>
+     * Elements which are polled and offered again while the count is in progress may be counted twice.
+     *
+     * @see java.util.Queue#size()
+     */
+    @Override
+    public int size()
+    {
+        // Read consumer first, this is important because if the producer is node is 'older' than the consumer
+        // the consumer may overtake it (consume past it) invalidating the 'snapshot' notion of size.
+        final IntrusiveLinkedQueueNode stub = this.stub;
+        IntrusiveLinkedQueueNode chaserNode = lvConsumerNode();
+        final IntrusiveLinkedQueueNode producerNode = lvProducerNode();
+        int size = 0;
+        // polled elements have a null next, so the chase stops there
+        while (chaserNode != null && size < Integer.MAX_VALUE)
+        {
+            if (chaserNode != stub)
+            {
+                size++;
+            }
+            if (chaserNode == producerNode)
+            {
+                break;
+            }
+            chaserNode = chaserNode.lvNext();
+        }
+        return size;
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Queue is empty when both the consumer and producer nodes are the stub.
+     *
+     * @see MessagePassingQueue#isEmpty()
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        final IntrusiveLinkedQueueNode stub = this.stub;
+        return lvConsumerNode() == stub && lvProducerNode() == stub;
+    }
+
+    @Override
+    public int capacity()
+    {
+        return UNBOUNDED_CAPACITY;
+    }
+
+    @Override
+    public void clear()
+    {
+        while (poll() != null)
+        {
+            // if you stare into the void
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The elements are handed out walking the links from the consumer node, the producer node is only read when the
+     * walk reaches the last element.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
+        final IntrusiveLinkedQueueNode stub = this.stub;
+        IntrusiveLinkedQueueNode chaserNode = lpConsumerNode();
+        for (int i = 0; i < limit; i++)
+        {
+            IntrusiveLinkedQueueNode nextNode = chaserNode.lvNext();
+            if (chaserNode == stub)
+            {
+                if (nextNode == null)
+                {
+                    return i;
+                }
+                stub.spNext(null);
+                chaserNode = nextNode;
+                nextNode = chaserNode.lvNext();
+            }
+            if (nextNode == null)
+            {
+                // the last element, or a producer is linking the next one, leave it to relaxedPoll
+                spConsumerNode(chaserNode);
+                final E e = relaxedPoll();
+                if (e == null)
+                {
+                    return i;
+                }
+                c.accept(e);
+                chaserNode = lpConsumerNode();
+                continue;
+            }
+            spConsumerNode(nextNode);
+            chaserNode.spNext(null);
+            c.accept((E) chaserNode);
+            chaserNode = nextNode;
+        }
+        return limit;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The supplied elements are linked to each other before a single swap of the producer node adds all of them.
+     */
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
+        final E head = s.get();
+        head.spNext(null);
+        IntrusiveLinkedQueueNode tail = head;
+        for (int i = 1; i < limit; i++)
+        {
+            final E temp = s.get();
+            // spNext: xchgProducerNode ensures correct construction
+            temp.spNext(null);
+            tail.spNext(temp);
+            tail = temp;
+        }
+        final IntrusiveLinkedQueueNode oldPNode = xchgProducerNode(tail);
+        oldPNode.soNext(head);
+        return limit;
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return MessagePassingQueueUtil.drain(this, c);
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillUnbounded(this, s);
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+}
@@ -1,29 +1,21 @@
-/**
- * Licensed to the Apache Software Foundation (ASF) under one or more
- * contributor license agreements. See the NOTICE file distributed with
- * this work for additional information regarding copyright ownership.
- * The ASF licenses this file to You under the Apache License, Version 2.0
- * (the "License"); you may not use this file except in compliance with
- * the License. You may obtain a copy of the License at
- * <p>
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
  * http://www.apache.org/licenses/LICENSE-2.0
- * <p>
+ *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS,
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  * See the License for the specific language governing permissions and
  * limitations under the License.
- *
- * This is a port of the algorithm used here:
- * https://github.com/real-logic/aeron/blob/c715c19852c8455c92e73c3167e7d43021d9a384/aeron-client/src/main/java/io/aeron/Publication.java
  */
-
 package org.jctools.queues;
 
-import org.jctools.util.PortableJvmInfo;
 import org.jctools.util.Pow2;
 import org.jctools.util.RangeUtil;
-import org.jctools.util.UnsafeRefArrayAccess;
+import org.jctools.util.UnsafeAccess;
 
 import java.util.AbstractQueue;
 import java.util.Iterator;
@@ -52,32 +44,28 @@ abstract class MpscRelaxedArrayQueueL0Pad<E> extends AbstractQueue<E>
     byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
 }
 
+//$gen:ordered-fields
 abstract class MpscRelaxedArrayQueueActiveCycleIdField<E> extends MpscRelaxedArrayQueueL0Pad<E>
 {
-    private static final long ACTIVE_CYCLE_ID_OFFSET = fieldOffset(MpscRelaxedArrayQueueActiveCycleIdField.class, "activeCycleId");
+    private final static long ACTIVE_CYCLE_ID_OFFSET =
+        fieldOffset(MpscRelaxedArrayQueueActiveCycleIdField.class, "activeCycleId");
 
     private volatile long activeCycleId;
 
-    public static int activeCycleIndex(long activeCycleId)
-    {
-        return (int) (activeCycleId & 1);
-    }
-
-    public final long lvActiveCycleId()
+    final long lvActiveCycleId()
     {
-        return UNSAFE.getLongVolatile(this, ACTIVE_CYCLE_ID_OFFSET);
+        return activeCycleId;
     }
 
-    public final boolean casActiveCycleId(long expected, long value)
+    final boolean casActiveCycleId(long expect, long newValue)
     {
-        return UNSAFE.compareAndSwapLong(this, ACTIVE_CYCLE_ID_OFFSET, expected, value);
+        return UNSAFE.compareAndSwapLong(this, ACTIVE_CYCLE_ID_OFFSET, expect, newValue);
     }
 
-    public final void soActiveCycleId(long value)
+    final void soActiveCycleId(long newValue)
     {
-        UNSAFE.putOrderedLong(this, ACTIVE_CYCLE_ID_OFFSET, value);
+        UNSAFE.putOrderedLong(this, ACTIVE_CYCLE_ID_OFFSET, newValue);
     }
-
 }
 
 abstract class MpscRelaxedArrayQueueMidPad<E> extends MpscRelaxedArrayQueueActiveCycleIdField<E>
@@ -100,18 +88,20 @@ abstract class MpscRelaxedArrayQueueMidPad<E> extends MpscRelaxedArrayQueueActiv
     byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
 }
 
+//$gen:ordered-fields
 abstract class MpscRelaxedArrayQueueProducerLimitField<E> extends MpscRelaxedArrayQueueMidPad<E>
 {
-    private static final long P_LIMIT_OFFSET = fieldOffset(MpscRelaxedArrayQueueProducerLimitField.class, "producerLimit");
+    private final static long P_LIMIT_OFFSET = fieldOffset(MpscRelaxedArrayQueueProducerLimitField.class, "producerLimit");
 
+    // First unavailable position the producers may claim up to before rereading the consumer position
     private volatile long producerLimit;
 
-    protected final long lvProducerLimit()
+    final long lvProducerLimit()
     {
-        return UNSAFE.getLongVolatile(this, P_LIMIT_OFFSET);
+        return producerLimit;
     }
 
-    protected final void soProducerLimit(long newValue)
+    final void soProducerLimit(long newValue)
     {
         UNSAFE.putOrderedLong(this, P_LIMIT_OFFSET, newValue);
     }
@@ -137,25 +127,27 @@ abstract class MpscRelaxedArrayQueueL2Pad<E> extends MpscRelaxedArrayQueueProduc
     byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
 }
 
+//$gen:ordered-fields
 abstract class MpscRelaxedArrayQueueConsumerPositionField<E> extends MpscRelaxedArrayQueueL2Pad<E>
 {
-    private static final long C_POS_OFFSET = fieldOffset(MpscRelaxedArrayQueueConsumerPositionField.class, "consumerPosition");
+    private final static long C_POSITION_OFFSET =
+        fieldOffset(MpscRelaxedArrayQueueConsumerPositionField.class, "consumerPosition");
 
-    protected volatile long consumerPosition;
+    private volatile long consumerPosition;
 
-    protected final long lvConsumerPosition()
+    final long lvConsumerPosition()
     {
-        return UNSAFE.getLongVolatile(this, C_POS_OFFSET);
+        return consumerPosition;
     }
 
-    protected final long lpConsumerPosition()
+    final long lpConsumerPosition()
     {
-        return UNSAFE.getLong(this, C_POS_OFFSET);
+        return UNSAFE.getLong(this, C_POSITION_OFFSET);
     }
 
-    protected void soConsumerPosition(long newValue)
+    final void soConsumerPosition(long newValue)
     {
-        UNSAFE.putOrderedLong(this, C_POS_OFFSET, newValue);
+        UNSAFE.putOrderedLong(this, C_POSITION_OFFSET, newValue);
     }
 }
 
@@ -179,72 +171,109 @@ abstract class MpscRelaxedArrayQueueL3Pad<E> extends MpscRelaxedArrayQueueConsum
     byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
 }
 
+//$gen:ordered-fields
 abstract class MpscRelaxedArrayQueueProducerCycleClaimFields<E> extends MpscRelaxedArrayQueueL3Pad<E>
 {
-    private static final long P_CYCLE_CLAIM_BASE;
-    private static final long ELEMENT_SHIFT;
-    static
+    private final static long P_FIRST_CYCLE_CLAIM_OFFSET =
+        fieldOffset(MpscRelaxedArrayQueueProducerCycleClaimFields.class, "producerFirstCycleClaim");
+    private final static long P_SECOND_CYCLE_CLAIM_OFFSET =
+        fieldOffset(MpscRelaxedArrayQueueProducerCycleClaimFields.class, "producerSecondCycleClaim");
+
+    // The claims of the 2 cycles, selected by the active cycle index. Only the claim of the active cycle is contended.
+    private volatile long producerFirstCycleClaim;
+    private volatile long producerSecondCycleClaim;
+
+    final long lvProducerFirstCycleClaim()
     {
-        final long pClaim1 = fieldOffset(MpscRelaxedArrayQueueProducerCycleClaimFields.class, "producerFirstCycleClaim");
-        final long pClaim2 = fieldOffset(MpscRelaxedArrayQueueProducerCycleClaimFields.class, "producerSecondCycleClaim");
+        return producerFirstCycleClaim;
+    }
 
-        P_CYCLE_CLAIM_BASE = Math.min(pClaim1, pClaim2);
-        ELEMENT_SHIFT = Integer.numberOfTrailingZeros(Long.SIZE / Byte.SIZE);
-        if (Math.max(pClaim1, pClaim2) != calcProducerCycleClaimOffset(1))
-        {
-            throw new RuntimeException("The JVM is not packing long fields as expected!");
-        }
+    final void soProducerFirstCycleClaim(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, P_FIRST_CYCLE_CLAIM_OFFSET, newValue);
     }
-    // these are treated as an array, just inlined
-    protected volatile long producerFirstCycleClaim;
-    protected volatile long producerSecondCycleClaim;
 
-    private static long calcProducerCycleClaimOffset(int index)
+    final boolean casProducerFirstCycleClaim(long expect, long newValue)
     {
-        return P_CYCLE_CLAIM_BASE + (index << ELEMENT_SHIFT);
+        return UNSAFE.compareAndSwapLong(this, P_FIRST_CYCLE_CLAIM_OFFSET, expect, newValue);
     }
 
-    protected final long lvProducerCycleClaim(int cycleIndex)
+    final long getAndAddProducerFirstCycleClaim(long delta)
     {
-        return UNSAFE.getLongVolatile(this, calcProducerCycleClaimOffset(cycleIndex));
+        return UNSAFE.getAndAddLong(this, P_FIRST_CYCLE_CLAIM_OFFSET, delta);
     }
 
-    protected final void soProducerCycleClaim(int cycleIndex, long value)
+    final long lvProducerSecondCycleClaim()
     {
-        UNSAFE.putOrderedLong(this, calcProducerCycleClaimOffset(cycleIndex), value);
+        return producerSecondCycleClaim;
     }
 
-    protected final long getAndIncrementProducerCycleClaim(int cycleIndex)
+    final void soProducerSecondCycleClaim(long newValue)
     {
-        return UNSAFE.getAndAddLong(this, calcProducerCycleClaimOffset(cycleIndex), 1);
+        UNSAFE.putOrderedLong(this, P_SECOND_CYCLE_CLAIM_OFFSET, newValue);
     }
 
-    protected final boolean casProducerCycleClaim(int cycleIndex, long expectedValue, long newValue)
+    final boolean casProducerSecondCycleClaim(long expect, long newValue)
     {
-        return UNSAFE.compareAndSwapLong(this, calcProducerCycleClaimOffset(cycleIndex), expectedValue, newValue);
+        return UNSAFE.compareAndSwapLong(this, P_SECOND_CYCLE_CLAIM_OFFSET, expect, newValue);
+    }
+
+    final long getAndAddProducerSecondCycleClaim(long delta)
+    {
+        return UNSAFE.getAndAddLong(this, P_SECOND_CYCLE_CLAIM_OFFSET, delta);
     }
 }
 
 abstract class MpscRelaxedArrayQueueL4Pad<E> extends MpscRelaxedArrayQueueProducerCycleClaimFields<E>
 {
-    long p01, p02, p03, p04, p05, p06;
-    long p10, p11, p12, p13, p14, p15, p16, p17;
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
 }
 
 /**
- * This class is still work in progress, please do not pick up for production use just yet.
+ * A bounded MPSC queue which trades a strict full queue check for less producer contention. This is a port of the
+ * algorithm used by the Aeron publication log buffers:
+ * https://github.com/real-logic/aeron/blob/c715c19852c8455c92e73c3167e7d43021d9a384/aeron-client/src/main/java/io/aeron/Publication.java
+ * <p>
+ * Producers claim slots with a getAndAdd (XADD) on the claim of the active cycle rather than a CAS loop on a shared
+ * producer index, so a claim never fails under contention. The buffer is twice the capacity and split into 2 cycles,
+ * the producer completing a cycle rotates the active cycle. Producers may over-claim while the queue is full or a
+ * rotation is in progress, over-claims are rolled back or retried.
+ * <p>
+ * The relaxed full check means that:
+ * <ul>
+ * <li>{@link #offer(Object)} may report the queue as full when it is not, under heavy contention close to capacity.
+ * <li>Producers falling behind by more than a cycle, due to extreme scheduling delays or too many producers for the
+ * capacity, are detected and fail with an {@link IllegalStateException}. Size the capacity well above the number of
+ * producers.
+ * </ul>
+ * The queue does not support iteration.
  */
 public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> implements MessagePassingQueue<E>
 {
     /**
      * Note on terminology:
      *  - position/id: overall progress indicator, not an array index or offset at which to lookup/write.
-     *  - index: for looking up within an array (including the inlined producerCycleClaim array)
+     *  - index: for looking up within an array (including the producer cycle claims)
      *  - offset: for pointer like access using Unsafe
      *
-     * The producer in this queue operates on cycleId and the producerCycleClaim array:
+     * The producer in this queue operates on cycleId and the producer cycle claims:
      *  - The cycleId grow monotonically, and the parity bit (cycleIndex) indicated which claim to use
-     *  - The producerCycleClaim indicate position in a cycle as well as the originating cycleId. From a claim we can
+     *  - The producer cycle claim indicate position in a cycle as well as the originating cycleId. From a claim we can
      *    calculate the producer overall position as well as the position within a cycle.
      *
      * The buffer is split into 2 cycles (matching cycleIndex 0 and 1), allowing the above indicators to control
@@ -262,9 +291,13 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
 
     public MpscRelaxedArrayQueue(int capacity)
     {
+        if (!UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG)
+        {
+            throw new IllegalStateException("Unsafe::getAndAddLong support (JDK 8+) is required for this queue to work");
+        }
         RangeUtil.checkGreaterThanOrEqual(capacity, 2, "capacity");
         capacity = Pow2.roundToPowerOfTwo(capacity * 2);
-        this.buffer = (E[]) new Object[capacity];
+        this.buffer = allocateRefArray(capacity);
         this.soConsumerPosition(0);
         this.soActiveCycleId(0);
         this.mask = capacity - 1;
@@ -282,6 +315,40 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
         this.soProducerCycleClaim(1, this.cycleLength + 1);
     }
 
+    private static int activeCycleIndex(long activeCycleId)
+    {
+        return (int) (activeCycleId & 1);
+    }
+
+    private long lvProducerCycleClaim(int cycleIndex)
+    {
+        return cycleIndex == 0 ? lvProducerFirstCycleClaim() : lvProducerSecondCycleClaim();
+    }
+
+    private void soProducerCycleClaim(int cycleIndex, long value)
+    {
+        if (cycleIndex == 0)
+        {
+            soProducerFirstCycleClaim(value);
+        }
+        else
+        {
+            soProducerSecondCycleClaim(value);
+        }
+    }
+
+    private long getAndIncrementProducerCycleClaim(int cycleIndex)
+    {
+        return cycleIndex == 0 ? getAndAddProducerFirstCycleClaim(1) : getAndAddProducerSecondCycleClaim(1);
+    }
+
+    private boolean casProducerCycleClaim(int cycleIndex, long expectedValue, long value)
+    {
+        return cycleIndex == 0 ?
+            casProducerFirstCycleClaim(expectedValue, value) :
+            casProducerSecondCycleClaim(expectedValue, value);
+    }
+
     @Override
     public Iterator<E> iterator()
     {
@@ -523,7 +590,7 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
     private void soCycleElement(E[] buffer, E e, int activeCycleIndex, int positionWithinCycle, int cycleLengthLog2)
     {
         final int indexInBuffer = calcElementIndexInBuffer(positionWithinCycle, activeCycleIndex, cycleLengthLog2);
-        final long offset = UnsafeRefArrayAccess.calcRefElementOffset(indexInBuffer);
+        final long offset = calcRefElementOffset(indexInBuffer);
         soRefElement(buffer, offset, e);
     }
 
@@ -698,7 +765,6 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
         return lvRefElement(this.buffer, offset);
     }
 
-
     @Override
     public int drain(Consumer<E> c)
     {
@@ -708,24 +774,19 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
     @Override
     public int fill(Supplier<E> s)
     {
-        long result = 0;// result is a long because we want to have a safepoint check at regular intervals
-        final int capacity = capacity();
-        do
-        {
-            final int filled = fill(s, PortableJvmInfo.RECOMENDED_OFFER_BATCH);
-            if (filled == 0)
-            {
-                return (int) result;
-            }
-            result += filled;
-        }
-        while (result <= capacity);
-        return (int) result;
+        return MessagePassingQueueUtil.fillBounded(this, s);
     }
 
     @Override
     public int drain(Consumer<E> c, int limit)
     {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
         final E[] buffer = this.buffer;
         final long mask = this.mask;
         for (int i = 0; i < limit; i++)
@@ -750,6 +811,13 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
     @Override
     public int fill(Supplier<E> s, int limit)
     {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
         final int positionOnCycleMask = this.positionWithinCycleMask;
         final int cycleLengthLog2 = this.cycleLengthLog2;
         final int cycleLength = this.cycleLength;
@@ -813,43 +881,13 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
     @Override
     public void drain(Consumer<E> c, WaitStrategy w, ExitCondition exit)
     {
-        final E[] buffer = this.buffer;
-        final long mask = this.mask;
-        long consumerPosition = lvConsumerPosition();
-
-        int counter = 0;
-        while (exit.keepRunning())
-        {
-            for (int i = 0; i < 4096; i++)
-            {
-                final long offset = calcCircularRefElementOffset(consumerPosition, mask);
-                final E e = lvRefElement(buffer, offset);// LoadLoad
-                if (null == e)
-                {
-                    counter = w.idle(counter);
-                    continue;
-                }
-                counter = 0;
-                signalConsumerProgress(consumerPosition, buffer, offset);
-                consumerPosition++;
-                c.accept(e);
-            }
-        }
+        MessagePassingQueueUtil.drain(this, c, w, exit);
     }
 
     @Override
     public void fill(Supplier<E> s, WaitStrategy w, ExitCondition exit)
     {
-        int idleCounter = 0;
-        while (exit.keepRunning())
-        {
-            if (fill(s, PortableJvmInfo.RECOMENDED_OFFER_BATCH) == 0)
-            {
-                idleCounter = w.idle(idleCounter);
-                continue;
-            }
-            idleCounter = 0;
-        }
+        MessagePassingQueueUtil.fill(this, s, w, exit);
     }
 
     private static int positionWithinCycle(long producerCycleClaim, int positionOnCycleMask)
@@ -0,0 +1,438 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.RangeUtil;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+
+import static org.jctools.util.PortableJvmInfo.CPUs;
+import static org.jctools.util.Pow2.roundToPowerOfTwo;
+
+abstract class MpscStripedQueueL0Pad<E> extends AbstractQueue<E> implements MessagePassingQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MpscStripedQueueColdFields<E> extends MpscStripedQueueL0Pad<E>
+{
+    // must be power of 2
+    protected final int stripesMask;
+    protected final MpscArrayQueue<E>[] stripes;
+    protected final StripeLocator locator;
+    protected final int drainBatch;
+
+    @SuppressWarnings("unchecked")
+    MpscStripedQueueColdFields(int capacity, int stripeCount, StripeLocator locator, int drainBatch)
+    {
+        RangeUtil.checkPositive(stripeCount, "stripeCount");
+        RangeUtil.checkPositive(drainBatch, "drainBatch");
+        if (locator == null)
+        {
+            throw new NullPointerException("locator");
+        }
+        final int stripeCountPow2 = roundToPowerOfTwo(stripeCount);
+        final int fullCapacity = roundToPowerOfTwo(capacity);
+        RangeUtil.checkGreaterThanOrEqual(fullCapacity, stripeCountPow2 * 2, "fullCapacity");
+        stripesMask = stripeCountPow2 - 1;
+        stripes = new MpscArrayQueue[stripeCountPow2];
+        for (int i = 0; i < stripeCountPow2; i++)
+        {
+            stripes[i] = new MpscArrayQueue<E>(fullCapacity / stripeCountPow2);
+        }
+        this.locator = locator;
+        this.drainBatch = drainBatch;
+    }
+}
+
+abstract class MpscStripedQueueMidPad<E> extends MpscStripedQueueColdFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscStripedQueueMidPad(int capacity, int stripeCount, StripeLocator locator, int drainBatch)
+    {
+        super(capacity, stripeCount, locator, drainBatch);
+    }
+}
+
+abstract class MpscStripedQueueConsumerFields<E> extends MpscStripedQueueMidPad<E>
+{
+    // consumer owned: the stripe being consumed and how many more elements it may yield before moving on
+    int consumerStripe;
+    int consumerBudget;
+
+    MpscStripedQueueConsumerFields(int capacity, int stripeCount, StripeLocator locator, int drainBatch)
+    {
+        super(capacity, stripeCount, locator, drainBatch);
+        consumerBudget = drainBatch;
+    }
+}
+
+/**
+ * A bounded MPSC queue striped over a set of {@link MpscArrayQueue}s, generalising {@link MpscCompoundQueue}:
+ * <ol>
+ * <li>Producers are mapped to a stripe by a pluggable {@link StripeLocator}. Mapping by socket (see
+ * {@link StripeLocators#currentSocket()}) keeps the producer index CAS of each stripe within a socket, mapping by CPU
+ * keeps it within a core. Where the topology is not available producers fall back to a stripe assigned per thread.
+ * <li>The consumer takes up to {@code drainBatch} elements from a stripe before moving to the next one, so a busy
+ * stripe cannot starve the others, while still consuming in batches from each stripe.
+ * </ol>
+ * An offer tries the located stripe first and then the others, so it only fails when all stripes are full. Elements
+ * are FIFO per stripe, but not across stripes. A producer keeps FIFO order as long as it stays on the same stripe,
+ * which is the case for the thread based locators as long as its stripe does not fill up.
+ * <p>
+ * The queue does not support iteration.
+ */
+public class MpscStripedQueue<E> extends MpscStripedQueueConsumerFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    public static final int DEFAULT_DRAIN_BATCH = 64;
+
+    /**
+     * A queue with a stripe per CPU, producer threads are assigned a stripe round robin by
+     * {@link StripeLocators#threadLocal()}. Locating by CPU or socket reads the current CPU from the OS on the offer
+     * path and is left to the other constructor.
+     */
+    public MpscStripedQueue(int capacity)
+    {
+        this(capacity, CPUs, StripeLocators.threadLocal(), DEFAULT_DRAIN_BATCH);
+    }
+
+    /**
+     * @param capacity the total capacity, rounded up to a power of 2 and split evenly between the stripes
+     * @param stripeCount the number of stripes, rounded up to a power of 2
+     * @param locator maps producers to stripes
+     * @param drainBatch the maximum number of elements the consumer takes from a stripe before moving to the next
+     */
+    public MpscStripedQueue(int capacity, int stripeCount, StripeLocator locator, int drainBatch)
+    {
+        super(capacity, stripeCount, locator, drainBatch);
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        final int stripesMask = this.stripesMask;
+        final int start = locator.locate() & stripesMask;
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        if (stripes[start].offer(e))
+        {
+            return true;
+        }
+        else
+        {
+            return slowOffer(stripes, stripesMask, start + 1, e);
+        }
+    }
+
+    private boolean slowOffer(MpscArrayQueue<E>[] stripes, int stripesMask, int start, E e)
+    {
+        final int stripeCount = stripesMask + 1;
+        final int end = start + stripeCount;
+        while (true)
+        {
+            int status = 0;
+            for (int i = start; i < end; i++)
+            {
+                int s = stripes[i & stripesMask].failFastOffer(e);
+                if (s == 0)
+                {
+                    return true;
+                }
+                status += s;
+            }
+            if (status == stripeCount)
+            {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        final int stripesMask = this.stripesMask;
+        final int start = locator.locate() & stripesMask;
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        for (int i = start; i <= start + stripesMask; i++)
+        {
+            if (stripes[i & stripesMask].failFastOffer(e) == 0)
+            {
+                return true;
+            }
+        }
+        // this is a relaxed offer, we can fail for any reason we like
+        return false;
+    }
+
+    @Override
+    public E poll()
+    {
+        return poll(false);
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        return poll(true);
+    }
+
+    private E poll(boolean relaxed)
+    {
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        final int stripesMask = this.stripesMask;
+        int stripe = consumerStripe;
+        for (int i = 0; i <= stripesMask; i++, stripe++)
+        {
+            final MpscArrayQueue<E> q = stripes[stripe & stripesMask];
+            final E e = relaxed ? q.relaxedPoll() : q.poll();
+            if (e != null)
+            {
+                if (i != 0)
+                {
+                    consumerBudget = drainBatch;
+                }
+                if (--consumerBudget == 0)
+                {
+                    // this stripe has had its share, move on
+                    consumerBudget = drainBatch;
+                    stripe++;
+                }
+                consumerStripe = stripe & stripesMask;
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E peek()
+    {
+        return peek(false);
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        return peek(true);
+    }
+
+    private E peek(boolean relaxed)
+    {
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        final int stripesMask = this.stripesMask;
+        int stripe = consumerStripe;
+        for (int i = 0; i <= stripesMask; i++, stripe++)
+        {
+            final MpscArrayQueue<E> q = stripes[stripe & stripesMask];
+            final E e = relaxed ? q.relaxedPeek() : q.peek();
+            if (e != null)
+            {
+                // move to the peeked stripe so that the next poll returns the peeked element
+                if (i != 0)
+                {
+                    consumerBudget = drainBatch;
+                    consumerStripe = stripe & stripesMask;
+                }
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size()
+    {
+        int size = 0;
+        for (MpscArrayQueue<E> stripe : stripes)
+        {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (MpscArrayQueue<E> stripe : stripes)
+        {
+            if (!stripe.isEmpty())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int capacity()
+    {
+        return stripes.length * stripes[0].capacity();
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        final int stripesMask = this.stripesMask;
+        final int drainBatch = this.drainBatch;
+        int stripe = consumerStripe;
+        int budget = consumerBudget;
+        int drained = 0;
+        // stop after a full round of empty stripes
+        int emptyStripes = 0;
+        while (drained < limit && emptyStripes <= stripesMask)
+        {
+            final int request = Math.min(budget, limit - drained);
+            final int n = stripes[stripe & stripesMask].drain(c, request);
+            drained += n;
+            budget -= n;
+            if (n == request && budget != 0)
+            {
+                // the limit was reached within the stripe batch
+                break;
+            }
+            // the stripe was emptied or had its share, move on
+            emptyStripes = n == 0 ? emptyStripes + 1 : 0;
+            stripe++;
+            budget = drainBatch;
+        }
+        consumerStripe = stripe & stripesMask;
+        consumerBudget = budget;
+        return drained;
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
+        final int stripesMask = this.stripesMask;
+        final int start = locator.locate() & stripesMask;
+        final MpscArrayQueue<E>[] stripes = this.stripes;
+        int filled = 0;
+        for (int i = start; i <= start + stripesMask; i++)
+        {
+            filled += stripes[i & stripesMask].fill(s, limit - filled);
+            if (filled == limit)
+            {
+                return limit;
+            }
+        }
+        return filled;
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+}
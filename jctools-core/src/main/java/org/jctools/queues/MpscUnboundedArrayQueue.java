@@ -75,6 +75,13 @@ public class MpscUnboundedArrayQueue<E> extends BaseMpscLinkedArrayQueue<E>
         return length(buffer);
     }
 
+    @Override
+    protected int getShrinkBufferSize(E[] buffer)
+    {
+        // fixed size chunks, never shrinks
+        return length(buffer);
+    }
+
     @Override
     protected long getCurrentBufferCapacity(long mask)
     {
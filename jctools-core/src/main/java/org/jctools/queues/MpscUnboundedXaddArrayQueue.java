@@ -33,7 +33,18 @@ public class MpscUnboundedXaddArrayQueue<E> extends MpUnboundedXaddArrayQueue<Mp
      */
     public MpscUnboundedXaddArrayQueue(int chunkSize, int maxPooledChunks)
     {
-        super(chunkSize, maxPooledChunks);
+        this(chunkSize, maxPooledChunks, null);
+    }
+
+    /**
+     * @param chunkSize The buffer size to be used in each chunk of this queue
+     * @param maxPooledChunks The maximum number of reused chunks kept around to avoid allocation, chunks are pre-allocated
+     * @param sharedChunkPool The pool, shared with other queues, to borrow chunk buffers from when no reused chunk is
+     * available and to return them to, may be null
+     */
+    public MpscUnboundedXaddArrayQueue(int chunkSize, int maxPooledChunks, SharedChunkPool sharedChunkPool)
+    {
+        super(chunkSize, maxPooledChunks, sharedChunkPool);
     }
 
     public MpscUnboundedXaddArrayQueue(int chunkSize)
@@ -47,6 +58,12 @@ public class MpscUnboundedXaddArrayQueue<E> extends MpUnboundedXaddArrayQueue<Mp
         return new MpscUnboundedXaddChunk(index, prev, chunkSize, pooled);
     }
 
+    @Override
+    final MpscUnboundedXaddChunk<E> newChunk(long index, MpscUnboundedXaddChunk<E> prev, E[] buffer)
+    {
+        return new MpscUnboundedXaddChunk<E>(index, prev, buffer);
+    }
+
     @Override
     public boolean offer(E e)
     {
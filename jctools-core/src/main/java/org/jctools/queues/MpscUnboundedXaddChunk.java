@@ -21,6 +21,10 @@ public final class MpscUnboundedXaddChunk<E> extends MpUnboundedXaddChunk<MpscUn
     public MpscUnboundedXaddChunk(long index, MpscUnboundedXaddChunk<E> prev, int size, boolean pooled)
     {
         super(index, prev, size, pooled);
+    }
 
+    public MpscUnboundedXaddChunk(long index, MpscUnboundedXaddChunk<E> prev, E[] buffer)
+    {
+        super(index, prev, buffer);
     }
 }
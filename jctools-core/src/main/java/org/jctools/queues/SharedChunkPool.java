@@ -0,0 +1,176 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+/**
+ * A lock-free pool of chunk buffers which can be shared by many {@link MpscUnboundedXaddArrayQueue} and
+ * {@link MpmcUnboundedXaddArrayQueue} instances, as an alternative or complement to the per queue pool of
+ * pre-allocated chunks ({@code maxPooledChunks}).
+ * <p>
+ * A queue borrows a buffer when it needs a new chunk and returns it once the consumers have moved past the chunk. Only
+ * the buffers are shared: every borrowed buffer is wrapped in a new (small) chunk, so the chunk index protocol of a
+ * queue is never exposed to chunks of another queue. A buffer is only accepted back once all its slots are null, i.e.
+ * once no late consumer of the previous chunk is left to clear a slot.
+ * <p>
+ * Buffers are pooled per (power of 2) chunk size in Treiber stacks, and the total pooled memory is capped by
+ * {@code maxPooledBytes} (counting the reference slots only). Buffers returned beyond the cap are left to the GC.
+ */
+public final class SharedChunkPool
+{
+    private static final class Node
+    {
+        final Object[] buffer;
+        Node next;
+
+        Node(Object[] buffer)
+        {
+            this.buffer = buffer;
+        }
+    }
+
+    private final long maxPooledBytes;
+    // a stack per chunk size, indexed by log2(chunk size)
+    private final AtomicReferenceArray<Node> stacks = new AtomicReferenceArray<Node>(Integer.SIZE);
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxPooledBytes the maximum memory held by pooled buffers, across all chunk sizes
+     */
+    public SharedChunkPool(long maxPooledBytes)
+    {
+        this.maxPooledBytes = RangeUtil.checkPositive(maxPooledBytes, "maxPooledBytes");
+    }
+
+    /**
+     * @param chunkSize a power of 2 chunk size
+     * @return a buffer of length chunkSize with all slots null, or null if none is available
+     */
+    Object[] acquire(int chunkSize)
+    {
+        final int sizeClass = sizeClass(chunkSize);
+        Node head;
+        do
+        {
+            head = stacks.get(sizeClass);
+            if (head == null)
+            {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+        while (!stacks.compareAndSet(sizeClass, head, head.next));
+        pooledBytes.addAndGet(-bufferBytes(chunkSize));
+        hits.incrementAndGet();
+        return head.buffer;
+    }
+
+    /**
+     * @param buffer a buffer no longer used by its chunk
+     * @return true if the buffer was pooled, false if the pool is full or the buffer still has non null slots
+     */
+    boolean release(Object[] buffer)
+    {
+        final int chunkSize = buffer.length;
+        for (int i = 0; i < chunkSize; i++)
+        {
+            if (lvRefElement(buffer, calcRefElementOffset(i)) != null)
+            {
+                return false;
+            }
+        }
+        final long bytes = bufferBytes(chunkSize);
+        long pooled;
+        do
+        {
+            pooled = pooledBytes.get();
+            if (pooled + bytes > maxPooledBytes)
+            {
+                return false;
+            }
+        }
+        while (!pooledBytes.compareAndSet(pooled, pooled + bytes));
+
+        final int sizeClass = sizeClass(chunkSize);
+        // a new node per push, so popping is not subject to ABA
+        final Node node = new Node(buffer);
+        Node head;
+        do
+        {
+            head = stacks.get(sizeClass);
+            node.next = head;
+        }
+        while (!stacks.compareAndSet(sizeClass, head, node));
+        return true;
+    }
+
+    public long maxPooledBytes()
+    {
+        return maxPooledBytes;
+    }
+
+    /**
+     * @return the memory currently held by pooled buffers
+     */
+    public long pooledBytes()
+    {
+        return pooledBytes.get();
+    }
+
+    /**
+     * @return the number of chunk buffers borrowed from the pool
+     */
+    public long hits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of chunk buffers allocated because none were pooled
+     */
+    public long misses()
+    {
+        return misses.get();
+    }
+
+    private static int sizeClass(int chunkSize)
+    {
+        if (!Pow2.isPowerOfTwo(chunkSize))
+        {
+            throw new IllegalArgumentException("chunkSize must be a power of 2: " + chunkSize);
+        }
+        return Integer.numberOfTrailingZeros(chunkSize);
+    }
+
+    private static long bufferBytes(int chunkSize)
+    {
+        return (long) chunkSize << REF_ELEMENT_SHIFT;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SharedChunkPool{pooledBytes=" + pooledBytes() + ", maxPooledBytes=" + maxPooledBytes + ", hits=" +
+            hits() + ", misses=" + misses() + "}";
+    }
+}
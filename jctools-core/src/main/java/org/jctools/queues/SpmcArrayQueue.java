@@ -369,36 +369,41 @@ public class SpmcArrayQueue<E> extends SpmcArrayQueueL3Pad<E>
         final E[] buffer = this.buffer;
         final long mask = this.mask;
         long currProducerIndexCache = lvProducerIndexCache();
-        int adjustedLimit = 0;
-        long currentConsumerIndex;
-        do
+        int consumed = 0;
+        while (consumed < limit)
         {
-            currentConsumerIndex = lvConsumerIndex();
-            // is there any space in the queue?
-            if (currentConsumerIndex >= currProducerIndexCache)
+            int batch;
+            long currentConsumerIndex;
+            do
             {
-                long currProducerIndex = lvProducerIndex();
-                if (currentConsumerIndex >= currProducerIndex)
-                {
-                    return 0;
-                }
-                else
+                currentConsumerIndex = lvConsumerIndex();
+                // is there any space in the queue?
+                if (currentConsumerIndex >= currProducerIndexCache)
                 {
-                    currProducerIndexCache = currProducerIndex;
-                    svProducerIndexCache(currProducerIndex);
+                    long currProducerIndex = lvProducerIndex();
+                    if (currentConsumerIndex >= currProducerIndex)
+                    {
+                        return consumed;
+                    }
+                    else
+                    {
+                        currProducerIndexCache = currProducerIndex;
+                        svProducerIndexCache(currProducerIndex);
+                    }
                 }
+                // try and claim up to the remaining elements in one go
+                int available = (int) (currProducerIndexCache - currentConsumerIndex);
+                batch = Math.min(available, limit - consumed);
             }
-            // try and claim up to 'limit' elements in one go
-            int remaining = (int) (currProducerIndexCache - currentConsumerIndex);
-            adjustedLimit = Math.min(remaining, limit);
-        }
-        while (!casConsumerIndex(currentConsumerIndex, currentConsumerIndex + adjustedLimit));
+            while (!casConsumerIndex(currentConsumerIndex, currentConsumerIndex + batch));
 
-        for (int i = 0; i < adjustedLimit; i++)
-        {
-            c.accept(removeElement(buffer, currentConsumerIndex + i, mask));
+            for (int i = 0; i < batch; i++)
+            {
+                c.accept(removeElement(buffer, currentConsumerIndex + i, mask));
+            }
+            consumed += batch;
         }
-        return adjustedLimit;
+        return limit;
     }
 
 
@@ -433,7 +438,7 @@ public class SpmcArrayQueue<E> extends SpmcArrayQueueL3Pad<E>
     @Override
     public int drain(final Consumer<E> c)
     {
-        return MessagePassingQueueUtil.drain(this, c);
+        return drain(c, capacity());
     }
 
     @Override
@@ -445,7 +450,7 @@ public class SpmcArrayQueue<E> extends SpmcArrayQueueL3Pad<E>
     @Override
     public void drain(final Consumer<E> c, final WaitStrategy w, final ExitCondition exit)
     {
-        MessagePassingQueueUtil.drain(this, c, w, exit);
+        MessagePassingQueueUtil.drainInBatches(this, c, w, exit);
     }
 
     @Override
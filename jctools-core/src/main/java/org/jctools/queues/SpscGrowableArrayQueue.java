@@ -31,7 +31,10 @@ import static org.jctools.util.UnsafeRefArrayAccess.*;
 public class SpscGrowableArrayQueue<E> extends BaseSpscLinkedArrayQueue<E>
 {
     private final int maxQueueCapacity;
+    private final long chunkMask;
+    private final long shrinkAfter;
     private long lookAheadStep;
+    private long lowSinceIndex;
 
     public SpscGrowableArrayQueue(final int capacity)
     {
@@ -39,6 +42,21 @@ public class SpscGrowableArrayQueue<E> extends BaseSpscLinkedArrayQueue<E>
     }
 
     public SpscGrowableArrayQueue(final int chunkSize, final int capacity)
+    {
+        this(chunkSize, capacity, 0);
+    }
+
+    /**
+     * A queue which moves back to a buffer of <i>chunkSize</i> once its size has stayed below half the chunk size
+     * for <i>shrinkAfter</i> offers. The size is sampled on the producer cold path, every look ahead step, and the
+     * consumer follows the producer to the smaller buffer as it does on resize.
+     *
+     * @param chunkSize   the initial buffer size, also the size the queue shrinks back to
+     * @param capacity    the maximum capacity
+     * @param shrinkAfter the number of offers the queue size must stay below the watermark before shrinking,
+     *                    0 to never shrink
+     */
+    public SpscGrowableArrayQueue(final int chunkSize, final int capacity, final int shrinkAfter)
     {
         RangeUtil.checkGreaterThanOrEqual(capacity, 16, "capacity");
         // minimal chunk size of eight makes sure minimal lookahead step is 2
@@ -48,7 +66,10 @@ public class SpscGrowableArrayQueue<E> extends BaseSpscLinkedArrayQueue<E>
         int chunkCapacity = Pow2.roundToPowerOfTwo(chunkSize);
         RangeUtil.checkLessThan(chunkCapacity, maxQueueCapacity, "chunkCapacity");
 
+        this.shrinkAfter = RangeUtil.checkPositiveOrZero(shrinkAfter, "shrinkAfter");
+
         long mask = chunkCapacity - 1;
+        chunkMask = mask;
         // need extra element to point at next array
         E[] buffer = allocateRefArray(chunkCapacity + 1);
         producerBuffer = buffer;
@@ -76,6 +97,11 @@ public class SpscGrowableArrayQueue<E> extends BaseSpscLinkedArrayQueue<E>
             // Try and look ahead a number of elements so we don't have to do this all the time
             if (null == lvRefElement(buffer, lookAheadElementOffset))
             {
+                if (shouldShrink(mask, index))
+                {
+                    shrink(buffer, index, offset, v, s);
+                    return true;
+                }
                 producerBufferLimit = index + lookAheadStep - 1; // joy, there's plenty of room
                 writeToQueue(buffer, v == null ? s.get() : v, index, offset);
                 return true;
@@ -99,6 +125,8 @@ public class SpscGrowableArrayQueue<E> extends BaseSpscLinkedArrayQueue<E>
             }
             else
             {
+                // growing means the queue was full, the low watermark period starts over
+                lowSinceIndex = index;
                 // allocate new buffer of same length
                 final E[] newBuffer = allocateRefArray((int) (2 * (mask + 1) + 1));
 
@@ -144,19 +172,55 @@ public class SpscGrowableArrayQueue<E> extends BaseSpscLinkedArrayQueue<E>
             {
                 // job done, we've now settled into our final state
                 adjustLookAheadStep(maxCapacity);
+                // the consumer is on this buffer, and publishes its index before clearing the slot it read:
+                // the slot before the consumer index may not be cleared yet
+                if (null != lvRefElement(buffer, offset))
+                {
+                    return false;
+                }
+                producerBufferLimit = currConsumerIndex + maxCapacity - 1;
             }
             // consumer is still on some other buffer
             else
             {
                 // how many elements out of buffer?
                 this.lookAheadStep = (int) (currConsumerIndex - firstIndexInCurrentBuffer);
+                producerBufferLimit = currConsumerIndex + maxCapacity;
             }
-            producerBufferLimit = currConsumerIndex + maxCapacity;
             writeToQueue(buffer, v == null ? s.get() : v, index, offset);
             return true;
         }
     }
 
+    private boolean shouldShrink(long mask, long index)
+    {
+        if (shrinkAfter == 0 || mask == chunkMask)
+        {
+            return false;
+        }
+        // below half the chunk size, so the new buffer has plenty of room until the consumer catches up
+        if (index - lvConsumerIndex() >= (chunkMask + 1) / 2)
+        {
+            lowSinceIndex = index;
+            return false;
+        }
+        return index - lowSinceIndex >= shrinkAfter;
+    }
+
+    private void shrink(final E[] buffer, final long index, final long offset, final E v, final Supplier<? extends E> s)
+    {
+        final E[] newBuffer = allocateRefArray((int) (chunkMask + 2));
+
+        producerBuffer = newBuffer;
+        producerMask = chunkMask;
+
+        final long offsetInNew = calcCircularRefElementOffset(index, chunkMask);
+        linkOldToNew(index, buffer, offset, newBuffer, offsetInNew, v == null ? s.get() : v);
+        producerBufferLimit = index + chunkMask - 1;
+        adjustLookAheadStep((int) (chunkMask + 1));
+        lowSinceIndex = index;
+    }
+
     private void adjustLookAheadStep(int capacity)
     {
         lookAheadStep = SpscLookAheadUtil.computeLookAheadStep(capacity);
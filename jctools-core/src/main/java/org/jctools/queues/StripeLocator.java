@@ -0,0 +1,30 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+/**
+ * Maps the calling thread to a stripe of a striped queue, see {@link MpscStripedQueue}. Threads which are mapped to
+ * the same stripe contend on the same producer index, so a good mapping keeps threads which run close to each other
+ * (same core, same socket) on the same stripe and threads which run apart on different stripes.
+ * <p>
+ * Implementations are called on every offer and must be thread safe and cheap. See {@link StripeLocators} for the
+ * available implementations.
+ */
+public interface StripeLocator
+{
+    /**
+     * @return a hint for the calling thread stripe, the striped queue masks it to the number of stripes
+     */
+    int locate();
+}
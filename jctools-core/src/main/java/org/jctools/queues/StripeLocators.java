@@ -0,0 +1,325 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link StripeLocator} implementations:
+ * <ol>
+ * <li>{@link #threadLocal()}: each thread is assigned a stripe on first use, round robin. Stripes are balanced and a
+ * thread always maps to the same stripe. This is the fallback where the platform does not expose CPU topology.
+ * <li>{@link #threadId()}: the thread id, as used by {@link MpscCompoundQueue}.
+ * <li>{@link #currentCpu()}: the CPU the thread is running on.
+ * <li>{@link #currentSocket()}: the socket (physical package) the thread is running on.
+ * </ol>
+ * The current CPU is read from {@code /proc/thread-self/stat} (Linux only, there's no portable way to get it without
+ * native code). As this is a file read it is sampled once every {@code jctools.stripe.cpuSampleInterval} (default
+ * 1024) calls per thread, so a migrated thread may keep using the stripe of its previous CPU for a while. The file is
+ * read into a buffer kept per thread, but each sample still costs the producer an open, a read and a close system
+ * call.
+ */
+public final class StripeLocators
+{
+    static final int CPU_SAMPLE_INTERVAL = Integer.getInteger("jctools.stripe.cpuSampleInterval", 1024);
+    private static final String THREAD_STAT = "/proc/thread-self/stat";
+    private static final String CPU_DIR = "/sys/devices/system/cpu";
+    // the processor field index in /proc/[pid]/stat, see proc(5)
+    private static final int PROCESSOR_FIELD = 39;
+
+    private static final AtomicInteger THREAD_SEQUENCE = new AtomicInteger();
+    private static final ThreadLocal<int[]> THREAD_STRIPE = new ThreadLocal<int[]>()
+    {
+        @Override
+        protected int[] initialValue()
+        {
+            return new int[]{THREAD_SEQUENCE.getAndIncrement()};
+        }
+    };
+    // the processor field is well within the first 1K, even with 20 digit values in all the fields before it
+    private static final ThreadLocal<byte[]> THREAD_STAT_BUFFER = new ThreadLocal<byte[]>()
+    {
+        @Override
+        protected byte[] initialValue()
+        {
+            return new byte[1024];
+        }
+    };
+    // {cpu, calls left until the next sample}
+    private static final ThreadLocal<int[]> THREAD_CPU = new ThreadLocal<int[]>()
+    {
+        @Override
+        protected int[] initialValue()
+        {
+            return new int[]{-1, 0};
+        }
+    };
+
+    private static final StripeLocator THREAD_LOCAL = new StripeLocator()
+    {
+        @Override
+        public int locate()
+        {
+            return threadStripe();
+        }
+    };
+    private static final StripeLocator THREAD_ID = new StripeLocator()
+    {
+        @Override
+        public int locate()
+        {
+            return (int) Thread.currentThread().getId();
+        }
+    };
+    private static final StripeLocator CURRENT_CPU = new StripeLocator()
+    {
+        @Override
+        public int locate()
+        {
+            final int cpu = currentCpuSample();
+            return cpu < 0 ? threadStripe() : cpu;
+        }
+    };
+
+    private StripeLocators()
+    {
+    }
+
+    public static StripeLocator threadLocal()
+    {
+        return THREAD_LOCAL;
+    }
+
+    public static StripeLocator threadId()
+    {
+        return THREAD_ID;
+    }
+
+    /**
+     * @return a locator of the current CPU, or {@link #threadLocal()} if the current CPU is not available
+     */
+    public static StripeLocator currentCpu()
+    {
+        return readCurrentCpu() < 0 ? THREAD_LOCAL : CURRENT_CPU;
+    }
+
+    /**
+     * @return a locator of the current socket, or {@link #threadLocal()} if the current CPU or the CPU topology are
+     * not available
+     */
+    public static StripeLocator currentSocket()
+    {
+        final int[] cpuSockets = readCpuSockets();
+        if (cpuSockets == null || readCurrentCpu() < 0)
+        {
+            return THREAD_LOCAL;
+        }
+        return new StripeLocator()
+        {
+            @Override
+            public int locate()
+            {
+                final int cpu = currentCpuSample();
+                return cpu < 0 || cpu >= cpuSockets.length ? threadStripe() : cpuSockets[cpu];
+            }
+        };
+    }
+
+    /**
+     * @return the number of sockets, or 1 if the CPU topology is not available
+     */
+    public static int sockets()
+    {
+        final int[] cpuSockets = readCpuSockets();
+        if (cpuSockets == null)
+        {
+            return 1;
+        }
+        int maxSocket = 0;
+        for (int socket : cpuSockets)
+        {
+            maxSocket = Math.max(maxSocket, socket);
+        }
+        return maxSocket + 1;
+    }
+
+    private static int threadStripe()
+    {
+        return THREAD_STRIPE.get()[0];
+    }
+
+    private static int currentCpuSample()
+    {
+        final int[] sample = THREAD_CPU.get();
+        if (--sample[1] < 0)
+        {
+            sample[0] = readCurrentCpu();
+            sample[1] = CPU_SAMPLE_INTERVAL;
+        }
+        return sample[0];
+    }
+
+    /**
+     * @return the current CPU, or -1 if not available
+     */
+    static int readCurrentCpu()
+    {
+        final byte[] stat = THREAD_STAT_BUFFER.get();
+        final int length = read(THREAD_STAT, stat);
+        // the command name may contain spaces and parentheses, so fields are counted from the last ')'
+        int i = length - 1;
+        while (i >= 0 && stat[i] != ')')
+        {
+            i--;
+        }
+        if (i < 0)
+        {
+            return -1;
+        }
+        // the command name is field 2
+        for (int field = 2; field < PROCESSOR_FIELD; field++)
+        {
+            while (i < length && stat[i] != ' ')
+            {
+                i++;
+            }
+            if (++i >= length)
+            {
+                return -1;
+            }
+        }
+        int cpu = 0;
+        int digits = 0;
+        for (; i < length && stat[i] >= '0' && stat[i] <= '9'; i++, digits++)
+        {
+            cpu = cpu * 10 + (stat[i] - '0');
+        }
+        return digits == 0 ? -1 : cpu;
+    }
+
+    /**
+     * @return the number of bytes read into the buffer, up to its length, or -1 if the file can't be read
+     */
+    private static int read(String file, byte[] buffer)
+    {
+        try
+        {
+            final FileInputStream in = new FileInputStream(file);
+            try
+            {
+                int length = 0;
+                int read;
+                while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) > 0)
+                {
+                    length += read;
+                }
+                return length;
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (IOException e)
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the socket of each CPU indexed by CPU number, or null if not available
+     */
+    static int[] readCpuSockets()
+    {
+        final String[] names = new File(CPU_DIR).list();
+        if (names == null)
+        {
+            return null;
+        }
+        int maxCpu = -1;
+        for (String name : names)
+        {
+            maxCpu = Math.max(maxCpu, cpuNumber(name));
+        }
+        if (maxCpu < 0)
+        {
+            return null;
+        }
+        final int[] cpuSockets = new int[maxCpu + 1];
+        for (String name : names)
+        {
+            final int cpu = cpuNumber(name);
+            if (cpu < 0)
+            {
+                continue;
+            }
+            final String socket = readLine(new File(CPU_DIR, name + "/topology/physical_package_id"));
+            if (socket == null)
+            {
+                // offline CPUs have no topology, they also don't run threads
+                continue;
+            }
+            try
+            {
+                cpuSockets[cpu] = Math.max(0, Integer.parseInt(socket.trim()));
+            }
+            catch (NumberFormatException e)
+            {
+                return null;
+            }
+        }
+        return cpuSockets;
+    }
+
+    private static int cpuNumber(String name)
+    {
+        if (!name.startsWith("cpu") || name.length() == 3)
+        {
+            return -1;
+        }
+        for (int i = 3; i < name.length(); i++)
+        {
+            if (!Character.isDigit(name.charAt(i)))
+            {
+                return -1;
+            }
+        }
+        return Integer.parseInt(name.substring(3));
+    }
+
+    private static String readLine(File file)
+    {
+        try
+        {
+            final BufferedReader reader = new BufferedReader(new FileReader(file));
+            try
+            {
+                return reader.readLine();
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+}
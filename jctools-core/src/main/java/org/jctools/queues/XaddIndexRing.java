@@ -0,0 +1,455 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+
+abstract class XaddIndexRingPad0
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+// $gen:ordered-fields
+abstract class XaddIndexRingTailField extends XaddIndexRingPad0
+{
+    private final static long TAIL_OFFSET = fieldOffset(XaddIndexRingTailField.class, "tail");
+
+    private volatile long tail;
+
+    final long lvTail()
+    {
+        return tail;
+    }
+
+    final void soTail(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, TAIL_OFFSET, newValue);
+    }
+
+    final long getAndIncrementTail()
+    {
+        return UNSAFE.getAndAddLong(this, TAIL_OFFSET, 1);
+    }
+
+    final boolean casTail(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, TAIL_OFFSET, expect, newValue);
+    }
+}
+
+abstract class XaddIndexRingPad1 extends XaddIndexRingTailField
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+// $gen:ordered-fields
+abstract class XaddIndexRingHeadField extends XaddIndexRingPad1
+{
+    private final static long HEAD_OFFSET = fieldOffset(XaddIndexRingHeadField.class, "head");
+
+    private volatile long head;
+
+    final long lvHead()
+    {
+        return head;
+    }
+
+    final void soHead(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, HEAD_OFFSET, newValue);
+    }
+
+    final long getAndIncrementHead()
+    {
+        return UNSAFE.getAndAddLong(this, HEAD_OFFSET, 1);
+    }
+}
+
+abstract class XaddIndexRingPad2 extends XaddIndexRingHeadField
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+// $gen:ordered-fields
+abstract class XaddIndexRingThresholdField extends XaddIndexRingPad2
+{
+    private final static long THRESHOLD_OFFSET = fieldOffset(XaddIndexRingThresholdField.class, "threshold");
+
+    private volatile long threshold;
+
+    final long lvThreshold()
+    {
+        return threshold;
+    }
+
+    final void soThreshold(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, THRESHOLD_OFFSET, newValue);
+    }
+
+    final long getAndDecrementThreshold()
+    {
+        return UNSAFE.getAndAddLong(this, THRESHOLD_OFFSET, -1);
+    }
+}
+
+abstract class XaddIndexRingPad3 extends XaddIndexRingThresholdField
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+/**
+ * A bounded MPMC queue of int indexes in [0, capacity), based on the SCQ ring put forward by R. Nikolaev (See <a
+ * href="https://arxiv.org/abs/1908.04511">here</a>). Both ends claim a position with an XADD on the tail/head and then
+ * race only with the opposite end for the entry at that position, never with their own side.<br>
+ * Each entry packs (cycle, safe bit, index) in a long. The ring has twice the entries of the capacity, which lets an
+ * enqueuer that finds its entry unusable skip it and claim another position without ever seeing the ring full, as
+ * long as no more than capacity indexes are offered. The owner of the ring is trusted to uphold that, in
+ * {@link MpmcXaddArrayQueue} the indexes are the slots of the element buffer.<br>
+ * The threshold bounds the number of positions a dequeuer may skip before concluding the ring is empty, it is reset on
+ * every enqueue. This is what stops dequeuers from livelocking an enqueuer by racing ahead of it forever. Unlike the
+ * original, the threshold is also reset just before the enqueue CAS, so a dequeuer which can see an index also has
+ * the threshold to reach it, and {@link #isEmpty()} agrees with {@link #poll()}.
+ */
+final class XaddIndexRing extends XaddIndexRingPad3
+{
+    static final int EMPTY = -1;
+
+    private final long[] entries;
+    private final int order;
+    // index bits are (order + 1) wide, the all ones value doubles as the empty entry marker
+    private final long bottom;
+    private final long safeBit;
+    private final int entryCycleShift;
+    private final long resetThreshold;
+    private final int remapShift;
+
+    /**
+     * @param capacity the number of indexes this ring can hold, a power of 2
+     */
+    XaddIndexRing(int capacity)
+    {
+        order = Integer.numberOfTrailingZeros(capacity);
+        final int ringSize = capacity << 1;
+        bottom = ringSize - 1;
+        safeBit = ringSize;
+        entryCycleShift = order + 2;
+        resetThreshold = 3L * capacity - 1;
+        // spread consecutive positions across cache lines, 8 entries to a line
+        remapShift = order + 1 >= 3 ? order + 1 - 3 : -1;
+        entries = allocateLongArray(ringSize);
+        for (int i = 0; i < ringSize; i++)
+        {
+            // cycle 0, safe and empty
+            spLongElement(entries, calcLongElementOffset(i), safeBit | bottom);
+        }
+        // positions start at cycle 1 so the initial entries are behind every position
+        soHead(ringSize);
+        soTail(ringSize);
+        soThreshold(-1);
+    }
+
+    private long cycle(long position)
+    {
+        return position >>> (order + 1);
+    }
+
+    private long entryCycle(long entry)
+    {
+        return entry >>> entryCycleShift;
+    }
+
+    private int entryIndex(long entry)
+    {
+        return (int) (entry & bottom);
+    }
+
+    long entryOffset(long position)
+    {
+        final long slot = position & bottom;
+        if (remapShift < 0)
+        {
+            return calcLongElementOffset(slot);
+        }
+        return calcLongElementOffset(((slot & 7) << remapShift) | (slot >>> 3));
+    }
+
+    private boolean casEntry(long offset, long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(entries, offset, expect, newValue);
+    }
+
+    /**
+     * Must not be called once capacity indexes are in the ring.
+     */
+    void offer(int index)
+    {
+        final long[] entries = this.entries;
+        while (true)
+        {
+            final long tail = getAndIncrementTail();
+            final long tailCycle = cycle(tail);
+            final long offset = entryOffset(tail);
+            long entry = lvLongElement(entries, offset);
+            while (entryCycle(entry) < tailCycle &&
+                entryIndex(entry) == bottom &&
+                ((entry & safeBit) != 0 || lvHead() <= tail))
+            {
+                // reset before the index is visible too, so a dequeuer seeing it has the threshold to reach it
+                refreshThreshold();
+                if (casEntry(offset, entry, (tailCycle << entryCycleShift) | safeBit | index))
+                {
+                    refreshThreshold();
+                    return;
+                }
+                entry = lvLongElement(entries, offset);
+            }
+            // entry is taken or was closed by a dequeuer, try the next position
+        }
+    }
+
+    private void refreshThreshold()
+    {
+        if (lvThreshold() != resetThreshold)
+        {
+            soThreshold(resetThreshold);
+        }
+    }
+
+    /**
+     * @return the dequeued index, or {@link #EMPTY}
+     */
+    int poll()
+    {
+        if (lvThreshold() < 0)
+        {
+            return EMPTY;
+        }
+        final long[] entries = this.entries;
+        while (true)
+        {
+            final long head = getAndIncrementHead();
+            final long headCycle = cycle(head);
+            final long offset = entryOffset(head);
+            long entry = lvLongElement(entries, offset);
+            while (true)
+            {
+                final long entryCycle = entryCycle(entry);
+                if (entryCycle == headCycle)
+                {
+                    if (entryIndex(entry) == bottom)
+                    {
+                        // closed by peek, no enqueuer can use it anymore
+                        break;
+                    }
+                    // only the safe bit may change under us, the entry is ours to consume
+                    while (!casEntry(offset, entry, entry | bottom))
+                    {
+                        entry = lvLongElement(entries, offset);
+                    }
+                    return entryIndex(entry);
+                }
+                if (entryCycle > headCycle)
+                {
+                    // we were lapped, the entry belongs to a later position
+                    break;
+                }
+                if (closeEntry(offset, entry, headCycle))
+                {
+                    break;
+                }
+                entry = lvLongElement(entries, offset);
+            }
+
+            final long tail = lvTail();
+            if (tail <= head + 1)
+            {
+                catchUp(tail, head + 1);
+                getAndDecrementThreshold();
+                return EMPTY;
+            }
+            if (getAndDecrementThreshold() <= 0)
+            {
+                return EMPTY;
+            }
+        }
+    }
+
+    /**
+     * Stop a late enqueuer from using an entry which is behind the given cycle: an empty entry is moved to the cycle, an
+     * entry still holding an index from an earlier cycle is marked unsafe.
+     *
+     * @return false if the entry changed under us and needs to be re-read
+     */
+    private boolean closeEntry(long offset, long entry, long cycle)
+    {
+        final long closed;
+        if (entryIndex(entry) == bottom)
+        {
+            closed = (cycle << entryCycleShift) | (entry & safeBit) | bottom;
+        }
+        else
+        {
+            closed = entry & ~safeBit;
+        }
+        return entry == closed || casEntry(offset, entry, closed);
+    }
+
+    private void catchUp(long tail, long head)
+    {
+        while (!casTail(tail, head))
+        {
+            head = lvHead();
+            tail = lvTail();
+            if (tail >= head)
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return the index at the given position if it was enqueued there and is not yet dequeued, {@link #EMPTY}
+     * otherwise
+     */
+    int lvIndex(long position)
+    {
+        final long entry = lvLongElement(entries, entryOffset(position));
+        if (entryCycle(entry) == cycle(position) && entryIndex(entry) != bottom)
+        {
+            return entryIndex(entry);
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Find the first index between the head and the tail without dequeuing it. Positions before it which a late
+     * enqueuer could still fill are closed, as a dequeuer would, so that the next dequeue at the head sees the same
+     * index. Like {@link #isEmpty()} the cost is the number of unfilled positions ahead of the first index.
+     *
+     * @return the position of the first index in the ring, or -1 if none was found
+     */
+    long peekPosition()
+    {
+        final long[] entries = this.entries;
+        final long tail = lvTail();
+        for (long position = lvHead(); position < tail; position++)
+        {
+            final long cycle = cycle(position);
+            final long offset = entryOffset(position);
+            long entry = lvLongElement(entries, offset);
+            while (true)
+            {
+                final long entryCycle = entryCycle(entry);
+                if (entryCycle == cycle && entryIndex(entry) != bottom)
+                {
+                    return position;
+                }
+                // only empty entries are closed, marking a taken entry unsafe is left to the dequeuers
+                if (entryCycle >= cycle || entryIndex(entry) != bottom || closeEntry(offset, entry, cycle))
+                {
+                    break;
+                }
+                entry = lvLongElement(entries, offset);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Cheap when the head position holds an index or the head caught up with the tail. Otherwise this walks the
+     * positions claimed by enqueuers which did not fill them (yet), up to the capacity in the worst case.
+     *
+     * @return true if no index between the head and the tail has been fully enqueued
+     */
+    boolean isEmpty()
+    {
+        final long head = lvHead();
+        final long tail = lvTail();
+        if (head >= tail)
+        {
+            return true;
+        }
+        for (long position = head; position < tail; position++)
+        {
+            if (lvIndex(position) != EMPTY)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -126,6 +126,12 @@ public class MpscChunkedAtomicArrayQueue<E> extends MpscChunkedAtomicArrayQueueC
         return length(buffer);
     }
 
+    @Override
+    protected int getShrinkBufferSize(AtomicReferenceArray<E> buffer) {
+        // fixed size chunks, never shrinks
+        return length(buffer);
+    }
+
     @Override
     protected long getCurrentBufferCapacity(long mask) {
         return mask;
@@ -104,6 +104,12 @@ public class MpscUnboundedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArrayQ
         return length(buffer);
     }
 
+    @Override
+    protected int getShrinkBufferSize(AtomicReferenceArray<E> buffer) {
+        // fixed size chunks, never shrinks
+        return length(buffer);
+    }
+
     @Override
     protected long getCurrentBufferCapacity(long mask) {
         return mask;
@@ -35,20 +35,42 @@ public class SpscGrowableAtomicArrayQueue<E> extends BaseSpscLinkedAtomicArrayQu
 
     private final int maxQueueCapacity;
 
+    private final long chunkMask;
+
+    private final long shrinkAfter;
+
     private long lookAheadStep;
 
+    private long lowSinceIndex;
+
     public SpscGrowableAtomicArrayQueue(final int capacity) {
         this(Math.max(8, Pow2.roundToPowerOfTwo(capacity / 8)), capacity);
     }
 
     public SpscGrowableAtomicArrayQueue(final int chunkSize, final int capacity) {
+        this(chunkSize, capacity, 0);
+    }
+
+    /**
+     * A queue which moves back to a buffer of <i>chunkSize</i> once its size has stayed below half the chunk size
+     * for <i>shrinkAfter</i> offers. The size is sampled on the producer cold path, every look ahead step, and the
+     * consumer follows the producer to the smaller buffer as it does on resize.
+     *
+     * @param chunkSize   the initial buffer size, also the size the queue shrinks back to
+     * @param capacity    the maximum capacity
+     * @param shrinkAfter the number of offers the queue size must stay below the watermark before shrinking,
+     *                    0 to never shrink
+     */
+    public SpscGrowableAtomicArrayQueue(final int chunkSize, final int capacity, final int shrinkAfter) {
         RangeUtil.checkGreaterThanOrEqual(capacity, 16, "capacity");
         // minimal chunk size of eight makes sure minimal lookahead step is 2
         RangeUtil.checkGreaterThanOrEqual(chunkSize, 8, "chunkSize");
         maxQueueCapacity = Pow2.roundToPowerOfTwo(capacity);
         int chunkCapacity = Pow2.roundToPowerOfTwo(chunkSize);
         RangeUtil.checkLessThan(chunkCapacity, maxQueueCapacity, "chunkCapacity");
+        this.shrinkAfter = RangeUtil.checkPositiveOrZero(shrinkAfter, "shrinkAfter");
         long mask = chunkCapacity - 1;
+        chunkMask = mask;
         // need extra element to point at next array
         AtomicReferenceArray<E> buffer = allocateRefArray(chunkCapacity + 1);
         producerBuffer = buffer;
@@ -68,6 +90,10 @@ public class SpscGrowableAtomicArrayQueue<E> extends BaseSpscLinkedAtomicArrayQu
             int lookAheadElementOffset = calcCircularRefElementOffset(index + lookAheadStep, mask);
             // Try and look ahead a number of elements so we don't have to do this all the time
             if (null == lvRefElement(buffer, lookAheadElementOffset)) {
+                if (shouldShrink(mask, index)) {
+                    shrink(buffer, index, offset, v, s);
+                    return true;
+                }
                 // joy, there's plenty of room
                 producerBufferLimit = index + lookAheadStep - 1;
                 writeToQueue(buffer, v == null ? s.get() : v, index, offset);
@@ -88,6 +114,8 @@ public class SpscGrowableAtomicArrayQueue<E> extends BaseSpscLinkedAtomicArrayQu
                 // buffer is not full
                 writeToQueue(buffer, v == null ? s.get() : v, index, offset);
             } else {
+                // growing means the queue was full, the low watermark period starts over
+                lowSinceIndex = index;
                 // allocate new buffer of same length
                 final AtomicReferenceArray<E> newBuffer = allocateRefArray((int) (2 * (mask + 1) + 1));
                 producerBuffer = newBuffer;
@@ -125,17 +153,46 @@ public class SpscGrowableAtomicArrayQueue<E> extends BaseSpscLinkedAtomicArrayQu
             if (currConsumerIndex >= firstIndexInCurrentBuffer) {
                 // job done, we've now settled into our final state
                 adjustLookAheadStep(maxCapacity);
+                // the consumer is on this buffer, and publishes its index before clearing the slot it read:
+                // the slot before the consumer index may not be cleared yet
+                if (null != lvRefElement(buffer, offset)) {
+                    return false;
+                }
+                producerBufferLimit = currConsumerIndex + maxCapacity - 1;
             } else // consumer is still on some other buffer
             {
                 // how many elements out of buffer?
                 this.lookAheadStep = (int) (currConsumerIndex - firstIndexInCurrentBuffer);
+                producerBufferLimit = currConsumerIndex + maxCapacity;
             }
-            producerBufferLimit = currConsumerIndex + maxCapacity;
             writeToQueue(buffer, v == null ? s.get() : v, index, offset);
             return true;
         }
     }
 
+    private boolean shouldShrink(long mask, long index) {
+        if (shrinkAfter == 0 || mask == chunkMask) {
+            return false;
+        }
+        // below half the chunk size, so the new buffer has plenty of room until the consumer catches up
+        if (index - lvConsumerIndex() >= (chunkMask + 1) / 2) {
+            lowSinceIndex = index;
+            return false;
+        }
+        return index - lowSinceIndex >= shrinkAfter;
+    }
+
+    private void shrink(final AtomicReferenceArray<E> buffer, final long index, final int offset, final E v, final Supplier<? extends E> s) {
+        final AtomicReferenceArray<E> newBuffer = allocateRefArray((int) (chunkMask + 2));
+        producerBuffer = newBuffer;
+        producerMask = chunkMask;
+        final int offsetInNew = calcCircularRefElementOffset(index, chunkMask);
+        linkOldToNew(index, buffer, offset, newBuffer, offsetInNew, v == null ? s.get() : v);
+        producerBufferLimit = index + chunkMask - 1;
+        adjustLookAheadStep((int) (chunkMask + 1));
+        lowSinceIndex = index;
+    }
+
     private void adjustLookAheadStep(int capacity) {
         lookAheadStep = SpscLookAheadUtil.computeLookAheadStep(capacity);
     }
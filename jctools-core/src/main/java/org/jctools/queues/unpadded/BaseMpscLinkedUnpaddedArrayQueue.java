@@ -150,6 +150,8 @@ abstract class BaseMpscLinkedUnpaddedArrayQueue<E> extends BaseMpscLinkedUnpadde
 
     private static final int QUEUE_RESIZE = 3;
 
+    private static final int QUEUE_SHRINK = 4;
+
     /**
      * @param initialCapacity the queue initial capacity. If chunk size is fixed this will be the chunk size.
      *                        Must be 2 or more.
@@ -221,6 +223,11 @@ abstract class BaseMpscLinkedUnpaddedArrayQueue<E> extends BaseMpscLinkedUnpadde
                     case QUEUE_RESIZE:
                         resize(mask, buffer, pIndex, e, null);
                         return true;
+                    case QUEUE_SHRINK:
+                        if (shrink(mask, buffer, pIndex, producerLimit, e, null)) {
+                            return true;
+                        }
+                        continue;
                 }
             }
             if (casProducerIndex(pIndex, pIndex + 2)) {
@@ -308,7 +315,10 @@ abstract class BaseMpscLinkedUnpaddedArrayQueue<E> extends BaseMpscLinkedUnpadde
         final long cIndex = lvConsumerIndex();
         long bufferCapacity = getCurrentBufferCapacity(mask);
         if (cIndex + bufferCapacity > pIndex) {
-            if (!casProducerLimit(producerLimit, cIndex + bufferCapacity)) {
+            // grab index for shrink -> set lower bit
+            if (shouldShrink(mask, pIndex, cIndex) && casProducerIndex(pIndex, pIndex + 1)) {
+                return QUEUE_SHRINK;
+            } else if (!casProducerLimit(producerLimit, cIndex + bufferCapacity)) {
                 // retry from top
                 return RETRY;
             } else {
@@ -476,6 +486,11 @@ abstract class BaseMpscLinkedUnpaddedArrayQueue<E> extends BaseMpscLinkedUnpadde
                     case QUEUE_RESIZE:
                         resize(mask, buffer, pIndex, null, s);
                         return 1;
+                    case QUEUE_SHRINK:
+                        if (shrink(mask, buffer, pIndex, producerLimit, null, s)) {
+                            return 1;
+                        }
+                        continue;
                 }
             }
             // claim limit slots at once
@@ -637,6 +652,62 @@ abstract class BaseMpscLinkedUnpaddedArrayQueue<E> extends BaseMpscLinkedUnpadde
         soRefElement(oldBuffer, offsetInOld, JUMP);
     }
 
+    /**
+     * Move the producers to a new, smaller, buffer. Unlike {@link #resize} this is not triggered by a full buffer, so a
+     * racing producer may have extended the limit to fit the current buffer: the limit is claimed before the new
+     * buffer is linked, and the shrink is abandoned if that fails.
+     *
+     * @return true if the element was offered to the new buffer, false if the shrink was abandoned
+     */
+    private boolean shrink(long oldMask, E[] oldBuffer, long pIndex, long producerLimit, E e, Supplier<E> s) {
+        final int newBufferLength = getShrinkBufferSize(oldBuffer);
+        final E[] newBuffer;
+        try {
+            newBuffer = allocateRefArray(newBufferLength);
+        } catch (OutOfMemoryError oom) {
+            assert lvProducerIndex() == pIndex + 1;
+            soProducerIndex(pIndex);
+            throw oom;
+        }
+        final int newMask = (newBufferLength - 2) << 1;
+        final long availableInQueue = availableInQueue(pIndex, lvConsumerIndex());
+        // fails if a racing producer extended the limit to fit the current buffer, the new buffer can't honour it
+        if (!casProducerLimit(producerLimit, pIndex + Math.min(newMask, availableInQueue))) {
+            // the buffer is unchanged, so releasing the same index is safe
+            soProducerIndex(pIndex);
+            return false;
+        }
+        producerBuffer = newBuffer;
+        producerMask = newMask;
+        final long offsetInOld = modifiedCalcCircularRefElementOffset(pIndex, oldMask);
+        final long offsetInNew = modifiedCalcCircularRefElementOffset(pIndex, newMask);
+        // element in new array
+        soRefElement(newBuffer, offsetInNew, e == null ? s.get() : e);
+        // buffer linked
+        soRefElement(oldBuffer, nextArrayOffset(oldMask), newBuffer);
+        // make shrink visible to the other producers
+        soProducerIndex(pIndex + 2);
+        // make shrink visible to consumer
+        soRefElement(oldBuffer, offsetInOld, JUMP);
+        return true;
+    }
+
+    /**
+     * Called on the producer slow path when the current buffer has room for more elements, i.e. roughly once per lap
+     * of the current buffer. Queues which support shrinking decide here if the producers should move to the smaller
+     * buffer returned by {@link #getShrinkBufferSize}. Producers may call this concurrently.
+     *
+     * @return true if the producers should move to a smaller buffer
+     */
+    protected boolean shouldShrink(long mask, long pIndex, long cIndex) {
+        return false;
+    }
+
+    /**
+     * @return shrunk buffer size(inclusive of next array pointer), only called once {@link #shouldShrink} agreed
+     */
+    protected abstract int getShrinkBufferSize(E[] buffer);
+
     /**
      * @return next buffer size(inclusive of next array pointer)
      */
@@ -334,6 +334,12 @@ public class MpmcUnpaddedArrayQueue<E> extends MpmcUnpaddedArrayQueueL3Pad<E> {
         } while (true);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Consumer slots are claimed in batches: the sequence array is scanned for a run of ready slots, up to the look
+     * ahead step, and the whole run is claimed with a single consumer index CAS.
+     */
     @Override
     public int drain(Consumer<E> c, int limit) {
         if (null == c)
@@ -351,63 +357,46 @@ public class MpmcUnpaddedArrayQueue<E> extends MpmcUnpaddedArrayQueueL3Pad<E> {
             final int remaining = limit - consumed;
             final int lookAheadStep = Math.min(remaining, maxLookAheadStep);
             final long cIndex = lvConsumerIndex();
-            final long lookAheadIndex = cIndex + lookAheadStep - 1;
-            final long lookAheadSeqOffset = calcCircularLongElementOffset(lookAheadIndex, mask);
-            final long lookAheadSeq = lvLongElement(sBuffer, lookAheadSeqOffset);
-            final long expectedLookAheadSeq = lookAheadIndex + 1;
-            if (lookAheadSeq == expectedLookAheadSeq && casConsumerIndex(cIndex, expectedLookAheadSeq)) {
-                for (int i = 0; i < lookAheadStep; i++) {
-                    final long index = cIndex + i;
-                    final long seqOffset = calcCircularLongElementOffset(index, mask);
-                    final long offset = calcCircularRefElementOffset(index, mask);
-                    final long expectedSeq = index + 1;
-                    while (lvLongElement(sBuffer, seqOffset) != expectedSeq) {
-                    }
-                    final E e = lpRefElement(buffer, offset);
-                    spRefElement(buffer, offset, null);
-                    soLongElement(sBuffer, seqOffset, index + mask + 1);
-                    c.accept(e);
-                }
-                consumed += lookAheadStep;
-            } else {
-                if (lookAheadSeq < expectedLookAheadSeq) {
-                    if (notAvailable(cIndex, mask, sBuffer, cIndex + 1)) {
-                        return consumed;
-                    }
+            final int batch = readySlots(cIndex, lookAheadStep, mask, sBuffer);
+            if (batch == 0) {
+                if (notAvailable(cIndex, mask, sBuffer, cIndex + 1)) {
+                    // empty, or the next producer has not published yet
+                    return consumed;
                 }
-                return consumed + drainOneByOne(c, remaining);
+                // another consumer beat us to it
+                continue;
+            }
+            if (!casConsumerIndex(cIndex, cIndex + batch)) {
+                continue;
+            }
+            // the claimed slots were all seen ready, no need to wait on the producers
+            for (int i = 0; i < batch; i++) {
+                final long index = cIndex + i;
+                final long offset = calcCircularRefElementOffset(index, mask);
+                final E e = lpRefElement(buffer, offset);
+                spRefElement(buffer, offset, null);
+                soLongElement(sBuffer, calcCircularLongElementOffset(index, mask), index + mask + 1);
+                c.accept(e);
             }
+            consumed += batch;
         }
         return limit;
     }
 
-    private int drainOneByOne(Consumer<E> c, int limit) {
-        final long[] sBuffer = sequenceBuffer;
-        final long mask = this.mask;
-        final E[] buffer = this.buffer;
-        long cIndex;
-        long seqOffset;
-        long seq;
-        long expectedSeq;
-        for (int i = 0; i < limit; i++) {
-            do {
-                cIndex = lvConsumerIndex();
-                seqOffset = calcCircularLongElementOffset(cIndex, mask);
-                seq = lvLongElement(sBuffer, seqOffset);
-                expectedSeq = cIndex + 1;
-                if (seq < expectedSeq) {
-                    return i;
-                }
-            } while (// another consumer beat us to it
-            seq > expectedSeq || // failed the CAS
-            !casConsumerIndex(cIndex, cIndex + 1));
-            final long offset = calcCircularRefElementOffset(cIndex, mask);
-            final E e = lpRefElement(buffer, offset);
-            spRefElement(buffer, offset, null);
-            soLongElement(sBuffer, seqOffset, cIndex + mask + 1);
-            c.accept(e);
+    /**
+     * @return the number of consecutive slots from cIndex, up to max, which producers have published
+     */
+    private static int readySlots(long cIndex, int max, long mask, long[] sBuffer) {
+        // producers may publish out of order, so each slot is checked rather than just the last one
+        int ready = 0;
+        while (ready < max) {
+            final long index = cIndex + ready;
+            if (lvLongElement(sBuffer, calcCircularLongElementOffset(index, mask)) != index + 1) {
+                break;
+            }
+            ready++;
         }
-        return limit;
+        return ready;
     }
 
     @Override
@@ -492,7 +481,7 @@ public class MpmcUnpaddedArrayQueue<E> extends MpmcUnpaddedArrayQueueL3Pad<E> {
 
     @Override
     public int drain(Consumer<E> c) {
-        return MessagePassingQueueUtil.drain(this, c);
+        return drain(c, capacity());
     }
 
     @Override
@@ -502,7 +491,7 @@ public class MpmcUnpaddedArrayQueue<E> extends MpmcUnpaddedArrayQueueL3Pad<E> {
 
     @Override
     public void drain(Consumer<E> c, WaitStrategy w, ExitCondition exit) {
-        MessagePassingQueueUtil.drain(this, c, w, exit);
+        MessagePassingQueueUtil.drainInBatches(this, c, w, exit);
     }
 
     @Override
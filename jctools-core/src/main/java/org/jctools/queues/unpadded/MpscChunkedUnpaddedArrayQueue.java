@@ -77,6 +77,12 @@ public class MpscChunkedUnpaddedArrayQueue<E> extends MpscChunkedUnpaddedArrayQu
         return length(buffer);
     }
 
+    @Override
+    protected int getShrinkBufferSize(E[] buffer) {
+        // fixed size chunks, never shrinks
+        return length(buffer);
+    }
+
     @Override
     protected long getCurrentBufferCapacity(long mask) {
         return mask;
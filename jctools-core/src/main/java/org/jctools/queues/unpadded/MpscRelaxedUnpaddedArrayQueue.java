@@ -0,0 +1,703 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.unpadded;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+import org.jctools.util.UnsafeAccess;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+import org.jctools.queues.*;
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.unpadded.JavaParsingUnpaddedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedUnpaddedArrayQueueL0Pad<E> extends AbstractQueue<E> {
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.unpadded.JavaParsingUnpaddedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedUnpaddedArrayQueueActiveCycleIdField<E> extends MpscRelaxedUnpaddedArrayQueueL0Pad<E> {
+
+    private final static long ACTIVE_CYCLE_ID_OFFSET = fieldOffset(MpscRelaxedUnpaddedArrayQueueActiveCycleIdField.class, "activeCycleId");
+
+    private volatile long activeCycleId;
+
+    final long lvActiveCycleId() {
+        return activeCycleId;
+    }
+
+    final boolean casActiveCycleId(long expect, long newValue) {
+        return UNSAFE.compareAndSwapLong(this, ACTIVE_CYCLE_ID_OFFSET, expect, newValue);
+    }
+
+    final void soActiveCycleId(long newValue) {
+        UNSAFE.putOrderedLong(this, ACTIVE_CYCLE_ID_OFFSET, newValue);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.unpadded.JavaParsingUnpaddedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedUnpaddedArrayQueueMidPad<E> extends MpscRelaxedUnpaddedArrayQueueActiveCycleIdField<E> {
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.unpadded.JavaParsingUnpaddedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedUnpaddedArrayQueueProducerLimitField<E> extends MpscRelaxedUnpaddedArrayQueueMidPad<E> {
+
+    private final static long P_LIMIT_OFFSET = fieldOffset(MpscRelaxedUnpaddedArrayQueueProducerLimitField.class, "producerLimit");
+
+    // First unavailable position the producers may claim up to before rereading the consumer position
+    private volatile long producerLimit;
+
+    final long lvProducerLimit() {
+        return producerLimit;
+    }
+
+    final void soProducerLimit(long newValue) {
+        UNSAFE.putOrderedLong(this, P_LIMIT_OFFSET, newValue);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.unpadded.JavaParsingUnpaddedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedUnpaddedArrayQueueL2Pad<E> extends MpscRelaxedUnpaddedArrayQueueProducerLimitField<E> {
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.unpadded.JavaParsingUnpaddedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedUnpaddedArrayQueueConsumerPositionField<E> extends MpscRelaxedUnpaddedArrayQueueL2Pad<E> {
+
+    private final static long C_POSITION_OFFSET = fieldOffset(MpscRelaxedUnpaddedArrayQueueConsumerPositionField.class, "consumerPosition");
+
+    private volatile long consumerPosition;
+
+    final long lvConsumerPosition() {
+        return consumerPosition;
+    }
+
+    final long lpConsumerPosition() {
+        return UNSAFE.getLong(this, C_POSITION_OFFSET);
+    }
+
+    final void soConsumerPosition(long newValue) {
+        UNSAFE.putOrderedLong(this, C_POSITION_OFFSET, newValue);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.unpadded.JavaParsingUnpaddedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedUnpaddedArrayQueueL3Pad<E> extends MpscRelaxedUnpaddedArrayQueueConsumerPositionField<E> {
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.unpadded.JavaParsingUnpaddedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedUnpaddedArrayQueueProducerCycleClaimFields<E> extends MpscRelaxedUnpaddedArrayQueueL3Pad<E> {
+
+    private final static long P_FIRST_CYCLE_CLAIM_OFFSET = fieldOffset(MpscRelaxedUnpaddedArrayQueueProducerCycleClaimFields.class, "producerFirstCycleClaim");
+
+    private final static long P_SECOND_CYCLE_CLAIM_OFFSET = fieldOffset(MpscRelaxedUnpaddedArrayQueueProducerCycleClaimFields.class, "producerSecondCycleClaim");
+
+    // The claims of the 2 cycles, selected by the active cycle index. Only the claim of the active cycle is contended.
+    private volatile long producerFirstCycleClaim;
+
+    private volatile long producerSecondCycleClaim;
+
+    final long lvProducerFirstCycleClaim() {
+        return producerFirstCycleClaim;
+    }
+
+    final void soProducerFirstCycleClaim(long newValue) {
+        UNSAFE.putOrderedLong(this, P_FIRST_CYCLE_CLAIM_OFFSET, newValue);
+    }
+
+    final boolean casProducerFirstCycleClaim(long expect, long newValue) {
+        return UNSAFE.compareAndSwapLong(this, P_FIRST_CYCLE_CLAIM_OFFSET, expect, newValue);
+    }
+
+    final long getAndAddProducerFirstCycleClaim(long delta) {
+        return UNSAFE.getAndAddLong(this, P_FIRST_CYCLE_CLAIM_OFFSET, delta);
+    }
+
+    final long lvProducerSecondCycleClaim() {
+        return producerSecondCycleClaim;
+    }
+
+    final void soProducerSecondCycleClaim(long newValue) {
+        UNSAFE.putOrderedLong(this, P_SECOND_CYCLE_CLAIM_OFFSET, newValue);
+    }
+
+    final boolean casProducerSecondCycleClaim(long expect, long newValue) {
+        return UNSAFE.compareAndSwapLong(this, P_SECOND_CYCLE_CLAIM_OFFSET, expect, newValue);
+    }
+
+    final long getAndAddProducerSecondCycleClaim(long delta) {
+        return UNSAFE.getAndAddLong(this, P_SECOND_CYCLE_CLAIM_OFFSET, delta);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.unpadded.JavaParsingUnpaddedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedUnpaddedArrayQueueL4Pad<E> extends MpscRelaxedUnpaddedArrayQueueProducerCycleClaimFields<E> {
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.unpadded.JavaParsingUnpaddedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ *
+ * A bounded MPSC queue which trades a strict full queue check for less producer contention. This is a port of the
+ * algorithm used by the Aeron publication log buffers:
+ * https://github.com/real-logic/aeron/blob/c715c19852c8455c92e73c3167e7d43021d9a384/aeron-client/src/main/java/io/aeron/Publication.java
+ * <p>
+ * Producers claim slots with a getAndAdd (XADD) on the claim of the active cycle rather than a CAS loop on a shared
+ * producer index, so a claim never fails under contention. The buffer is twice the capacity and split into 2 cycles,
+ * the producer completing a cycle rotates the active cycle. Producers may over-claim while the queue is full or a
+ * rotation is in progress, over-claims are rolled back or retried.
+ * <p>
+ * The relaxed full check means that:
+ * <ul>
+ * <li>{@link #offer(Object)} may report the queue as full when it is not, under heavy contention close to capacity.
+ * <li>Producers falling behind by more than a cycle, due to extreme scheduling delays or too many producers for the
+ * capacity, are detected and fail with an {@link IllegalStateException}. Size the capacity well above the number of
+ * producers.
+ * </ul>
+ * The queue does not support iteration.
+ */
+public class MpscRelaxedUnpaddedArrayQueue<E> extends MpscRelaxedUnpaddedArrayQueueL4Pad<E> implements MessagePassingQueue<E> {
+
+    /**
+     * Note on terminology:
+     *  - position/id: overall progress indicator, not an array index or offset at which to lookup/write.
+     *  - index: for looking up within an array (including the producer cycle claims)
+     *  - offset: for pointer like access using Unsafe
+     *
+     * The producer in this queue operates on cycleId and the producer cycle claims:
+     *  - The cycleId grow monotonically, and the parity bit (cycleIndex) indicated which claim to use
+     *  - The producer cycle claim indicate position in a cycle as well as the originating cycleId. From a claim we can
+     *    calculate the producer overall position as well as the position within a cycle.
+     *
+     * The buffer is split into 2 cycles (matching cycleIndex 0 and 1), allowing the above indicators to control
+     * producer progress on separate counters while maintaining the appearance of a contiguous buffer to the consumer.
+     */
+    private final long mask;
+
+    private final int cycleLength;
+
+    private final int cycleLengthLog2;
+
+    private final E[] buffer;
+
+    private final int positionWithinCycleMask;
+
+    private final int cycleIdBitShift;
+
+    private final long maxCycleId;
+
+    public MpscRelaxedUnpaddedArrayQueue(int capacity) {
+        if (!UnsafeAccess.SUPPORTS_GET_AND_ADD_LONG) {
+            throw new IllegalStateException("Unsafe::getAndAddLong support (JDK 8+) is required for this queue to work");
+        }
+        RangeUtil.checkGreaterThanOrEqual(capacity, 2, "capacity");
+        capacity = Pow2.roundToPowerOfTwo(capacity * 2);
+        this.buffer = allocateRefArray(capacity);
+        this.soConsumerPosition(0);
+        this.soActiveCycleId(0);
+        this.mask = capacity - 1;
+        this.cycleLength = capacity / 2;
+        this.soProducerLimit(this.cycleLength);
+        this.cycleLengthLog2 = Integer.numberOfTrailingZeros(this.cycleLength);
+        // it allows at least 1L << 28 = 268435456 overclaims of the position within a cycle while waiting a rotation
+        // to complete: this would help to increase the cycleId domain with small capacity
+        this.cycleIdBitShift = Math.min(32, Integer.numberOfTrailingZeros(Pow2.roundToPowerOfTwo(this.cycleLength + (1 << 28))));
+        // it is the max position on cycle too
+        this.positionWithinCycleMask = (int) ((1L << this.cycleIdBitShift) - 1);
+        this.maxCycleId = (1L << (Long.SIZE - this.cycleIdBitShift)) - 1;
+        this.soProducerCycleClaim(0, 0);
+        this.soProducerCycleClaim(1, this.cycleLength + 1);
+    }
+
+    private static int activeCycleIndex(long activeCycleId) {
+        return (int) (activeCycleId & 1);
+    }
+
+    private long lvProducerCycleClaim(int cycleIndex) {
+        return cycleIndex == 0 ? lvProducerFirstCycleClaim() : lvProducerSecondCycleClaim();
+    }
+
+    private void soProducerCycleClaim(int cycleIndex, long value) {
+        if (cycleIndex == 0) {
+            soProducerFirstCycleClaim(value);
+        } else {
+            soProducerSecondCycleClaim(value);
+        }
+    }
+
+    private long getAndIncrementProducerCycleClaim(int cycleIndex) {
+        return cycleIndex == 0 ? getAndAddProducerFirstCycleClaim(1) : getAndAddProducerSecondCycleClaim(1);
+    }
+
+    private boolean casProducerCycleClaim(int cycleIndex, long expectedValue, long value) {
+        return cycleIndex == 0 ? casProducerFirstCycleClaim(expectedValue, value) : casProducerSecondCycleClaim(expectedValue, value);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean offer(final E e) {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        // offer can fail only when queue is full, otherwise it retries
+        final int positionOnCycleMask = this.positionWithinCycleMask;
+        final int cycleLengthLog2 = this.cycleLengthLog2;
+        final int cycleLength = this.cycleLength;
+        final int cycleIdBitShift = this.cycleIdBitShift;
+        while (true) {
+            // acquire activeCycleId
+            final long activeCycleId = lvActiveCycleId();
+            final int activeCycleIndex = activeCycleIndex(activeCycleId);
+            // this is a non-committed view of the producer position, but may be out of date when we XADD
+            final long tempCycleClaim = lvProducerCycleClaim(activeCycleIndex);
+            final int tempPositionWithinCycle = positionWithinCycle(tempCycleClaim, positionOnCycleMask);
+            final long tempCycleId = producerClaimCycleId(tempCycleClaim, cycleIdBitShift);
+            if (activeCycleId != tempCycleId || tempPositionWithinCycle > cycleLength) {
+                // this covers the case of either being mid rotation or by some freak scheduling accident missing 2
+                // rotations between activeCycleId load and lvProducerCycleClaim
+                continue;
+            }
+            final long tempPosition = producerPosition(tempPositionWithinCycle, tempCycleId, cycleLengthLog2);
+            // pre-checks are only valid for the temp values, so best effort...
+            if (tempPosition >= lvProducerLimit()) {
+                if (isFull(tempPosition)) {
+                    return false;
+                }
+            }
+            // try to claim on the active cycle (though the activeCycleIndex might be outdated)
+            // release producerCycleClaim[activeCycleIndex]
+            final long producerCycleClaim = getAndIncrementProducerCycleClaim(activeCycleIndex);
+            final int positionWithinCycle = positionWithinCycle(producerCycleClaim, positionOnCycleMask);
+            if (positionWithinCycle == positionOnCycleMask) {
+                // This is an extreme rare case which requires very large numbers of getAndAdd operations to occur while
+                // waiting for rotation, this is also mitigated by the full queue check above and the mid rotation guard
+                // above it.
+                throw new IllegalStateException("Too many over-claims: please enlarge the capacity or reduce the number of producers!\n" + " positionWithinCycle=" + positionWithinCycle);
+            }
+            if (positionWithinCycle < cycleLength) {
+                final long cycleId = producerClaimCycleId(producerCycleClaim, cycleIdBitShift);
+                final boolean slowProducer = cycleId != activeCycleId;
+                // it should fail with a slow producer
+                if (!validateProducerClaim(activeCycleIndex, producerCycleClaim, cycleId, positionWithinCycle, cycleLengthLog2, slowProducer)) {
+                    // the claim has been rollbacked and can be retried
+                    continue;
+                }
+                soCycleElement(buffer, e, activeCycleIndex, positionWithinCycle, cycleLengthLog2);
+                return true;
+            } else if (positionWithinCycle == cycleLength) {
+                final long cycleId = producerClaimCycleId(producerCycleClaim, cycleIdBitShift);
+                rotateCycle(cycleId, cycleIdBitShift, maxCycleId);
+            }
+        }
+    }
+
+    /**
+     * Given the nature of getAndAdd progress on producerPosition and given the potential risk for over claiming it is
+     * quite possible for this method to report a queue which is not full as full.
+     */
+    private boolean isFull(final long producerPosition) {
+        final long consumerPosition = lvConsumerPosition();
+        final long producerLimit = consumerPosition + this.cycleLength;
+        if (producerPosition < producerLimit) {
+            soProducerLimit(producerLimit);
+            return false;
+        } else {
+            return true;
+        }
+    }
+
+    private void rotateCycle(final long claimCycleId, final int cycleIdBitShift, final long maxCycleId) {
+        if (claimCycleId >= maxCycleId) {
+            throw new IllegalStateException("Exhausted cycle id space!");
+        }
+        final long nextCycleId = claimCycleId + 1;
+        final int nextActiveCycleIndex = activeCycleIndex(nextCycleId);
+        // it points at the beginning of the next cycle
+        soProducerCycleClaim(nextActiveCycleIndex, nextCycleId << cycleIdBitShift);
+        // Following this initialisation, a sequence of slow producers claims could trigger several new cycle rotations
+        // before having changed the activeCycleId from claimCycleId to nextCycleId:
+        // detect (and warn) a slow rotation, but enabling the faster ones to make progress, allows the q to not being blocked
+        long cycleId = claimCycleId;
+        // the rotation claimCycleId -> nextCycleId is unique between producers
+        while (!casActiveCycleId(cycleId, nextCycleId)) {
+            cycleId = detectSlowRotation(claimCycleId, nextCycleId);
+        }
+    }
+
+    private long detectSlowRotation(final long claimCycleId, final long nextCycleId) {
+        final long cycleId = lvActiveCycleId();
+        // Another producer has managed to perform a rotation to an higher cycleId?
+        assert cycleId != nextCycleId : "Duplicate rotation!";
+        if (cycleId > nextCycleId) {
+            throw new IllegalStateException("Slow rotation due to producer thread starvation detected: please enlarge the capacity or reduce the number of producers!\n" + "found activeCycleId=" + cycleId + "\n" + "expected activeCycleId=" + claimCycleId + "\n");
+        }
+        return cycleId;
+    }
+
+    /**
+     * Validate a producer claim to find out if is an overclaim (beyond the producer limit).
+     *
+     * @return {@code true} if the claim is valid, {@code false} otherwise.
+     */
+    private boolean validateProducerClaim(final int activeCycleIndex, final long producerCycleClaim, final long cycleId, final int positionOnCycle, final int cycleLengthLog2, final boolean slowProducer) {
+        final long producerPosition = producerPosition(positionOnCycle, cycleId, cycleLengthLog2);
+        final long claimLimit = lvProducerLimit();
+        if (producerPosition >= claimLimit) {
+            // it is really full?
+            if (isFull(producerPosition)) {
+                return fixProducerOverClaim(activeCycleIndex, producerCycleClaim, slowProducer);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It tries to fix a producer overclaim.
+     *
+     * @return {@code true} if the claim is now safe to be used,{@code false} otherwise and is needed to retry the claim.
+     */
+    private boolean fixProducerOverClaim(final int activeCycleIndex, final long producerCycleClaim, final boolean slowProducer) {
+        final long expectedProducerCycleClaim = producerCycleClaim + 1;
+        // try to fix the overclaim bringing it back to a lower or a safe position
+        if (!casProducerCycleClaim(activeCycleIndex, expectedProducerCycleClaim, producerCycleClaim)) {
+            final long currentProducerCycleClaim = lvProducerCycleClaim(activeCycleIndex);
+            // another producer has managed to fix the claim
+            if (currentProducerCycleClaim <= producerCycleClaim) {
+                return false;
+            }
+            if (slowProducer) {
+                validateSlowProducerOverClaim(activeCycleIndex, producerCycleClaim);
+                return true;
+            } else {
+                // the claim cannot be rolled back so It must be used as it is
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Validates a slow producer over-claim throwing {@link IllegalStateException} if the offer on it can't continue.
+     */
+    private void validateSlowProducerOverClaim(final int activeCycleIndex, final long producerCycleClaim) {
+        // the cycle claim is now ok?
+        final long producerPosition = producerPositionFromClaim(producerCycleClaim, positionWithinCycleMask, cycleIdBitShift, cycleLengthLog2);
+        if (isFull(producerPosition)) {
+            // a definitive fail could be declared only if the claim is trying to overwrite something not consumed yet:
+            // isFull is not considering the real occupation of the slot
+            final long consumerPosition = lvConsumerPosition();
+            final long effectiveProducerLimit = consumerPosition + (this.cycleLength * 2l);
+            if (producerPosition >= effectiveProducerLimit) {
+                throw new IllegalStateException("The producer has fallen behind: please enlarge the capacity or reduce the number of producers! \n" + " producerPosition=" + producerPosition + "\n" + " consumerPosition=" + consumerPosition + "\n" + " activeCycleIndex=" + activeCycleIndex + "\n" + " cycleId=" + producerClaimCycleId(producerCycleClaim, cycleIdBitShift) + "\n" + " positionOnCycle=" + positionWithinCycle(producerCycleClaim, positionWithinCycleMask));
+            }
+            // the slot is not occupied: we can write into it
+        }
+        // the claim now is ok: consumers have gone forward enough
+    }
+
+    private void soCycleElement(E[] buffer, E e, int activeCycleIndex, int positionWithinCycle, int cycleLengthLog2) {
+        final int indexInBuffer = calcElementIndexInBuffer(positionWithinCycle, activeCycleIndex, cycleLengthLog2);
+        final long offset = calcRefElementOffset(indexInBuffer);
+        soRefElement(buffer, offset, e);
+    }
+
+    @Override
+    public E poll() {
+        final long consumerPosition = lpConsumerPosition();
+        final long offset = calcCircularRefElementOffset(consumerPosition, this.mask);
+        final E[] buffer = this.buffer;
+        final E e = lvRefElement(buffer, offset);
+        if (null == e) {
+            return pollSlowPath(buffer, offset, consumerPosition);
+        }
+        signalConsumerProgress(consumerPosition, buffer, offset);
+        return e;
+    }
+
+    private void signalConsumerProgress(long consumerPosition, E[] buffer, long offset) {
+        spRefElement(buffer, offset, null);
+        soConsumerPosition(consumerPosition + 1);
+    }
+
+    private E pollSlowPath(final E[] buffer, final long offset, final long consumerPosition) {
+        final int activeCycleIndex = activeCycleIndex(lvActiveCycleId());
+        final long producerCycleClaim = lvProducerCycleClaim(activeCycleIndex);
+        final long producerPosition = producerPositionFromClaim(producerCycleClaim, this.positionWithinCycleMask, this.cycleIdBitShift, this.cycleLengthLog2);
+        if (producerPosition == consumerPosition) {
+            return null;
+        }
+        final E e = spinForElement(buffer, offset);
+        signalConsumerProgress(consumerPosition, buffer, offset);
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        final E[] buffer = this.buffer;
+        final long consumerPosition = lpConsumerPosition();
+        final long offset = calcCircularRefElementOffset(consumerPosition, this.mask);
+        E e = lvRefElement(buffer, offset);
+        if (null == e) {
+            return peekSlowPath(buffer, consumerPosition, offset);
+        }
+        return e;
+    }
+
+    private E peekSlowPath(final E[] buffer, long consumerPosition, long offset) {
+        final int activeCycleIndex = activeCycleIndex(lvActiveCycleId());
+        final long producerCycleClaim = lvProducerCycleClaim(activeCycleIndex);
+        final long producerPosition = producerPositionFromClaim(producerCycleClaim, this.positionWithinCycleMask, this.cycleIdBitShift, this.cycleLengthLog2);
+        if (producerPosition == consumerPosition) {
+            return null;
+        }
+        return spinForElement(buffer, offset);
+    }
+
+    private E spinForElement(final E[] buffer, long offset) {
+        E e;
+        do {
+            e = lvRefElement(buffer, offset);
+        } while (e == null);
+        return e;
+    }
+
+    @Override
+    public int size() {
+        final int cycleIdBitShift = this.cycleIdBitShift;
+        long after = lvConsumerPosition();
+        long producerClaimCycleId;
+        long before;
+        long activeCycleId;
+        int positionWithinCycle;
+        long producerClaim;
+        do {
+            before = after;
+            activeCycleId = lvActiveCycleId();
+            producerClaim = lvProducerCycleClaim(activeCycleIndex(activeCycleId));
+            after = lvConsumerPosition();
+            producerClaimCycleId = producerClaimCycleId(producerClaim, cycleIdBitShift);
+            positionWithinCycle = positionWithinCycle(producerClaim, this.positionWithinCycleMask);
+        } while (positionWithinCycle > this.cycleLength || before != after || activeCycleId != producerClaimCycleId);
+        // need to have a stable consumer and a valid claim
+        final long size = producerPosition(positionWithinCycle, producerClaimCycleId, this.cycleLengthLog2) - after;
+        if (size > mask + 1) {
+            return (int) (mask + 1);
+        } else {
+            return (int) size;
+        }
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) {
+            // if you stare into the void
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int capacity() {
+        return cycleLength;
+    }
+
+    @Override
+    public boolean relaxedOffer(E e) {
+        return offer(e);
+    }
+
+    @Override
+    public E relaxedPoll() {
+        final long consumerPosition = lpConsumerPosition();
+        final long offset = calcCircularRefElementOffset(consumerPosition, this.mask);
+        final E[] buffer = this.buffer;
+        final E e = lvRefElement(buffer, offset);
+        if (e != null) {
+            signalConsumerProgress(consumerPosition, buffer, offset);
+        }
+        return e;
+    }
+
+    @Override
+    public E relaxedPeek() {
+        final long consumerPosition = lpConsumerPosition();
+        final long mask = this.mask;
+        final long offset = calcCircularRefElementOffset(consumerPosition, mask);
+        return lvRefElement(this.buffer, offset);
+    }
+
+    @Override
+    public int drain(Consumer<E> c) {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int fill(Supplier<E> s) {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit) {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+        final E[] buffer = this.buffer;
+        final long mask = this.mask;
+        for (int i = 0; i < limit; i++) {
+            final long consumerPosition = lpConsumerPosition();
+            final long offset = calcCircularRefElementOffset(consumerPosition, mask);
+            E e;
+            if ((e = lvRefElement(buffer, offset)) != null) {
+                signalConsumerProgress(consumerPosition, buffer, offset);
+                c.accept(e);
+            } else {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit) {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+        final int positionOnCycleMask = this.positionWithinCycleMask;
+        final int cycleLengthLog2 = this.cycleLengthLog2;
+        final int cycleLength = this.cycleLength;
+        final int cycleIdBitShift = this.cycleIdBitShift;
+        final E[] buffer = this.buffer;
+        final long maxCycleId = this.maxCycleId;
+        final long maxPositionOnCycle = positionOnCycleMask;
+        int i = 0;
+        while (i < limit) {
+            final int activeCycle = activeCycleIndex(lvActiveCycleId());
+            final long producerActiveCycleClaim = lvProducerCycleClaim(activeCycle);
+            final int positionOnActiveCycle = positionWithinCycle(producerActiveCycleClaim, positionOnCycleMask);
+            final long activeCycleId = producerClaimCycleId(producerActiveCycleClaim, cycleIdBitShift);
+            final long producerPosition = producerPosition(positionOnActiveCycle, activeCycleId, cycleLengthLog2);
+            final long claimLimit = lvProducerLimit();
+            if (producerPosition >= claimLimit) {
+                // it is really full?
+                if (isFull(producerPosition)) {
+                    return i;
+                }
+            }
+            // try to claim on the active cycle
+            final long producerCycleClaim = getAndIncrementProducerCycleClaim(activeCycle);
+            final int positionOnCycle = positionWithinCycle(producerCycleClaim, positionOnCycleMask);
+            if (positionOnCycle >= maxPositionOnCycle) {
+                throw new IllegalStateException("too many over-claims: please enlarge the capacity or reduce the number of producers!");
+            }
+            if (positionOnCycle < cycleLength) {
+                final long cycleId = producerClaimCycleId(producerCycleClaim, cycleIdBitShift);
+                // it is a slow producer?
+                final boolean slowProducer = cycleId != activeCycleId;
+                if (!validateProducerClaim(activeCycle, producerCycleClaim, cycleId, positionOnCycle, cycleLengthLog2, slowProducer)) {
+                    continue;
+                }
+                soCycleElement(buffer, s.get(), activeCycle, positionOnCycle, cycleLengthLog2);
+                i++;
+            } else if (positionOnCycle == cycleLength) {
+                final long cycleId = producerClaimCycleId(producerCycleClaim, cycleIdBitShift);
+                rotateCycle(cycleId, cycleIdBitShift, maxCycleId);
+            }
+        }
+        return i;
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy w, ExitCondition exit) {
+        MessagePassingQueueUtil.drain(this, c, w, exit);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy w, ExitCondition exit) {
+        MessagePassingQueueUtil.fill(this, s, w, exit);
+    }
+
+    private static int positionWithinCycle(long producerCycleClaim, int positionOnCycleMask) {
+        return (int) (producerCycleClaim & positionOnCycleMask);
+    }
+
+    private static long producerClaimCycleId(long producerCycleClaim, int cycleIdBitShift) {
+        return (producerCycleClaim >>> cycleIdBitShift);
+    }
+
+    private static long producerPositionFromClaim(long producerCycleClaim, int positionOnCycleMask, int cycleIdBitShift, int cycleLengthLog2) {
+        final int positionWithinCycle = positionWithinCycle(producerCycleClaim, positionOnCycleMask);
+        final long producerClaimCycleId = producerClaimCycleId(producerCycleClaim, cycleIdBitShift);
+        return producerPosition(positionWithinCycle, producerClaimCycleId, cycleLengthLog2);
+    }
+
+    /**
+     * Convert position in cycle and cycleId into a producer position (monotonically increasing reflection of offers
+     * that is comparable with the consumerPosition to determine size/empty/full)
+     */
+    private static long producerPosition(int positionWithinCycle, long cycleId, int cycleLengthLog2) {
+        return (cycleId << cycleLengthLog2) + positionWithinCycle;
+    }
+
+    /**
+     * Convert [position within cycle, cycleIndex] to index in buffer.
+     */
+    private static int calcElementIndexInBuffer(int positionWithinCycle, int cycleIndex, int cycleLengthLog2) {
+        return (cycleIndex << cycleLengthLog2) + positionWithinCycle;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getName();
+    }
+}
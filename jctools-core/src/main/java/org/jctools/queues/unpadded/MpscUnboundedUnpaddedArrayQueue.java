@@ -55,6 +55,12 @@ public class MpscUnboundedUnpaddedArrayQueue<E> extends BaseMpscLinkedUnpaddedAr
         return length(buffer);
     }
 
+    @Override
+    protected int getShrinkBufferSize(E[] buffer) {
+        // fixed size chunks, never shrinks
+        return length(buffer);
+    }
+
     @Override
     protected long getCurrentBufferCapacity(long mask) {
         return mask;
@@ -282,28 +282,32 @@ public class SpmcUnpaddedArrayQueue<E> extends SpmcUnpaddedArrayQueueL3Pad<E> {
         final E[] buffer = this.buffer;
         final long mask = this.mask;
         long currProducerIndexCache = lvProducerIndexCache();
-        int adjustedLimit = 0;
-        long currentConsumerIndex;
-        do {
-            currentConsumerIndex = lvConsumerIndex();
-            // is there any space in the queue?
-            if (currentConsumerIndex >= currProducerIndexCache) {
-                long currProducerIndex = lvProducerIndex();
-                if (currentConsumerIndex >= currProducerIndex) {
-                    return 0;
-                } else {
-                    currProducerIndexCache = currProducerIndex;
-                    svProducerIndexCache(currProducerIndex);
+        int consumed = 0;
+        while (consumed < limit) {
+            int batch;
+            long currentConsumerIndex;
+            do {
+                currentConsumerIndex = lvConsumerIndex();
+                // is there any space in the queue?
+                if (currentConsumerIndex >= currProducerIndexCache) {
+                    long currProducerIndex = lvProducerIndex();
+                    if (currentConsumerIndex >= currProducerIndex) {
+                        return consumed;
+                    } else {
+                        currProducerIndexCache = currProducerIndex;
+                        svProducerIndexCache(currProducerIndex);
+                    }
                 }
+                // try and claim up to the remaining elements in one go
+                int available = (int) (currProducerIndexCache - currentConsumerIndex);
+                batch = Math.min(available, limit - consumed);
+            } while (!casConsumerIndex(currentConsumerIndex, currentConsumerIndex + batch));
+            for (int i = 0; i < batch; i++) {
+                c.accept(removeElement(buffer, currentConsumerIndex + i, mask));
             }
-            // try and claim up to 'limit' elements in one go
-            int remaining = (int) (currProducerIndexCache - currentConsumerIndex);
-            adjustedLimit = Math.min(remaining, limit);
-        } while (!casConsumerIndex(currentConsumerIndex, currentConsumerIndex + adjustedLimit));
-        for (int i = 0; i < adjustedLimit; i++) {
-            c.accept(removeElement(buffer, currentConsumerIndex + i, mask));
+            consumed += batch;
         }
-        return adjustedLimit;
+        return limit;
     }
 
     @Override
@@ -332,7 +336,7 @@ public class SpmcUnpaddedArrayQueue<E> extends SpmcUnpaddedArrayQueueL3Pad<E> {
 
     @Override
     public int drain(final Consumer<E> c) {
-        return MessagePassingQueueUtil.drain(this, c);
+        return drain(c, capacity());
     }
 
     @Override
@@ -342,7 +346,7 @@ public class SpmcUnpaddedArrayQueue<E> extends SpmcUnpaddedArrayQueueL3Pad<E> {
 
     @Override
     public void drain(final Consumer<E> c, final WaitStrategy w, final ExitCondition exit) {
-        MessagePassingQueueUtil.drain(this, c, w, exit);
+        MessagePassingQueueUtil.drainInBatches(this, c, w, exit);
     }
 
     @Override
@@ -0,0 +1,94 @@
+package org.jctools.counters;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class DynamicStripedLongCounterTest {
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters() {
+        ArrayList<Object[]> list = new ArrayList<>();
+        list.add(new Object[]{1});
+        list.add(new Object[]{4});
+        list.add(new Object[]{64});
+        return list;
+    }
+
+    private final int maxStripes;
+    private final DynamicStripedLongCounter counter;
+
+    public DynamicStripedLongCounterTest(int maxStripes) {
+        this.maxStripes = maxStripes;
+        this.counter = CountersFactory.createDynamicStripedCounter(maxStripes);
+    }
+
+    @Test
+    public void testCounterSanity() {
+        long expected = 1000L;
+        for (int i = 0; i < expected; i++) {
+            counter.inc();
+        }
+        counter.inc(-10);
+        expected -= 10;
+
+        assertSanity(expected);
+        // a single thread never contends
+        assertEquals(0, counter.stripes());
+    }
+
+    @Test
+    public void testMultipleThreadsCounterSanity() throws Exception {
+        int threadsCount = 4;
+        AtomicLong summary = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch finishLatch = new CountDownLatch(threadsCount);
+        AtomicBoolean fail = new AtomicBoolean(false);
+        for (int i = 0; i < threadsCount; i++) {
+            new Thread(() -> {
+                try {
+                    Counter c = counter;
+                    startLatch.await();
+                    long local = 0;
+                    while (running.get()) {
+                        c.inc();
+                        local++;
+                    }
+                    summary.addAndGet(local);
+                } catch (Exception e) {
+                    fail.set(true);
+                }
+                finally {
+                    finishLatch.countDown();
+                }
+            }).start();
+        }
+
+        startLatch.countDown();
+        Thread.sleep(1000);
+        running.set(false);
+        finishLatch.await();
+        assertFalse(fail.get());
+        assertTrue(counter.stripes() <= maxStripes);
+        if (maxStripes == 1) {
+            assertEquals(0, counter.stripes());
+        }
+        assertSanity(summary.get());
+    }
+
+    private void assertSanity(long expected) {
+        assertEquals(expected, counter.get());
+        assertEquals(expected, counter.getAndReset());
+        assertEquals(0L, counter.get());
+    }
+}
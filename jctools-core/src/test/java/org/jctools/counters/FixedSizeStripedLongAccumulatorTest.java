@@ -0,0 +1,77 @@
+package org.jctools.counters;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+public class FixedSizeStripedLongAccumulatorTest {
+
+    private static final int STRIPES = 8;
+
+    @Test
+    public void testMaxSanity() {
+        FixedSizeStripedLongMax max = CountersFactory.createFixedSizeStripedMax(STRIPES);
+        assertEquals(Long.MIN_VALUE, max.get());
+        max.accumulate(-5);
+        max.accumulate(42);
+        max.accumulate(7);
+        assertEquals(42, max.get());
+        assertEquals(42, max.getAndReset());
+        assertEquals(Long.MIN_VALUE, max.get());
+        max.accumulate(3);
+        assertEquals(3, max.get());
+    }
+
+    @Test
+    public void testMinSanity() {
+        FixedSizeStripedLongMin min = CountersFactory.createFixedSizeStripedMin(STRIPES);
+        assertEquals(Long.MAX_VALUE, min.get());
+        min.accumulate(5);
+        min.accumulate(-42);
+        min.accumulate(7);
+        assertEquals(-42, min.get());
+        assertEquals(-42, min.getAndReset());
+        assertEquals(Long.MAX_VALUE, min.get());
+        min.accumulate(3);
+        assertEquals(3, min.get());
+    }
+
+    @Test
+    public void testMultipleThreadsSanity() throws Exception {
+        final FixedSizeStripedLongMax max = new FixedSizeStripedLongMax(STRIPES);
+        final FixedSizeStripedLongMin min = new FixedSizeStripedLongMin(STRIPES);
+        final int threadsCount = 4;
+        final int values = 100_000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final Thread[] threads = new Thread[threadsCount];
+        for (int t = 0; t < threadsCount; t++) {
+            final int thread = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < values; i++) {
+                    long value = random.nextLong(-1000, 1000);
+                    max.accumulate(value);
+                    min.accumulate(value);
+                }
+                // each thread has its own extremes, only one thread holds the overall ones
+                max.accumulate(1000 + thread);
+                min.accumulate(-1000 - thread);
+            });
+            threads[t].start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000 + threadsCount - 1, max.get());
+        assertEquals(-1000 - threadsCount + 1, min.get());
+    }
+}
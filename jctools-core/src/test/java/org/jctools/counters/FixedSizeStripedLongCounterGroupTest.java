@@ -0,0 +1,114 @@
+package org.jctools.counters;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class FixedSizeStripedLongCounterGroupTest {
+
+    private static final int COUNTERS = 100;
+
+    private final FixedSizeStripedLongCounterGroup group = CountersFactory.createFixedSizeStripedCounterGroup(COUNTERS, 8);
+
+    @Test
+    public void testGroupSanity() {
+        assertEquals(COUNTERS, group.counterCount());
+        for (int i = 0; i < COUNTERS; i++) {
+            group.inc(i, i);
+            group.inc(i);
+        }
+        for (int i = 0; i < COUNTERS; i++) {
+            assertEquals(i + 1, group.get(i));
+        }
+        long[] values = new long[COUNTERS + 1];
+        values[COUNTERS] = -1;
+        assertSame(values, group.get(values));
+        for (int i = 0; i < COUNTERS; i++) {
+            assertEquals(i + 1, values[i]);
+        }
+        assertEquals(-1, values[COUNTERS]);
+
+        assertEquals(1, group.getAndReset(0));
+        assertEquals(0, group.get(0));
+        long[] interval = group.getAndReset();
+        assertEquals(0, interval[0]);
+        for (int i = 1; i < COUNTERS; i++) {
+            assertEquals(i + 1, interval[i]);
+        }
+        for (long value : group.get()) {
+            assertEquals(0, value);
+        }
+    }
+
+    @Test
+    public void testCounterView() {
+        Counter counter = group.counter(7);
+        counter.inc();
+        counter.inc(2);
+        assertEquals(3, counter.get());
+        assertEquals(3, group.get(7));
+        assertEquals(0, group.get(6));
+        assertEquals(0, group.get(8));
+        assertEquals(3, counter.getAndReset());
+        assertEquals(0, group.get(7));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCounterOutOfRange() {
+        group.inc(COUNTERS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValuesTooShort() {
+        group.get(new long[COUNTERS - 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSizeTooLarge() {
+        // 2^20 counters in 2^12 stripes need more than 2^32 longs
+        new FixedSizeStripedLongCounterGroup(1 << 20, 1 << 12);
+    }
+
+    @Test
+    public void testMultipleThreadsSanity() throws Exception {
+        final int threadsCount = 4;
+        final int rounds = 10_000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final Thread[] threads = new Thread[threadsCount];
+        for (int t = 0; t < threadsCount; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int r = 0; r < rounds; r++) {
+                    for (int i = 0; i < COUNTERS; i++) {
+                        group.inc(i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        startLatch.countDown();
+        long[] totals = new long[COUNTERS];
+        long[] interval = new long[COUNTERS];
+        // take interval snapshots while counting, no increment is lost or counted twice
+        for (int i = 0; i < 10; i++) {
+            group.getAndReset(interval);
+            for (int c = 0; c < COUNTERS; c++) {
+                totals[c] += interval[c];
+            }
+            Thread.yield();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        group.getAndReset(interval);
+        for (int c = 0; c < COUNTERS; c++) {
+            assertEquals((long) threadsCount * rounds, totals[c] + interval[c]);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.jctools.counters;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class FixedSizeStripedLongHistogramTest {
+
+    @Test
+    public void testBucketLayout() {
+        for (int subBucketBits = 1; subBucketBits <= 10; subBucketBits++) {
+            int previousIndex = -1;
+            long previousHighest = -1;
+            for (long value = 0; value < 1 << 16; value++) {
+                int index = FixedSizeStripedLongHistogram.bucketIndex(value, subBucketBits);
+                long lowest = FixedSizeStripedLongHistogram.lowestEquivalentValue(index, subBucketBits);
+                long highest = FixedSizeStripedLongHistogram.highestEquivalentValue(index, subBucketBits);
+                assertTrue(lowest <= value && value <= highest);
+                if (index != previousIndex) {
+                    // buckets are contiguous and cover contiguous values
+                    assertEquals(previousIndex + 1, index);
+                    assertEquals(previousHighest + 1, lowest);
+                    previousIndex = index;
+                    previousHighest = highest;
+                }
+                if (value >= 1 << subBucketBits) {
+                    // relative error bound
+                    assertTrue((highest - lowest) * (1L << (subBucketBits - 1)) <= value);
+                }
+            }
+        }
+        assertEquals(1216, FixedSizeStripedLongHistogram.bucketIndex(1L << 42, 6));
+        int maxIndex = FixedSizeStripedLongHistogram.bucketIndex(Long.MAX_VALUE, 20);
+        assertEquals(Long.MAX_VALUE, FixedSizeStripedLongHistogram.highestEquivalentValue(maxIndex, 20));
+    }
+
+    @Test
+    public void testHistogramSanity() {
+        FixedSizeStripedLongHistogram histogram = CountersFactory.createFixedSizeStripedHistogram(4, 1_000_000, 7);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        histogram.record(5_000_000);
+
+        FixedSizeStripedLongHistogram.Snapshot snapshot = histogram.get();
+        assertEquals(1001, snapshot.totalCount());
+        assertEquals(histogram.bucketCount(), snapshot.bucketCount());
+        assertEquals(1, snapshot.count(snapshot.bucketCount() - 1));
+        long median = snapshot.valueAtPercentile(50);
+        assertTrue(median >= 500 && median <= 510);
+        long p99 = snapshot.valueAtPercentile(99);
+        assertTrue(p99 >= 990 && p99 <= 1000);
+
+        assertEquals(1001, histogram.getAndReset().totalCount());
+        assertEquals(0, histogram.get().totalCount());
+        assertEquals(0, histogram.get().valueAtPercentile(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeValueIsRejected() {
+        new FixedSizeStripedLongHistogram(1, 100, 4).record(-1);
+    }
+
+    @Test
+    public void testMultipleThreadsSanity() throws Exception {
+        final FixedSizeStripedLongHistogram histogram = new FixedSizeStripedLongHistogram(8, 1L << 30, 6);
+        final int threadsCount = 4;
+        final int values = 100_000;
+        final AtomicLong intervals = new AtomicLong();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final Thread[] threads = new Thread[threadsCount];
+        for (int t = 0; t < threadsCount; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < values; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        startLatch.countDown();
+        // take interval snapshots while recording, no count is lost or counted twice
+        for (int i = 0; i < 10; i++) {
+            intervals.addAndGet(histogram.getAndReset().totalCount());
+            Thread.yield();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        intervals.addAndGet(histogram.getAndReset().totalCount());
+        assertEquals((long) threadsCount * values, intervals.get());
+    }
+}
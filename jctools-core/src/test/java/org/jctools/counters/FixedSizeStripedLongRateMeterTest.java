@@ -0,0 +1,98 @@
+package org.jctools.counters;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.junit.Test;
+
+public class FixedSizeStripedLongRateMeterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    static class ManualClock implements LongSupplier {
+        long now;
+
+        @Override
+        public long getAsLong() {
+            return now;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+
+    private FixedSizeStripedLongRateMeter newMeter(int bucketCount) {
+        return new FixedSizeStripedLongRateMeter(4, bucketCount, 1, TimeUnit.SECONDS, clock);
+    }
+
+    @Test
+    public void testWindowSlides() {
+        FixedSizeStripedLongRateMeter meter = newMeter(4);
+        assertEquals(4, meter.bucketCount());
+        assertEquals(1000, meter.bucketDuration(TimeUnit.MILLISECONDS));
+        assertEquals(0, meter.sum());
+        assertEquals(0d, meter.rate(TimeUnit.SECONDS), 0d);
+
+        // 10 per second for 4 seconds
+        for (int second = 0; second < 4; second++) {
+            clock.now = second * SECOND;
+            meter.inc(10);
+        }
+        clock.now = 4 * SECOND - 1;
+        assertEquals(40, meter.sum());
+        assertEquals(10d, meter.rate(TimeUnit.SECONDS), 0.01);
+
+        // the first second leaves the window
+        clock.now = 4 * SECOND;
+        assertEquals(30, meter.sum());
+        meter.inc(2);
+        assertEquals(32, meter.sum());
+
+        // nothing written for a whole window, stale buckets are ignored
+        clock.now = 20 * SECOND;
+        assertEquals(0, meter.sum());
+        meter.inc();
+        clock.now = 20 * SECOND + SECOND / 2;
+        assertEquals(1, meter.sum());
+        // 1 in 3.5 seconds
+        assertEquals(1d / 3.5, meter.rate(TimeUnit.SECONDS), 0.001);
+    }
+
+    @Test
+    public void testRateBeforeWindowIsFull() {
+        FixedSizeStripedLongRateMeter meter = newMeter(8);
+        meter.inc(50);
+        clock.now = SECOND / 2;
+        assertEquals(100d, meter.rate(TimeUnit.SECONDS), 0.01);
+    }
+
+    @Test
+    public void testMultipleThreadsSanity() throws Exception {
+        final FixedSizeStripedLongRateMeter meter =
+            CountersFactory.createFixedSizeStripedRateMeter(8, 4, 1, TimeUnit.HOURS);
+        final int threadsCount = 4;
+        final int increments = 100_000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final Thread[] threads = new Thread[threadsCount];
+        for (int t = 0; t < threadsCount; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < increments; i++) {
+                    meter.inc();
+                }
+            });
+            threads[t].start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals((long) threadsCount * increments, meter.sum());
+    }
+}
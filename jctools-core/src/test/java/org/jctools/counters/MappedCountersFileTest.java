@@ -0,0 +1,135 @@
+package org.jctools.counters;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedCountersFileTest {
+
+    private static final int CAPACITY = 16;
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("jctools-counters", ".dat");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void testCountersAreVisibleToReader() throws IOException {
+        MappedCountersFile writer = MappedCountersFile.create(file, CAPACITY, 4);
+        Counter requests = writer.newCounter("requests");
+        Counter errors = writer.newCounter("\u00e9rrors");
+        requests.inc();
+        requests.inc(41);
+        errors.inc();
+
+        // a separate mapping of the file, as another process would have
+        MappedCountersFile reader = MappedCountersFile.open(file);
+        assertEquals(CAPACITY, reader.counterCapacity());
+        assertEquals(4, reader.stripesCount());
+        assertTrue(reader.isAllocated(0));
+        assertEquals("requests", reader.label(0));
+        assertEquals(42, reader.value(0));
+        assertEquals("\u00e9rrors", reader.label(1));
+        assertEquals(1, reader.value(1));
+        assertFalse(reader.isAllocated(2));
+        assertNull(reader.label(2));
+        assertEquals(0, reader.value(2));
+
+        requests.inc();
+        assertEquals(43, reader.value(0));
+        assertEquals(43, requests.getAndReset());
+        assertEquals(0, reader.value(0));
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    public void testCreateResetsExistingFile() throws IOException {
+        MappedCountersFile.create(file, CAPACITY, 1).newCounter("stale").inc();
+        MappedCountersFile.create(file, CAPACITY, 1);
+        MappedCountersFile reader = MappedCountersFile.open(file);
+        assertFalse(reader.isAllocated(0));
+        assertEquals(0, reader.value(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCapacityExhausted() throws IOException {
+        MappedCountersFile writer = MappedCountersFile.create(file, 1, 1);
+        writer.newCounter("first");
+        writer.newCounter("second");
+    }
+
+    @Test
+    public void testReaderCannotAllocate() throws IOException {
+        MappedCountersFile writer = MappedCountersFile.create(file, CAPACITY, 1);
+        writer.newCounter("requests").inc();
+        MappedCountersFile reader = MappedCountersFile.open(file);
+        try {
+            reader.newCounter("other");
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+        // the live file is untouched
+        assertEquals("requests", reader.label(0));
+        assertEquals(1, reader.value(0));
+        assertFalse(reader.isAllocated(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLabelTooLong() throws IOException {
+        char[] label = new char[MappedCountersFile.MAX_LABEL_LENGTH + 1];
+        Arrays.fill(label, 'a');
+        MappedCountersFile.create(file, 1, 1).newCounter(new String(label));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOpenUninitializedFile() throws IOException {
+        MappedCountersFile.open(file);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCounterIdOutOfRange() throws IOException {
+        MappedCountersFile.create(file, CAPACITY, 1).value(CAPACITY);
+    }
+
+    @Test
+    public void testMultipleThreadsSanity() throws Exception {
+        final MappedCountersFile writer = MappedCountersFile.create(file, CAPACITY, 8);
+        final Counter counter = writer.newCounter("shared");
+        final int threadsCount = 4;
+        final int increments = 100_000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final Thread[] threads = new Thread[threadsCount];
+        for (int t = 0; t < threadsCount; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < increments; i++) {
+                    counter.inc();
+                }
+            });
+            threads[t].start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals((long) threadsCount * increments, MappedCountersFile.open(file).value(0));
+    }
+}
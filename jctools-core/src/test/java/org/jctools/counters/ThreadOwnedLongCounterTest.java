@@ -0,0 +1,114 @@
+package org.jctools.counters;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class ThreadOwnedLongCounterTest {
+
+    @Test
+    public void testSingleWriterSanity() {
+        SingleWriterLongCounter counter = CountersFactory.createSingleWriterCounter();
+        assertEquals(0, counter.get());
+        counter.inc();
+        counter.inc(41);
+        assertEquals(42, counter.get());
+        assertEquals(42, counter.getAndReset());
+        assertEquals(0, counter.get());
+        counter.inc(-2);
+        assertEquals(-2, counter.get());
+        assertEquals(-2, counter.getAndReset());
+    }
+
+    @Test
+    public void testSingleWriterConcurrentReset() throws Exception {
+        final SingleWriterLongCounter counter = new SingleWriterLongCounter();
+        final int increments = 1_000_000;
+        final AtomicBoolean done = new AtomicBoolean();
+        Thread owner = new Thread(() -> {
+            for (int i = 0; i < increments; i++) {
+                counter.inc();
+            }
+            done.set(true);
+        });
+        owner.start();
+        // resets from another thread never race with the owner increments
+        long total = 0;
+        while (!done.get()) {
+            total += counter.getAndReset();
+        }
+        owner.join();
+        total += counter.getAndReset();
+        assertEquals(increments, total);
+    }
+
+    @Test
+    public void testThreadLocalSanity() {
+        ThreadLocalLongCounter counter = CountersFactory.createThreadLocalCounter();
+        assertEquals(0, counter.cellsCount());
+        assertEquals(0, counter.get());
+        counter.inc();
+        counter.inc(2);
+        assertEquals(1, counter.cellsCount());
+        assertEquals(3, counter.get());
+        assertEquals(3, counter.getAndReset());
+        assertEquals(0, counter.get());
+    }
+
+    @Test
+    public void testThreadLocalMultipleThreadsSanity() throws Exception {
+        final ThreadLocalLongCounter counter = new ThreadLocalLongCounter();
+        final int threadsCount = 4;
+        final int increments = 1_000_000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final Thread[] threads = new Thread[threadsCount];
+        for (int t = 0; t < threadsCount; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < increments; i++) {
+                    counter.inc();
+                }
+            });
+            threads[t].start();
+        }
+        startLatch.countDown();
+        long total = 0;
+        for (int i = 0; i < 10; i++) {
+            total += counter.getAndReset();
+            Thread.yield();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        total += counter.getAndReset();
+        assertEquals((long) threadsCount * increments, total);
+        // the cells of terminated threads are kept until another thread registers
+        assertEquals(threadsCount, counter.cellsCount());
+    }
+
+    @Test
+    public void testThreadLocalFoldsDeadThreadCells() throws Exception {
+        final ThreadLocalLongCounter counter = new ThreadLocalLongCounter();
+        final int generations = 100;
+        for (int g = 0; g < generations; g++) {
+            Thread thread = new Thread(() -> counter.inc(2));
+            thread.start();
+            thread.join();
+        }
+        // each registration drops the cells of the threads which died before it
+        assertEquals(1, counter.cellsCount());
+        assertEquals(2L * generations, counter.get());
+        counter.inc();
+        assertEquals(1, counter.cellsCount());
+        assertEquals(2L * generations + 1, counter.get());
+        assertEquals(2L * generations + 1, counter.getAndReset());
+        assertEquals(0, counter.get());
+    }
+}
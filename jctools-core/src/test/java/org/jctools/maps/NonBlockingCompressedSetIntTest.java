@@ -0,0 +1,153 @@
+package org.jctools.maps;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+public class NonBlockingCompressedSetIntTest {
+
+    @Test
+    public void testBasic() {
+        NonBlockingCompressedSetInt set = new NonBlockingCompressedSetInt();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(1));
+        assertTrue(set.add(Integer.MAX_VALUE));
+        assertTrue(set.add(65536));
+        assertFalse(set.add(1));
+        assertEquals(3, set.size());
+        assertEquals(3, set.containers());
+        assertTrue(set.contains(Integer.MAX_VALUE));
+        assertTrue(set.contains(Integer.valueOf(65536)));
+        assertFalse(set.contains(2));
+        assertFalse(set.contains(-1));
+        assertFalse(set.contains("1"));
+
+        assertTrue(set.remove(65536));
+        assertFalse(set.remove(65536));
+        // emptied array containers are dropped
+        assertEquals(2, set.containers());
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.containers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegative() {
+        new NonBlockingCompressedSetInt().add(-1);
+    }
+
+    @Test
+    public void testPromotionToBitmap() {
+        NonBlockingCompressedSetInt set = new NonBlockingCompressedSetInt();
+        final int base = 7 << 16;
+        // past ARRAY_MAX elements the container is promoted
+        for (int i = 0; i < 2 * NonBlockingCompressedSetInt.ARRAY_MAX; i++) {
+            assertTrue(set.add(base + i * 3));
+        }
+        assertEquals(1, set.containers());
+        assertEquals(2 * NonBlockingCompressedSetInt.ARRAY_MAX, set.size());
+        for (int i = 0; i < 2 * NonBlockingCompressedSetInt.ARRAY_MAX; i++) {
+            assertTrue(set.contains(base + i * 3));
+            assertFalse(set.contains(base + i * 3 + 1));
+        }
+        for (int i = 0; i < 2 * NonBlockingCompressedSetInt.ARRAY_MAX; i++) {
+            assertTrue(set.remove(base + i * 3));
+        }
+        // bitmaps are not demoted, but the set is empty
+        assertEquals(1, set.containers());
+        assertEquals(0, set.size());
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testIterationIsAscending() {
+        NonBlockingCompressedSetInt set = new NonBlockingCompressedSetInt();
+        TreeSet<Integer> expected = new TreeSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // sparse ids, and one dense container
+        for (int i = 0; i < 10_000; i++) {
+            int id = random.nextInt(Integer.MAX_VALUE);
+            expected.add(id);
+            set.add(id);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            expected.add((3 << 16) + i);
+            set.add((3 << 16) + i);
+        }
+        assertEquals(expected.size(), set.size());
+
+        List<Integer> iterated = new ArrayList<>();
+        for (Integer x : set) {
+            iterated.add(x);
+        }
+        assertEquals(new ArrayList<>(expected), iterated);
+
+        final List<Integer> visited = new ArrayList<>();
+        set.forEach(new NonBlockingSetInt.IntConsumer() {
+            @Override
+            public void accept(int i) {
+                visited.add(i);
+            }
+        });
+        assertEquals(iterated, visited);
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        NonBlockingCompressedSetInt set = new NonBlockingCompressedSetInt();
+        for (int i = 0; i < 100; i++) {
+            set.add(i * 1000);
+        }
+        Iterator<Integer> it = set.iterator();
+        while (it.hasNext()) {
+            if (it.next() % 2000 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(50, set.size());
+        assertFalse(set.contains(0));
+        assertTrue(set.contains(1000));
+        try {
+            new NonBlockingCompressedSetInt().iterator().next();
+            fail("expected NoSuchElementException");
+        } catch (NoSuchElementException expected) {
+        }
+    }
+
+    @Test
+    public void testConcurrentAddRemove() throws InterruptedException {
+        final NonBlockingCompressedSetInt set = new NonBlockingCompressedSetInt();
+        final int threadsCount = 4;
+        final int ids = 20_000;
+        Thread[] threads = new Thread[threadsCount];
+        for (int t = 0; t < threadsCount; t++) {
+            final int thread = t;
+            // threads share containers, including ones promoted to bitmaps
+            threads[t] = new Thread(() -> {
+                for (int i = thread; i < ids; i += threadsCount) {
+                    assertTrue(set.add(i));
+                    assertTrue(set.add((1 << 20) + i * 7));
+                }
+                for (int i = thread; i < ids; i += 2 * threadsCount) {
+                    assertTrue(set.remove((1 << 20) + i * 7));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(ids + ids / 2, set.size());
+        for (int i = 0; i < ids; i++) {
+            assertTrue(set.contains(i));
+            assertEquals(i % (2 * threadsCount) >= threadsCount, set.contains((1 << 20) + i * 7));
+        }
+    }
+}
@@ -41,6 +41,21 @@ public class NonBlockingHashMapGuavaTestSuite extends TestCase
             }
         }, NonBlockingHashMap.class.getSimpleName());
 
+        // size() walks the table when the size is not tracked
+        TestSuite untrackedSizeMapSuite = mapTestSuite(new TestStringMapGenerator()
+        {
+            @Override
+            protected Map<String, String> create(Map.Entry<String, String>[] entries)
+            {
+                Map<String, String> map = new NonBlockingHashMap<>(0, SizeTracking.DISABLED);
+                for (Map.Entry<String, String> entry : entries)
+                {
+                    map.put(entry.getKey(), entry.getValue());
+                }
+                return map;
+            }
+        }, NonBlockingHashMap.class.getSimpleName() + "WithoutSizeTracking");
+
         TestSuite idMapSuite = mapTestSuite(new TestStringMapGenerator()
         {
             @Override
@@ -106,6 +121,7 @@ public class NonBlockingHashMapGuavaTestSuite extends TestCase
         }, NonBlockingHashMapLong.class.getSimpleName());
 
         suite.addTest(mapSuite);
+        suite.addTest(untrackedSizeMapSuite);
         suite.addTest(idMapSuite);
         suite.addTest(longMapSuite);
         return suite;
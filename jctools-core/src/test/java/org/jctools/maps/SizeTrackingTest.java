@@ -0,0 +1,232 @@
+package org.jctools.maps;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.junit.Test;
+
+public class SizeTrackingTest {
+
+    private static final int KEYS = 100_000;
+    private static final int CHURN_CYCLES = 2_000_000;
+    // a table sized by its used slots, dead keys included, grows to millions of entries
+    private static final int CHURN_TABLE_LIMIT = 1 << 12;
+    // the identity map needs the same boxed keys
+    private static final Integer[] BOXED_KEYS = new Integer[KEYS];
+
+    static {
+        for (int i = 0; i < KEYS; i++) {
+            BOXED_KEYS[i] = new Integer(i);
+        }
+    }
+
+    @Test
+    public void testDisabledSizeIsExact() {
+        assertExactSize(new NonBlockingHashMap<Integer, Integer>(0, SizeTracking.DISABLED), i -> i);
+        assertExactSize(new NonBlockingIdentityHashMap<Integer, Integer>(0, SizeTracking.DISABLED), i -> BOXED_KEYS[i]);
+        assertExactSize(new NonBlockingHashMapLong<Integer>(0, true, SizeTracking.DISABLED), i -> (long) i);
+    }
+
+    @Test
+    public void testDisabledLongMapCountsZeroKey() {
+        NonBlockingHashMapLong<String> map = new NonBlockingHashMapLong<>(0, false, SizeTracking.DISABLED);
+        map.put(0L, "zero");
+        map.put(1L, "one");
+        assertEquals(2, map.size());
+        map.remove(0L);
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testSampledSizeIsEstimated() {
+        assertEstimatedSize(new NonBlockingHashMap<Integer, Integer>(0, SizeTracking.SAMPLED), i -> i);
+        assertEstimatedSize(new NonBlockingHashMapLong<Integer>(0, true, SizeTracking.SAMPLED), i -> (long) i);
+    }
+
+    @Test
+    public void testSampledIsEmptyWithFewKeys() {
+        assertIsEmpty(new NonBlockingHashMap<Integer, Integer>(0, SizeTracking.SAMPLED), i -> i);
+        assertIsEmpty(new NonBlockingIdentityHashMap<Integer, Integer>(0, SizeTracking.SAMPLED), i -> BOXED_KEYS[i]);
+        assertIsEmpty(new NonBlockingHashMapLong<Integer>(0, true, SizeTracking.SAMPLED), i -> (long) i);
+        NonBlockingHashSetLong set = new NonBlockingHashSetLong(0, SizeTracking.SAMPLED);
+        set.add(0L);
+        assertFalse(set.isEmpty());
+        set.remove(0L);
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testDisabledTableStaysBoundedUnderKeyChurn() throws Exception {
+        NonBlockingHashMap<Integer, Integer> map = new NonBlockingHashMap<>(0, SizeTracking.DISABLED);
+        churn(map, i -> i);
+        assertTrue(map.raw_array().length < CHURN_TABLE_LIMIT);
+
+        NonBlockingIdentityHashMap<Integer, Integer> identityMap = new NonBlockingIdentityHashMap<>(0, SizeTracking.DISABLED);
+        churn(identityMap, i -> BOXED_KEYS[i % KEYS]);
+        assertTrue(((Object[]) field(identityMap, "_kvs")).length < CHURN_TABLE_LIMIT);
+
+        NonBlockingHashMapLong<Integer> longMap = new NonBlockingHashMapLong<>(0, true, SizeTracking.DISABLED);
+        churn(longMap, i -> (long) i);
+        assertTrue(((long[]) field(field(longMap, "_chm"), "_keys")).length < CHURN_TABLE_LIMIT);
+    }
+
+    @Test
+    public void testSampledTableGrowsLikeExact() throws Exception {
+        // the sampled size of a few hundred keys is off by several times, either way
+        for (int keys : new int[] {100, 300, 1_000, 5_000}) {
+            IntFunction<Integer> key = i -> i * 7919;
+            assertEquals(
+                grow(new NonBlockingHashMap<Integer, Integer>(0, SizeTracking.EXACT), keys, key).raw_array().length,
+                grow(new NonBlockingHashMap<Integer, Integer>(0, SizeTracking.SAMPLED), keys, key).raw_array().length);
+            assertEquals(
+                ((Object[]) field(grow(new NonBlockingIdentityHashMap<Integer, Integer>(0, SizeTracking.EXACT), keys, i -> BOXED_KEYS[i]), "_kvs")).length,
+                ((Object[]) field(grow(new NonBlockingIdentityHashMap<Integer, Integer>(0, SizeTracking.SAMPLED), keys, i -> BOXED_KEYS[i]), "_kvs")).length);
+            assertEquals(
+                ((long[]) field(field(grow(new NonBlockingHashMapLong<Integer>(0, true, SizeTracking.EXACT), keys, i -> i * 7919L), "_chm"), "_keys")).length,
+                ((long[]) field(field(grow(new NonBlockingHashMapLong<Integer>(0, true, SizeTracking.SAMPLED), keys, i -> i * 7919L), "_chm"), "_keys")).length);
+        }
+    }
+
+    @Test
+    public void testSampledKeySetLongAndClone() {
+        NonBlockingHashMapLong<Integer> map = new NonBlockingHashMapLong<>(16, true, SizeTracking.SAMPLED);
+        for (int i = 1; i <= 10; i++) {
+            map.put(i, i);
+        }
+        // the sampled size of so few keys is far off, nothing may be dropped
+        long[] keys = map.keySetLong();
+        Arrays.sort(keys);
+        assertArrayEquals(new long[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, keys);
+
+        NonBlockingHashMapLong<Integer> clone = map.clone();
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(Integer.valueOf(i), clone.get(i));
+        }
+        clone.put(11, 11);
+        assertNull(map.get(11));
+    }
+
+    @Test
+    public void testSampledKeySetToArray() {
+        NonBlockingHashMap<Long, Integer> map = new NonBlockingHashMap<>(16, SizeTracking.SAMPLED);
+        for (int i = 1; i <= 10; i++) {
+            map.put((long) i, i);
+        }
+        Long[] keys = map.keySet().toArray(new Long[0]);
+        Arrays.sort(keys);
+        assertArrayEquals(new Long[] {1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L}, keys);
+    }
+
+    @Test
+    public void testClearKeepsSizeTracking() {
+        NonBlockingHashMap<Integer, Integer> map = new NonBlockingHashMap<>(0, SizeTracking.DISABLED);
+        map.put(1, 1);
+        map.clear();
+        assertTrue(map.isEmpty());
+        map.put(2, 2);
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testSet() {
+        NonBlockingHashSet<Integer> set = new NonBlockingHashSet<>(SizeTracking.DISABLED);
+        assertTrue(set.isEmpty());
+        set.add(1);
+        set.add(2);
+        set.add(2);
+        assertEquals(2, set.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullSizeTracking() {
+        new NonBlockingHashMap<Integer, Integer>(0, null);
+    }
+
+    private static <K> void assertExactSize(Map<K, Integer> map, IntFunction<K> key) {
+        assertTrue(map.isEmpty());
+        for (int i = 0; i < KEYS; i++) {
+            map.put(key.apply(i), i);
+        }
+        assertEquals(KEYS, map.size());
+        for (int i = 0; i < KEYS; i += 2) {
+            map.remove(key.apply(i));
+        }
+        assertEquals(KEYS / 2, map.size());
+        // values are checked too, the table survived the resizes without a size
+        for (int i = 1; i < KEYS; i += 2) {
+            assertEquals(Integer.valueOf(i), map.get(key.apply(i)));
+        }
+    }
+
+    // A sliding window of 100 live keys over a stream of short lived ones.  The
+    // last resize time is cleared on every cycle, as if the churn were slow
+    // enough for each resize to clean out the dead keys rather than double the
+    // table, so the table is sized by what the map takes for its live keys.
+    private static <K> void churn(Map<K, Integer> map, IntFunction<K> key) throws ReflectiveOperationException {
+        Field lastResizeMilli = map.getClass().getDeclaredField("_last_resize_milli");
+        lastResizeMilli.setAccessible(true);
+        for (int i = 0; i < CHURN_CYCLES; i++) {
+            map.put(key.apply(i), i);
+            if (i >= 100) {
+                map.remove(key.apply(i - 100));
+            }
+            lastResizeMilli.setLong(map, 0L);
+        }
+        assertEquals(100, map.size());
+    }
+
+    // Fill a map from its minimum size past several resizes.  The last resize
+    // time is cleared on every put, so each resize is sized by the live key
+    // count the map takes rather than doubled for being recent.
+    private static <M extends Map<K, Integer>, K> M grow(M map, int keys, IntFunction<K> key) throws ReflectiveOperationException {
+        Field lastResizeMilli = map.getClass().getDeclaredField("_last_resize_milli");
+        lastResizeMilli.setAccessible(true);
+        for (int i = 0; i < keys; i++) {
+            map.put(key.apply(i), i);
+            lastResizeMilli.setLong(map, 0L);
+        }
+        for (int i = 0; i < keys; i++) {
+            assertEquals(Integer.valueOf(i), map.get(key.apply(i)));
+        }
+        return map;
+    }
+
+    private static Object field(Object o, String name) throws ReflectiveOperationException {
+        Field field = o.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(o);
+    }
+
+    private static <K> void assertIsEmpty(Map<K, Integer> map, IntFunction<K> key) {
+        assertTrue(map.isEmpty());
+        assertTrue(map.keySet().isEmpty());
+        // the sampled size of so few keys is 0 or a multiple of 16, never the truth
+        for (int i = 0; i < 3; i++) {
+            map.put(key.apply(i), i);
+            assertFalse(map.isEmpty());
+            assertFalse(map.values().isEmpty());
+        }
+        for (int i = 0; i < 3; i++) {
+            assertFalse(map.isEmpty());
+            map.remove(key.apply(i));
+        }
+        assertTrue(map.isEmpty());
+        assertTrue(map.entrySet().isEmpty());
+    }
+
+    private static <K> void assertEstimatedSize(Map<K, Integer> map, IntFunction<K> key) {
+        for (int i = 0; i < KEYS; i++) {
+            map.put(key.apply(i), i);
+        }
+        assertEquals(KEYS, map.size(), KEYS / 10);
+        for (int i = 0; i < KEYS; i++) {
+            map.remove(key.apply(i));
+        }
+        // a key is either always or never sampled, removes cancel inserts
+        assertEquals(0, map.size());
+    }
+}
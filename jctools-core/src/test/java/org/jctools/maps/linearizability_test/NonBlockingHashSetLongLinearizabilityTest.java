@@ -0,0 +1,11 @@
+package org.jctools.maps.linearizability_test;
+
+import org.jctools.maps.NonBlockingHashSetLong;
+
+public class NonBlockingHashSetLongLinearizabilityTest extends LincheckSetLongTest
+{
+    public NonBlockingHashSetLongLinearizabilityTest()
+    {
+        super(new NonBlockingHashSetLong());
+    }
+}
@@ -0,0 +1,248 @@
+package org.jctools.maps.nbhs_test;
+
+import java.io.*;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import org.jctools.maps.NonBlockingHashMapLong;
+import org.jctools.maps.NonBlockingHashSetLong;
+import org.jctools.maps.SizeTracking;
+import org.jctools.util.UnsafeAccess;
+
+import static org.junit.Assert.*;
+
+// Test NonBlockingHashSetLong via JUnit
+public class nbhsl_tester
+{
+    // Test some basic stuff; add a few keys, remove a few keys
+    @Test
+    public void testBasic()
+    {
+        NonBlockingHashSetLong nbhsl = new NonBlockingHashSetLong();
+        assertTrue(nbhsl.isEmpty());
+        assertTrue(nbhsl.add(0L));
+        assertTrue(nbhsl.add(Long.MIN_VALUE));
+        assertTrue(nbhsl.add(Long.valueOf(Long.MAX_VALUE)));
+        assertFalse(nbhsl.add(0L));
+        assertEquals(3, nbhsl.size());
+        assertTrue(nbhsl.contains(0L));
+        assertTrue(nbhsl.contains(Long.valueOf(Long.MIN_VALUE)));
+        assertFalse(nbhsl.contains(1L));
+        assertFalse(nbhsl.contains("0"));
+
+        assertTrue(nbhsl.remove(0L));
+        assertFalse(nbhsl.remove(0L));
+        assertTrue(nbhsl.remove(Long.valueOf(Long.MAX_VALUE)));
+        assertFalse(nbhsl.remove(Integer.valueOf(1)));
+        assertEquals(1, nbhsl.size());
+        nbhsl.clear();
+        assertTrue(nbhsl.isEmpty());
+    }
+
+    @Test
+    public void testIteration()
+    {
+        NonBlockingHashSetLong nbhsl = new NonBlockingHashSetLong();
+        Set<Long> expected = new HashSet<>();
+        for (long i = -500; i < 500; i++) {
+            long x = i * 0x100000001L;
+            expected.add(x);
+            nbhsl.add(x);
+        }
+
+        Set<Long> iterated = new HashSet<>();
+        NonBlockingHashSetLong.IteratorLong it = nbhsl.iterator();
+        while (it.hasNext()) {
+            assertTrue(iterated.add(it.nextLong()));
+        }
+        assertEquals(expected, iterated);
+
+        final Set<Long> visited = new HashSet<>();
+        nbhsl.forEach(new NonBlockingHashSetLong.LongConsumer() {
+            @Override
+            public void accept(long i) {
+                assertTrue(visited.add(i));
+            }
+        });
+        assertEquals(expected, visited);
+
+        long[] array = nbhsl.toLongArray();
+        assertEquals(expected.size(), array.length);
+        for (long x : array) {
+            assertTrue(expected.contains(x));
+        }
+
+        // remove the odd elements through the iterator
+        Iterator<Long> remover = nbhsl.iterator();
+        while (remover.hasNext()) {
+            if ((remover.next() & 1) != 0) {
+                remover.remove();
+            }
+        }
+        assertEquals(expected.size() / 2, nbhsl.size());
+        assertFalse(nbhsl.contains(0x100000001L));
+        assertTrue(nbhsl.contains(0x200000002L));
+    }
+
+    @Test
+    public void testSampledToLongArray()
+    {
+        NonBlockingHashSetLong nbhsl = new NonBlockingHashSetLong(16, SizeTracking.SAMPLED);
+        for (long i = 0; i < 40; i++) {
+            nbhsl.add(i);
+        }
+        // the sampled size of so few keys is far off, nothing may be dropped
+        long[] array = nbhsl.toLongArray();
+        Arrays.sort(array);
+        assertEquals(40, array.length);
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i, array[i]);
+        }
+    }
+
+    @Test
+    public void testZeroKeySurvivesResizeAndClear()
+    {
+        NonBlockingHashSetLong nbhsl = new NonBlockingHashSetLong();
+        assertTrue(nbhsl.add(0L));
+        for (long i = 1; i <= 1000; i++) {
+            nbhsl.add(i);
+        }
+        assertTrue(nbhsl.contains(0L));
+        assertEquals(1001, nbhsl.size());
+        assertTrue(nbhsl.remove(0L));
+        assertFalse(nbhsl.contains(0L));
+        assertTrue(nbhsl.add(0L));
+        nbhsl.clear();
+        assertFalse(nbhsl.contains(0L));
+        assertTrue(nbhsl.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentAdd() throws InterruptedException
+    {
+        final NonBlockingHashSetLong nbhsl = new NonBlockingHashSetLong();
+        final int threadsCount = 4;
+        final int elements = 50_000;
+        Thread[] threads = new Thread[threadsCount];
+        for (int t = 0; t < threadsCount; t++) {
+            // all threads add all elements, each is added exactly once
+            threads[t] = new Thread(() -> {
+                for (long i = 0; i < elements; i++) {
+                    nbhsl.add(i << 32);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(elements, nbhsl.size());
+        for (long i = 0; i < elements; i++) {
+            assertTrue(nbhsl.contains(i << 32));
+            assertFalse(nbhsl.add(i << 32));
+        }
+    }
+
+    @Test
+    public void testConcurrentAddRemove() throws InterruptedException
+    {
+        final NonBlockingHashSetLong nbhsl = new NonBlockingHashSetLong();
+        final int threadsCount = 4;
+        final int elements = 50_000;
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[threadsCount];
+        for (int t = 0; t < threadsCount; t++) {
+            final long stripe = t;
+            // each thread adds its own elements, growing the table, and removes the odd ones
+            threads[t] = new Thread(() -> {
+                try {
+                    for (long i = 1; i <= elements; i++) {
+                        assertTrue(nbhsl.add(i * threadsCount + stripe));
+                        if ((i & 1) != 0) {
+                            assertTrue(nbhsl.remove(i * threadsCount + stripe));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("A worker failed", failure.get());
+        }
+        assertEquals(threadsCount * elements / 2, nbhsl.size());
+        for (long i = 1; i <= elements; i++) {
+            for (long t = 0; t < threadsCount; t++) {
+                assertEquals((i & 1) == 0, nbhsl.contains(i * threadsCount + t));
+            }
+        }
+    }
+
+    @Test
+    public void testFootprintSmallerThanMap() throws ReflectiveOperationException
+    {
+        // sized so neither table resizes, both hold the same slots
+        NonBlockingHashSetLong nbhsl = new NonBlockingHashSetLong(1 << 14, SizeTracking.EXACT);
+        NonBlockingHashMapLong<Object> nbhml = new NonBlockingHashMapLong<>(1 << 14);
+        for (long i = 1; i <= 4096; i++) {
+            nbhsl.add(i);
+            nbhml.put(i, "");
+        }
+        Object setTable = field(nbhsl, "_chm");
+        Object mapTable = field(nbhml, "_chm");
+        long[] setKeys = (long[]) field(setTable, "_keys");
+        long[] mapKeys = (long[]) field(mapTable, "_keys");
+        assertEquals(mapKeys.length, setKeys.length);
+
+        long setBytes = arrayBytes(setKeys) + arrayBytes(field(setTable, "_states"));
+        long mapBytes = arrayBytes(mapKeys) + arrayBytes(field(mapTable, "_vals"));
+        // 8.5 bytes a slot against 12 or 16
+        assertTrue(setBytes + " >= " + mapBytes, setBytes * 10 < mapBytes * 8);
+    }
+
+    private static Object field(Object o, String name) throws ReflectiveOperationException
+    {
+        Field field = o.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(o);
+    }
+
+    private static long arrayBytes(Object array)
+    {
+        return UnsafeAccess.UNSAFE.arrayBaseOffset(array.getClass()) +
+            (long) Array.getLength(array) * UnsafeAccess.UNSAFE.arrayIndexScale(array.getClass());
+    }
+
+    @Test
+    public void testSerial() throws IOException, ClassNotFoundException
+    {
+        NonBlockingHashSetLong nbhsl = new NonBlockingHashSetLong();
+        nbhsl.add(7L);
+        nbhsl.add(-7L);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bos);
+        out.writeObject(nbhsl);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        NonBlockingHashSetLong nbhsl2 = (NonBlockingHashSetLong) in.readObject();
+        in.close();
+        assertEquals(nbhsl, nbhsl2);
+        assertTrue(nbhsl2.contains(-7L));
+        assertTrue(nbhsl2.remove(-7L));
+        assertFalse(nbhsl2.contains(-7L));
+    }
+}
@@ -1,7 +1,9 @@
 package org.jctools.maps.nbhs_test;
 
 import java.io.*;
+import java.util.BitSet;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -188,6 +190,128 @@ public class nbsi_tester
         _nbsi.clear();
     }
 
+    @Test
+    public void testBulkOperations()
+    {
+        final NonBlockingSetInt nbsi = new NonBlockingSetInt();
+        // Dense run across several words, including the every-64th elements
+        int[] dense = new int[1000];
+        for (int i = 0; i < dense.length; i++)
+        {
+            dense[i] = 100 + i;
+        }
+        assertTrue(nbsi.addAll(dense));
+        assertFalse(nbsi.addAll(dense));
+        assertFalse(nbsi.addAll(new int[]{127, 191, 1099}));
+        assertTrue(nbsi.addAll(new int[]{63, 5, 70000, 64}));
+        assertThat(nbsi.size(), is(1004));
+        assertThat(nbsi.cardinality(), is(1004));
+        assertTrue(nbsi.containsAll(dense));
+        assertTrue(nbsi.containsAll(new int[]{70000, 5, 63, 64}));
+        assertFalse(nbsi.containsAll(new int[]{5, 6}));
+        assertFalse(nbsi.containsAll(new int[]{-1}));
+        assertFalse(nbsi.containsAll(new int[]{1 << 30}));
+
+        assertThat(nbsi.nextSetBit(0), is(5));
+        assertThat(nbsi.nextSetBit(6), is(63));
+        assertThat(nbsi.nextSetBit(65), is(100));
+        assertThat(nbsi.nextSetBit(1100), is(70000));
+        assertThat(nbsi.nextSetBit(70001), is(-1));
+        assertThat(nbsi.nextSetBit(1 << 30), is(-1));
+
+        // forEach and the iterator agree, in ascending order
+        final StringBuilder visited = new StringBuilder();
+        nbsi.forEach(new NonBlockingSetInt.IntConsumer()
+        {
+            public void accept(int i)
+            {
+                visited.append(i).append(',');
+            }
+        });
+        StringBuilder iterated = new StringBuilder();
+        for (Integer x : nbsi)
+        {
+            iterated.append(x).append(',');
+        }
+        assertEquals(iterated.toString(), visited.toString());
+        assertTrue(visited.toString().startsWith("5,63,64,100,101,"));
+        assertTrue(visited.toString().endsWith("1098,1099,70000,"));
+    }
+
+    @Test
+    public void testUnionIntersect()
+    {
+        NonBlockingSetInt a = new NonBlockingSetInt();
+        NonBlockingSetInt b = new NonBlockingSetInt();
+        a.addAll(new int[]{1, 63, 127, 200});
+        b.addAll(new int[]{63, 127, 128, 5000});
+
+        long[] union = a.union(b);
+        BitSet expected = new BitSet();
+        for (int i : new int[]{1, 63, 127, 128, 200, 5000})
+        {
+            expected.set(i);
+        }
+        assertEquals(expected, BitSet.valueOf(union));
+
+        long[] intersection = a.intersect(b);
+        expected.clear();
+        expected.set(63);
+        expected.set(127);
+        assertEquals(expected, BitSet.valueOf(intersection));
+    }
+
+    @Test
+    public void testConcurrentAddAll() throws InterruptedException
+    {
+        final NonBlockingSetInt nbsi = new NonBlockingSetInt();
+        final int perThread = 100000;
+        // Interleaved runs share words and race with the resizes
+        Thread t1 = new Thread()
+        {
+            public void run()
+            {
+                addRuns(nbsi, 0, perThread);
+            }
+        };
+        t1.start();
+        addRuns(nbsi, 32, perThread);
+        t1.join();
+        assertThat(nbsi.size(), is(2 * perThread));
+        assertThat(nbsi.cardinality(), is(2 * perThread));
+    }
+
+    private static void addRuns(NonBlockingSetInt nbsi, int offset, int count)
+    {
+        int[] run = new int[32];
+        for (int base = 0; base < count * 2; base += 64)
+        {
+            for (int i = 0; i < run.length; i++)
+            {
+                run[i] = base + offset + i;
+            }
+            nbsi.addAll(run);
+        }
+    }
+
+    @Test
+    public void testIteratorExhausted()
+    {
+        NonBlockingSetInt nbsi = new NonBlockingSetInt();
+        nbsi.add(5);
+        Iterator<Integer> it = nbsi.iterator();
+        assertEquals(Integer.valueOf(5), it.next());
+        assertFalse(it.hasNext());
+        try
+        {
+            it.next();
+            fail("expected NoSuchElementException");
+        }
+        catch (NoSuchElementException expected)
+        {
+        }
+    }
+
     // Do some simple concurrent testing
     @Test
     public void testConcurrentSimple() throws InterruptedException
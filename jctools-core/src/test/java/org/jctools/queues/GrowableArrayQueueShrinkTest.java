@@ -0,0 +1,216 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.atomic.SpscGrowableAtomicArrayQueue;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+public class GrowableArrayQueueShrinkTest
+{
+    private static final int CHUNK_SIZE = 8;
+    private static final int CAPACITY = 1024;
+    private static final int SHRINK_AFTER = 256;
+
+    @Test
+    public void spscShouldShrinkBackToChunkSizeOnceDrained()
+    {
+        SpscGrowableArrayQueue<Integer> q = new SpscGrowableArrayQueue<Integer>(CHUNK_SIZE, CAPACITY, SHRINK_AFTER);
+        spike(q, CAPACITY);
+        assertEquals(CAPACITY + 1, producerBufferLength(q));
+
+        trickle(q, 0, 4 * CAPACITY);
+        assertEquals(CHUNK_SIZE + 1, producerBufferLength(q));
+        assertEquals(CHUNK_SIZE + 1, consumerBufferLength(q));
+    }
+
+    @Test
+    public void mpscShouldShrinkBackToInitialCapacityOnceDrained()
+    {
+        MpscGrowableArrayQueue<Integer> q = new MpscGrowableArrayQueue<Integer>(CHUNK_SIZE, CAPACITY, SHRINK_AFTER);
+        spike(q, CAPACITY);
+        assertEquals(CAPACITY + 1, producerBufferLength(q));
+
+        trickle(q, 0, 4 * CAPACITY);
+        assertEquals(CHUNK_SIZE + 1, producerBufferLength(q));
+        assertEquals(CHUNK_SIZE + 1, consumerBufferLength(q));
+    }
+
+    @Test
+    public void spscShouldNotShrinkByDefault()
+    {
+        SpscGrowableArrayQueue<Integer> q = new SpscGrowableArrayQueue<Integer>(CHUNK_SIZE, CAPACITY);
+        spike(q, CAPACITY);
+        trickle(q, 0, 4 * CAPACITY);
+        assertEquals(CAPACITY + 1, producerBufferLength(q));
+    }
+
+    @Test
+    public void mpscShouldNotShrinkByDefault()
+    {
+        MpscGrowableArrayQueue<Integer> q = new MpscGrowableArrayQueue<Integer>(CHUNK_SIZE, CAPACITY);
+        spike(q, CAPACITY);
+        trickle(q, 0, 4 * CAPACITY);
+        assertEquals(CAPACITY + 1, producerBufferLength(q));
+    }
+
+    @Test
+    public void spscShouldKeepOrderWhenShrinkingWithElementsLeftBehind()
+    {
+        SpscGrowableArrayQueue<Integer> q = new SpscGrowableArrayQueue<Integer>(CHUNK_SIZE, CAPACITY, SHRINK_AFTER);
+        shrinkWithElementsLeftBehind(q);
+        assertEquals(CHUNK_SIZE + 1, consumerBufferLength(q));
+    }
+
+    @Test
+    public void mpscShouldKeepOrderWhenShrinkingWithElementsLeftBehind()
+    {
+        MpscGrowableArrayQueue<Integer> q = new MpscGrowableArrayQueue<Integer>(CHUNK_SIZE, CAPACITY, SHRINK_AFTER);
+        shrinkWithElementsLeftBehind(q);
+        assertEquals(CHUNK_SIZE + 1, consumerBufferLength(q));
+    }
+
+    @Test
+    public void mpscShouldRegrowAfterShrinking()
+    {
+        MpscGrowableArrayQueue<Integer> q = new MpscGrowableArrayQueue<Integer>(CHUNK_SIZE, CAPACITY, SHRINK_AFTER);
+        spike(q, CAPACITY);
+        trickle(q, 0, 4 * CAPACITY);
+        assertEquals(CHUNK_SIZE + 1, producerBufferLength(q));
+        q.clear();
+        spike(q, CAPACITY);
+        assertEquals(CAPACITY + 1, producerBufferLength(q));
+    }
+
+    @Test(timeout = 60000)
+    public void spscShouldNotLoseElementsWhenRegrowingConcurrently() throws InterruptedException
+    {
+        shouldNotLoseElementsWhenRegrowingConcurrently(new SpscGrowableArrayQueue<Integer>(CHUNK_SIZE, 8192, 64));
+        shouldNotLoseElementsWhenRegrowingConcurrently(new SpscGrowableAtomicArrayQueue<Integer>(CHUNK_SIZE, 8192, 64));
+    }
+
+    private static int producerBufferLength(BaseSpscLinkedArrayQueue<?> q)
+    {
+        return q.producerBuffer.length;
+    }
+
+    private static int consumerBufferLength(BaseSpscLinkedArrayQueue<?> q)
+    {
+        return q.consumerBuffer.length;
+    }
+
+    private static int producerBufferLength(BaseMpscLinkedArrayQueue<?> q)
+    {
+        return q.producerBuffer.length;
+    }
+
+    private static int consumerBufferLength(BaseMpscLinkedArrayQueue<?> q)
+    {
+        return q.consumerBuffer.length;
+    }
+
+    private static void spike(MessagePassingQueue<Integer> q, int capacity)
+    {
+        for (int i = 0; i < capacity; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        assertFalse(q.offer(capacity));
+        for (int i = 0; i < capacity; i++)
+        {
+            assertEquals(i, q.poll().intValue());
+        }
+        assertNull(q.poll());
+    }
+
+    private static void shouldNotLoseElementsWhenRegrowingConcurrently(final MessagePassingQueue<Integer> q)
+        throws InterruptedException
+    {
+        // filling up to capacity after every shrink takes the queue back to max capacity over and over
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicInteger produced = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            final int[] next = {0};
+            while (!stop.get())
+            {
+                int items = q.fill(() -> next[0]++);
+                produced.lazySet(next[0]);
+                LockSupport.parkNanos(items);
+            }
+        });
+        producer.start();
+        int expected = 0;
+        try
+        {
+            final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (System.nanoTime() < end)
+            {
+                Integer e = q.poll();
+                if (e != null)
+                {
+                    assertEquals(expected++, e.intValue());
+                }
+                // a lost element leaves the queue stuck, not empty with nothing to poll
+                if (!q.isEmpty() && (e = q.poll()) != null)
+                {
+                    assertEquals(expected++, e.intValue());
+                }
+            }
+        }
+        finally
+        {
+            stop.set(true);
+            producer.join();
+        }
+        Integer e;
+        while ((e = q.poll()) != null)
+        {
+            assertEquals(expected++, e.intValue());
+        }
+        assertEquals("elements lost", produced.get(), expected);
+    }
+
+    private static int trickle(MessagePassingQueue<Integer> q, int first, int count)
+    {
+        int polled = first;
+        for (int i = first; i < first + count; i++)
+        {
+            assertTrue(q.offer(i));
+            // keep a couple of elements in the queue, below the watermark
+            if (q.size() > 2)
+            {
+                assertEquals(polled++, q.poll().intValue());
+            }
+        }
+        return polled;
+    }
+
+    private static void shrinkWithElementsLeftBehind(MessagePassingQueue<Integer> q)
+    {
+        spike(q, CAPACITY);
+        int next = trickle(q, 0, 4 * CAPACITY);
+        Integer e;
+        while ((e = q.poll()) != null)
+        {
+            assertEquals(next++, e.intValue());
+        }
+        assertEquals(4 * CAPACITY, next);
+    }
+}
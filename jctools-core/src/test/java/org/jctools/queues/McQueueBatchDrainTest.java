@@ -0,0 +1,116 @@
+package org.jctools.queues;
+
+import org.jctools.queues.atomic.MpmcAtomicArrayQueue;
+import org.jctools.queues.atomic.SpmcAtomicArrayQueue;
+import org.jctools.queues.unpadded.MpmcUnpaddedArrayQueue;
+import org.jctools.queues.unpadded.SpmcUnpaddedArrayQueue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class McQueueBatchDrainTest
+{
+    private static final int CAPACITY = 1024;
+    private static final int ELEMENTS = 200_000;
+    private static final int CONSUMERS = 4;
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        return Arrays.asList(new Object[][]{
+            {new MpmcArrayQueue<Integer>(CAPACITY)},
+            {new MpmcAtomicArrayQueue<Integer>(CAPACITY)},
+            {new MpmcUnpaddedArrayQueue<Integer>(CAPACITY)},
+            {new SpmcArrayQueue<Integer>(CAPACITY)},
+            {new SpmcAtomicArrayQueue<Integer>(CAPACITY)},
+            {new SpmcUnpaddedArrayQueue<Integer>(CAPACITY)}});
+    }
+
+    private final MessagePassingQueue<Integer> queue;
+
+    public McQueueBatchDrainTest(MessagePassingQueue<Integer> queue)
+    {
+        this.queue = queue;
+    }
+
+    @Test
+    public void drainShouldTakeUpToLimitInOrder()
+    {
+        queue.clear();
+        for (int i = 0; i < 100; i++)
+        {
+            assertTrue(queue.offer(i));
+        }
+        final List<Integer> drained = new ArrayList<Integer>();
+        assertEquals(60, queue.drain(drained::add, 60));
+        assertEquals(40, queue.drain(drained::add, 60));
+        assertEquals(0, queue.drain(drained::add, 60));
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals(i, drained.get(i).intValue());
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void concurrentDrainsShouldTakeEachElementOnce() throws InterruptedException
+    {
+        queue.clear();
+        final AtomicIntegerArray seen = new AtomicIntegerArray(ELEMENTS);
+        final AtomicInteger consumed = new AtomicInteger();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final Thread[] consumers = new Thread[CONSUMERS];
+        for (int t = 0; t < CONSUMERS; t++)
+        {
+            consumers[t] = new Thread(() -> {
+                final int[] last = {-1};
+                final MessagePassingQueue.Consumer<Integer> c = e -> {
+                    // a single producer, so each consumer sees increasing elements
+                    if (e <= last[0])
+                    {
+                        failure.compareAndSet(null, "out of order: " + e + " after " + last[0]);
+                    }
+                    last[0] = e;
+                    seen.incrementAndGet(e);
+                };
+                while (consumed.get() < ELEMENTS && failure.get() == null)
+                {
+                    final int drained = queue.drain(c, 16);
+                    if (drained == 0)
+                    {
+                        Thread.yield();
+                    }
+                    consumed.addAndGet(drained);
+                }
+            });
+            consumers[t].start();
+        }
+        for (int i = 0; i < ELEMENTS; i++)
+        {
+            while (!queue.relaxedOffer(i))
+            {
+                Thread.yield();
+            }
+        }
+        for (Thread consumer : consumers)
+        {
+            consumer.join();
+        }
+        assertNull(failure.get());
+        assertTrue(queue.isEmpty());
+        for (int i = 0; i < ELEMENTS; i++)
+        {
+            assertEquals("element " + i, 1, seen.get(i));
+        }
+    }
+}
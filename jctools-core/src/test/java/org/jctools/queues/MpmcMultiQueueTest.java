@@ -0,0 +1,71 @@
+package org.jctools.queues;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class MpmcMultiQueueTest
+{
+    @Test
+    public void ringCountShouldBeCappedByCapacity()
+    {
+        assertEquals(4, new MpmcMultiQueue<Integer>(8, 16, 1).ringCount());
+        assertEquals(8, new MpmcMultiQueue<Integer>(64, 5, 1).ringCount());
+    }
+
+    @Test
+    public void offerShouldSpillToOtherRingsUntilAllAreFull()
+    {
+        final MpmcMultiQueue<Integer> q = new MpmcMultiQueue<Integer>(64, 8, 1000);
+        // a sticky producer keeps offering to one ring, which holds 8 elements
+        for (int i = 0; i < 64; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        assertFalse(q.offer(64));
+        assertEquals(64, q.size());
+
+        final Set<Integer> polled = new HashSet<Integer>();
+        Integer e;
+        while ((e = q.poll()) != null)
+        {
+            assertTrue(polled.add(e));
+        }
+        assertEquals(64, polled.size());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void pollShouldFollowPeek()
+    {
+        final MpmcMultiQueue<Integer> q = new MpmcMultiQueue<Integer>(64, 8, 1);
+        for (int i = 0; i < 32; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        for (int i = 0; i < 32; i++)
+        {
+            final Integer peeked = q.peek();
+            assertNotNull(peeked);
+            assertEquals(peeked, q.poll());
+        }
+        assertNull(q.peek());
+    }
+
+    @Test
+    public void elementsShouldBeFifoPerRing()
+    {
+        final MpmcMultiQueue<Integer> q = new MpmcMultiQueue<Integer>(64, 1, 1);
+        for (int i = 0; i < 64; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        for (int i = 0; i < 64; i++)
+        {
+            assertEquals(i, q.poll().intValue());
+        }
+    }
+}
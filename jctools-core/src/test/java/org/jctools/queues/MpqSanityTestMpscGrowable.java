@@ -30,6 +30,9 @@ public class MpqSanityTestMpscGrowable extends MpqSanityTest
         list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscGrowableAtomicArrayQueue<>(8, SIZE)));// MPSC size SIZE
         list.add(makeParams(0, 1, 4, Ordering.FIFO, new MpscGrowableUnpaddedArrayQueue<>(2, 4)));// MPSC size 1
         list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscGrowableUnpaddedArrayQueue<>(8, SIZE)));// MPSC size SIZE
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscGrowableArrayQueue<>(8, SIZE, 64)));// MPSC shrinking
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscGrowableAtomicArrayQueue<>(8, SIZE, 64)));// MPSC shrinking
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscGrowableUnpaddedArrayQueue<>(8, SIZE, 64)));// MPSC shrinking
         return list;
     }
 }
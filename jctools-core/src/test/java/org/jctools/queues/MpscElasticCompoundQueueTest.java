@@ -0,0 +1,71 @@
+package org.jctools.queues;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MpscElasticCompoundQueueTest
+{
+    @Test
+    public void shouldStartWithASingleStripe()
+    {
+        MpscElasticCompoundQueue<Integer> q = new MpscElasticCompoundQueue<Integer>(64, 8);
+        assertEquals(1, q.activeStripes());
+        assertEquals(1, q.lvUsedStripes());
+        assertEquals(64, q.capacity());
+    }
+
+    @Test
+    public void shouldSpillToOtherStripesWhenFullAndConsumeThem()
+    {
+        MpscElasticCompoundQueue<Integer> q = new MpscElasticCompoundQueue<Integer>(8, 4);
+        for (int i = 0; i < 8; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        assertFalse(q.offer(8));
+        assertEquals(1, q.activeStripes());
+        assertEquals(4, q.lvUsedStripes());
+
+        int sum = 0;
+        for (int i = 0; i < 8; i++)
+        {
+            Integer e = q.poll();
+            assertNotNull(e);
+            sum += e;
+        }
+        assertNull(q.poll());
+        assertEquals(28, sum);
+
+        // retired once the consumer adapts
+        pollWindow(q);
+        assertEquals(1, q.lvUsedStripes());
+    }
+
+    @Test
+    public void shouldShrinkWhenContentionSubsides()
+    {
+        MpscElasticCompoundQueue<Integer> q = new MpscElasticCompoundQueue<Integer>(64, 8);
+        // simulate a past growth
+        assertTrue(q.casUsedStripes(1, 4));
+        assertTrue(q.casActiveStripes(1, 4));
+        assertTrue(q.offer(1));
+
+        pollWindow(q);
+        assertEquals(2, q.activeStripes());
+        assertTrue(q.lvUsedStripes() >= 2);
+
+        pollWindow(q);
+        assertEquals(1, q.activeStripes());
+        assertEquals(1, q.lvUsedStripes());
+        assertTrue(q.isEmpty());
+    }
+
+    private static void pollWindow(MpscElasticCompoundQueue<Integer> q)
+    {
+        for (int i = 0; i < MpscElasticCompoundQueue.ADAPT_WINDOW; i++)
+        {
+            q.poll();
+        }
+    }
+}
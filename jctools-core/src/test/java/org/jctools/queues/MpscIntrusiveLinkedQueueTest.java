@@ -0,0 +1,254 @@
+package org.jctools.queues;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class MpscIntrusiveLinkedQueueTest
+{
+    private static final int SIZE = 8192;
+
+    static final class TestNode extends IntrusiveLinkedQueueNode
+    {
+        final int producer;
+        final int value;
+
+        TestNode(int value)
+        {
+            this(0, value);
+        }
+
+        TestNode(int producer, int value)
+        {
+            this.producer = producer;
+            this.value = value;
+        }
+    }
+
+    private final MpscIntrusiveLinkedQueue<TestNode> queue = new MpscIntrusiveLinkedQueue<TestNode>();
+    private final TestNode[] nodes = new TestNode[SIZE];
+
+    @Before
+    public void setUp()
+    {
+        for (int i = 0; i < SIZE; i++)
+        {
+            nodes[i] = new TestNode(i);
+        }
+    }
+
+    @Test
+    public void whenFirstInThenFirstOut()
+    {
+        for (int round = 0; round < 2; round++)
+        {
+            assertTrue(queue.isEmpty());
+            assertNull(queue.peek());
+            assertNull(queue.poll());
+            for (int i = 0; i < SIZE; i++)
+            {
+                assertTrue(queue.offer(nodes[i]));
+                assertEquals(i + 1, queue.size());
+            }
+            int i = 0;
+            TestNode prev;
+            while ((prev = queue.peek()) != null)
+            {
+                final TestNode e = queue.poll();
+                assertSame(prev, e);
+                assertEquals(i++, e.value);
+                assertEquals(SIZE - i, queue.size());
+            }
+            assertEquals(SIZE, i);
+        }
+    }
+
+    @Test
+    public void polledNodeCanBeOfferedAgain()
+    {
+        final TestNode node = nodes[0];
+        for (int i = 0; i < 10; i++)
+        {
+            queue.offer(node);
+            assertFalse(queue.isEmpty());
+            assertEquals(1, queue.size());
+            assertSame(node, queue.poll());
+            assertTrue(queue.isEmpty());
+            assertEquals(0, queue.size());
+        }
+        queue.offer(nodes[0]);
+        queue.offer(nodes[1]);
+        assertSame(nodes[0], queue.poll());
+        queue.offer(nodes[0]);
+        assertSame(nodes[1], queue.poll());
+        assertSame(nodes[0], queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void offerNullResultsInNPE()
+    {
+        queue.offer(null);
+    }
+
+    @Test
+    public void drainAndFillShouldKeepOrder()
+    {
+        final int[] next = {0};
+        assertEquals(100, queue.fill(() -> nodes[next[0]++], 100));
+        assertEquals(100, queue.size());
+        queue.offer(nodes[next[0]++]);
+
+        final List<TestNode> drained = new ArrayList<TestNode>();
+        assertEquals(60, queue.drain(drained::add, 60));
+        assertEquals(41, queue.drain(drained::add, 60));
+        assertEquals(0, queue.drain(drained::add, 60));
+        assertTrue(queue.isEmpty());
+        for (int i = 0; i < 101; i++)
+        {
+            assertSame(nodes[i], drained.get(i));
+        }
+        // drained nodes can be queued again
+        assertEquals(50, queue.fill(() -> drained.remove(0), 50));
+        assertEquals(50, queue.drain(e -> {}));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 60000)
+    public void concurrentOffersShouldBePolledOnceInProducerOrder() throws InterruptedException
+    {
+        final int producers = 3;
+        final int perProducer = 100_000;
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++)
+        {
+            final int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                {
+                    queue.offer(new TestNode(producer, i));
+                }
+            });
+            threads[p].start();
+        }
+        final int[] last = new int[producers];
+        Arrays.fill(last, -1);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final MessagePassingQueue.Consumer<TestNode> c = e -> {
+            if (e.value != last[e.producer] + 1)
+            {
+                failure.compareAndSet(null, "producer " + e.producer + ": " + e.value + " after " + last[e.producer]);
+            }
+            last[e.producer] = e.value;
+        };
+        int consumed = 0;
+        boolean drain = false;
+        while (consumed < producers * perProducer && failure.get() == null)
+        {
+            // alternate between single polls and batch drains
+            if (drain)
+            {
+                consumed += queue.drain(c, 32);
+            }
+            else
+            {
+                final TestNode e = queue.poll();
+                if (e != null)
+                {
+                    c.accept(e);
+                    consumed++;
+                }
+            }
+            drain = !drain;
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertNull(failure.get());
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testHappensBefore() throws Exception
+    {
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicInteger fail = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            while (!stop.get())
+            {
+                for (int i = 1; i <= 10; i++)
+                {
+                    queue.offer(new TestNode(i));
+                }
+                // slow down the producer, this will make the queue mostly empty encouraging visibility issues.
+                Thread.yield();
+            }
+        });
+        Thread consumer = new Thread(() -> {
+            while (!stop.get())
+            {
+                for (int i = 0; i < 10; i++)
+                {
+                    TestNode v = queue.peek();
+                    if (v != null && v.value == 0)
+                    {
+                        fail.set(1);
+                        stop.set(true);
+                    }
+                    queue.poll();
+                }
+            }
+        });
+
+        producer.start();
+        consumer.start();
+        Thread.sleep(1000);
+        stop.set(true);
+        producer.join();
+        consumer.join();
+        assertThat("reordering detected", fail.get(), is(0));
+    }
+
+    @Test
+    public void testSize() throws Exception
+    {
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicInteger fail = new AtomicInteger();
+        Thread offerPoll = new Thread(() -> {
+            while (!stop.get())
+            {
+                queue.offer(nodes[0]);
+                queue.poll();
+            }
+        });
+        Thread sizeReader = new Thread(() -> {
+            while (!stop.get())
+            {
+                int size = queue.size();
+                if (size != 0 && size != 1)
+                {
+                    fail.set(size);
+                }
+            }
+        });
+
+        offerPoll.start();
+        sizeReader.start();
+        Thread.sleep(1000);
+        stop.set(true);
+        offerPoll.join();
+        sizeReader.join();
+        assertEquals("Unexpected size observed", 0, fail.get());
+    }
+}
@@ -0,0 +1,80 @@
+package org.jctools.queues;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class MpscStripedQueueTest
+{
+    @Test
+    public void drainShouldTakeBatchesFromEachStripeInTurn()
+    {
+        final int[] stripe = new int[1];
+        final MpscStripedQueue<Integer> q = new MpscStripedQueue<Integer>(64, 2, new StripeLocator()
+        {
+            @Override
+            public int locate()
+            {
+                return stripe[0];
+            }
+        }, 2);
+        for (int i = 0; i < 6; i++)
+        {
+            stripe[0] = 0;
+            assertTrue(q.offer(i));
+            stripe[0] = 1;
+            assertTrue(q.offer(100 + i));
+        }
+
+        final List<Integer> drained = new ArrayList<Integer>();
+        assertEquals(5, q.drain(new MessagePassingQueue.Consumer<Integer>()
+        {
+            @Override
+            public void accept(Integer e)
+            {
+                drained.add(e);
+            }
+        }, 5));
+        // the batch is resumed by the following poll
+        drained.add(q.poll());
+        drained.add(q.poll());
+        drained.add(q.poll());
+        assertEquals(Arrays.asList(0, 1, 100, 101, 2, 3, 102, 103), drained);
+        assertEquals(4, q.size());
+    }
+
+    @Test
+    public void offerShouldFallBackToOtherStripesWhenLocatedStripeIsFull()
+    {
+        final MpscStripedQueue<Integer> q = new MpscStripedQueue<Integer>(8, 2, new StripeLocator()
+        {
+            @Override
+            public int locate()
+            {
+                return 1;
+            }
+        }, MpscStripedQueue.DEFAULT_DRAIN_BATCH);
+        for (int i = 0; i < 8; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        assertFalse(q.offer(8));
+        assertEquals(8, q.size());
+    }
+
+    @Test
+    public void currentCpuShouldBeReadWhereAvailable()
+    {
+        assumeTrue(new File("/proc/thread-self/stat").exists());
+        assertThat(StripeLocators.readCurrentCpu(), greaterThanOrEqualTo(0));
+        assertNotNull(StripeLocators.readCpuSockets());
+        assertThat(StripeLocators.sockets(), greaterThanOrEqualTo(1));
+    }
+}
@@ -0,0 +1,31 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import static org.jctools.util.TestUtil.makeParams;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpscElasticCompound extends QueueSanityTest
+{
+    public QueueSanityTestMpscElasticCompound(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(0, 1, 8, Ordering.NONE, new MpscElasticCompoundQueue<Integer>(8, 4)));
+        list.add(makeParams(0, 1, SIZE, Ordering.NONE, new MpscElasticCompoundQueue<Integer>(SIZE, 4)));
+        list.add(makeParams(0, 1, SIZE, Ordering.NONE, new MpscElasticCompoundQueue<Integer>(SIZE)));
+        return list;
+    }
+}
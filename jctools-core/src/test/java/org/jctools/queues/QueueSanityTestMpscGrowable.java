@@ -25,6 +25,7 @@ public class QueueSanityTestMpscGrowable extends QueueSanityTestMpscArray
         ArrayList<Object[]> list = new ArrayList<Object[]>();
         list.add(makeParams(0, 1, 4, Ordering.FIFO, new MpscGrowableArrayQueue<>(2, 4)));// MPSC size 1
         list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscGrowableArrayQueue<>(8, SIZE)));// MPSC size SIZE
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscGrowableArrayQueue<>(8, SIZE, 64)));// MPSC shrinking
         return list;
     }
 }
@@ -0,0 +1,36 @@
+package org.jctools.queues;
+
+import org.jctools.queues.atomic.MpscRelaxedAtomicArrayQueue;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.unpadded.MpscRelaxedUnpaddedArrayQueue;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import static org.jctools.util.TestUtil.*;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpscRelaxedArray extends QueueSanityTestMpscArray
+{
+    public QueueSanityTestMpscRelaxedArray(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(0, 1, 2, Ordering.FIFO, new MpscRelaxedArrayQueue<Integer>(2)));// MPSC size 2
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscRelaxedArrayQueue<Integer>(SIZE)));// MPSC size SIZE
+        list.add(makeParams(0, 1, 2, Ordering.FIFO, new MpscRelaxedAtomicArrayQueue<Integer>(2)));// MPSC size 2
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscRelaxedAtomicArrayQueue<Integer>(SIZE)));// MPSC size SIZE
+        list.add(makeParams(0, 1, 2, Ordering.FIFO, new MpscRelaxedUnpaddedArrayQueue<Integer>(2)));// MPSC size 2
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscRelaxedUnpaddedArrayQueue<Integer>(SIZE)));// MPSC size SIZE
+        return list;
+    }
+}
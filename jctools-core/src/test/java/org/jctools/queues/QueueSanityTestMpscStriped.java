@@ -0,0 +1,36 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import static org.jctools.util.TestUtil.makeParams;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpscStriped extends QueueSanityTest
+{
+    public QueueSanityTestMpscStriped(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(0, 1, 8, Ordering.NONE,
+            new MpscStripedQueue<Integer>(8, 4, StripeLocators.threadLocal(), 2)));
+        list.add(makeParams(0, 1, SIZE, Ordering.NONE,
+            new MpscStripedQueue<Integer>(SIZE, 4, StripeLocators.threadLocal(), 2)));
+        list.add(makeParams(0, 1, SIZE, Ordering.NONE,
+            new MpscStripedQueue<Integer>(SIZE)));
+        list.add(makeParams(0, 1, SIZE, Ordering.NONE,
+            new MpscStripedQueue<Integer>(SIZE, 2, StripeLocators.currentSocket(), MpscStripedQueue.DEFAULT_DRAIN_BATCH)));
+        return list;
+    }
+}
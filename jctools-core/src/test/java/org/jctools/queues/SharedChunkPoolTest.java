@@ -0,0 +1,84 @@
+package org.jctools.queues;
+
+import org.junit.Test;
+
+import static org.jctools.util.UnsafeRefArrayAccess.REF_ELEMENT_SHIFT;
+import static org.junit.Assert.*;
+
+public class SharedChunkPoolTest
+{
+    @Test
+    public void shouldPoolBuffersPerChunkSize()
+    {
+        SharedChunkPool pool = new SharedChunkPool(1 << 20);
+        assertNull(pool.acquire(16));
+        assertEquals(1, pool.misses());
+
+        Object[] buffer = new Object[16];
+        assertTrue(pool.release(buffer));
+        assertTrue(pool.pooledBytes() > 0);
+        assertNull(pool.acquire(32));
+        assertSame(buffer, pool.acquire(16));
+        assertEquals(1, pool.hits());
+        assertEquals(2, pool.misses());
+        assertEquals(0, pool.pooledBytes());
+    }
+
+    @Test
+    public void shouldRejectBuffersBeyondTheCap()
+    {
+        SharedChunkPool pool = new SharedChunkPool(16L << REF_ELEMENT_SHIFT);
+        assertTrue(pool.release(new Object[16]));
+        assertFalse(pool.release(new Object[16]));
+        assertEquals(pool.maxPooledBytes(), pool.pooledBytes());
+        assertNotNull(pool.acquire(16));
+        assertTrue(pool.release(new Object[16]));
+    }
+
+    @Test
+    public void shouldRejectBuffersWhichAreNotCleared()
+    {
+        SharedChunkPool pool = new SharedChunkPool(1 << 20);
+        Object[] buffer = new Object[16];
+        buffer[15] = 1;
+        assertFalse(pool.release(buffer));
+        assertEquals(0, pool.pooledBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPowerOf2ChunkSize()
+    {
+        new SharedChunkPool(1 << 20).acquire(3);
+    }
+
+    @Test
+    public void queuesShouldBorrowReleasedChunks()
+    {
+        SharedChunkPool pool = new SharedChunkPool(1 << 20);
+        MpscUnboundedXaddArrayQueue<Integer> mpsc = new MpscUnboundedXaddArrayQueue<Integer>(4, 0, pool);
+        MpmcUnboundedXaddArrayQueue<Integer> mpmc = new MpmcUnboundedXaddArrayQueue<Integer>(4, 0, pool);
+        assertSame(pool, mpsc.sharedChunkPool());
+        // go through a few chunks, returning them to the pool
+        for (int i = 0; i < 64; i++)
+        {
+            assertTrue(mpsc.offer(i));
+        }
+        for (int i = 0; i < 64; i++)
+        {
+            assertEquals(i, mpsc.poll().intValue());
+        }
+        assertTrue(pool.pooledBytes() > 0);
+        long hits = pool.hits();
+        for (int i = 0; i < 64; i++)
+        {
+            assertTrue(mpmc.offer(i));
+        }
+        assertTrue(pool.hits() > hits);
+        for (int i = 0; i < 64; i++)
+        {
+            assertEquals(i, mpmc.poll().intValue());
+        }
+        assertNull(mpmc.poll());
+        assertNull(mpsc.poll());
+    }
+}